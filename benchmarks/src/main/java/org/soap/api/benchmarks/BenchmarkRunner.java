@@ -0,0 +1,59 @@
+/**
+ * The BenchmarkRunner file is responsible for running the benchmarks and saving their results as JSON.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The BenchmarkRunner class is the entry point of the benchmark jar. It accepts
+ * the standard JMH command line options and, unless a result file is given,
+ * saves the results as JSON in the results directory under a name made from
+ * the time of the run, so successive runs can be compared.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Directory the JSON results are saved to, relative to the working directory.
+	 */
+	public static final String RESULTS_DIRECTORY = "results";
+
+	/**
+	 * Runs the benchmarks selected on the command line, or all of them.
+	 *
+	 * @param args The JMH command line options.
+	 * @throws Exception If the options are invalid or a benchmark fails to run.
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+				|| commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getResult().hasValue()) {
+			Path results = Paths.get(RESULTS_DIRECTORY);
+			Files.createDirectories(results);
+			String name = "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+					+ ".json";
+			options.resultFormat(ResultFormatType.JSON).result(results.resolve(name).toString());
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,550 @@
+/**
+ * The ConformanceCheck file is responsible for checking that the two endpoint implementations reply byte for byte alike.
+ */
+package org.soap.api.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The ConformanceCheck class publishes the service twice, once with the JAXB
+ * endpoint and once with the StAX endpoint selected by the soap.endpoint
+ * property, each in its own JVM on its own copy of a generated dataset. It
+ * then sends both the same fixed sequence of requests, covering every
+ * operation with valid and invalid arguments, once asking for text XML, once
+ * for FastInfoset and once as an MTOM message, and fetches the WSDL and its
+ * schemas.
+ *
+ * <p>
+ * Every reply must match the other endpoint's byte for byte, status code and
+ * content type included. The only exceptions are the port in the WSDL's
+ * address, the random UUIDs that MTOM uses for MIME boundaries and
+ * content IDs, and the order of the lines of the WSDL and its schemas: the
+ * runtime declares operations, messages and types in the order reflection
+ * lists the service's methods, which changes from one JVM to the next. Each
+ * difference is printed, and the check exits with status 1 if there were any.
+ * </p>
+ *
+ * <p>
+ * Options are given as name=value arguments:
+ * </p>
+ * <ul>
+ * <li>rows: size of the generated dataset (default 10000)</li>
+ * <li>port: local port of the JAXB endpoint; the StAX endpoint uses the next
+ * one (default 7780)</li>
+ * </ul>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class ConformanceCheck {
+
+	/**
+	 * Namespace of the service's operations.
+	 */
+	private static final String NAMESPACE = "http://server.api.soap.org/";
+
+	/**
+	 * Path the service is published on.
+	 */
+	private static final String PATH = "/190931/people";
+
+	/**
+	 * Seconds to wait for a published service to answer.
+	 */
+	private static final int START_SECONDS = 60;
+
+	/**
+	 * Documents fetched from each endpoint besides the replies.
+	 */
+	private static final String[] METADATA = { "wsdl", "xsd=1", "xsd=2" };
+
+	/**
+	 * MIME boundary of MTOM requests.
+	 */
+	private static final String BOUNDARY = "uuid:conformance";
+
+	/**
+	 * The random UUIDs in MTOM replies.
+	 */
+	private static final Pattern UUID = Pattern
+			.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+	/**
+	 * The ways a request is sent.
+	 */
+	private enum Encoding {
+
+		/**
+		 * Text XML, asking for a text XML reply.
+		 */
+		XML,
+
+		/**
+		 * Text XML, asking for a FastInfoset reply.
+		 */
+		FASTINFOSET,
+
+		/**
+		 * An MTOM message, which is answered with one.
+		 */
+		MTOM
+	}
+
+	private final int rows; // Number of members in the dataset.
+
+	private final int port; // Port of the JAXB endpoint.
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(10)).build(); // Client sending the requests.
+
+	/**
+	 * Constructs a check from name=value options.
+	 *
+	 * @param options The options.
+	 * @throws IllegalArgumentException If an option is unknown or invalid.
+	 */
+	ConformanceCheck(Map<String, String> options) {
+		Map<String, String> remaining = new LinkedHashMap<>(options);
+		rows = Integer.parseInt(remaining.getOrDefault("rows", "10000"));
+		port = Integer.parseInt(remaining.getOrDefault("port", "7780"));
+		remaining.remove("rows");
+		remaining.remove("port");
+		if (!remaining.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + remaining.keySet());
+		}
+		if (rows <= 0) {
+			throw new IllegalArgumentException("rows must be positive");
+		}
+	}
+
+	/**
+	 * Publishes both endpoints, compares their replies and exits with status 1 if
+	 * any differ.
+	 *
+	 * @param args The name=value options.
+	 * @throws Exception If an endpoint cannot be started or reached.
+	 */
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals < 0) {
+				throw new IllegalArgumentException("Options must be name=value but got " + arg);
+			}
+			options.put(arg.substring(arg.startsWith("--") ? 2 : 0, equals), arg.substring(equals + 1));
+		}
+		int differences = new ConformanceCheck(options).run();
+		System.exit(differences == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Starts both endpoints, compares them and stops them again.
+	 *
+	 * @return The number of replies that differ.
+	 * @throws Exception If an endpoint cannot be started or reached.
+	 */
+	int run() throws Exception {
+		Path dataset = Datasets.csv(rows);
+		Process jaxb = start("jaxb", dataset, port);
+		try {
+			Process stax = start("stax", dataset, port + 1);
+			try {
+				awaitStarted(jaxb, port);
+				awaitStarted(stax, port + 1);
+				return compare();
+			} finally {
+				stax.destroy();
+				stax.waitFor();
+			}
+		} finally {
+			jaxb.destroy();
+			jaxb.waitFor();
+		}
+	}
+
+	/**
+	 * Publishes the service in a new JVM on a fresh copy of the dataset, with
+	 * the same class path as this one.
+	 *
+	 * @param endpoint The endpoint implementation, jaxb or stax.
+	 * @param dataset  The generated dataset.
+	 * @param port     The local port to publish on.
+	 * @return The JVM's process.
+	 * @throws IOException If the dataset cannot be copied or the JVM started.
+	 */
+	private static Process start(String endpoint, Path dataset, int port) throws IOException {
+		Path working = dataset.resolveSibling("conformance-" + endpoint + ".csv");
+		Files.copy(dataset, working, StandardCopyOption.REPLACE_EXISTING);
+		Files.deleteIfExists(Paths.get(working + ".wal"));
+		Files.deleteIfExists(Paths.get(working + ".snapshot"));
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		return new ProcessBuilder(java, "-Dsoap.endpoint=" + endpoint, "-Dsoap.csv=" + working,
+				"-Dsoap.address=" + address(port), "-cp", System.getProperty("java.class.path"),
+				"org.soap.api.server.DatabaseServerPublisher")
+				.redirectErrorStream(true).redirectOutput(new File(working + ".log")).start();
+	}
+
+	/**
+	 * Waits until a published service serves its WSDL.
+	 *
+	 * @param process The JVM the service runs in.
+	 * @param port    The port it is published on.
+	 * @throws Exception If the JVM exits or the service does not answer in time.
+	 */
+	private void awaitStarted(Process process, int port) throws Exception {
+		long deadline = System.nanoTime() + Duration.ofSeconds(START_SECONDS).toNanos();
+		while (System.nanoTime() < deadline) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException("The service on port " + port + " exited with status "
+						+ process.exitValue());
+			}
+			try {
+				if (get(port, "wsdl").statusCode() == 200) {
+					return;
+				}
+			} catch (ConnectException e) {
+				// Not listening yet.
+			}
+			Thread.sleep(200);
+		}
+		throw new IllegalStateException("The service on port " + port + " did not start in time");
+	}
+
+	/**
+	 * Sends every request to both endpoints and fetches their metadata, printing
+	 * each reply that differs.
+	 *
+	 * @return The number of replies that differ.
+	 * @throws Exception If an endpoint cannot be reached.
+	 */
+	private int compare() throws Exception {
+		int differences = 0;
+		int compared = 0;
+		List<String[]> requests = requests();
+		for (int i = 0; i < requests.size(); i++) {
+			String[] request = requests.get(i);
+			for (Encoding encoding : Encoding.values()) {
+				String name = String.format("%02d %s (%s)", i, request[0], encoding.name().toLowerCase(Locale.ROOT));
+				HttpResponse<byte[]> expected = post(port, request[1], encoding);
+				HttpResponse<byte[]> actual = post(port + 1, request[1], encoding);
+				differences += check(name, expected, actual, false);
+				compared++;
+			}
+		}
+		for (String query : METADATA) {
+			differences += check("?" + query, get(port, query), get(port + 1, query), true);
+			compared++;
+		}
+		System.out.printf("%d of %d replies differ%n", differences, compared);
+		return differences;
+	}
+
+	/**
+	 * Compares two replies and prints where they first differ.
+	 *
+	 * @param name     The name of the request.
+	 * @param expected The JAXB endpoint's reply.
+	 * @param actual   The StAX endpoint's reply.
+	 * @param metadata Whether the reply is a document that names its address.
+	 * @return 1 if the replies differ, otherwise 0.
+	 */
+	private int check(String name, HttpResponse<byte[]> expected, HttpResponse<byte[]> actual, boolean metadata) {
+		byte[] expectedBody = expected.body();
+		byte[] actualBody = actual.body();
+		if (metadata) {
+			expectedBody = new String(expectedBody, StandardCharsets.UTF_8)
+					.replace(address(port), address(port + 1)).getBytes(StandardCharsets.UTF_8);
+		}
+		String expectedType = withoutUuids(expected.headers().firstValue("Content-Type").orElse(""));
+		String actualType = withoutUuids(actual.headers().firstValue("Content-Type").orElse(""));
+		if (expectedType.startsWith("multipart/")) {
+			expectedBody = withoutUuids(expectedBody);
+			actualBody = withoutUuids(actualBody);
+		}
+		if (expected.statusCode() != actual.statusCode()) {
+			System.out.printf("DIFFERS %s: status %d, expected %d%n", name, actual.statusCode(),
+					expected.statusCode());
+			return 1;
+		}
+		if (!expectedType.equals(actualType)) {
+			System.out.printf("DIFFERS %s: content type %s, expected %s%n", name, actualType, expectedType);
+			return 1;
+		}
+		int mismatch = Arrays.mismatch(expectedBody, actualBody);
+		if (mismatch < 0 || (metadata && sortedLines(expectedBody).equals(sortedLines(actualBody)))) {
+			return 0;
+		}
+		System.out.printf("DIFFERS %s at byte %d of %d, expected %d bytes%n  expected: %s%n  actual:   %s%n", name,
+				mismatch, actualBody.length, expectedBody.length, excerpt(expectedBody, mismatch),
+				excerpt(actualBody, mismatch));
+		return 1;
+	}
+
+	/**
+	 * Splits a metadata document into its lines, sorted, so that documents
+	 * declaring the same things in a different order compare equal.
+	 *
+	 * @param body The document.
+	 * @return The sorted lines.
+	 */
+	private static List<String> sortedLines(byte[] body) {
+		List<String> lines = new ArrayList<>(new String(body, StandardCharsets.UTF_8).lines().toList());
+		lines.sort(null);
+		return lines;
+	}
+
+	/**
+	 * Sends a request.
+	 *
+	 * @param port     The port of the endpoint.
+	 * @param envelope The request's SOAP envelope.
+	 * @param encoding How to send the request.
+	 * @return The reply.
+	 * @throws Exception If the endpoint cannot be reached.
+	 */
+	private HttpResponse<byte[]> post(int port, String envelope, Encoding encoding) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(address(port)))
+				.timeout(Duration.ofSeconds(60)).header("SOAPAction", "\"\"");
+		if (encoding == Encoding.MTOM) {
+			request.header("Content-Type", "multipart/related; type=\"application/xop+xml\"; boundary=\""
+					+ BOUNDARY + "\"; start=\"<root>\"; start-info=\"text/xml\"")
+					.POST(HttpRequest.BodyPublishers.ofString("--" + BOUNDARY + "\r\nContent-Id: <root>\r\n"
+							+ "Content-Type: application/xop+xml; charset=utf-8; type=\"text/xml\"\r\n\r\n"
+							+ envelope + "\r\n--" + BOUNDARY + "--\r\n", StandardCharsets.UTF_8));
+		} else {
+			request.header("Content-Type", "text/xml; charset=utf-8")
+					.header("Accept",
+							encoding == Encoding.FASTINFOSET ? "application/fastinfoset, text/xml" : "text/xml")
+					.POST(HttpRequest.BodyPublishers.ofString(envelope, StandardCharsets.UTF_8));
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	/**
+	 * Fetches a metadata document.
+	 *
+	 * @param port  The port of the endpoint.
+	 * @param query The query naming the document, such as wsdl.
+	 * @return The reply.
+	 * @throws Exception If the endpoint cannot be reached.
+	 */
+	private HttpResponse<byte[]> get(int port, String query) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(address(port) + "?" + query))
+				.timeout(Duration.ofSeconds(60)).GET().build();
+		return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	/**
+	 * Builds the requests, in the order they are sent. Inserts come after the
+	 * queries, and the duplicate and invalid ones after a valid one, so that both
+	 * endpoints see the same store at every step.
+	 *
+	 * @return The operation name and SOAP envelope of each request.
+	 */
+	private List<String[]> requests() {
+		String known = Datasets.staffId(0);
+		String[] member = Datasets.row(0);
+		String year = member[7].substring(0, 4);
+		List<String[]> requests = new ArrayList<>();
+		add(requests, "getDatabaseByStaffId", element("staffId", known));
+		add(requests, "getDatabaseByStaffId", element("staffId", "zzz"));
+		add(requests, "getDatabaseByStaffId", element("staffId", Datasets.staffId(rows)));
+		add(requests, "getDatabaseByStaffId", "");
+		add(requests, "getDatabaseByStaffId", "text" + nested("staffId", "<x>z</x>" + known + "<!--c-->"));
+		add(requests, "getDatabaseByStaffId", nested("staffId", known + "<x>z</x>"));
+		add(requests, "getDatabaseWithinAgeRange",
+				element("startDate", year + "-01-01") + element("endDate", year + "-03-31"));
+		add(requests, "getDatabaseWithinAgeRange",
+				element("startDate", year + "-13-01") + element("endDate", year + "-03-31"));
+		add(requests, "getDatabaseWithinAgeRange",
+				element("startDate", "2200-01-01") + element("endDate", "2201-01-01"));
+		add(requests, "getRecordByEmploymentCategory", element("category", "Legal"));
+		add(requests, "getRecordByEmploymentCategory", element("category", "Nope"));
+		add(requests, "getRecordByEmploymentCategory", "");
+		add(requests, "getDatabaseRecordBySex", element("sex", "Female"));
+		add(requests, "getDatabaseRecordBySex", element("sex", "x"));
+		add(requests, "getDatabaseWithinAgeRangePage", element("startDate", year + "-01-01")
+				+ element("endDate", year + "-12-31") + element("pageSize", "5") + element("pageToken", ""));
+		add(requests, "getDatabaseWithinAgeRangePage", element("startDate", year + "-01-01")
+				+ element("endDate", year + "-12-31") + element("pageSize", "5") + element("pageToken", "garbage"));
+		add(requests, "getRecordByEmploymentCategoryPage",
+				element("category", "Legal") + element("pageSize", "3") + element("pageToken", ""));
+		add(requests, "getRecordByEmploymentCategoryPage", element("category", "Legal") + element("pageSize", "0"));
+		add(requests, "getRecordByEmploymentCategoryPage",
+				element("category", "Legal") + element("pageSize", "abc"));
+		add(requests, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", "2"));
+		add(requests, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", " 1 2 "));
+		add(requests, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", "4294967298"));
+		add(requests, "getDatabaseRecordBySexPage", element("sex", "Male"));
+		add(requests, "findMembers", filter("Female", "Legal", "", "", ""));
+		add(requests, "findMembers", filter("", "", "", "", known.substring(0, 4)));
+		add(requests, "findMembers", filter("Q", "", "", "", ""));
+		add(requests, "findMembers", filter("", "", year + "-01-01", year + "-02-01", ""));
+		add(requests, "findMembers", filter("", "", "", "", ""));
+		add(requests, "countMembers", filter("Male", "", "", "", ""));
+		add(requests, "countMembers", filter("", "Nope", "", "", ""));
+		add(requests, "getDatabaseStatistics", "");
+		add(requests, "exportMembers", element("format", "csv"));
+		add(requests, "exportMembers", element("format", " XML "));
+		add(requests, "exportMembers", element("format", "pdf"));
+		add(requests, "exportMembers", "");
+		add(requests, "createNewDatabaseRecord", record(0, 5, null));
+		add(requests, "createNewDatabaseRecord", record(0, 5, null));
+		add(requests, "createNewDatabaseRecord", record(1, 5, "bad"));
+		add(requests, "createNewDatabaseRecord", record(2, 6, "x"));
+		add(requests, "createNewDatabaseRecord", record(3, 4, "Q"));
+		add(requests, "createNewDatabaseRecord", record(4, 7, "1990-02-30"));
+		add(requests, "createNewDatabaseRecords", nested("records", record(5, 5, null))
+				+ nested("records", record(5, 5, null)) + nested("records", record(6, 5, "no")));
+		add(requests, "createNewDatabaseRecords", element("records", record(7, 5, null)));
+		add(requests, "createNewDatabaseRecords", "");
+		add(requests, "getDatabaseByStaffId", element("staffId", Datasets.staffId(rows)));
+		add(requests, "getDatabaseStatistics", "");
+		add(requests, "exportMembers", element("format", "xml"));
+		add(requests, "unknownOperation", "");
+		return requests;
+	}
+
+	/**
+	 * Adds a request to the list.
+	 *
+	 * @param requests  The requests.
+	 * @param operation The operation to call.
+	 * @param arguments The argument elements, already escaped.
+	 */
+	private static void add(List<String[]> requests, String operation, String arguments) {
+		requests.add(new String[] { operation, "<S:Envelope xmlns:S=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+				+ "<S:Body><ns2:" + operation + " xmlns:ns2=\"" + NAMESPACE + "\">" + arguments + "</ns2:"
+				+ operation + "></S:Body></S:Envelope>" });
+	}
+
+	/**
+	 * Builds the arguments of a findMembers or countMembers request. Empty
+	 * values leave a filter out.
+	 *
+	 * @param sex       The sex.
+	 * @param category  The employment category.
+	 * @param startDate The earliest date of birth.
+	 * @param endDate   The latest date of birth.
+	 * @param prefix    The staff ID prefix.
+	 * @return The argument elements.
+	 */
+	private static String filter(String sex, String category, String startDate, String endDate, String prefix) {
+		return element("sex", sex) + element("category", category) + element("startDate", startDate)
+				+ element("endDate", endDate) + element("staffIdPrefix", prefix);
+	}
+
+	/**
+	 * Builds the fields of a new record whose text needs escaping, made invalid
+	 * in one field if asked. The field to make invalid is chosen by its position
+	 * in the request: 4 for sex, 5 for email, 6 for phone number and 7 for date
+	 * of birth.
+	 *
+	 * @param number  The number of the new record, from 0.
+	 * @param field   The position of the field to replace.
+	 * @param invalid The value to replace it with, or null for a valid record.
+	 * @return The argument elements.
+	 */
+	private String record(int number, int field, String invalid) {
+		String[] row = Datasets.row(rows + number);
+		String[] values = { row[1], "Ann & <Co>", "Lee \"q\"\tx", row[4], row[5], row[6], row[7],
+				"Lawyer \uD83D\uDE00" };
+		if (invalid != null) {
+			values[field - 1] = invalid;
+		}
+		return element("id", values[0]) + element("firstName", values[1]) + element("lastName", values[2])
+				+ element("sex", values[3]) + element("email", values[4]) + element("phoneNumber", values[5])
+				+ element("dateOfBirth", values[6]) + element("employmentType", values[7]);
+	}
+
+	/**
+	 * Builds an XML element with escaped text content.
+	 *
+	 * @param name  The element name.
+	 * @param value The text content.
+	 * @return The element.
+	 */
+	private static String element(String name, String value) {
+		return "<" + name + ">" + value.replace("&", "&amp;").replace("<", "&lt;") + "</" + name + ">";
+	}
+
+	/**
+	 * Builds an XML element around content that is already XML.
+	 *
+	 * @param name    The element name.
+	 * @param content The content.
+	 * @return The element.
+	 */
+	private static String nested(String name, String content) {
+		return "<" + name + ">" + content + "</" + name + ">";
+	}
+
+	/**
+	 * Replaces the UUIDs in text with a fixed string.
+	 *
+	 * @param text The text.
+	 * @return The text without UUIDs.
+	 */
+	private static String withoutUuids(String text) {
+		return UUID.matcher(text).replaceAll("uuid");
+	}
+
+	/**
+	 * Replaces the UUIDs in a reply with a fixed string. The reply is read as
+	 * ISO-8859-1, so any binary content is kept as it is.
+	 *
+	 * @param body The reply.
+	 * @return The reply without UUIDs.
+	 */
+	private static byte[] withoutUuids(byte[] body) {
+		return withoutUuids(new String(body, StandardCharsets.ISO_8859_1)).getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Gets the bytes around a position of a reply, as text with control
+	 * characters shown in hexadecimal.
+	 *
+	 * @param body     The reply.
+	 * @param position The position.
+	 * @return The excerpt.
+	 */
+	private static String excerpt(byte[] body, int position) {
+		StringBuilder excerpt = new StringBuilder();
+		for (int i = Math.max(0, position - 40); i < Math.min(body.length, position + 40); i++) {
+			int b = body[i] & 0xFF;
+			excerpt.append(b >= 0x20 && b < 0x7F ? String.valueOf((char) b) : String.format("\\x%02x", b));
+		}
+		return excerpt.toString();
+	}
+
+	/**
+	 * Gets the address a service is published on.
+	 *
+	 * @param port The local port.
+	 * @return The address.
+	 */
+	private static String address(int port) {
+		return "http://localhost:" + port + PATH;
+	}
+}
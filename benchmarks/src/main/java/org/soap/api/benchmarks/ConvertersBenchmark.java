@@ -0,0 +1,203 @@
+/**
+ * The ConvertersBenchmark file is responsible for benchmarking the conversion and validation helpers.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.utils.Converters;
+import org.soap.api.utils.JobTitleClassifier;
+import org.soap.api.utils.Validators;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ConvertersBenchmark class measures the helpers every loaded row and
+ * every new record goes through: classifying a job title, converting a date
+ * and packing a staff ID, and the field validators.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvertersBenchmark {
+
+	/**
+	 * Number of generated rows used in turn.
+	 */
+	private static final int SAMPLE_SIZE = 1024;
+
+	private String[][] rows; // Fields of the generated rows.
+
+	private byte[][] titles; // Job titles of the rows as UTF-8.
+
+	private int next; // Position of the next row to use.
+
+	/**
+	 * Generates the rows.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		rows = new String[SAMPLE_SIZE][];
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			rows[i] = Datasets.row(i);
+		}
+		titles = new byte[SAMPLE_SIZE][];
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			titles[i] = rows[i][8].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Gets the next row.
+	 *
+	 * @return The fields of the row.
+	 */
+	private String[] nextRow() {
+		return rows[next++ & (SAMPLE_SIZE - 1)];
+	}
+
+	/**
+	 * Classifies a job title.
+	 *
+	 * @return The employment category.
+	 */
+	@Benchmark
+	public EmploymentCategory determineCategory() {
+		return Converters.determineCategory(nextRow()[8]);
+	}
+
+	/**
+	 * Classifies a job title held as bytes, as the CSV loader does, by running
+	 * the keyword automaton without remembering the result.
+	 *
+	 * @return The employment category.
+	 */
+	@Benchmark
+	public EmploymentCategory classifyBytes() {
+		byte[] title = titles[next++ & (SAMPLE_SIZE - 1)];
+		return JobTitleClassifier.classify(title, 0, title.length);
+	}
+
+	/**
+	 * Classifies a job title with the lower-casing and sequential contains checks
+	 * determineCategory made before the keyword automaton.
+	 *
+	 * @return The employment category.
+	 */
+	@Benchmark
+	public EmploymentCategory containsChecks() {
+		String occupation = nextRow()[8].toLowerCase();
+		if (occupation.contains("nurse") || occupation.contains("pharmacist") || occupation.contains("phytotherapist")
+				|| occupation.contains("surgeon") || occupation.contains("clinical")) {
+			return EmploymentCategory.HEALTHCARE;
+		} else if (occupation.contains("engineer") || occupation.contains("technician")
+				|| occupation.contains("developer")) {
+			return EmploymentCategory.ENGINEERING_TECHNOLOGY;
+		} else if (occupation.contains("scientist") || occupation.contains("researcher")
+				|| occupation.contains("hydrogeologist") || occupation.contains("biochemist")) {
+			return EmploymentCategory.SCIENCE_RESEARCH;
+		} else if (occupation.contains("manager") || occupation.contains("consultant")
+				|| occupation.contains("officer")) {
+			return EmploymentCategory.MANAGEMENT_CONSULTING;
+		} else if (occupation.contains("journalist") || occupation.contains("editor")) {
+			return EmploymentCategory.MEDIA_JOURNALISM;
+		} else if (occupation.contains("lawyer") || occupation.contains("barrister")
+				|| occupation.contains("attorney")) {
+			return EmploymentCategory.LEGAL;
+		} else if (occupation.contains("psychologist") || occupation.contains("counsellor")) {
+			return EmploymentCategory.PSYCHOLOGY_COUNSELING;
+		} else if (occupation.contains("banker") || occupation.contains("financial")
+				|| occupation.contains("accountant")) {
+			return EmploymentCategory.FINANCE;
+		} else if (occupation.contains("archaeologist") || occupation.contains("historian")) {
+			return EmploymentCategory.HISTORY_ARCHEOLOGY;
+		} else if (occupation.contains("designer") || occupation.contains("artist")) {
+			return EmploymentCategory.DESIGN_ART;
+		} else if (occupation.contains("teacher") || occupation.contains("lecturer")) {
+			return EmploymentCategory.EDUCATION;
+		} else {
+			return EmploymentCategory.OTHER;
+		}
+	}
+
+	/**
+	 * Converts a date of birth.
+	 *
+	 * @return The date.
+	 * @throws Exception If the date is invalid.
+	 */
+	@Benchmark
+	public LocalDate stringToLocalDate() throws Exception {
+		return Converters.stringToLocalDate(nextRow()[7]);
+	}
+
+	/**
+	 * Packs a staff ID.
+	 *
+	 * @return The packed staff ID.
+	 */
+	@Benchmark
+	public long staffIdToKey() {
+		return Converters.staffIdToKey(nextRow()[1]);
+	}
+
+	/**
+	 * Validates a staff ID.
+	 *
+	 * @return The result of the validation.
+	 */
+	@Benchmark
+	public boolean validateStaffId() {
+		return Validators.validateStaffId(nextRow()[1]);
+	}
+
+	/**
+	 * Validates an email address.
+	 *
+	 * @return The result of the validation.
+	 */
+	@Benchmark
+	public boolean validateEmail() {
+		return Validators.validateEmail(nextRow()[5]);
+	}
+
+	/**
+	 * Validates a phone number.
+	 *
+	 * @return The result of the validation.
+	 */
+	@Benchmark
+	public boolean validatePhoneNumber() {
+		return Validators.validatePhoneNumber(nextRow()[6]);
+	}
+
+	/**
+	 * Validates a date of birth.
+	 *
+	 * @return The result of the validation.
+	 */
+	@Benchmark
+	public boolean validateDate() {
+		return Validators.validateDate(nextRow()[7]);
+	}
+}
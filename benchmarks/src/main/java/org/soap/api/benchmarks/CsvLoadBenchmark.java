@@ -0,0 +1,83 @@
+/**
+ * The CsvLoadBenchmark file is responsible for benchmarking loading the member store at startup.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.store.CsvLoader;
+import org.soap.api.store.MemberStore;
+import org.soap.api.store.SnapshotFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CsvLoadBenchmark class measures the two ways the server can load its
+ * data at startup: parsing the CSV file, and reading the binary snapshot
+ * written after a previous load. Each measurement is a single full load.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvLoadBenchmark {
+
+	@Param({ "100", "100000", "10000000" })
+	public int rows; // Number of members in the dataset.
+
+	private String csvFile; // Path of the dataset.
+
+	private String snapshotFile; // Path of the dataset's snapshot.
+
+	/**
+	 * Generates the dataset if needed and writes its snapshot.
+	 *
+	 * @throws IOException If the dataset cannot be read or the snapshot written.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		csvFile = Datasets.csv(rows).toString();
+		snapshotFile = csvFile + ".snapshot";
+		SnapshotFile.write(CsvLoader.load(csvFile, new ArrayList<>()), snapshotFile, csvFile);
+	}
+
+	/**
+	 * Parses, validates and indexes the CSV file.
+	 *
+	 * @return The loaded store.
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Benchmark
+	public MemberStore loadCsv() throws IOException {
+		return CsvLoader.load(csvFile, new ArrayList<>());
+	}
+
+	/**
+	 * Reads the binary snapshot.
+	 *
+	 * @return The loaded store.
+	 */
+	@Benchmark
+	public MemberStore readSnapshot() {
+		return SnapshotFile.read(snapshotFile, csvFile);
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * The DatabaseMemberBenchmark file is responsible for benchmarking the construction of DatabaseMember objects.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+import org.soap.api.utils.Converters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DatabaseMemberBenchmark class measures building a DatabaseMember from
+ * the text of a request, which validates and converts every field, and from
+ * values the store already holds, which does not.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseMemberBenchmark {
+
+	/**
+	 * Number of generated rows used in turn.
+	 */
+	private static final int SAMPLE_SIZE = 1024;
+
+	private String[][] rows; // Fields of the generated rows.
+
+	private Sex[] sexes; // Sex of each row.
+
+	private EmploymentCategory[] categories; // Employment category of each row.
+
+	private int next; // Position of the next row to use.
+
+	/**
+	 * Generates the rows and converts the fields used by the trusted constructor.
+	 *
+	 * @throws Exception If a generated row is invalid.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		rows = new String[SAMPLE_SIZE][];
+		sexes = new Sex[SAMPLE_SIZE];
+		categories = new EmploymentCategory[SAMPLE_SIZE];
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			rows[i] = Datasets.row(i);
+			sexes[i] = Converters.stringToSex(rows[i][4]);
+			categories[i] = Converters.determineCategory(rows[i][8]);
+		}
+	}
+
+	/**
+	 * Builds a member from request text, validating every field.
+	 *
+	 * @return The member.
+	 * @throws Exception If a field is invalid.
+	 */
+	@Benchmark
+	public DatabaseMember constructValidated() throws Exception {
+		String[] row = rows[next++ & (SAMPLE_SIZE - 1)];
+		return new DatabaseMember(1, row[1], row[2], row[3], row[4], row[5], row[6], row[7], row[8]);
+	}
+
+	/**
+	 * Builds a member from values that are already known to be valid, as the store
+	 * does when returning results.
+	 *
+	 * @return The member.
+	 */
+	@Benchmark
+	public DatabaseMember constructTrusted() {
+		int i = next++ & (SAMPLE_SIZE - 1);
+		String[] row = rows[i];
+		return new DatabaseMember(1, row[1], row[2], row[3], sexes[i], row[5], row[6], row[7], row[8], categories[i]);
+	}
+}
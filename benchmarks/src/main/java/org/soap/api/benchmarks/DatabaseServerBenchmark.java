@@ -0,0 +1,171 @@
+/**
+ * The DatabaseServerBenchmark file is responsible for benchmarking each operation of the DatabaseServer.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.MemberStatistics;
+import org.soap.api.server.DatabaseServerImpl;
+import org.soap.api.store.MemberStore;
+import org.soap.api.utils.CsvReadWrite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DatabaseServerBenchmark class measures each operation of
+ * {@link DatabaseServerImpl} as the web service calls it, without the SOAP
+ * layer, over a generated dataset. The list queries go through the query
+ * result cache as they do in the server; see {@link MemberStoreBenchmark} for
+ * the uncached cost.
+ *
+ * <p>
+ * New records are appended to {@value #INSERT_FILE} rather than to the
+ * dataset, which the forked JVM is pointed at with the soap.csv property.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Dsoap.csv=" + DatabaseServerBenchmark.INSERT_FILE })
+public class DatabaseServerBenchmark {
+
+	/**
+	 * File new records are appended to.
+	 */
+	public static final String INSERT_FILE = "target/datasets/inserts.csv";
+
+	/**
+	 * Number of staff IDs looked up in turn.
+	 */
+	private static final int SAMPLE_SIZE = 1024;
+
+	@Param({ "100", "100000", "10000000" })
+	public int rows; // Number of members in the dataset.
+
+	private DatabaseServerImpl server; // Service under test.
+
+	private String[] staffIds; // Staff IDs of a sample of stored members.
+
+	private int next; // Position in staffIds of the next lookup.
+
+	private long inserted; // Number of records added so far.
+
+	/**
+	 * Loads the dataset into the server's store and picks the staff IDs to look
+	 * up.
+	 *
+	 * @throws IOException If the insert file cannot be cleared.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		MemberStore store = CsvReadWrite.readDataFromCSV(Datasets.csv(rows).toString());
+		DatabaseServerImpl.memberStore = store;
+		DatabaseServerImpl.queryCache.clear();
+		server = new DatabaseServerImpl();
+		SplittableRandom random = new SplittableRandom(42);
+		staffIds = new String[SAMPLE_SIZE];
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			staffIds[i] = Datasets.staffId(random.nextInt(rows));
+		}
+		Files.deleteIfExists(Paths.get(INSERT_FILE));
+	}
+
+	/**
+	 * Closes the insert file.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		CsvReadWrite.closeAppendChannel();
+	}
+
+	/**
+	 * Looks up a member by staff ID.
+	 *
+	 * @return The member.
+	 * @throws Exception If the staff ID is not found.
+	 */
+	@Benchmark
+	public DatabaseMember getDatabaseByStaffId() throws Exception {
+		return server.getDatabaseByStaffId(staffIds[next++ & (SAMPLE_SIZE - 1)]);
+	}
+
+	/**
+	 * Finds the members born in one year, about one in ninety of the dataset.
+	 *
+	 * @return The members.
+	 * @throws Exception If no member matches.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getDatabaseWithinAgeRange() throws Exception {
+		return server.getDatabaseWithinAgeRange("1980-01-01", "1980-12-31");
+	}
+
+	/**
+	 * Finds the members in one employment category.
+	 *
+	 * @return The members.
+	 * @throws Exception If no member matches.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getRecordByEmploymentCategory() throws Exception {
+		return server.getRecordByEmploymentCategory("Healthcare");
+	}
+
+	/**
+	 * Finds the members of one sex, about half of the dataset.
+	 *
+	 * @return The members.
+	 * @throws Exception If no member matches.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getDatabaseRecordBySex() throws Exception {
+		return server.getDatabaseRecordBySex("Female");
+	}
+
+	/**
+	 * Adds a new member with a staff ID that is not in the dataset.
+	 *
+	 * @return The service's reply.
+	 * @throws Exception If the record is rejected.
+	 */
+	@Benchmark
+	public String createNewDatabaseRecord() throws Exception {
+		String[] row = Datasets.row(rows + inserted++);
+		return server.createNewDatabaseRecord(row[1], row[2], row[3], row[4], row[5], row[6], row[7], row[8]);
+	}
+
+	/**
+	 * Gets the counts by category, sex, birth year and age band.
+	 *
+	 * @return The statistics.
+	 */
+	@Benchmark
+	public MemberStatistics getDatabaseStatistics() {
+		return server.getDatabaseStatistics();
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * The Datasets file is responsible for generating the member CSV files the benchmarks run over.
+ */
+package org.soap.api.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+
+/**
+ * The Datasets class generates CSV files of members in the same format as the
+ * data file read by the API. Every row is derived from its index alone, so a
+ * dataset of a given size is identical on every machine and every run, and
+ * any row can be recreated without reading the file. Staff IDs are unique
+ * because they come from a bijection of the row index.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class Datasets {
+
+	/**
+	 * System property overriding {@link #DEFAULT_DIRECTORY}.
+	 */
+	public static final String DIRECTORY_PROPERTY = "bench.datasets";
+
+	/**
+	 * Directory the datasets are written to, relative to the working directory.
+	 */
+	public static final String DEFAULT_DIRECTORY = "target/datasets";
+
+	/**
+	 * Header line of the CSV file.
+	 */
+	public static final String HEADER = "Index,User Id,First Name,Last Name,Sex,Email,Phone,Date of birth,Job Title";
+
+	private static final String[] FIRST_NAMES = { "Shelby", "Phillip", "Kristine", "Yesenia", "Lori", "Erin",
+			"Katherine", "Ricardo", "Dave", "Isaiah", "Sherry", "John", "Jacob", "Hannah", "Marcus", "Priya", "Chloe",
+			"Ahmed", "Sofia", "Liam", "Noah", "Olivia", "Emma", "Mateo", "Aisha", "Wei", "Yuki", "Fatima", "Oscar",
+			"Ingrid" };
+
+	private static final String[] LAST_NAMES = { "Terrell", "Summers", "Travis", "Martinez", "Todd", "Mcintyre",
+			"Kaufman", "Hurst", "Saunders", "Pittman", "Cunningham", "Kim", "Barr", "Lutz", "Novak", "Patel", "Nguyen",
+			"Okafor", "Rossi", "Schmidt", "Silva", "Tanaka", "Walsh", "Young", "Zhang", "Haddad", "Larsen", "Moreno",
+			"Fischer", "Dubois" };
+
+	private static final String[] JOB_TITLES = { "Accountant", "Advertising account executive", "Archaeologist",
+			"Art gallery manager", "Barrister", "Biochemist", "Broadcast journalist", "Building services engineer",
+			"Chiropractor", "Counsellor", "Curator", "Dance movement psychotherapist", "Drilling engineer",
+			"Economist", "Education officer", "Financial planner", "Financial trader", "Games developer",
+			"Higher education lecturer", "Historic buildings inspector", "Hospital pharmacist", "Hydrologist",
+			"Intelligence analyst", "Jewellery designer", "Lawyer", "Management consultant", "Market researcher",
+			"Museum exhibitions officer", "Neurosurgeon", "Newspaper journalist", "Paediatric nurse",
+			"Patent attorney", "Physiotherapist", "Police officer", "Psychologist (forensic)",
+			"Research scientist (life sciences)", "Retail banker", "Scientist (marine)", "Set designer",
+			"Social worker", "Software engineer", "Structural engineer", "Systems analyst", "Teacher",
+			"Veterinary surgeon", "Warehouse manager" };
+
+	private static final String[] DOMAINS = { "example.com", "example.net", "example.org" };
+
+	/**
+	 * Mask of the 60 bits a staff ID packs into.
+	 */
+	private static final long STAFF_ID_MASK = (1L << 60) - 1;
+
+	/**
+	 * Gets the path of a dataset, generating it first if it does not exist yet.
+	 *
+	 * @param rows The number of members in the dataset.
+	 * @return The path of the CSV file.
+	 */
+	public static synchronized Path csv(int rows) {
+		Path directory = Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+		Path file = directory.resolve("people-" + rows + ".csv");
+		if (!Files.exists(file)) {
+			try {
+				Files.createDirectories(directory);
+				Path temporary = directory.resolve("people-" + rows + ".csv.tmp");
+				write(temporary, rows);
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Writes a dataset.
+	 *
+	 * @param file The file to write.
+	 * @param rows The number of members.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void write(Path file, int rows) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.write('\n');
+			for (int row = 0; row < rows; row++) {
+				writer.write(String.join(",", row(row)));
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Generates the fields of a row: index, staff ID, first name, last name, sex,
+	 * email, phone number, date of birth and job title.
+	 *
+	 * @param row The row number, from 0.
+	 * @return The fields of the row.
+	 */
+	public static String[] row(long row) {
+		SplittableRandom random = new SplittableRandom(row * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L);
+		String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+		String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+		String email = firstName.toLowerCase() + "." + lastName.toLowerCase() + random.nextInt(1000) + "@"
+				+ DOMAINS[random.nextInt(DOMAINS.length)];
+		String phoneNumber = String.format("%03d-%03d-%04dx%d", random.nextInt(1000), random.nextInt(1000),
+				random.nextInt(10000), random.nextInt(100000));
+		String dateOfBirth = String.format("%04d-%02d-%02d", 1930 + random.nextInt(90), 1 + random.nextInt(12),
+				1 + random.nextInt(28));
+		return new String[] { Long.toString(row + 1), staffId(row), firstName, lastName,
+				random.nextBoolean() ? "Male" : "Female", email, phoneNumber, dateOfBirth,
+				JOB_TITLES[random.nextInt(JOB_TITLES.length)] };
+	}
+
+	/**
+	 * Generates the staff ID of a row, with upper case letters in odd rows and
+	 * lower case letters in even rows. Multiplying by an odd constant is a
+	 * bijection on 60 bits, so no two rows share an ID.
+	 *
+	 * @param row The row number, from 0.
+	 * @return The staff ID.
+	 */
+	public static String staffId(long row) {
+		long key = (row * 0x5DEECE66DL + 0xB) * 0x9E3779B97F4A7C15L & STAFF_ID_MASK;
+		char letter = (row & 1) == 0 ? 'a' : 'A';
+		char[] id = new char[15];
+		for (int i = 14; i >= 0; i--) {
+			int digit = (int) (key & 0xF);
+			key >>>= 4;
+			id[i] = (char) (digit < 10 ? '0' + digit : letter + digit - 10);
+		}
+		return new String(id);
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * The EncodingBenchmark file is responsible for benchmarking the serialization of large responses as text XML and as FastInfoset.
+ */
+package org.soap.api.benchmarks;
+
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.store.MemberStore;
+import org.soap.api.utils.CsvReadWrite;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The EncodingBenchmark class measures the CPU time of serializing the body of
+ * a large response, the members of one employment category or one birth
+ * decade, as text XML and as FastInfoset. The body is written the way the
+ * JAX-WS runtime writes it: JAXB marshals each member as a "return" element
+ * inside the operation's response element onto a StAX writer, Woodstox for
+ * text XML and the FastInfoset serializer for binary XML. The size of each
+ * encoding is printed when a trial starts.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EncodingBenchmark {
+
+	/**
+	 * Namespace of the web service's response elements.
+	 */
+	private static final String NAMESPACE = "http://server.api.soap.org/";
+
+	/**
+	 * Name of the element each member of a list response is written as.
+	 */
+	private static final QName RETURN = new QName("", "return");
+
+	@Param({ "100000" })
+	public int rows; // Number of members in the dataset.
+
+	@Param({ "category", "ageRange" })
+	public String result; // Which large result to serialize.
+
+	@Param({ "xml", "fastinfoset" })
+	public String encoding; // Encoding to serialize to.
+
+	private ArrayList<DatabaseMember> members; // Members in the response.
+
+	private Marshaller marshaller; // Marshaller configured like the runtime's.
+
+	private XMLOutputFactory xmlOutput; // Factory for text XML writers.
+
+	private final CountingOutputStream out = new CountingOutputStream(); // Discards and counts encoded bytes.
+
+	/**
+	 * Loads the dataset, picks the response and prints its encoded size.
+	 *
+	 * @throws Exception If the response cannot be serialized.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		MemberStore store = CsvReadWrite.readDataFromCSV(Datasets.csv(rows).toString());
+		members = result.equals("category") ? store.getByCategory(EmploymentCategory.HEALTHCARE)
+				: store.getBornBetween((int) LocalDate.of(1970, 1, 1).toEpochDay(),
+						(int) LocalDate.of(1979, 12, 31).toEpochDay());
+		marshaller = JAXBContext.newInstance(DatabaseMember.class).createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+		xmlOutput = XMLOutputFactory.newInstance();
+		long bytes = serialize();
+		System.out.printf("%n%d members as %s: %d bytes (%d bytes per member)%n", members.size(), encoding, bytes,
+				bytes / Math.max(1, members.size()));
+	}
+
+	/**
+	 * Serializes the response body.
+	 *
+	 * @return The number of bytes written.
+	 * @throws JAXBException      If a member cannot be marshalled.
+	 * @throws XMLStreamException If the XML cannot be written.
+	 */
+	@Benchmark
+	public long serialize() throws JAXBException, XMLStreamException {
+		out.count = 0;
+		XMLStreamWriter writer;
+		if (encoding.equals("fastinfoset")) {
+			StAXDocumentSerializer serializer = new StAXDocumentSerializer();
+			serializer.setOutputStream(out);
+			writer = serializer;
+		} else {
+			writer = xmlOutput.createXMLStreamWriter(out, "UTF-8");
+		}
+		writer.writeStartDocument();
+		writer.writeStartElement("ns2", "getRecordByEmploymentCategoryResponse", NAMESPACE);
+		writer.writeNamespace("ns2", NAMESPACE);
+		for (DatabaseMember member : members) {
+			marshaller.marshal(new JAXBElement<>(RETURN, DatabaseMember.class, member), writer);
+		}
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.flush();
+		return out.count;
+	}
+
+	/**
+	 * An output stream that discards what is written to it and counts the bytes.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+
+		long count; // Bytes written since the count was last cleared.
+
+		/**
+		 * Counts one byte.
+		 *
+		 * @param b The byte.
+		 */
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		/**
+		 * Counts a run of bytes.
+		 *
+		 * @param b   The array holding the bytes.
+		 * @param off The offset of the first byte.
+		 * @param len The number of bytes.
+		 */
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
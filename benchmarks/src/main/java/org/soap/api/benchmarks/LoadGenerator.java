@@ -0,0 +1,713 @@
+/**
+ * The LoadGenerator file is responsible for driving SOAP requests at a locally published endpoint and reporting latency.
+ */
+package org.soap.api.benchmarks;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LoadGenerator class starts the real web service in this JVM, with
+ * {@link org.soap.api.server.DatabaseServerPublisher}, and sends it raw SOAP
+ * requests over HTTP from many concurrent clients, so the measurements include
+ * the HTTP server, JAX-WS dispatch and JAXB marshalling that the JMH
+ * benchmarks leave out.
+ *
+ * <p>
+ * Two modes are supported:
+ * </p>
+ * <ul>
+ * <li><b>open</b>: requests are started at a fixed total rate, whether or not
+ * earlier ones have finished, with at most the given number of clients
+ * (connections) busy at once.</li>
+ * <li><b>closed</b>: the given number of clients each send a request, wait for
+ * the reply and send the next. With a rate, each client keeps to its share of
+ * it; without one, the clients send as fast as the server replies.</li>
+ * </ul>
+ *
+ * <p>
+ * Latency is measured from the time a request was scheduled to be sent, not
+ * from when it was actually sent. A server stall therefore shows up in every
+ * request that should have been sent during the stall, not only in the one
+ * request that was waiting. This corrects for coordinated omission. A closed
+ * loop without a rate has no schedule, so its latencies are plain service
+ * times, and the report says so.
+ * </p>
+ *
+ * <p>
+ * Options are given as name=value arguments:
+ * </p>
+ * <ul>
+ * <li>mode: open or closed (default closed)</li>
+ * <li>clients: concurrent clients (default 64)</li>
+ * <li>rate: requests per second in total; 0 means as fast as possible in
+ * closed mode (default 0, required in open mode)</li>
+ * <li>duration and warmup: seconds measured and discarded (default 30 and
+ * 10)</li>
+ * <li>rows: size of the generated dataset (default 100000)</li>
+ * <li>port: local port to publish on (default 7777)</li>
+ * <li>mix: weights per operation, for example
+ * getDatabaseByStaffId:80,createNewDatabaseRecord:5 (default: all five
+ * operations equally)</li>
+ * <li>encoding: xml, or fastinfoset to ask for binary XML replies with an
+ * Accept header (default xml)</li>
+ * </ul>
+ *
+ * <p>
+ * The report lists throughput, the mean reply size and the p50, p99 and
+ * p99.9 latency of each operation. It is also saved as JSON under the results directory.
+ * It ends with the CPU time the process used per reply during the measured
+ * period, which, as the clients run in the same process, includes the
+ * clients' own share.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class LoadGenerator {
+
+	/**
+	 * Namespace of the service's operations.
+	 */
+	private static final String NAMESPACE = "http://server.api.soap.org/";
+
+	/**
+	 * Employment categories accepted by getRecordByEmploymentCategory.
+	 */
+	private static final String[] CATEGORIES = { "Healthcare", "Engineering & Technology", "Science & Research",
+			"Management & Consulting", "Media & Journalism", "Legal", "Psychology & Counseling", "Finance",
+			"History & Archaeology", "Design & Art", "Education" };
+
+	/**
+	 * Seconds to wait for requests still in flight at the end of the run before
+	 * abandoning them.
+	 */
+	private static final int DRAIN_SECONDS = 30;
+
+	/**
+	 * Creates the client threads. Platform threads are used so the clients are not
+	 * starved by the server's request threads when both run in one process.
+	 */
+	private static final ThreadFactory CLIENT_THREADS = Thread.ofPlatform().name("loadgen-", 0).daemon().factory();
+
+	/**
+	 * Highest latency the histograms can record, in microseconds.
+	 */
+	private static final long MAX_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+	/**
+	 * The operations of the service, each able to build a request with generated
+	 * arguments.
+	 */
+	enum Operation {
+
+		/**
+		 * Looks up a stored member.
+		 */
+		GET_BY_STAFF_ID("getDatabaseByStaffId") {
+			@Override
+			String arguments(LoadGenerator generator, ThreadLocalRandom random) {
+				return element("staffId", Datasets.staffId(random.nextInt(generator.rows)));
+			}
+		},
+
+		/**
+		 * Finds the members born in one month of a year.
+		 */
+		AGE_RANGE("getDatabaseWithinAgeRange") {
+			@Override
+			String arguments(LoadGenerator generator, ThreadLocalRandom random) {
+				String month = String.format("%04d-%02d", 1930 + random.nextInt(90), 1 + random.nextInt(12));
+				return element("startDate", month + "-01") + element("endDate", month + "-28");
+			}
+		},
+
+		/**
+		 * Finds the members in an employment category.
+		 */
+		CATEGORY("getRecordByEmploymentCategory") {
+			@Override
+			String arguments(LoadGenerator generator, ThreadLocalRandom random) {
+				return element("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+			}
+		},
+
+		/**
+		 * Finds the members of a sex.
+		 */
+		SEX("getDatabaseRecordBySex") {
+			@Override
+			String arguments(LoadGenerator generator, ThreadLocalRandom random) {
+				return element("sex", random.nextBoolean() ? "Male" : "Female");
+			}
+		},
+
+		/**
+		 * Adds a member that is not in the dataset.
+		 */
+		CREATE("createNewDatabaseRecord") {
+			@Override
+			String arguments(LoadGenerator generator, ThreadLocalRandom random) {
+				String[] row = Datasets.row(generator.rows + generator.inserted.getAndIncrement());
+				return element("id", row[1]) + element("firstName", row[2]) + element("lastName", row[3])
+						+ element("sex", row[4]) + element("email", row[5]) + element("phoneNumber", row[6])
+						+ element("dateOfBirth", row[7]) + element("employmentType", row[8]);
+			}
+		};
+
+		final String name; // Name of the operation in the WSDL.
+
+		/**
+		 * Constructs an operation.
+		 *
+		 * @param name The name of the operation in the WSDL.
+		 */
+		Operation(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Builds the argument elements of a request.
+		 *
+		 * @param generator The generator sending the request.
+		 * @param random    The source of random arguments.
+		 * @return The argument elements.
+		 */
+		abstract String arguments(LoadGenerator generator, ThreadLocalRandom random);
+
+		/**
+		 * Builds a complete SOAP envelope for a request.
+		 *
+		 * @param generator The generator sending the request.
+		 * @param random    The source of random arguments.
+		 * @return The envelope.
+		 */
+		String envelope(LoadGenerator generator, ThreadLocalRandom random) {
+			return "<S:Envelope xmlns:S=\"http://schemas.xmlsoap.org/soap/envelope/\"><S:Body><ns:" + name
+					+ " xmlns:ns=\"" + NAMESPACE + "\">" + arguments(generator, random) + "</ns:" + name
+					+ "></S:Body></S:Envelope>";
+		}
+
+		/**
+		 * Finds an operation by its WSDL name.
+		 *
+		 * @param name The name.
+		 * @return The operation.
+		 * @throws IllegalArgumentException If there is no such operation.
+		 */
+		static Operation named(String name) {
+			for (Operation operation : values()) {
+				if (operation.name.equals(name)) {
+					return operation;
+				}
+			}
+			throw new IllegalArgumentException("Unknown operation " + name);
+		}
+	}
+
+	/**
+	 * The measurements of one operation.
+	 */
+	private static final class Stats {
+
+		final Recorder latencies = new Recorder(MAX_LATENCY, 3); // Latency of each reply in microseconds.
+
+		final LongAdder faults = new LongAdder(); // Replies that were not successful.
+
+		final LongAdder failures = new LongAdder(); // Requests that got no reply.
+
+		final LongAdder abandoned = new LongAdder(); // Failures whose wait is recorded as latency.
+
+		final LongAdder bytes = new LongAdder(); // Bytes of reply bodies received.
+	}
+
+	private final String mode; // "open" or "closed".
+
+	private final int clients; // Number of concurrent clients.
+
+	private final double rate; // Requests per second, or 0 for as fast as possible.
+
+	private final int duration; // Seconds measured.
+
+	private final int warmup; // Seconds run before measuring.
+
+	final int rows; // Number of members in the dataset.
+
+	private final int port; // Local port the service is published on.
+
+	private final String encoding; // "xml" or "fastinfoset".
+
+	private final int[] weights = new int[Operation.values().length]; // Share of each operation.
+
+	private final int totalWeight; // Sum of the weights.
+
+	private final Stats[] stats = new Stats[Operation.values().length]; // Measurements by operation.
+
+	final AtomicLong inserted = new AtomicLong(); // Number of records added so far.
+
+	private HttpClient client; // Client sending the requests.
+
+	private URI address; // Address of the service.
+
+	private long measureStart; // Time from which replies are recorded.
+
+	private volatile long cpuStart = -1; // Process CPU time in nanoseconds when measuring started, or -1.
+
+	private volatile long cpuEnd = -1; // Process CPU time in nanoseconds when measuring ended, or -1.
+
+	/**
+	 * Constructs a generator from name=value options.
+	 *
+	 * @param options The options.
+	 * @throws IllegalArgumentException If an option is unknown or invalid.
+	 */
+	LoadGenerator(Map<String, String> options) {
+		Map<String, String> remaining = new LinkedHashMap<>(options);
+		mode = remaining.getOrDefault("mode", "closed").toLowerCase(Locale.ROOT);
+		clients = Integer.parseInt(remaining.getOrDefault("clients", "64"));
+		rate = Double.parseDouble(remaining.getOrDefault("rate", "0"));
+		duration = Integer.parseInt(remaining.getOrDefault("duration", "30"));
+		warmup = Integer.parseInt(remaining.getOrDefault("warmup", "10"));
+		rows = Integer.parseInt(remaining.getOrDefault("rows", "100000"));
+		port = Integer.parseInt(remaining.getOrDefault("port", "7777"));
+		encoding = remaining.getOrDefault("encoding", "xml").toLowerCase(Locale.ROOT);
+		String mix = remaining.get("mix");
+		if (mix == null) {
+			Arrays.fill(weights, 1);
+		} else {
+			for (String entry : mix.split(",")) {
+				String[] parts = entry.split(":");
+				weights[Operation.named(parts[0].trim()).ordinal()] = Integer.parseInt(parts[1].trim());
+			}
+		}
+		for (String name : List.of("mode", "clients", "rate", "duration", "warmup", "rows", "port", "mix",
+				"encoding")) {
+			remaining.remove(name);
+		}
+		if (!remaining.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + remaining.keySet());
+		}
+		if (!mode.equals("open") && !mode.equals("closed")) {
+			throw new IllegalArgumentException("mode must be open or closed");
+		}
+		if (!encoding.equals("xml") && !encoding.equals("fastinfoset")) {
+			throw new IllegalArgumentException("encoding must be xml or fastinfoset");
+		}
+		if (mode.equals("open") && rate <= 0) {
+			throw new IllegalArgumentException("open mode needs a rate");
+		}
+		int sum = 0;
+		for (int weight : weights) {
+			sum += weight;
+		}
+		if (sum <= 0 || clients <= 0 || duration <= 0 || rows <= 0) {
+			throw new IllegalArgumentException("mix, clients, duration and rows must be positive");
+		}
+		totalWeight = sum;
+		for (int i = 0; i < stats.length; i++) {
+			stats[i] = new Stats();
+		}
+	}
+
+	/**
+	 * Starts the service on a copy of a generated dataset, runs the load and
+	 * prints the report.
+	 *
+	 * @param args The name=value options.
+	 * @throws Exception If the service cannot be started or the report saved.
+	 */
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals < 0) {
+				throw new IllegalArgumentException("Options must be name=value but got " + arg);
+			}
+			options.put(arg.substring(arg.startsWith("--") ? 2 : 0, equals), arg.substring(equals + 1));
+		}
+		LoadGenerator generator = new LoadGenerator(options);
+		generator.startServer();
+		generator.run();
+		generator.report();
+		System.exit(0);
+	}
+
+	/**
+	 * Copies the dataset, so inserts do not change it, and publishes the service
+	 * on it. The properties read by the service's Constants class are set first.
+	 *
+	 * @throws IOException If the dataset cannot be copied.
+	 */
+	void startServer() throws IOException {
+		Path dataset = Datasets.csv(rows);
+		Path working = dataset.resolveSibling("loadgen-" + rows + ".csv");
+		Files.copy(dataset, working, StandardCopyOption.REPLACE_EXISTING);
+		String path = "/190931/people";
+		System.setProperty("soap.csv", working.toString());
+		System.setProperty("soap.address", "http://localhost:" + port + path);
+		org.soap.api.server.DatabaseServerPublisher.main(new String[0]);
+		address = URI.create("http://localhost:" + port + path);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.executor(Executors.newCachedThreadPool(CLIENT_THREADS)).connectTimeout(Duration.ofSeconds(10))
+				.build();
+	}
+
+	/**
+	 * Runs the warm-up and the measured period.
+	 *
+	 * @throws InterruptedException If interrupted while waiting for clients.
+	 */
+	void run() throws InterruptedException {
+		long start = System.nanoTime();
+		measureStart = start + TimeUnit.SECONDS.toNanos(warmup);
+		long end = measureStart + TimeUnit.SECONDS.toNanos(duration);
+		System.out.printf("Running %s loop, %d clients, %s for %d s after %d s warm-up%n", mode, clients,
+				rate > 0 ? String.format("%.0f requests/s", rate) : "unpaced", duration, warmup);
+		long deadline = end + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+		Thread cpuSampler = CLIENT_THREADS.newThread(() -> {
+			waitUntil(measureStart);
+			cpuStart = processCpuTime();
+			waitUntil(end);
+			cpuEnd = processCpuTime();
+		});
+		cpuSampler.start();
+		ExecutorService threads = Executors.newCachedThreadPool(CLIENT_THREADS);
+		if (mode.equals("open")) {
+			runOpen(threads, start, end, deadline);
+		} else {
+			runClosed(threads, start, end);
+		}
+		cpuSampler.join();
+		threads.shutdown();
+		if (!threads.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+			System.out.println("Abandoning requests still in flight " + DRAIN_SECONDS + " s after the end of the run");
+			threads.shutdownNow();
+			threads.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Starts requests at a fixed rate, each on its own thread, with at most
+	 * {@link #clients} in flight. A request that cannot start before the deadline
+	 * is abandoned.
+	 *
+	 * @param threads  The executor to start requests on.
+	 * @param start    The time of the first request.
+	 * @param end      The time after which no more requests are started.
+	 * @param deadline The time after which waiting requests are abandoned.
+	 * @throws InterruptedException If interrupted while waiting for a client.
+	 */
+	private void runOpen(ExecutorService threads, long start, long end, long deadline)
+			throws InterruptedException {
+		Semaphore inFlight = new Semaphore(clients);
+		double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		for (long i = 0;; i++) {
+			long intended = start + (long) (i * interval);
+			if (intended >= end) {
+				break;
+			}
+			waitUntil(intended);
+			Operation operation = choose(ThreadLocalRandom.current());
+			if (!inFlight.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				abandon(operation, intended);
+				continue;
+			}
+			threads.execute(() -> {
+				try {
+					send(operation, intended);
+				} finally {
+					inFlight.release();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Runs {@link #clients} clients that each wait for a reply before sending the
+	 * next request, paced to their share of the rate if one is set.
+	 *
+	 * @param threads The executor to run the clients on.
+	 * @param start   The time of the first request.
+	 * @param end     The time after which no more requests are started.
+	 */
+	private void runClosed(ExecutorService threads, long start, long end) {
+		long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * clients / rate) : 0;
+		for (int c = 0; c < clients; c++) {
+			long offset = interval * c / clients;
+			threads.execute(() -> {
+				for (long i = 0;; i++) {
+					long intended = interval > 0 ? start + offset + i * interval : System.nanoTime();
+					if (intended >= end) {
+						break;
+					}
+					waitUntil(intended);
+					send(choose(ThreadLocalRandom.current()), intended);
+					if (Thread.currentThread().isInterrupted()) {
+						break;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Sends one request and records its latency from the intended send time.
+	 *
+	 * @param operation The operation to call.
+	 * @param intended  The time the request was scheduled to be sent.
+	 */
+	private void send(Operation operation, long intended) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Stats stat = stats[operation.ordinal()];
+		HttpRequest request = HttpRequest.newBuilder(address).timeout(Duration.ofSeconds(60))
+				.header("Content-Type", "text/xml; charset=utf-8").header("SOAPAction", "\"\"")
+				.header("Accept", encoding.equals("fastinfoset") ? "application/fastinfoset, text/xml" : "text/xml")
+				.POST(HttpRequest.BodyPublishers.ofString(operation.envelope(this, random), StandardCharsets.UTF_8))
+				.build();
+		try {
+			HttpResponse<Long> response = client.send(request,
+					info -> HttpResponse.BodySubscribers.fromSubscriber(new ByteCounter(), counter -> counter.count));
+			if (intended >= measureStart) {
+				stat.latencies.recordValue(Math.min(MAX_LATENCY, (System.nanoTime() - intended) / 1000));
+				stat.bytes.add(response.body());
+				if (response.statusCode() != 200) {
+					stat.faults.increment();
+				}
+			}
+		} catch (IOException e) {
+			if (intended >= measureStart) {
+				stat.failures.increment();
+			}
+		} catch (InterruptedException e) {
+			abandon(operation, intended);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Records a request abandoned at the end of the run as a failure, with the
+	 * time it had waited so far as its latency, so that it still counts towards
+	 * the percentiles.
+	 *
+	 * @param operation The operation of the request.
+	 * @param intended  The time the request was scheduled to be sent.
+	 */
+	private void abandon(Operation operation, long intended) {
+		if (intended >= measureStart) {
+			Stats stat = stats[operation.ordinal()];
+			stat.latencies.recordValue(Math.min(MAX_LATENCY, (System.nanoTime() - intended) / 1000));
+			stat.failures.increment();
+			stat.abandoned.increment();
+		}
+	}
+
+	/**
+	 * Counts the bytes of a reply body and discards them.
+	 */
+	private static final class ByteCounter implements Flow.Subscriber<List<ByteBuffer>> {
+
+		long count; // Bytes received so far.
+
+		/**
+		 * Requests the whole body.
+		 *
+		 * @param subscription The body subscription.
+		 */
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		/**
+		 * Counts a part of the body.
+		 *
+		 * @param buffers The bytes received.
+		 */
+		@Override
+		public void onNext(List<ByteBuffer> buffers) {
+			for (ByteBuffer buffer : buffers) {
+				count += buffer.remaining();
+			}
+		}
+
+		/**
+		 * Ignores a failed body; the request fails with the same error.
+		 *
+		 * @param throwable The error.
+		 */
+		@Override
+		public void onError(Throwable throwable) {
+		}
+
+		/**
+		 * Does nothing when the body is complete.
+		 */
+		@Override
+		public void onComplete() {
+		}
+	}
+
+	/**
+	 * Chooses an operation according to the mix.
+	 *
+	 * @param random The source of randomness.
+	 * @return The operation.
+	 */
+	private Operation choose(ThreadLocalRandom random) {
+		int pick = random.nextInt(totalWeight);
+		for (Operation operation : Operation.values()) {
+			pick -= weights[operation.ordinal()];
+			if (pick < 0) {
+				return operation;
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Prints the report and saves it as JSON.
+	 *
+	 * @throws IOException If the JSON file cannot be written.
+	 */
+	void report() throws IOException {
+		if (mode.equals("closed") && rate <= 0) {
+			System.out.println("Closed loop without a rate: latencies are service times and are not corrected"
+					+ " for coordinated omission.");
+		}
+		System.out.printf("%-30s %9s %7s %7s %10s %10s %10s %10s %10s %10s%n", "Operation", "Replies", "Faults",
+				"Failed", "Req/s", "KiB/reply", "p50 ms", "p99 ms", "p99.9 ms", "Max ms");
+		Histogram total = new Histogram(MAX_LATENCY, 3);
+		long totalFaults = 0;
+		long totalFailures = 0;
+		long totalAbandoned = 0;
+		long totalBytes = 0;
+		List<String> json = new ArrayList<>();
+		for (Operation operation : Operation.values()) {
+			if (weights[operation.ordinal()] == 0) {
+				continue;
+			}
+			Stats stat = stats[operation.ordinal()];
+			Histogram histogram = stat.latencies.getIntervalHistogram();
+			total.add(histogram);
+			totalFaults += stat.faults.sum();
+			totalFailures += stat.failures.sum();
+			totalAbandoned += stat.abandoned.sum();
+			totalBytes += stat.bytes.sum();
+			json.add(row(operation.name, histogram, histogram.getTotalCount() - stat.abandoned.sum(),
+					stat.faults.sum(), stat.failures.sum(), stat.bytes.sum()));
+		}
+		long totalReplies = total.getTotalCount() - totalAbandoned;
+		json.add(row("total", total, totalReplies, totalFaults, totalFailures, totalBytes));
+		double cpuPerReply = cpuStart < 0 || cpuEnd < 0 ? -1 : (cpuEnd - cpuStart) / 1e6 / Math.max(1, totalReplies);
+		if (cpuPerReply >= 0) {
+			System.out.printf(Locale.ROOT, "Process CPU time: %.3f ms per reply, clients included%n", cpuPerReply);
+		}
+		Path results = Paths.get(BenchmarkRunner.RESULTS_DIRECTORY);
+		Files.createDirectories(results);
+		Path file = results.resolve("loadgen-"
+				+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(String.format(Locale.ROOT,
+					"{\"mode\":\"%s\",\"encoding\":\"%s\",\"clients\":%d,\"rate\":%.1f,\"duration\":%d,\"warmup\":%d,\"rows\":%d,"
+							+ "\"cpuMsPerReply\":%.3f,\"operations\":[%n%s%n]}%n",
+					mode, encoding, clients, rate, duration, warmup, rows, cpuPerReply, String.join(",\n", json)));
+		}
+		System.out.println("Results saved to " + file);
+	}
+
+	/**
+	 * Prints one row of the report and formats it as a JSON object.
+	 *
+	 * @param name      The operation name.
+	 * @param histogram The latencies in microseconds.
+	 * @param replies   The number of replies.
+	 * @param faults    The number of unsuccessful replies.
+	 * @param failures  The number of requests without a reply.
+	 * @param bytes     The number of bytes of reply bodies received.
+	 * @return The JSON object.
+	 */
+	private String row(String name, Histogram histogram, long replies, long faults, long failures, long bytes) {
+		double throughput = replies / (double) duration;
+		double replyKiB = bytes / 1024.0 / Math.max(1, replies);
+		double p50 = histogram.getValueAtPercentile(50) / 1000.0;
+		double p99 = histogram.getValueAtPercentile(99) / 1000.0;
+		double p999 = histogram.getValueAtPercentile(99.9) / 1000.0;
+		double max = histogram.getMaxValue() / 1000.0;
+		System.out.printf(Locale.ROOT, "%-30s %9d %7d %7d %10.1f %10.1f %10.2f %10.2f %10.2f %10.2f%n", name,
+				replies, faults, failures, throughput, replyKiB, p50, p99, p999, max);
+		return String.format(Locale.ROOT,
+				"  {\"operation\":\"%s\",\"replies\":%d,\"faults\":%d,\"failures\":%d,\"throughput\":%.2f,"
+						+ "\"replyKiB\":%.2f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+				name, replies, faults, failures, throughput, replyKiB, p50, p99, p999, max);
+	}
+
+	/**
+	 * Builds an XML element with escaped text content.
+	 *
+	 * @param name  The element name.
+	 * @param value The text content.
+	 * @return The element.
+	 */
+	private static String element(String name, String value) {
+		return "<" + name + ">" + value.replace("&", "&amp;").replace("<", "&lt;") + "</" + name + ">";
+	}
+
+	/**
+	 * Gets the CPU time used by this process.
+	 *
+	 * @return The CPU time in nanoseconds, or -1 if the JVM cannot measure it.
+	 */
+	private static long processCpuTime() {
+		if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+			return os.getProcessCpuTime();
+		}
+		return -1;
+	}
+
+	/**
+	 * Waits until the given time.
+	 *
+	 * @param time The time to wait for, from System.nanoTime().
+	 */
+	private static void waitUntil(long time) {
+		long remaining;
+		while ((remaining = time - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+}
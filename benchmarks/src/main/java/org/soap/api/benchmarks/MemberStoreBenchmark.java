@@ -0,0 +1,242 @@
+/**
+ * The MemberStoreBenchmark file is responsible for benchmarking the member store queries on their own.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+import org.soap.api.store.MemberQuery;
+import org.soap.api.store.MemberStore;
+import org.soap.api.utils.CsvReadWrite;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MemberStoreBenchmark class measures the queries of {@link MemberStore}
+ * directly, without the argument checks and the result cache of the server,
+ * so the cost of the indexes and of building the result lists can be seen on
+ * its own.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemberStoreBenchmark {
+
+	/**
+	 * Number of staff IDs looked up in turn.
+	 */
+	private static final int SAMPLE_SIZE = 1024;
+
+	/**
+	 * Number of members on each page of the paged queries.
+	 */
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "100", "100000", "10000000" })
+	public int rows; // Number of members in the dataset.
+
+	private MemberStore store; // Store under test.
+
+	private String[] staffIds; // Staff IDs of a sample of stored members.
+
+	private int next; // Position in staffIds of the next lookup.
+
+	private final int from = (int) LocalDate.of(1980, 1, 1).toEpochDay(); // Start of the date range queried.
+
+	private final int to = (int) LocalDate.of(1980, 12, 31).toEpochDay(); // End of the date range queried.
+
+	private final int firstBirthDay = (int) LocalDate.of(1900, 1, 1).toEpochDay(); // Start of the paged range.
+
+	private final int lastBirthDay = (int) LocalDate.of(2030, 12, 31).toEpochDay(); // End of the paged range.
+
+	/**
+	 * Query for the female engineers born in the 1980s.
+	 */
+	private final MemberQuery femaleEngineers = new MemberQuery(Sex.FEMALE, EmploymentCategory.ENGINEERING_TECHNOLOGY,
+			(int) LocalDate.of(1980, 1, 1).toEpochDay(), (int) LocalDate.of(1989, 12, 31).toEpochDay(), null);
+
+	private long middleSexPage; // Position half way through the members of one sex.
+
+	private long middleBirthPage; // Position half way through the paged date range.
+
+	/**
+	 * Loads the dataset and picks the staff IDs to look up.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		store = CsvReadWrite.readDataFromCSV(Datasets.csv(rows).toString());
+		SplittableRandom random = new SplittableRandom(42);
+		staffIds = new String[SAMPLE_SIZE];
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			staffIds[i] = Datasets.staffId(random.nextInt(rows));
+		}
+		middleSexPage = store.getBySex(Sex.FEMALE, MemberStore.FIRST_PAGE, rows / 4 + 1).getNext();
+		middleBirthPage = MemberStore.FIRST_PAGE;
+		for (int skipped = 0; skipped < rows / 2; skipped += 1000) {
+			middleBirthPage = store.getBornBetween(firstBirthDay, lastBirthDay, middleBirthPage, 1000).getNext();
+		}
+	}
+
+	/**
+	 * Looks up a member by staff ID.
+	 *
+	 * @return The member.
+	 */
+	@Benchmark
+	public DatabaseMember getByStaffId() {
+		return store.getByStaffId(staffIds[next++ & (SAMPLE_SIZE - 1)]);
+	}
+
+	/**
+	 * Finds the members born in one year.
+	 *
+	 * @return The members.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getBornBetween() {
+		return store.getBornBetween(from, to);
+	}
+
+	/**
+	 * Finds the members in one employment category.
+	 *
+	 * @return The members.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getByCategory() {
+		return store.getByCategory(EmploymentCategory.HEALTHCARE);
+	}
+
+	/**
+	 * Finds the members of one sex.
+	 *
+	 * @return The members.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getBySex() {
+		return store.getBySex(Sex.FEMALE);
+	}
+
+	/**
+	 * Finds the members of one sex in one employment category.
+	 *
+	 * @return The members.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> getBySexAndCategory() {
+		return store.getBySexAndCategory(Sex.FEMALE, EmploymentCategory.HEALTHCARE);
+	}
+
+	/**
+	 * Fetches the first page of the members of one sex.
+	 *
+	 * @return The page.
+	 */
+	@Benchmark
+	public MemberStore.Page getBySexFirstPage() {
+		return store.getBySex(Sex.FEMALE, MemberStore.FIRST_PAGE, PAGE_SIZE);
+	}
+
+	/**
+	 * Fetches a page half way through the members of one sex.
+	 *
+	 * @return The page.
+	 */
+	@Benchmark
+	public MemberStore.Page getBySexMiddlePage() {
+		return store.getBySex(Sex.FEMALE, middleSexPage, PAGE_SIZE);
+	}
+
+	/**
+	 * Fetches the first page of the members ordered by date of birth.
+	 *
+	 * @return The page.
+	 */
+	@Benchmark
+	public MemberStore.Page getBornBetweenFirstPage() {
+		return store.getBornBetween(firstBirthDay, lastBirthDay, MemberStore.FIRST_PAGE, PAGE_SIZE);
+	}
+
+	/**
+	 * Fetches a page half way through the members ordered by date of birth.
+	 *
+	 * @return The page.
+	 */
+	@Benchmark
+	public MemberStore.Page getBornBetweenMiddlePage() {
+		return store.getBornBetween(firstBirthDay, lastBirthDay, middleBirthPage, PAGE_SIZE);
+	}
+
+	/**
+	 * Finds the female engineers born in the 1980s with one planned query.
+	 *
+	 * @return The matching members.
+	 */
+	@Benchmark
+	public ArrayList<DatabaseMember> findMembers() {
+		return store.find(femaleEngineers);
+	}
+
+	/**
+	 * Counts the female engineers born in the 1980s.
+	 *
+	 * @return The number of matching members.
+	 */
+	@Benchmark
+	public int countMembers() {
+		return store.count(femaleEngineers);
+	}
+
+	/**
+	 * Finds the female engineers born in the 1980s the way a client had to
+	 * before findMembers: fetch the three lists and intersect them by staff ID.
+	 *
+	 * @return The number of matching members.
+	 */
+	@Benchmark
+	public int intersectThreeLists() {
+		HashSet<String> female = new HashSet<>();
+		for (DatabaseMember member : store.getBySex(Sex.FEMALE)) {
+			female.add(member.getId());
+		}
+		HashSet<String> femaleEngineers = new HashSet<>();
+		for (DatabaseMember member : store.getByCategory(EmploymentCategory.ENGINEERING_TECHNOLOGY)) {
+			if (female.contains(member.getId())) {
+				femaleEngineers.add(member.getId());
+			}
+		}
+		int count = 0;
+		for (DatabaseMember member : store.getBornBetween(this.femaleEngineers.getFromDay(),
+				this.femaleEngineers.getToDay())) {
+			if (femaleEngineers.contains(member.getId())) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
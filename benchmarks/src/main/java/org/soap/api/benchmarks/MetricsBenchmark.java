@@ -0,0 +1,129 @@
+/**
+ * The MetricsBenchmark file is responsible for benchmarking the cost of recording the per-operation metrics.
+ */
+package org.soap.api.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soap.api.metrics.Metrics;
+import org.soap.api.metrics.OperationMetrics;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.server.DatabaseServerImpl;
+import org.soap.api.utils.CsvReadWrite;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MetricsBenchmark class measures what the per-operation metrics add to a
+ * request: the cost of recording one request alone and from several threads,
+ * and a staff ID lookup through the service with metrics on and with them
+ * turned off by the soap.metrics property.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+	/**
+	 * Number of members in the dataset the lookups run against.
+	 */
+	private static final int ROWS = 100_000;
+
+	/**
+	 * Number of staff IDs looked up in turn.
+	 */
+	private static final int SAMPLE_SIZE = 1024;
+
+	private final OperationMetrics metrics = new OperationMetrics("benchmark"); // Metrics recorded into.
+
+	private DatabaseServerImpl server; // Service under test.
+
+	private String[] staffIds; // Staff IDs of a sample of stored members.
+
+	private int next; // Position in staffIds of the next lookup.
+
+	/**
+	 * Loads the dataset into the server's store and picks the staff IDs to look
+	 * up.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		DatabaseServerImpl.memberStore = CsvReadWrite.readDataFromCSV(Datasets.csv(ROWS).toString());
+		server = new DatabaseServerImpl();
+		SplittableRandom random = new SplittableRandom(42);
+		staffIds = new String[SAMPLE_SIZE];
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			staffIds[i] = Datasets.staffId(random.nextInt(ROWS));
+		}
+	}
+
+	/**
+	 * Reads the clock once, the least a timed request can cost.
+	 *
+	 * @return The time.
+	 */
+	@Benchmark
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Times and records one request from a single thread.
+	 */
+	@Benchmark
+	public void record() {
+		metrics.record(Metrics.start(), next++ & (SAMPLE_SIZE - 1));
+	}
+
+	/**
+	 * Times and records one request from four threads at once, so they contend
+	 * for the same counters.
+	 */
+	@Benchmark
+	@Threads(4)
+	public void recordContended() {
+		metrics.record(Metrics.start(), 1);
+	}
+
+	/**
+	 * Looks up a member by staff ID with metrics recorded.
+	 *
+	 * @return The member.
+	 * @throws Exception If the staff ID is not found.
+	 */
+	@Benchmark
+	public DatabaseMember lookupWithMetrics() throws Exception {
+		return server.getDatabaseByStaffId(staffIds[next++ & (SAMPLE_SIZE - 1)]);
+	}
+
+	/**
+	 * Looks up a member by staff ID with metrics turned off.
+	 *
+	 * @return The member.
+	 * @throws Exception If the staff ID is not found.
+	 */
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dsoap.metrics=false")
+	public DatabaseMember lookupWithoutMetrics() throws Exception {
+		return server.getDatabaseByStaffId(staffIds[next++ & (SAMPLE_SIZE - 1)]);
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ * A custom exception file for handling invalid export formats in the DatabaseServer web service.
+ */
+package org.soap.api.exceptions;
+
+import jakarta.xml.ws.WebFault;
+
+/**
+ * A custom exception class for handling invalid export formats in the
+ * DatabaseServer web service. This exception is thrown when the format asked
+ * for in an export is not one the service can write.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@WebFault
+public class InvalidExportFormatException extends Exception {
+
+	/**
+	 * Constructs a new `InvalidExportFormatException` with the specified error
+	 * message.
+	 *
+	 * @param message The error message describing the problem with the format.
+	 */
+	public InvalidExportFormatException(String message) {
+		super("InvalidExportFormatException: " + message);
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ * A custom exception file for handling invalid page sizes and page tokens in the DatabaseServer web service.
+ */
+package org.soap.api.exceptions;
+
+import jakarta.xml.ws.WebFault;
+
+/**
+ * A custom exception class for handling invalid page sizes and page tokens in
+ * the DatabaseServer web service. This exception is thrown when the page size
+ * or page token given to a paged query is invalid.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@WebFault
+public class InvalidPageException extends Exception {
+
+	/**
+	 * Constructs a new `InvalidPageException` with the specified error message.
+	 *
+	 * @param message The error message describing the problem with the page size or
+	 *                token.
+	 */
+	public InvalidPageException(String message) {
+		super("InvalidPageException: " + message);
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * A custom exception file for handling invalid queries in the DatabaseServer web service.
+ */
+package org.soap.api.exceptions;
+
+import jakarta.xml.ws.WebFault;
+
+/**
+ * A custom exception class for handling invalid queries in the DatabaseServer
+ * web service. This exception is thrown when a query whose reply is not paged
+ * is given no filter, and so would return every member.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@WebFault
+public class InvalidQueryException extends Exception {
+
+	/**
+	 * Constructs a new `InvalidQueryException` with the specified error message.
+	 *
+	 * @param message The error message describing the problem with the query.
+	 */
+	public InvalidQueryException(String message) {
+		super("InvalidQueryException: " + message);
+	}
+}
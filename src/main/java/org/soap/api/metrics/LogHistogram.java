@@ -0,0 +1,167 @@
+/**
+ * The LogHistogram file is responsible for counting recorded values in logarithmic buckets without locking or allocating.
+ */
+package org.soap.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LogHistogram class records non-negative long values into log-linear
+ * buckets: every power of two is split into {@value #SUB_BUCKETS} equal
+ * buckets, so a value is counted to within about 6% of its size over the whole
+ * range of a long. The buckets are a fixed array of atomic counters, so
+ * recording a value takes a few arithmetic operations and one atomic add, and
+ * never locks or allocates.
+ *
+ * <p>
+ * Readers see the counts as they are at the time of reading. A percentile read
+ * while values are being recorded may be off by the values recorded during the
+ * read, which is acceptable for monitoring.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class LogHistogram {
+
+	/**
+	 * Number of bits of a value kept below its leading bit.
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * Number of buckets each power of two is split into.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Number of buckets needed for every non-negative long.
+	 */
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Number of values in each bucket.
+
+	private final AtomicLong sum = new AtomicLong(); // Sum of the recorded values.
+
+	private final AtomicLong max = new AtomicLong(); // Largest recorded value.
+
+	/**
+	 * Records a value. Negative values are recorded as zero.
+	 *
+	 * @param value The value to record.
+	 */
+	public void record(long value) {
+		long v = Math.max(0, value);
+		counts.getAndIncrement(bucket(v));
+		sum.getAndAdd(v);
+		long largest = max.get();
+		while (v > largest && !max.compareAndSet(largest, v)) {
+			largest = max.get();
+		}
+	}
+
+	/**
+	 * Gets the number of recorded values.
+	 *
+	 * @return The count.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the mean of the recorded values.
+	 *
+	 * @return The mean, or zero if nothing has been recorded.
+	 */
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) sum.get() / count;
+	}
+
+	/**
+	 * Gets the largest recorded value.
+	 *
+	 * @return The largest value, or zero if nothing has been recorded.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the value below or at which a percentage of the recorded values fall,
+	 * as the upper bound of the bucket holding that value.
+	 *
+	 * @param percentile The percentage, from 0 to 100.
+	 * @return The value, or zero if nothing has been recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Discards every recorded value. Values recorded during the reset may be
+	 * partly kept.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Gets the bucket a value is counted in.
+	 *
+	 * @param value The non-negative value.
+	 * @return The bucket index.
+	 */
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Gets the largest value counted in a bucket.
+	 *
+	 * @param bucket The bucket index.
+	 * @return The largest value.
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+}
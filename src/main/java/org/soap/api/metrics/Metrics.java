@@ -0,0 +1,152 @@
+/**
+ * The Metrics file is responsible for holding the metrics of every web service operation and publishing them over JMX.
+ */
+package org.soap.api.metrics;
+
+import org.soap.api.utils.Constants;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * The Metrics class holds one {@link OperationMetrics} for each operation of
+ * the DatabaseServer web service and registers them, along with any other
+ * management beans of the server, with the platform MBean server under the
+ * {@value #DOMAIN} domain. They can then be read with JConsole, VisualVM or any
+ * other JMX client.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class Metrics {
+
+	/**
+	 * JMX domain the management beans are registered under.
+	 */
+	public static final String DOMAIN = "org.soap.api";
+
+	/**
+	 * Whether metrics are recorded, from the {@value Constants#METRICS_PROPERTY}
+	 * system property. When false, requests are not timed at all.
+	 */
+	public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(Constants.METRICS_PROPERTY));
+
+	/**
+	 * Metrics of getDatabaseByStaffId.
+	 */
+	public static final OperationMetrics GET_BY_STAFF_ID = new OperationMetrics("getDatabaseByStaffId");
+
+	/**
+	 * Metrics of getDatabaseWithinAgeRange.
+	 */
+	public static final OperationMetrics GET_WITHIN_AGE_RANGE = new OperationMetrics("getDatabaseWithinAgeRange");
+
+	/**
+	 * Metrics of getRecordByEmploymentCategory.
+	 */
+	public static final OperationMetrics GET_BY_CATEGORY = new OperationMetrics("getRecordByEmploymentCategory");
+
+	/**
+	 * Metrics of getDatabaseRecordBySex.
+	 */
+	public static final OperationMetrics GET_BY_SEX = new OperationMetrics("getDatabaseRecordBySex");
+
+	/**
+	 * Metrics of getDatabaseWithinAgeRangePage.
+	 */
+	public static final OperationMetrics GET_WITHIN_AGE_RANGE_PAGE = new OperationMetrics(
+			"getDatabaseWithinAgeRangePage");
+
+	/**
+	 * Metrics of getRecordByEmploymentCategoryPage.
+	 */
+	public static final OperationMetrics GET_BY_CATEGORY_PAGE = new OperationMetrics(
+			"getRecordByEmploymentCategoryPage");
+
+	/**
+	 * Metrics of getDatabaseRecordBySexPage.
+	 */
+	public static final OperationMetrics GET_BY_SEX_PAGE = new OperationMetrics("getDatabaseRecordBySexPage");
+
+	/**
+	 * Metrics of findMembers.
+	 */
+	public static final OperationMetrics FIND_MEMBERS = new OperationMetrics("findMembers");
+
+	/**
+	 * Metrics of countMembers. The result size is always one.
+	 */
+	public static final OperationMetrics COUNT_MEMBERS = new OperationMetrics("countMembers");
+
+	/**
+	 * Metrics of getDatabaseStatistics. The result size is the number of members
+	 * counted.
+	 */
+	public static final OperationMetrics GET_STATISTICS = new OperationMetrics("getDatabaseStatistics");
+
+	/**
+	 * Metrics of exportMembers. The result size is the number of members
+	 * exported. The time leaves out streaming the file, which happens while the
+	 * response is written.
+	 */
+	public static final OperationMetrics EXPORT_MEMBERS = new OperationMetrics("exportMembers");
+
+	/**
+	 * Metrics of createNewDatabaseRecord.
+	 */
+	public static final OperationMetrics CREATE_RECORD = new OperationMetrics("createNewDatabaseRecord");
+
+	/**
+	 * Metrics of createNewDatabaseRecords. The result size is the number of
+	 * records added.
+	 */
+	public static final OperationMetrics CREATE_RECORDS = new OperationMetrics("createNewDatabaseRecords");
+
+	/**
+	 * Gets the time a request starts, to pass to
+	 * {@link OperationMetrics#record(long, int)} when it finishes.
+	 *
+	 * @return The current System.nanoTime(), or zero if metrics are disabled.
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Registers the metrics of every operation with the platform MBean server, as
+	 * {@code org.soap.api:type=Operation,name=<operation>}. Registering again
+	 * replaces the earlier registration.
+	 *
+	 * @throws JMException If a bean cannot be registered.
+	 */
+	public static void register() throws JMException {
+		for (OperationMetrics metrics : new OperationMetrics[] { GET_BY_STAFF_ID, GET_WITHIN_AGE_RANGE, GET_BY_CATEGORY,
+				GET_BY_SEX, GET_WITHIN_AGE_RANGE_PAGE, GET_BY_CATEGORY_PAGE, GET_BY_SEX_PAGE, FIND_MEMBERS, COUNT_MEMBERS,
+				GET_STATISTICS, EXPORT_MEMBERS, CREATE_RECORD, CREATE_RECORDS }) {
+			register(metrics, "Operation", metrics.getOperation());
+		}
+	}
+
+	/**
+	 * Registers a management bean with the platform MBean server as
+	 * {@code org.soap.api:type=<type>,name=<name>}, replacing any bean already
+	 * registered under that name.
+	 *
+	 * @param bean The standard MBean to register.
+	 * @param type The type key of its name.
+	 * @param name The name key of its name.
+	 * @throws JMException If the bean cannot be registered.
+	 */
+	public static void register(Object bean, String type, String name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + name);
+		if (server.isRegistered(objectName)) {
+			server.unregisterMBean(objectName);
+		}
+		server.registerMBean(bean, objectName);
+	}
+}
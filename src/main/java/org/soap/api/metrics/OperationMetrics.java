@@ -0,0 +1,188 @@
+/**
+ * The OperationMetrics file is responsible for recording the requests, faults, latencies and result sizes of one operation.
+ */
+package org.soap.api.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The OperationMetrics class records every request of one web service
+ * operation: whether it succeeded, how long it took and how many members it
+ * returned. Recording allocates nothing once the counters have warmed up, so it
+ * can stay on the request path of every call.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+	private final String operation; // Name of the operation.
+
+	private final LongAdder faults = new LongAdder(); // Requests that ended in a fault.
+
+	private final LogHistogram latencies = new LogHistogram(); // Latency of every request, including faults, in nanoseconds.
+
+	private final LogHistogram resultSizes = new LogHistogram(); // Members returned by each successful request.
+
+	/**
+	 * Constructs the metrics of an operation.
+	 *
+	 * @param operation The name of the operation.
+	 */
+	public OperationMetrics(String operation) {
+		this.operation = operation;
+	}
+
+	/**
+	 * Records a finished request.
+	 *
+	 * @param startNanos The value of {@link Metrics#start()} when the request
+	 *                   started.
+	 * @param resultSize The number of members returned, or a negative number if
+	 *                   the request ended in a fault.
+	 */
+	public void record(long startNanos, int resultSize) {
+		if (!Metrics.ENABLED) {
+			return;
+		}
+		latencies.record(System.nanoTime() - startNanos);
+		if (resultSize < 0) {
+			faults.increment();
+		} else {
+			resultSizes.record(resultSize);
+		}
+	}
+
+	/**
+	 * Gets the name of the operation.
+	 *
+	 * @return The operation name.
+	 */
+	@Override
+	public String getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Gets the number of requests handled, including faults.
+	 *
+	 * @return The number of requests.
+	 */
+	@Override
+	public long getRequestCount() {
+		return latencies.getCount();
+	}
+
+	/**
+	 * Gets the number of requests that ended in a fault.
+	 *
+	 * @return The number of faults.
+	 */
+	@Override
+	public long getFaultCount() {
+		return faults.sum();
+	}
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return The mean latency in microseconds.
+	 */
+	@Override
+	public double getLatencyMeanMicros() {
+		return latencies.getMean() / 1000;
+	}
+
+	/**
+	 * Gets the median latency.
+	 *
+	 * @return The median latency in microseconds.
+	 */
+	@Override
+	public double getLatencyP50Micros() {
+		return latencies.getValueAtPercentile(50) / 1000.0;
+	}
+
+	/**
+	 * Gets the 99th percentile latency.
+	 *
+	 * @return The 99th percentile latency in microseconds.
+	 */
+	@Override
+	public double getLatencyP99Micros() {
+		return latencies.getValueAtPercentile(99) / 1000.0;
+	}
+
+	/**
+	 * Gets the 99.9th percentile latency.
+	 *
+	 * @return The 99.9th percentile latency in microseconds.
+	 */
+	@Override
+	public double getLatencyP999Micros() {
+		return latencies.getValueAtPercentile(99.9) / 1000.0;
+	}
+
+	/**
+	 * Gets the highest latency.
+	 *
+	 * @return The highest latency in microseconds.
+	 */
+	@Override
+	public double getLatencyMaxMicros() {
+		return latencies.getMax() / 1000.0;
+	}
+
+	/**
+	 * Gets the mean number of members returned by a successful request.
+	 *
+	 * @return The mean result size.
+	 */
+	@Override
+	public double getResultSizeMean() {
+		return resultSizes.getMean();
+	}
+
+	/**
+	 * Gets the median number of members returned by a successful request.
+	 *
+	 * @return The median result size.
+	 */
+	@Override
+	public long getResultSizeP50() {
+		return resultSizes.getValueAtPercentile(50);
+	}
+
+	/**
+	 * Gets the 99th percentile of the number of members returned by a successful
+	 * request.
+	 *
+	 * @return The 99th percentile result size.
+	 */
+	@Override
+	public long getResultSizeP99() {
+		return resultSizes.getValueAtPercentile(99);
+	}
+
+	/**
+	 * Gets the largest number of members returned by a request.
+	 *
+	 * @return The largest result size.
+	 */
+	@Override
+	public long getResultSizeMax() {
+		return resultSizes.getMax();
+	}
+
+	/**
+	 * Discards everything recorded so far.
+	 */
+	@Override
+	public void reset() {
+		faults.reset();
+		latencies.reset();
+		resultSizes.reset();
+	}
+}
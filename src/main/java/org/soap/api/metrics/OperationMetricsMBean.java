@@ -0,0 +1,107 @@
+/**
+ * The OperationMetricsMBean file is responsible for defining the management interface of the metrics of one operation.
+ */
+package org.soap.api.metrics;
+
+/**
+ * The OperationMetricsMBean interface is the JMX view of the requests, faults,
+ * latencies and result sizes recorded for one web service operation. Latencies
+ * are the time spent in the service implementation, excluding the SOAP layer.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public interface OperationMetricsMBean {
+
+	/**
+	 * Gets the name of the operation.
+	 *
+	 * @return The operation name.
+	 */
+	String getOperation();
+
+	/**
+	 * Gets the number of requests handled, including faults.
+	 *
+	 * @return The number of requests.
+	 */
+	long getRequestCount();
+
+	/**
+	 * Gets the number of requests that ended in a fault.
+	 *
+	 * @return The number of faults.
+	 */
+	long getFaultCount();
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return The mean latency in microseconds.
+	 */
+	double getLatencyMeanMicros();
+
+	/**
+	 * Gets the median latency.
+	 *
+	 * @return The median latency in microseconds.
+	 */
+	double getLatencyP50Micros();
+
+	/**
+	 * Gets the 99th percentile latency.
+	 *
+	 * @return The 99th percentile latency in microseconds.
+	 */
+	double getLatencyP99Micros();
+
+	/**
+	 * Gets the 99.9th percentile latency.
+	 *
+	 * @return The 99.9th percentile latency in microseconds.
+	 */
+	double getLatencyP999Micros();
+
+	/**
+	 * Gets the highest latency.
+	 *
+	 * @return The highest latency in microseconds.
+	 */
+	double getLatencyMaxMicros();
+
+	/**
+	 * Gets the mean number of members returned by a successful request.
+	 *
+	 * @return The mean result size.
+	 */
+	double getResultSizeMean();
+
+	/**
+	 * Gets the median number of members returned by a successful request.
+	 *
+	 * @return The median result size.
+	 */
+	long getResultSizeP50();
+
+	/**
+	 * Gets the 99th percentile of the number of members returned by a successful
+	 * request.
+	 *
+	 * @return The 99th percentile result size.
+	 */
+	long getResultSizeP99();
+
+	/**
+	 * Gets the largest number of members returned by a request.
+	 *
+	 * @return The largest result size.
+	 */
+	long getResultSizeMax();
+
+	/**
+	 * Discards everything recorded so far.
+	 */
+	void reset();
+}
@@ -0,0 +1,79 @@
+/**
+ * The CrossTabCount file is responsible for representing the number of members in one employment category and of one sex.
+ */
+
+package org.soap.api.models;
+
+import jakarta.xml.bind.annotation.*;
+
+
+/**
+ * The CrossTabCount class is responsible for representing one cell of the
+ * employment category by sex breakdown: the number of members in one category
+ * and of one sex.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "CrossTabCount", namespace = "http://databaseServer/")
+public class CrossTabCount {
+
+	@XmlElement(name = "CATEGORY")
+	private String category; // CATEGORY: The employment category.
+
+	@XmlElement(name = "SEX")
+	private String sex; // SEX: The sex.
+
+	@XmlElement(name = "COUNT")
+	private int count; // COUNT: The number of members in the category and of the sex.
+
+	/**
+	 * Default constructor for the CrossTabCount class.
+	 */
+	public CrossTabCount() {
+
+	}
+
+	/**
+	 * Constructor for the CrossTabCount class.
+	 *
+	 * @param category The employment category.
+	 * @param sex      The sex.
+	 * @param count    The number of members in the category and of the sex.
+	 */
+	public CrossTabCount(String category, String sex, int count) {
+		this.category = category;
+		this.sex = sex;
+		this.count = count;
+	}
+
+	/**
+	 * Gets the employment category.
+	 *
+	 * @return The category.
+	 */
+	public String getCategory() {
+		return category;
+	}
+
+	/**
+	 * Gets the sex.
+	 *
+	 * @return The sex.
+	 */
+	public String getSex() {
+		return sex;
+	}
+
+	/**
+	 * Gets the number of members in the category and of the sex.
+	 *
+	 * @return The count.
+	 */
+	public int getCount() {
+		return count;
+	}
+}
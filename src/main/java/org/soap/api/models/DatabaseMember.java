@@ -6,7 +6,6 @@ package org.soap.api.models;
 
 import jakarta.xml.bind.annotation.*;
 import org.soap.api.exceptions.*;
-import org.soap.api.utils.Constants;
 import org.soap.api.utils.Converters;
 import org.soap.api.utils.Validators;
 
@@ -97,6 +96,36 @@ public class DatabaseMember {
 		this.setJobCategory(Converters.determineCategory(employmentType));
 	}
 
+	/**
+	 * Constructor for the DatabaseMember class for values that have already been
+	 * validated, such as rows read back from the member store. No checks are
+	 * made.
+	 *
+	 * @param index       The index of the member.
+	 * @param id          The unique identifier of the member.
+	 * @param firstName   The first name of the member.
+	 * @param lastName    The last name of the member.
+	 * @param sex         The gender of the member.
+	 * @param email       The email address of the member.
+	 * @param phoneNumber The phone number of the member.
+	 * @param dateOfBirth The date of birth of the member.
+	 * @param jobTitle    The job title of the member.
+	 * @param jobCategory The employment category of the member.
+	 */
+	public DatabaseMember(int index, String id, String firstName, String lastName, Sex sex, String email,
+			String phoneNumber, String dateOfBirth, String jobTitle, EmploymentCategory jobCategory) {
+		this.index = index;
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.sex = sex;
+		this.email = email;
+		this.phoneNumber = phoneNumber;
+		this.dateOfBirth = dateOfBirth;
+		this.jobTitle = jobTitle;
+		this.jobCategory = jobCategory;
+	}
+
 	/**
 	 * Gets the index of the DatabaseMember.
 	 *
@@ -131,7 +160,7 @@ public class DatabaseMember {
 	 * @throws InvalidStaffIdException If the provided staff ID is invalid.
 	 */
 	public void setId(String id) throws InvalidStaffIdException {
-		if (Validators.validateIdLength(id) && Validators.validateRegEx(id, Constants.ID_REGEX_PATTERN)) {
+		if (Validators.validateStaffId(id)) {
 			this.id = id;
 		} else {
 			throw new InvalidStaffIdException("Error: Staff ID invalid. Staff ID must be 15 characters long.");
@@ -209,7 +238,7 @@ public class DatabaseMember {
 	 * @throws InvalidEmailException If the provided email address is invalid.
 	 */
 	public void setEmail(String email) throws InvalidEmailException {
-		if (Validators.validateRegEx(email, Constants.EMAIL_REGEX_PATTERN)) {
+		if (Validators.validateEmail(email)) {
 			this.email = email;
 		} else {
 			throw new InvalidEmailException("Error: Email format invalid");
@@ -232,7 +261,7 @@ public class DatabaseMember {
 	 * @throws InvalidPhoneNumberException If the phone number is in an invalid format.
 	 */
 	public void setPhoneNumber(String phoneNumber) throws InvalidPhoneNumberException {
-		if (Validators.validateRegEx(phoneNumber, Constants.PHONE_NUMBER_REGEX_PATTERN)) {
+		if (Validators.validatePhoneNumber(phoneNumber)) {
 			this.phoneNumber = phoneNumber;
 		} else {
 			throw new InvalidPhoneNumberException("Error: Phone number format invalid");
@@ -250,18 +279,19 @@ public class DatabaseMember {
 
 	/**
 	 * Sets the date of birth of the DatabaseMember. Checks if the date of birth
-	 * provided is in a valid format.
+	 * provided is in a valid format and can be read as a date.
 	 *
 	 * @param dateOfBirth The new date of birth to be set.
 	 * @throws InvalidDateException If the provided date of birth is in an invalid
 	 *                              format.
 	 */
 	public void setDateOfBirth(String dateOfBirth) throws InvalidDateException {
-		if (Validators.validateRegEx(dateOfBirth, Constants.DOB_REGEX_PATTERN)) {
-			this.dateOfBirth = dateOfBirth;
-		} else {
+		try {
+			Converters.stringToLocalDate(dateOfBirth);
+		} catch (InvalidDateException e) {
 			throw new InvalidDateException("Error: Date format invalid");
 		}
+		this.dateOfBirth = dateOfBirth;
 	}
 
 	/**
@@ -0,0 +1,65 @@
+/**
+ * The GroupCount file is responsible for representing the number of members in one group of a statistics breakdown.
+ */
+
+package org.soap.api.models;
+
+import jakarta.xml.bind.annotation.*;
+
+
+/**
+ * The GroupCount class is responsible for representing the number of members
+ * in one group of a statistics breakdown, such as one employment category, one
+ * birth year or one age band.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "GroupCount", namespace = "http://databaseServer/")
+public class GroupCount {
+
+	@XmlElement(name = "NAME")
+	private String name; // NAME: The group, such as "Healthcare", "1985" or "30-39".
+
+	@XmlElement(name = "COUNT")
+	private int count; // COUNT: The number of members in the group.
+
+	/**
+	 * Default constructor for the GroupCount class.
+	 */
+	public GroupCount() {
+
+	}
+
+	/**
+	 * Constructor for the GroupCount class.
+	 *
+	 * @param name  The group.
+	 * @param count The number of members in the group.
+	 */
+	public GroupCount(String name, int count) {
+		this.name = name;
+		this.count = count;
+	}
+
+	/**
+	 * Gets the group.
+	 *
+	 * @return The group name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of members in the group.
+	 *
+	 * @return The count.
+	 */
+	public int getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * The MemberPage file is responsible for representing one page of the members returned by a paged query.
+ */
+
+package org.soap.api.models;
+
+import jakarta.xml.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The MemberPage class is responsible for representing one page of the members
+ * returned by a paged query, together with the token that fetches the next
+ * page.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@XmlRootElement(name = "MemberPage", namespace = "http://databaseServer/")
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "MemberPage", namespace = "http://databaseServer/")
+public class MemberPage {
+
+	@XmlElement(name = "MEMBER")
+	private List<DatabaseMember> members = new ArrayList<>(); // MEMBER: The members on this page, in query order.
+
+	@XmlElement(name = "NEXTPAGETOKEN")
+	private String nextPageToken; // NEXTPAGETOKEN: The token for the next page, or null on the last page.
+
+	/**
+	 * Default constructor for the MemberPage class.
+	 */
+	public MemberPage() {
+
+	}
+
+	/**
+	 * Constructor for the MemberPage class.
+	 *
+	 * @param members       The members on the page.
+	 * @param nextPageToken The token for the next page, or null on the last page.
+	 */
+	public MemberPage(List<DatabaseMember> members, String nextPageToken) {
+		this.members = members;
+		this.nextPageToken = nextPageToken;
+	}
+
+	/**
+	 * Gets the members on the page.
+	 *
+	 * @return The members, in query order.
+	 */
+	public List<DatabaseMember> getMembers() {
+		return members;
+	}
+
+	/**
+	 * Gets the token for the next page.
+	 *
+	 * @return The token to pass to the same query for the next page, or null if
+	 *         this is the last page.
+	 */
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+}
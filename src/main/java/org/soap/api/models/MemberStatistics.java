@@ -0,0 +1,126 @@
+/**
+ * The MemberStatistics file is responsible for representing headcounts of the database broken down in several ways.
+ */
+
+package org.soap.api.models;
+
+import jakarta.xml.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The MemberStatistics class is responsible for representing headcounts of the
+ * database: the total, and the number of members by employment category, by
+ * sex, by category and sex together, by birth year and by age band.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@XmlRootElement(name = "MemberStatistics", namespace = "http://databaseServer/")
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "MemberStatistics", namespace = "http://databaseServer/")
+public class MemberStatistics {
+
+	@XmlElement(name = "TOTAL")
+	private int total; // TOTAL: The number of members.
+
+	@XmlElement(name = "CATEGORY")
+	private List<GroupCount> byCategory = new ArrayList<>(); // CATEGORY: Members in each employment category.
+
+	@XmlElement(name = "SEX")
+	private List<GroupCount> bySex = new ArrayList<>(); // SEX: Members of each sex.
+
+	@XmlElement(name = "CATEGORYSEX")
+	private List<CrossTabCount> byCategoryAndSex = new ArrayList<>(); // CATEGORYSEX: Members by category and sex.
+
+	@XmlElement(name = "BIRTHYEAR")
+	private List<GroupCount> byBirthYear = new ArrayList<>(); // BIRTHYEAR: Members born in each year.
+
+	@XmlElement(name = "AGE")
+	private List<GroupCount> byAge = new ArrayList<>(); // AGE: Members in each ten-year age band.
+
+	/**
+	 * Default constructor for the MemberStatistics class.
+	 */
+	public MemberStatistics() {
+
+	}
+
+	/**
+	 * Constructor for the MemberStatistics class.
+	 *
+	 * @param total            The number of members.
+	 * @param byCategory       Members in each employment category.
+	 * @param bySex            Members of each sex.
+	 * @param byCategoryAndSex Members by category and sex together.
+	 * @param byBirthYear      Members born in each year.
+	 * @param byAge            Members in each ten-year age band.
+	 */
+	public MemberStatistics(int total, List<GroupCount> byCategory, List<GroupCount> bySex,
+			List<CrossTabCount> byCategoryAndSex, List<GroupCount> byBirthYear, List<GroupCount> byAge) {
+		this.total = total;
+		this.byCategory = byCategory;
+		this.bySex = bySex;
+		this.byCategoryAndSex = byCategoryAndSex;
+		this.byBirthYear = byBirthYear;
+		this.byAge = byAge;
+	}
+
+	/**
+	 * Gets the number of members.
+	 *
+	 * @return The total.
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the number of members in each employment category.
+	 *
+	 * @return The counts, in category order.
+	 */
+	public List<GroupCount> getByCategory() {
+		return byCategory;
+	}
+
+	/**
+	 * Gets the number of members of each sex.
+	 *
+	 * @return The counts.
+	 */
+	public List<GroupCount> getBySex() {
+		return bySex;
+	}
+
+	/**
+	 * Gets the number of members in each employment category and of each sex.
+	 *
+	 * @return The counts, by category and then by sex.
+	 */
+	public List<CrossTabCount> getByCategoryAndSex() {
+		return byCategoryAndSex;
+	}
+
+	/**
+	 * Gets the number of members born in each year.
+	 *
+	 * @return The counts, from the earliest year to the latest.
+	 */
+	public List<GroupCount> getByBirthYear() {
+		return byBirthYear;
+	}
+
+	/**
+	 * Gets the number of members in each ten-year age band.
+	 *
+	 * @return The counts, from the youngest band to the oldest.
+	 */
+	public List<GroupCount> getByAge() {
+		return byAge;
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * The NewDatabaseRecord file is responsible for representing one record sent to the batch insert operation.
+ */
+
+package org.soap.api.models;
+
+import jakarta.xml.bind.annotation.*;
+
+
+/**
+ * The NewDatabaseRecord class is responsible for representing one record sent
+ * to the batch insert operation, with the same fields as the arguments of a
+ * single insert.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "NewDatabaseRecord", namespace = "http://databaseServer/")
+public class NewDatabaseRecord {
+
+	@XmlElement(name = "id")
+	private String id; // id: The staff ID of the new DatabaseMember.
+
+	@XmlElement(name = "firstName")
+	private String firstName; // firstName: The first name of the new DatabaseMember.
+
+	@XmlElement(name = "lastName")
+	private String lastName; // lastName: The last name of the new DatabaseMember.
+
+	@XmlElement(name = "sex")
+	private String sex; // sex: The gender/sex of the new DatabaseMember.
+
+	@XmlElement(name = "email")
+	private String email; // email: The email address of the new DatabaseMember.
+
+	@XmlElement(name = "phoneNumber")
+	private String phoneNumber; // phoneNumber: The phone number of the new DatabaseMember.
+
+	@XmlElement(name = "dateOfBirth")
+	private String dateOfBirth; // dateOfBirth: The date of birth of the new DatabaseMember.
+
+	@XmlElement(name = "employmentType")
+	private String employmentType; // employmentType: The job title of the new DatabaseMember.
+
+	/**
+	 * Default constructor for the NewDatabaseRecord class.
+	 */
+	public NewDatabaseRecord() {
+
+	}
+
+	/**
+	 * Constructor for the NewDatabaseRecord class.
+	 *
+	 * @param id             The staff ID of the new DatabaseMember.
+	 * @param firstName      The first name of the new DatabaseMember.
+	 * @param lastName       The last name of the new DatabaseMember.
+	 * @param sex            The gender/sex of the new DatabaseMember.
+	 * @param email          The email address of the new DatabaseMember.
+	 * @param phoneNumber    The phone number of the new DatabaseMember.
+	 * @param dateOfBirth    The date of birth of the new DatabaseMember.
+	 * @param employmentType The job title or employment type of the new
+	 *                       DatabaseMember.
+	 */
+	public NewDatabaseRecord(String id, String firstName, String lastName, String sex, String email,
+			String phoneNumber, String dateOfBirth, String employmentType) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.sex = sex;
+		this.email = email;
+		this.phoneNumber = phoneNumber;
+		this.dateOfBirth = dateOfBirth;
+		this.employmentType = employmentType;
+	}
+
+	/**
+	 * Gets the staff ID.
+	 *
+	 * @return The staff ID.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the first name.
+	 *
+	 * @return The first name.
+	 */
+	public String getFirstName() {
+		return firstName;
+	}
+
+	/**
+	 * Gets the last name.
+	 *
+	 * @return The last name.
+	 */
+	public String getLastName() {
+		return lastName;
+	}
+
+	/**
+	 * Gets the sex.
+	 *
+	 * @return The sex.
+	 */
+	public String getSex() {
+		return sex;
+	}
+
+	/**
+	 * Gets the email address.
+	 *
+	 * @return The email address.
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Gets the phone number.
+	 *
+	 * @return The phone number.
+	 */
+	public String getPhoneNumber() {
+		return phoneNumber;
+	}
+
+	/**
+	 * Gets the date of birth.
+	 *
+	 * @return The date of birth.
+	 */
+	public String getDateOfBirth() {
+		return dateOfBirth;
+	}
+
+	/**
+	 * Gets the job title.
+	 *
+	 * @return The job title or employment type.
+	 */
+	public String getEmploymentType() {
+		return employmentType;
+	}
+}
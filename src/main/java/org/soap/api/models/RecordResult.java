@@ -0,0 +1,78 @@
+/**
+ * The RecordResult file is responsible for representing the outcome of one record of a batch insert.
+ */
+
+package org.soap.api.models;
+
+import jakarta.xml.bind.annotation.*;
+
+
+/**
+ * The RecordResult class is responsible for representing the outcome of one
+ * record of a batch insert: whether it was added and, if not, why.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "RecordResult", namespace = "http://databaseServer/")
+public class RecordResult {
+
+	@XmlAttribute(name = "ID")
+	private String id; // ID: The staff ID of the record.
+
+	@XmlElement(name = "ADDED")
+	private boolean added; // ADDED: Whether the record was added.
+
+	@XmlElement(name = "MESSAGE")
+	private String message; // MESSAGE: The same message a single insert would have returned or faulted with.
+
+	/**
+	 * Default constructor for the RecordResult class.
+	 */
+	public RecordResult() {
+
+	}
+
+	/**
+	 * Constructor for the RecordResult class.
+	 *
+	 * @param id      The staff ID of the record.
+	 * @param added   Whether the record was added.
+	 * @param message The reason the record was rejected, or the success message.
+	 */
+	public RecordResult(String id, boolean added, String message) {
+		this.id = id;
+		this.added = added;
+		this.message = message;
+	}
+
+	/**
+	 * Gets the staff ID of the record.
+	 *
+	 * @return The staff ID.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Checks whether the record was added.
+	 *
+	 * @return true if the record was added.
+	 */
+	public boolean isAdded() {
+		return added;
+	}
+
+	/**
+	 * Gets the outcome message.
+	 *
+	 * @return The reason the record was rejected, or the success message.
+	 */
+	public String getMessage() {
+		return message;
+	}
+}
@@ -4,15 +4,22 @@
 package org.soap.api.server;
 
 
+import jakarta.activation.DataHandler;
 import jakarta.jws.WebMethod;
 import jakarta.jws.WebParam;
 import jakarta.jws.WebService;
 import jakarta.jws.soap.SOAPBinding;
 import jakarta.jws.soap.SOAPBinding.Style;
+import jakarta.xml.bind.annotation.XmlMimeType;
 import org.soap.api.exceptions.*;
 import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.MemberPage;
+import org.soap.api.models.MemberStatistics;
+import org.soap.api.models.NewDatabaseRecord;
+import org.soap.api.models.RecordResult;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The DatabaseServer interface defines the methods that can be called on the
@@ -42,7 +49,8 @@ public interface DatabaseServer {
 	 *
 	 * @param startDate The start date of the age range.
 	 * @param endDate   The end date of the age range.
-	 * @return A list of DatabaseMembers within the specified age range.
+	 * @return A list of DatabaseMembers within the specified age range, ordered by
+	 *         date of birth.
 	 * @throws InvalidDateException If the date range is invalid or if no records
 	 *                              are found within the range.
 	 */
@@ -73,6 +81,136 @@ public interface DatabaseServer {
 	@WebMethod
 	ArrayList<DatabaseMember> getDatabaseRecordBySex(@WebParam(name = "sex") String sex) throws InvalidSexException;
 
+	/**
+	 * Retrieves one page of the DatabaseMembers within a specified age range,
+	 * ordered by date of birth.
+	 *
+	 * @param startDate The start date of the age range.
+	 * @param endDate   The end date of the age range.
+	 * @param pageSize  The largest number of DatabaseMembers on the page.
+	 * @param pageToken The token returned with the previous page, or empty for
+	 *                  the first page.
+	 * @return The page, with the token for the next page if there is one.
+	 * @throws InvalidDateException If the date range is invalid or if no records
+	 *                              are found within the range.
+	 * @throws InvalidPageException If the page size or page token is invalid.
+	 */
+	@WebMethod
+	MemberPage getDatabaseWithinAgeRangePage(@WebParam(name = "startDate") String startDate,
+			@WebParam(name = "endDate") String endDate, @WebParam(name = "pageSize") int pageSize,
+			@WebParam(name = "pageToken") String pageToken) throws InvalidDateException, InvalidPageException;
+
+	/**
+	 * Retrieves one page of the DatabaseMembers in an employment category.
+	 *
+	 * @param category  The employment category to filter by.
+	 * @param pageSize  The largest number of DatabaseMembers on the page.
+	 * @param pageToken The token returned with the previous page, or empty for
+	 *                  the first page.
+	 * @return The page, with the token for the next page if there is one.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid or not found.
+	 * @throws InvalidPageException               If the page size or page token
+	 *                                            is invalid.
+	 */
+	@WebMethod
+	MemberPage getRecordByEmploymentCategoryPage(@WebParam(name = "category") String category,
+			@WebParam(name = "pageSize") int pageSize, @WebParam(name = "pageToken") String pageToken)
+			throws InvalidEmploymentCategoryException, InvalidPageException;
+
+	/**
+	 * Retrieves one page of the DatabaseMembers of a sex/gender.
+	 *
+	 * @param sex       The sex/gender to filter by.
+	 * @param pageSize  The largest number of DatabaseMembers on the page.
+	 * @param pageToken The token returned with the previous page, or empty for
+	 *                  the first page.
+	 * @return The page, with the token for the next page if there is one.
+	 * @throws InvalidSexException  If the provided sex/gender is invalid or not
+	 *                              found.
+	 * @throws InvalidPageException If the page size or page token is invalid.
+	 */
+	@WebMethod
+	MemberPage getDatabaseRecordBySexPage(@WebParam(name = "sex") String sex,
+			@WebParam(name = "pageSize") int pageSize, @WebParam(name = "pageToken") String pageToken)
+			throws InvalidSexException, InvalidPageException;
+
+	/**
+	 * Retrieves the members matching every filter given. Each filter may be left
+	 * empty, but not all of them.
+	 *
+	 * @param sex           The sex to match, or empty for any.
+	 * @param category      The employment category to match, or empty for any.
+	 * @param startDate     The earliest date of birth to match, or empty.
+	 * @param endDate       The latest date of birth to match, or empty.
+	 * @param staffIdPrefix The first characters of the staff IDs to match, or
+	 *                      empty for any.
+	 * @return The matching members in insertion order, which may be none.
+	 * @throws InvalidSexException                If the sex is invalid.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid.
+	 * @throws InvalidDateException               If a date is in an invalid
+	 *                                            format.
+	 * @throws InvalidStaffIdException            If the staff ID prefix is
+	 *                                            invalid.
+	 * @throws InvalidQueryException              If every filter is left empty.
+	 */
+	@WebMethod
+	ArrayList<DatabaseMember> findMembers(@WebParam(name = "sex") String sex,
+			@WebParam(name = "category") String category, @WebParam(name = "startDate") String startDate,
+			@WebParam(name = "endDate") String endDate, @WebParam(name = "staffIdPrefix") String staffIdPrefix)
+			throws InvalidSexException, InvalidEmploymentCategoryException, InvalidDateException,
+			InvalidStaffIdException, InvalidQueryException;
+
+	/**
+	 * Counts the members matching every filter given, without returning them.
+	 *
+	 * @param sex           The sex to match, or empty for any.
+	 * @param category      The employment category to match, or empty for any.
+	 * @param startDate     The earliest date of birth to match, or empty.
+	 * @param endDate       The latest date of birth to match, or empty.
+	 * @param staffIdPrefix The first characters of the staff IDs to match, or
+	 *                      empty for any.
+	 * @return The number of matching members.
+	 * @throws InvalidSexException                If the sex is invalid.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid.
+	 * @throws InvalidDateException               If a date is in an invalid
+	 *                                            format.
+	 * @throws InvalidStaffIdException            If the staff ID prefix is
+	 *                                            invalid.
+	 */
+	@WebMethod
+	int countMembers(@WebParam(name = "sex") String sex, @WebParam(name = "category") String category,
+			@WebParam(name = "startDate") String startDate, @WebParam(name = "endDate") String endDate,
+			@WebParam(name = "staffIdPrefix") String staffIdPrefix) throws InvalidSexException,
+			InvalidEmploymentCategoryException, InvalidDateException, InvalidStaffIdException;
+
+	/**
+	 * Retrieves headcounts of the database by employment category, by sex, by
+	 * category and sex together, by birth year and by ten-year age band.
+	 *
+	 * @return The headcounts.
+	 */
+	@WebMethod
+	MemberStatistics getDatabaseStatistics();
+
+	/**
+	 * Exports every member as a file, for clients that need the whole database.
+	 * The file is streamed from the store while the response is written, and is
+	 * sent as an MTOM attachment to clients that enable MTOM. Other clients get
+	 * the file inlined in base64, which JAXB builds whole in memory first, so
+	 * large databases should be exported with MTOM.
+	 *
+	 * @param format The format of the file: "csv" for the layout of the CSV file
+	 *               the service loads, or "xml".
+	 * @return The file, holding no members if the database is empty.
+	 * @throws InvalidExportFormatException If the format is not csv or xml.
+	 */
+	@WebMethod
+	@XmlMimeType("application/octet-stream")
+	DataHandler exportMembers(@WebParam(name = "format") String format) throws InvalidExportFormatException;
+
 	/**
 	 * Creates a new DatabaseMember record with the provided information.
 	 *
@@ -85,7 +223,7 @@ public interface DatabaseServer {
 	 * @param dateOfBirth    The date of birth of the new DatabaseMember.
 	 * @param employmentType The job title or employment type of the new
 	 *                       DatabaseMember.
-	 * @throws InvalidStaffIdException 		If the staff ID is invalid.
+	 * @throws InvalidStaffIdException 		If the staff ID is invalid or already exists.
 	 * @throws InvalidSexException     		If the gender/sex is invalid.
 	 * @throws InvalidEmailException   		If the email address is invalid.
 	 * @throws InvalidDateException    		If the date of birth is in an invalid format.
@@ -99,4 +237,14 @@ public interface DatabaseServer {
 			@WebParam(name = "employmentType") String employmentType)
 			throws InvalidStaffIdException, InvalidSexException, InvalidEmailException, InvalidDateException, InvalidPhoneNumberException;
 
+
+	/**
+	 * Creates many DatabaseMember records in one request. Each record is added or
+	 * rejected on its own, and the added records are on disk when this returns.
+	 *
+	 * @param records The records to create.
+	 * @return The outcome of each record, in the order given.
+	 */
+	@WebMethod
+	ArrayList<RecordResult> createNewDatabaseRecords(@WebParam(name = "records") List<NewDatabaseRecord> records);
 }
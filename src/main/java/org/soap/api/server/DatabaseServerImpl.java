@@ -4,9 +4,27 @@
 package org.soap.api.server;
 
 
+import jakarta.activation.DataHandler;
+import jakarta.annotation.Resource;
 import jakarta.jws.WebService;
+import jakarta.xml.ws.WebServiceContext;
+import jakarta.xml.ws.WebServiceException;
+import jakarta.xml.ws.handler.MessageContext;
 import org.soap.api.exceptions.*;
+import org.soap.api.metrics.Metrics;
+import org.soap.api.models.CrossTabCount;
 import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.GroupCount;
+import org.soap.api.models.MemberPage;
+import org.soap.api.models.MemberStatistics;
+import org.soap.api.models.NewDatabaseRecord;
+import org.soap.api.models.RecordResult;
+import org.soap.api.models.Sex;
+import org.soap.api.store.MemberCounts;
+import org.soap.api.store.MemberQuery;
+import org.soap.api.store.MemberStore;
+import org.soap.api.store.WriteAheadLog;
 import org.soap.api.utils.Constants;
 import org.soap.api.utils.Converters;
 import org.soap.api.utils.CsvReadWrite;
@@ -14,8 +32,13 @@ import org.soap.api.utils.Validators;
 
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
 /**
  * Implementation of the DatabaseServer interface, providing methods to access
@@ -30,9 +53,92 @@ import java.util.ArrayList;
 public class DatabaseServerImpl implements DatabaseServer {
 
 	/**
-	 * List to store database records.
+	 * Store holding the database records and their indexes.
 	 */
-	public static ArrayList<DatabaseMember> databaseMembers = new ArrayList<>();
+	public static volatile MemberStore memberStore = new MemberStore();
+
+	/**
+	 * Cache of recent category, sex and age range query results. It must be
+	 * cleared if {@link #memberStore} is replaced.
+	 */
+	public static final QueryCache queryCache = new QueryCache(
+			Long.getLong(Constants.CACHE_SIZE_PROPERTY, Constants.DEFAULT_CACHE_SIZE));
+
+	/**
+	 * Context of the request being served, injected by the JAX-WS runtime. It is
+	 * null when the class is called directly rather than as a web service.
+	 */
+	@Resource
+	private WebServiceContext context;
+
+	/**
+	 * Message of the fault returned when no member is in the requested employment
+	 * category.
+	 */
+	private static final String CATEGORY_NOT_FOUND = """
+			Error: The employment category must be one of the following:
+
+			* Healthcare
+			* Engineering & Technology
+			* Science & Research
+			* Management & Consulting
+			* Media & Journalism
+			* Legal
+			* Psychology & Counseling
+			* Finance
+			* History & Archaeology
+			* Design & Art
+			* Education
+
+			Please select a valid employment category.""";
+
+	/**
+	 * Message of the fault returned when no member is of the requested sex.
+	 */
+	private static final String SEX_NOT_FOUND = """
+			Error: Sex must be either:
+
+			* Male
+			* Female
+
+			Please select a valid sex.""";
+
+	/**
+	 * Message of the fault returned when an export is asked for in a format the
+	 * service cannot write.
+	 */
+	private static final String EXPORT_FORMAT_INVALID = """
+			Error: The export format must be either:
+
+			* csv
+			* xml
+
+			Please select a valid export format.""";
+
+	/**
+	 * Log that inserts are made durable in before they reach the CSV file. When it
+	 * is null, inserts are appended to the CSV file and synced directly.
+	 */
+	public static volatile WriteAheadLog writeAheadLog;
+
+	/**
+	 * Group commit of inserts. The duplicate check, index assignment, log append
+	 * and store update of every insert happen inside a commit, and inserts that
+	 * arrive together share one write and, unless the log syncs after every
+	 * request, one fsync.
+	 */
+	public static final GroupCommit<InsertBatch> inserts = new GroupCommit<>(DatabaseServerImpl::commitInserts);
+
+	/**
+	 * Failure that stopped inserts, or null while they are running. Only set by
+	 * a commit whose records were durable but could not be added to the store.
+	 */
+	private static volatile Throwable writerFailure;
+
+	/**
+	 * Logger for failures on the insert path.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(DatabaseServerImpl.class.getName());
 
 	/**
 	 * Retrieves a DatabaseMember by their staff ID.
@@ -43,12 +149,18 @@ public class DatabaseServerImpl implements DatabaseServer {
 	 */
 	@Override
 	public DatabaseMember getDatabaseByStaffId(String staffId) throws InvalidStaffIdException {
-		for (DatabaseMember databaseMember : databaseMembers) {
-			if (staffId.equals(databaseMember.getId())) {
-				return databaseMember;
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			DatabaseMember databaseMember = memberStore.getByStaffId(staffId);
+			if (databaseMember == null) {
+				throw new InvalidStaffIdException("Error: Staff ID not found");
 			}
+			resultSize = 1;
+			return databaseMember;
+		} finally {
+			Metrics.GET_BY_STAFF_ID.record(start, resultSize);
 		}
-		throw new InvalidStaffIdException("Error: Staff ID not found");
 	}
 
 	/**
@@ -56,38 +168,34 @@ public class DatabaseServerImpl implements DatabaseServer {
 	 *
 	 * @param startDateString The start date of the age range.
 	 * @param endDateString   The end date of the age range.
-	 * @return A list of DatabaseMembers within the specified age range.
+	 * @return A list of DatabaseMembers within the specified age range, ordered by
+	 *         date of birth.
 	 * @throws InvalidDateException If the date range is invalid or if no records
 	 *                              are found within the range.
 	 */
 	@Override
 	public ArrayList<DatabaseMember> getDatabaseWithinAgeRange(String startDateString, String endDateString)
 			throws InvalidDateException {
-		ArrayList<DatabaseMember> result = new ArrayList<>();
-		DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern(Constants.DATE_FORMAT);
-		LocalDate startDate;
-		LocalDate endDate;
-
-		if (Validators.validateRegEx(startDateString, Constants.DOB_REGEX_PATTERN)
-				&& Validators.validateRegEx(endDateString, Constants.DOB_REGEX_PATTERN)) {
-			startDate = LocalDate.parse(startDateString, dateFormat);
-			endDate = LocalDate.parse(endDateString, dateFormat);
-
-			for (DatabaseMember member : databaseMembers) {
-				LocalDate birthDate = Converters.stringToLocalDate(member.getDateOfBirth());
-				if (birthDate.isAfter(startDate) && birthDate.isBefore(endDate) || birthDate.isEqual(startDate)
-						|| birthDate.isEqual(endDate)) {
-					result.add(member);
-				}
-			}
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			if (Validators.validateDate(startDateString) && Validators.validateDate(endDateString)) {
+				int startDay = (int) Converters.stringToLocalDate(startDateString).toEpochDay();
+				int endDay = (int) Converters.stringToLocalDate(endDateString).toEpochDay();
+				ArrayList<DatabaseMember> result = queryCache.get(QueryCache.Operation.AGE_RANGE, startDay, endDay,
+						() -> memberStore.getBornBetween(startDay, endDay));
 
-			if (result.isEmpty()) {
-				throw new InvalidDateException("Error: Date of birth not found");
+				if (result.isEmpty()) {
+					throw new InvalidDateException("Error: Date of birth not found");
+				}
+				resultSize = result.size();
+				return respond(result);
+			} else {
+				throw new InvalidDateException("Error: Date format invalid");
 			}
-		} else {
-			throw new InvalidDateException("Error: Date format invalid");
+		} finally {
+			Metrics.GET_WITHIN_AGE_RANGE.record(start, resultSize);
 		}
-		return result;
 	}
 
 	/**
@@ -101,32 +209,20 @@ public class DatabaseServerImpl implements DatabaseServer {
 	@Override
 	public ArrayList<DatabaseMember> getRecordByEmploymentCategory(String category)
 			throws InvalidEmploymentCategoryException {
-		ArrayList<DatabaseMember> result = new ArrayList<>();
-
-		for (DatabaseMember member : databaseMembers) {
-			if (Converters.stringToCategory(category).equals(member.getJobCategory())) {
-				result.add(member);
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			EmploymentCategory employmentCategory = Converters.stringToCategory(category);
+			ArrayList<DatabaseMember> result = queryCache.get(QueryCache.Operation.CATEGORY,
+					employmentCategory.ordinal(), 0, () -> memberStore.getByCategory(employmentCategory));
+			if (result.isEmpty()) {
+				throw new InvalidEmploymentCategoryException(CATEGORY_NOT_FOUND);
 			}
+			resultSize = result.size();
+			return respond(result);
+		} finally {
+			Metrics.GET_BY_CATEGORY.record(start, resultSize);
 		}
-		if (result.isEmpty()) {
-			throw new InvalidEmploymentCategoryException("""
-					Error: The employment category must be one of the following:
-
-					* Healthcare
-					* Engineering & Technology
-					* Science & Research
-					* Management & Consulting
-					* Media & Journalism
-					* Legal
-					* Psychology & Counseling
-					* Finance
-					* History & Archaeology
-					* Design & Art
-					* Education
-
-					Please select a valid employment category.""");
-		}
-		return result;
 	}
 
 	/**
@@ -138,27 +234,391 @@ public class DatabaseServerImpl implements DatabaseServer {
 	 *                             found.
 	 */
 	public ArrayList<DatabaseMember> getDatabaseRecordBySex(String sex) throws InvalidSexException {
-		ArrayList<DatabaseMember> result = new ArrayList<>();
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			Sex memberSex = Converters.stringToSex(sex);
+			ArrayList<DatabaseMember> result = queryCache.get(QueryCache.Operation.SEX, memberSex.ordinal(), 0,
+					() -> memberStore.getBySex(memberSex));
+			if (result.isEmpty()) {
+				throw new InvalidSexException(SEX_NOT_FOUND);
+			}
+			resultSize = result.size();
+			return respond(result);
+		} finally {
+			Metrics.GET_BY_SEX.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Leaves a list result in the message context, when list responses are
+	 * written from XML fragments, for the {@link XmlFragmentHandler} to write.
+	 *
+	 * @param result The members the response holds.
+	 * @return The result.
+	 */
+	private ArrayList<DatabaseMember> respond(ArrayList<DatabaseMember> result) {
+		if (Constants.XML_FRAGMENTS_ENABLED && context != null) {
+			MessageContext messageContext = context.getMessageContext();
+			messageContext.put(XmlFragmentHandler.MEMBERS, result);
+			messageContext.put(XmlFragmentHandler.STORE, memberStore);
+		}
+		return result;
+	}
 
-		for (DatabaseMember member : databaseMembers) {
-			if (Converters.stringToSex(sex).equals(member.getSex())) {
-				result.add(member);
+	/**
+	 * Retrieves one page of the DatabaseMembers within a specified age range,
+	 * ordered by date of birth.
+	 *
+	 * @param startDateString The start date of the age range.
+	 * @param endDateString   The end date of the age range.
+	 * @param pageSize        The largest number of DatabaseMembers on the page.
+	 * @param pageToken       The token returned with the previous page, or empty
+	 *                        for the first page.
+	 * @return The page, with the token for the next page if there is one.
+	 * @throws InvalidDateException If the date range is invalid or if no records
+	 *                              are found within the range.
+	 * @throws InvalidPageException If the page size or page token is invalid.
+	 */
+	@Override
+	public MemberPage getDatabaseWithinAgeRangePage(String startDateString, String endDateString, int pageSize,
+			String pageToken) throws InvalidDateException, InvalidPageException {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			if (!Validators.validateDate(startDateString) || !Validators.validateDate(endDateString)) {
+				throw new InvalidDateException("Error: Date format invalid");
+			}
+			checkPageSize(pageSize);
+			int startDay = (int) Converters.stringToLocalDate(startDateString).toEpochDay();
+			int endDay = (int) Converters.stringToLocalDate(endDateString).toEpochDay();
+			long position = PageTokens.decode(pageToken, QueryCache.Operation.AGE_RANGE, startDay, endDay);
+			MemberStore.Page page = memberStore.getBornBetween(startDay, endDay, position, pageSize);
+			if (page.getMembers().isEmpty() && position == MemberStore.FIRST_PAGE) {
+				throw new InvalidDateException("Error: Date of birth not found");
 			}
+			resultSize = page.getMembers().size();
+			return toMemberPage(page, QueryCache.Operation.AGE_RANGE, startDay, endDay);
+		} finally {
+			Metrics.GET_WITHIN_AGE_RANGE_PAGE.record(start, resultSize);
 		}
-		if (result.isEmpty()) {
-			throw new InvalidSexException("""
-					Error: Sex must be either:
+	}
 
-					* Male
-					* Female
+	/**
+	 * Retrieves one page of the DatabaseMembers in an employment category.
+	 *
+	 * @param category  The employment category to filter by.
+	 * @param pageSize  The largest number of DatabaseMembers on the page.
+	 * @param pageToken The token returned with the previous page, or empty for
+	 *                  the first page.
+	 * @return The page, with the token for the next page if there is one.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid or not found.
+	 * @throws InvalidPageException               If the page size or page token
+	 *                                            is invalid.
+	 */
+	@Override
+	public MemberPage getRecordByEmploymentCategoryPage(String category, int pageSize, String pageToken)
+			throws InvalidEmploymentCategoryException, InvalidPageException {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			EmploymentCategory employmentCategory = Converters.stringToCategory(category);
+			checkPageSize(pageSize);
+			long position = PageTokens.decode(pageToken, QueryCache.Operation.CATEGORY,
+					employmentCategory.ordinal(), 0);
+			MemberStore.Page page = memberStore.getByCategory(employmentCategory, position, pageSize);
+			if (page.getMembers().isEmpty() && position == MemberStore.FIRST_PAGE) {
+				throw new InvalidEmploymentCategoryException(CATEGORY_NOT_FOUND);
+			}
+			resultSize = page.getMembers().size();
+			return toMemberPage(page, QueryCache.Operation.CATEGORY, employmentCategory.ordinal(), 0);
+		} finally {
+			Metrics.GET_BY_CATEGORY_PAGE.record(start, resultSize);
+		}
+	}
 
-					Please select a valid sex.""");
+	/**
+	 * Retrieves one page of the DatabaseMembers of a sex/gender.
+	 *
+	 * @param sex       The sex/gender to filter by.
+	 * @param pageSize  The largest number of DatabaseMembers on the page.
+	 * @param pageToken The token returned with the previous page, or empty for
+	 *                  the first page.
+	 * @return The page, with the token for the next page if there is one.
+	 * @throws InvalidSexException  If the provided sex/gender is invalid or not
+	 *                              found.
+	 * @throws InvalidPageException If the page size or page token is invalid.
+	 */
+	@Override
+	public MemberPage getDatabaseRecordBySexPage(String sex, int pageSize, String pageToken)
+			throws InvalidSexException, InvalidPageException {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			Sex memberSex = Converters.stringToSex(sex);
+			checkPageSize(pageSize);
+			long position = PageTokens.decode(pageToken, QueryCache.Operation.SEX, memberSex.ordinal(), 0);
+			MemberStore.Page page = memberStore.getBySex(memberSex, position, pageSize);
+			if (page.getMembers().isEmpty() && position == MemberStore.FIRST_PAGE) {
+				throw new InvalidSexException(SEX_NOT_FOUND);
+			}
+			resultSize = page.getMembers().size();
+			return toMemberPage(page, QueryCache.Operation.SEX, memberSex.ordinal(), 0);
+		} finally {
+			Metrics.GET_BY_SEX_PAGE.record(start, resultSize);
 		}
-		return result;
 	}
 
 	/**
-	 * Creates a new DatabaseMember record with the provided information.
+	 * Checks the page size requested by a paged query.
+	 *
+	 * @param pageSize The requested page size.
+	 * @throws InvalidPageException If the page size is not between 1 and
+	 *                              {@link Constants#MAX_PAGE_SIZE}.
+	 */
+	private static void checkPageSize(int pageSize) throws InvalidPageException {
+		if (pageSize < 1 || pageSize > Constants.MAX_PAGE_SIZE) {
+			throw new InvalidPageException("Error: Page size must be between 1 and " + Constants.MAX_PAGE_SIZE);
+		}
+	}
+
+	/**
+	 * Builds the reply of a paged query from a page of the store.
+	 *
+	 * @param page      The page.
+	 * @param operation The query.
+	 * @param first     The first normalised argument of the query.
+	 * @param second    The second normalised argument of the query.
+	 * @return The page with the token for the next page, if there is one.
+	 */
+	private static MemberPage toMemberPage(MemberStore.Page page, QueryCache.Operation operation, int first,
+			int second) {
+		return new MemberPage(page.getMembers(),
+				page.hasNext() ? PageTokens.encode(operation, first, second, page.getNext()) : null);
+	}
+
+	/**
+	 * Retrieves the members matching every filter given, so a client can ask for,
+	 * say, the female engineers born in the 1980s in one call. Each filter may be
+	 * left empty, but not all of them: the reply is not paged, so listing every
+	 * member is left to the paged queries. The store plans the query from its
+	 * most selective filter.
+	 *
+	 * @param sex           The sex to match, or empty for any.
+	 * @param category      The employment category to match, or empty for any.
+	 * @param startDate     The earliest date of birth to match, or empty.
+	 * @param endDate       The latest date of birth to match, or empty.
+	 * @param staffIdPrefix The first characters of the staff IDs to match, or
+	 *                      empty for any.
+	 * @return The matching members in insertion order, which may be none.
+	 * @throws InvalidSexException                If the sex is invalid.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid.
+	 * @throws InvalidDateException               If a date is in an invalid
+	 *                                            format.
+	 * @throws InvalidStaffIdException            If the staff ID prefix is
+	 *                                            invalid.
+	 * @throws InvalidQueryException              If every filter is left empty.
+	 */
+	@Override
+	public ArrayList<DatabaseMember> findMembers(String sex, String category, String startDate, String endDate,
+			String staffIdPrefix) throws InvalidSexException, InvalidEmploymentCategoryException,
+			InvalidDateException, InvalidStaffIdException, InvalidQueryException {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			MemberQuery query = toMemberQuery(sex, category, startDate, endDate, staffIdPrefix);
+			if (query.getSex() == null && query.getCategory() == null && !query.hasDateRange()
+					&& query.getPrefixLength() == 0) {
+				throw new InvalidQueryException(
+						"Error: At least one filter is required; use the paged queries to list every member");
+			}
+			ArrayList<DatabaseMember> result = memberStore.find(query);
+			resultSize = result.size();
+			return respond(result);
+		} finally {
+			Metrics.FIND_MEMBERS.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Counts the members matching every filter given, without returning them.
+	 * The filters are the same as for {@link #findMembers}.
+	 *
+	 * @param sex           The sex to match, or empty for any.
+	 * @param category      The employment category to match, or empty for any.
+	 * @param startDate     The earliest date of birth to match, or empty.
+	 * @param endDate       The latest date of birth to match, or empty.
+	 * @param staffIdPrefix The first characters of the staff IDs to match, or
+	 *                      empty for any.
+	 * @return The number of matching members.
+	 * @throws InvalidSexException                If the sex is invalid.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid.
+	 * @throws InvalidDateException               If a date is in an invalid
+	 *                                            format.
+	 * @throws InvalidStaffIdException            If the staff ID prefix is
+	 *                                            invalid.
+	 */
+	@Override
+	public int countMembers(String sex, String category, String startDate, String endDate, String staffIdPrefix)
+			throws InvalidSexException, InvalidEmploymentCategoryException, InvalidDateException,
+			InvalidStaffIdException {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			int count = memberStore.count(toMemberQuery(sex, category, startDate, endDate, staffIdPrefix));
+			resultSize = 1;
+			return count;
+		} finally {
+			Metrics.COUNT_MEMBERS.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Validates the filters of findMembers and countMembers. A null or blank
+	 * filter is left out. A date range given with its end before its start is
+	 * read the other way round.
+	 *
+	 * @param sex           The sex to match.
+	 * @param category      The employment category to match.
+	 * @param startDate     The earliest date of birth to match.
+	 * @param endDate       The latest date of birth to match.
+	 * @param staffIdPrefix The first characters of the staff IDs to match.
+	 * @return The query.
+	 * @throws InvalidSexException                If the sex is invalid.
+	 * @throws InvalidEmploymentCategoryException If the employment category is
+	 *                                            invalid.
+	 * @throws InvalidDateException               If a date is in an invalid
+	 *                                            format.
+	 * @throws InvalidStaffIdException            If the staff ID prefix is
+	 *                                            invalid.
+	 */
+	private static MemberQuery toMemberQuery(String sex, String category, String startDate, String endDate,
+			String staffIdPrefix) throws InvalidSexException, InvalidEmploymentCategoryException,
+			InvalidDateException, InvalidStaffIdException {
+		Sex matchSex = isBlank(sex) ? null : Converters.stringToSex(sex.strip());
+		EmploymentCategory matchCategory = isBlank(category) ? null : Converters.stringToCategory(category.strip());
+		int fromDay = MemberQuery.EARLIEST;
+		int toDay = MemberQuery.LATEST;
+		if (!isBlank(startDate)) {
+			if (!Validators.validateDate(startDate.strip())) {
+				throw new InvalidDateException("Error: Date format invalid");
+			}
+			fromDay = (int) Converters.stringToLocalDate(startDate.strip()).toEpochDay();
+		}
+		if (!isBlank(endDate)) {
+			if (!Validators.validateDate(endDate.strip())) {
+				throw new InvalidDateException("Error: Date format invalid");
+			}
+			toDay = (int) Converters.stringToLocalDate(endDate.strip()).toEpochDay();
+		}
+		if (fromDay > toDay) {
+			int swap = fromDay;
+			fromDay = toDay;
+			toDay = swap;
+		}
+		String prefix = isBlank(staffIdPrefix) ? null : staffIdPrefix.strip();
+		if (prefix != null && !Validators.validateStaffIdPrefix(prefix)) {
+			throw new InvalidStaffIdException("Error: Staff ID prefix must be 1 to 15 hexadecimal characters");
+		}
+		return new MemberQuery(matchSex, matchCategory, fromDay, toDay, prefix);
+	}
+
+	/**
+	 * Checks whether an optional argument was left out.
+	 *
+	 * @param value The argument.
+	 * @return true if it is null or blank.
+	 */
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
+	}
+
+	/**
+	 * Retrieves headcounts of the database: the total, and the number of members
+	 * by employment category, by sex, by category and sex together, by birth year
+	 * and by ten-year age band. The counts are kept up to date on every insert,
+	 * so this takes the same few microseconds however many members there are.
+	 * Every grouping is read from one snapshot of the counts, so they all add up
+	 * to the same members even while inserts are running. Age bands are worked
+	 * out from today's date with the counts by date of birth, and leave out
+	 * anyone born after today.
+	 *
+	 * @return The headcounts.
+	 */
+	@Override
+	public MemberStatistics getDatabaseStatistics() {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			MemberCounts counts = memberStore.getCounts();
+			ArrayList<GroupCount> byCategory = new ArrayList<>();
+			ArrayList<CrossTabCount> byCategoryAndSex = new ArrayList<>();
+			for (EmploymentCategory category : EmploymentCategory.values()) {
+				byCategory.add(new GroupCount(Converters.categoryToString(category), counts.getCount(category)));
+				for (Sex sex : Sex.values()) {
+					byCategoryAndSex.add(new CrossTabCount(Converters.categoryToString(category),
+							Converters.sexToString(sex), counts.getCount(category, sex)));
+				}
+			}
+			ArrayList<GroupCount> bySex = new ArrayList<>();
+			for (Sex sex : Sex.values()) {
+				bySex.add(new GroupCount(Converters.sexToString(sex), counts.getCount(sex)));
+			}
+			ArrayList<GroupCount> byBirthYear = new ArrayList<>();
+			for (int year = counts.getFirstYear(); year <= counts.getLastYear(); year++) {
+				byBirthYear.add(new GroupCount(Integer.toString(year), counts.getBornIn(year)));
+			}
+			ArrayList<GroupCount> byAge = new ArrayList<>();
+			if (counts.getTotal() > 0) {
+				LocalDate today = LocalDate.now();
+				for (int age = 0; age <= today.getYear() - counts.getFirstYear(); age += 10) {
+					int bornFrom = (int) today.minusYears(age + 10).plusDays(1).toEpochDay();
+					int bornTo = (int) today.minusYears(age).toEpochDay();
+					byAge.add(new GroupCount(age + "-" + (age + 9), counts.countBornBetween(bornFrom, bornTo)));
+				}
+			}
+			resultSize = counts.getTotal();
+			return new MemberStatistics(counts.getTotal(), byCategory, bySex, byCategoryAndSex, byBirthYear, byAge);
+		} finally {
+			Metrics.GET_STATISTICS.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Exports every member stored now as a CSV or XML file. Nothing is read from
+	 * the store here: the returned file encodes the members a chunk at a time
+	 * while the response is written, so memory use does not grow with the number
+	 * of members. An empty database gives a file with no members rather than a
+	 * fault.
+	 *
+	 * @param format The format of the file: "csv" or "xml", in any case.
+	 * @return The file.
+	 * @throws InvalidExportFormatException If the format is not csv or xml.
+	 */
+	@Override
+	public DataHandler exportMembers(String format) throws InvalidExportFormatException {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			MemberExport.Format exportFormat = MemberExport.Format.named(format);
+			if (exportFormat == null) {
+				throw new InvalidExportFormatException(EXPORT_FORMAT_INVALID);
+			}
+			MemberExport export = new MemberExport(memberStore, exportFormat);
+			resultSize = export.size();
+			return new DataHandler(export);
+		} finally {
+			Metrics.EXPORT_MEMBERS.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Creates a new DatabaseMember record with the provided information. The
+	 * record is committed together with any other inserts arriving at the same
+	 * time and is on disk when this returns.
 	 *
 	 * @param id             The staff ID of the new DatabaseMember.
 	 * @param firstName      The first name of the new DatabaseMember.
@@ -169,19 +629,196 @@ public class DatabaseServerImpl implements DatabaseServer {
 	 * @param dateOfBirth    The date of birth of the new DatabaseMember.
 	 * @param employmentType The job title or employment type of the new
 	 *                       DatabaseMember.
-	 * @throws InvalidStaffIdException 		If the staff ID is invalid.
+	 * @throws InvalidStaffIdException 		If the staff ID is invalid or already exists.
 	 * @throws InvalidSexException    		If the gender/sex is invalid.
 	 * @throws InvalidEmailException   		If the email address is invalid.
 	 * @throws InvalidDateException    		If the date of birth is in an invalid format.
 	 * @throws InvalidPhoneNumberException 	If the phone number is in an invalid format.
+	 * @throws WebServiceException     		If the record could not be saved.
 	 */
 	@Override
 	public String createNewDatabaseRecord(String id, String firstName, String lastName, String sex, String email,
 			String phoneNumber, String dateOfBirth, String employmentType)
 			throws InvalidStaffIdException, InvalidSexException, InvalidEmailException, InvalidDateException, InvalidPhoneNumberException {
-		DatabaseMember dataBaseMember = new DatabaseMember(databaseMembers.size() + 1, id, firstName, lastName, sex,
-					email, phoneNumber, dateOfBirth, employmentType);
-		CsvReadWrite.writeDataToCSV(Constants.FILE_PATH, dataBaseMember);
-		return "Record added successfully";
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			DatabaseMember dataBaseMember = new DatabaseMember(0, id, firstName, lastName, sex, email, phoneNumber,
+					dateOfBirth, employmentType);
+			InsertBatch batch = new InsertBatch(new DatabaseMember[] { dataBaseMember });
+			inserts.submit(batch);
+			InsertBatch.Outcome outcome = batch.outcomes[0];
+			if (outcome == null || outcome == InsertBatch.Outcome.NOT_SAVED) {
+				throw new WebServiceException(InsertBatch.Outcome.NOT_SAVED.message);
+			}
+			switch (outcome) {
+			case DUPLICATE -> throw new InvalidStaffIdException(outcome.message);
+			case INVALID_DATE -> throw new InvalidDateException(outcome.message);
+			default -> resultSize = 1;
+			}
+			return outcome.message;
+		} finally {
+			Metrics.CREATE_RECORD.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Creates many DatabaseMember records in one request. The records are
+	 * validated in parallel, then every valid record is committed with a single
+	 * write and fsync of the CSV file, shared with any other inserts arriving at
+	 * the same time. A record is rejected, without affecting the others, if it is
+	 * invalid or its staff ID already exists or appears earlier in the request.
+	 *
+	 * @param records The records to create.
+	 * @return The outcome of each record, in the order given: whether it was
+	 *         added and, if not, the message a single insert of it would have
+	 *         failed with.
+	 */
+	@Override
+	public ArrayList<RecordResult> createNewDatabaseRecords(List<NewDatabaseRecord> records) {
+		long start = Metrics.start();
+		int resultSize = -1;
+		try {
+			int count = records == null ? 0 : records.size();
+			DatabaseMember[] members = new DatabaseMember[count];
+			String[] errors = new String[count];
+			IntStream.range(0, count).parallel().forEach(i -> {
+				NewDatabaseRecord record = records.get(i);
+				try {
+					members[i] = new DatabaseMember(0, record.getId(), record.getFirstName(), record.getLastName(),
+							record.getSex(), record.getEmail(), record.getPhoneNumber(), record.getDateOfBirth(),
+							record.getEmploymentType());
+				} catch (InvalidStaffIdException | InvalidSexException | InvalidEmailException | InvalidDateException
+						| InvalidPhoneNumberException e) {
+					errors[i] = e.getMessage();
+				}
+			});
+			InsertBatch batch = new InsertBatch(members);
+			inserts.submit(batch);
+			ArrayList<RecordResult> results = new ArrayList<>(count);
+			int added = 0;
+			for (int i = 0; i < count; i++) {
+				String message = errors[i];
+				InsertBatch.Outcome outcome = batch.outcomes[i];
+				if (message == null) {
+					if (outcome == null) {
+						throw new WebServiceException(InsertBatch.Outcome.NOT_SAVED.message);
+					}
+					message = switch (outcome) {
+					case DUPLICATE -> new InvalidStaffIdException(outcome.message).getMessage();
+					case INVALID_DATE -> new InvalidDateException(outcome.message).getMessage();
+					default -> outcome.message;
+					};
+				}
+				boolean recordAdded = outcome == InsertBatch.Outcome.ADDED;
+				if (recordAdded) {
+					added++;
+				}
+				results.add(new RecordResult(records.get(i).getId(), recordAdded, message));
+			}
+			resultSize = added;
+			return results;
+		} finally {
+			Metrics.CREATE_RECORDS.record(start, resultSize);
+		}
+	}
+
+	/**
+	 * Commits a group of insert batches: rejects records whose staff ID is already
+	 * stored or taken earlier in the group, numbers the rest and reads their
+	 * dates of birth, makes them durable in the write-ahead log, one record per
+	 * batch, or else in the CSV file, and only then adds them to the store.
+	 * Everything that can reject a record is checked before the records are made
+	 * durable, so nothing durable is reported as not saved.
+	 * Called by {@link #inserts} with the commit lock held, so commits never
+	 * overlap.
+	 *
+	 * <p>
+	 * If adding durable records to the store fails all the same, the store no
+	 * longer holds what the log does. The failure is logged and every later
+	 * insert is refused until the server is restarted, which loads the records
+	 * from the log. The records of the failed commit are given no outcome, so
+	 * their callers fail too.
+	 * </p>
+	 *
+	 * @param batches The batches to commit, in arrival order.
+	 */
+	private static void commitInserts(ArrayList<InsertBatch> batches) {
+		if (writerFailure != null) {
+			setOutcomes(batches, InsertBatch.Outcome.NOT_SAVED);
+			return;
+		}
+		MemberStore store = memberStore;
+		HashSet<Long> staffIds = new HashSet<>();
+		ArrayList<DatabaseMember> accepted = new ArrayList<>();
+		int[] birthDays = new int[16];
+		ArrayList<byte[]> payloads = new ArrayList<>(batches.size());
+		int index = store.size() + 1;
+		for (InsertBatch batch : batches) {
+			int first = accepted.size();
+			for (int i = 0; i < batch.members.length; i++) {
+				DatabaseMember member = batch.members[i];
+				if (member == null) {
+					continue;
+				}
+				int birthDay;
+				try {
+					birthDay = (int) Converters.stringToLocalDate(member.getDateOfBirth()).toEpochDay();
+				} catch (InvalidDateException e) {
+					batch.outcomes[i] = InsertBatch.Outcome.INVALID_DATE;
+					continue;
+				}
+				if (store.containsStaffId(member.getId())
+						|| !staffIds.add(Converters.staffIdToKey(member.getId()))) {
+					batch.outcomes[i] = InsertBatch.Outcome.DUPLICATE;
+					continue;
+				}
+				member.setIndex(index++);
+				if (accepted.size() == birthDays.length) {
+					birthDays = Arrays.copyOf(birthDays, birthDays.length * 2);
+				}
+				birthDays[accepted.size()] = birthDay;
+				accepted.add(member);
+			}
+			if (accepted.size() > first) {
+				payloads.add(CsvReadWrite.toCsvLines(accepted.subList(first, accepted.size())));
+			}
+		}
+		if (accepted.isEmpty()) {
+			return;
+		}
+		WriteAheadLog log = writeAheadLog;
+		boolean durable = log != null ? log.append(payloads)
+				: CsvReadWrite.writeDataToCSV(Constants.FILE_PATH, accepted);
+		if (!durable) {
+			setOutcomes(batches, InsertBatch.Outcome.NOT_SAVED);
+			return;
+		}
+		try {
+			store.addAll(accepted, birthDays);
+			queryCache.membersAdded(accepted, birthDays);
+		} catch (RuntimeException | Error e) {
+			writerFailure = e;
+			LOGGER.log(Level.SEVERE, "Inserts stopped: " + accepted.size()
+					+ " durable records could not be added to the store; restart the server to load them", e);
+			throw e;
+		}
+		setOutcomes(batches, InsertBatch.Outcome.ADDED);
+	}
+
+	/**
+	 * Gives every committed record that has no outcome yet the same outcome.
+	 *
+	 * @param batches The batches of the commit.
+	 * @param outcome The outcome.
+	 */
+	private static void setOutcomes(ArrayList<InsertBatch> batches, InsertBatch.Outcome outcome) {
+		for (InsertBatch batch : batches) {
+			for (int i = 0; i < batch.members.length; i++) {
+				if (batch.members[i] != null && batch.outcomes[i] == null) {
+					batch.outcomes[i] = outcome;
+				}
+			}
+		}
 	}
 }
@@ -0,0 +1,646 @@
+/**
+ * The DatabaseServerProvider file is responsible for serving the DatabaseServer operations with hand-written StAX code instead of JAXB.
+ */
+package org.soap.api.server;
+
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.server.PortAddressResolver;
+import com.sun.xml.ws.api.server.SDDocument;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.api.streaming.XMLStreamWriterFactory;
+import com.sun.xml.ws.util.xml.XMLStreamWriterFilter;
+import jakarta.activation.DataHandler;
+import jakarta.xml.bind.DatatypeConverter;
+import jakarta.xml.bind.attachment.AttachmentMarshaller;
+import jakarta.xml.ws.Provider;
+import jakarta.xml.ws.Service;
+import jakarta.xml.ws.ServiceMode;
+import jakarta.xml.ws.WebServiceException;
+import jakarta.xml.ws.WebServiceFeature;
+import jakarta.xml.ws.WebServiceProvider;
+import org.soap.api.models.CrossTabCount;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.GroupCount;
+import org.soap.api.models.MemberPage;
+import org.soap.api.models.MemberStatistics;
+import org.soap.api.models.NewDatabaseRecord;
+import org.soap.api.models.RecordResult;
+import org.soap.api.store.MemberStore;
+import org.soap.api.utils.Constants;
+import org.jvnet.staxex.util.MtomStreamWriter;
+import org.xml.sax.EntityResolver;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The DatabaseServerProvider class serves the same operations, WSDL and
+ * messages as the JAXB endpoint built from {@link DatabaseServer}, but reads
+ * each request and writes each response with StAX code written for this
+ * service's schema rather than with JAXB's reflective databinding. The
+ * operations themselves are carried out by a {@link DatabaseServerImpl}, so
+ * validation, faults, caching and metrics are the same either way.
+ *
+ * <p>
+ * The provider works on the JAX-WS runtime's own message type rather than on a
+ * {@link Source}: the request's body is read from the runtime's stream
+ * reader, and the response is a {@link PayloadMessage} that writes its body
+ * straight to the runtime's stream writer, so neither is copied or parsed
+ * twice. Text XML responses are byte for byte the same as the JAXB endpoint's.
+ * </p>
+ *
+ * <p>
+ * It is selected by starting the server with
+ * {@link Constants#ENDPOINT_PROPERTY} set to {@value Constants#ENDPOINT_STAX}.
+ * Any change to {@link DatabaseServer} or to the JAXB annotations of the
+ * models must be made here too.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+@WebServiceProvider(serviceName = "DatabaseServerImplService", portName = "DatabaseServerImplPort",
+		targetNamespace = DatabaseServerProvider.NAMESPACE)
+@ServiceMode(Service.Mode.MESSAGE)
+public class DatabaseServerProvider implements Provider<Message> {
+
+	/**
+	 * Namespace of the service's operations and faults.
+	 */
+	static final String NAMESPACE = "http://server.api.soap.org/";
+
+	/**
+	 * Namespace of the models, which JAXB declares on every response element.
+	 */
+	private static final String MEMBER_NAMESPACE = "http://databaseServer/";
+
+	/**
+	 * Start of the comment the runtime adds to each WSDL and schema it serves.
+	 */
+	private static final String PUBLISHED_COMMENT = " Published by ";
+
+	/**
+	 * Namespace of the element that refers to an MTOM attachment.
+	 */
+	private static final String XOP_NAMESPACE = "http://www.w3.org/2004/08/xop/include";
+
+	/**
+	 * Bytes of a file encoded in base64 at a time. A multiple of three, so the
+	 * blocks' encodings join without padding in between.
+	 */
+	private static final int BASE64_BLOCK_SIZE = 48 * 1024;
+
+	private final DatabaseServerImpl server = new DatabaseServerImpl(); // Implementation of the operations.
+
+	/**
+	 * Serves a request.
+	 *
+	 * @param request The request message.
+	 * @return The response message, or a fault message.
+	 * @throws WebServiceException If the request cannot be read.
+	 */
+	@Override
+	public Message invoke(Message request) {
+		String operation = request.getPayloadLocalPart();
+		if (!NAMESPACE.equals(request.getPayloadNamespaceURI())) {
+			return unknownOperation(request);
+		}
+		Map<String, String> parameters = new HashMap<>();
+		List<NewDatabaseRecord> records = new ArrayList<>();
+		try {
+			readParameters(request.readPayload(), parameters, records);
+		} catch (XMLStreamException e) {
+			throw new WebServiceException(e);
+		}
+		try {
+			PayloadMessage.Payload result = switch (operation) {
+			case "getDatabaseByStaffId" -> member(server.getDatabaseByStaffId(parameters.get("staffId")));
+			case "getDatabaseWithinAgeRange" -> members(
+					server.getDatabaseWithinAgeRange(parameters.get("startDate"), parameters.get("endDate")));
+			case "getRecordByEmploymentCategory" -> members(
+					server.getRecordByEmploymentCategory(parameters.get("category")));
+			case "getDatabaseRecordBySex" -> members(server.getDatabaseRecordBySex(parameters.get("sex")));
+			case "getDatabaseWithinAgeRangePage" -> page(server.getDatabaseWithinAgeRangePage(
+					parameters.get("startDate"), parameters.get("endDate"), parseInt(parameters.get("pageSize")),
+					parameters.get("pageToken")));
+			case "getRecordByEmploymentCategoryPage" -> page(server.getRecordByEmploymentCategoryPage(
+					parameters.get("category"), parseInt(parameters.get("pageSize")), parameters.get("pageToken")));
+			case "getDatabaseRecordBySexPage" -> page(server.getDatabaseRecordBySexPage(parameters.get("sex"),
+					parseInt(parameters.get("pageSize")), parameters.get("pageToken")));
+			case "findMembers" -> members(server.findMembers(parameters.get("sex"), parameters.get("category"),
+					parameters.get("startDate"), parameters.get("endDate"), parameters.get("staffIdPrefix")));
+			case "countMembers" -> text(Integer.toString(server.countMembers(parameters.get("sex"),
+					parameters.get("category"), parameters.get("startDate"), parameters.get("endDate"),
+					parameters.get("staffIdPrefix"))));
+			case "getDatabaseStatistics" -> statistics(server.getDatabaseStatistics());
+			case "exportMembers" -> file(server.exportMembers(parameters.get("format")));
+			case "createNewDatabaseRecord" -> text(server.createNewDatabaseRecord(parameters.get("id"),
+					parameters.get("firstName"), parameters.get("lastName"), parameters.get("sex"),
+					parameters.get("email"), parameters.get("phoneNumber"), parameters.get("dateOfBirth"),
+					parameters.get("employmentType")));
+			case "createNewDatabaseRecords" -> results(server.createNewDatabaseRecords(records));
+			default -> null;
+			};
+			if (result == null) {
+				return unknownOperation(request);
+			}
+			return response(request.getSOAPVersion(), operation + "Response", result);
+		} catch (RuntimeException e) {
+			// Left to the runtime, which reports unexpected errors the same way for
+			// both endpoints.
+			throw e;
+		} catch (Exception e) {
+			return fault(request.getSOAPVersion(), e);
+		}
+	}
+
+	/**
+	 * Reads the parameters of a request. Each parameter element's text is stored
+	 * by its name, except the records of a batch insert, which are read into
+	 * records. Qualified elements and text between the parameters are skipped,
+	 * as JAXB skips them.
+	 *
+	 * @param reader     The reader, positioned at the request element.
+	 * @param parameters The map to store the parameters in.
+	 * @param records    The list to add batch insert records to, or null when
+	 *                   reading the fields of a record.
+	 * @throws XMLStreamException If the request is not well formed.
+	 */
+	private static void readParameters(XMLStreamReader reader, Map<String, String> parameters,
+			List<NewDatabaseRecord> records) throws XMLStreamException {
+		while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			if (!isUnqualified(reader)) {
+				skipElement(reader);
+			} else if (records != null && reader.getLocalName().equals("records")) {
+				Map<String, String> fields = new HashMap<>();
+				readParameters(reader, fields, null);
+				records.add(new NewDatabaseRecord(fields.get("id"), fields.get("firstName"), fields.get("lastName"),
+						fields.get("sex"), fields.get("email"), fields.get("phoneNumber"), fields.get("dateOfBirth"),
+						fields.get("employmentType")));
+			} else {
+				parameters.put(reader.getLocalName(), readText(reader));
+			}
+		}
+	}
+
+	/**
+	 * Moves to the next start or end element, skipping any text, comments and
+	 * processing instructions before it.
+	 *
+	 * @param reader The reader.
+	 * @return The event moved to.
+	 * @throws XMLStreamException If the request is not well formed.
+	 */
+	private static int nextElement(XMLStreamReader reader) throws XMLStreamException {
+		int event;
+		do {
+			event = reader.next();
+		} while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT);
+		return event;
+	}
+
+	/**
+	 * Reads the text of a parameter the way JAXB does: comments and processing
+	 * instructions are ignored, and a child element is skipped along with all
+	 * the text before it.
+	 *
+	 * @param reader The reader, positioned at the parameter's start element.
+	 * @return The text.
+	 * @throws XMLStreamException If the parameter is not well formed.
+	 */
+	private static String readText(XMLStreamReader reader) throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		while (true) {
+			switch (reader.next()) {
+			case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+				text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			case XMLStreamConstants.START_ELEMENT -> {
+				skipElement(reader);
+				text.setLength(0);
+			}
+			case XMLStreamConstants.END_ELEMENT -> {
+				return text.toString();
+			}
+			default -> {
+				// Comments and processing instructions add no text.
+			}
+			}
+		}
+	}
+
+	/**
+	 * Tells whether the current element is in no namespace.
+	 *
+	 * @param reader The reader, positioned at a start element.
+	 * @return Whether the element is unqualified.
+	 */
+	private static boolean isUnqualified(XMLStreamReader reader) {
+		String namespace = reader.getNamespaceURI();
+		return namespace == null || namespace.isEmpty();
+	}
+
+	/**
+	 * Skips the current element and everything in it.
+	 *
+	 * @param reader The reader, positioned at a start element.
+	 * @throws XMLStreamException If the element is not well formed.
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Reads an int parameter the way JAXB does. JAXB parses the text with the
+	 * lenient parser behind {@link DatatypeConverter#parseInt}, which skips
+	 * whitespace anywhere and wraps values too large for an int, and leaves a
+	 * missing or invalid value as zero rather than faulting. The operations then reject zero as a page size with an
+	 * InvalidPageException fault, so a malformed page size gets the same fault
+	 * from either endpoint.
+	 *
+	 * @param value The parameter's text, or null if it was not sent.
+	 * @return The value.
+	 */
+	private static int parseInt(String value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return DatatypeConverter.parseInt(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Creates a response message.
+	 *
+	 * @param version The SOAP version of the request.
+	 * @param name    The local name of the response element.
+	 * @param result  The writer of the response element's content.
+	 * @return The message.
+	 */
+	private static Message response(SOAPVersion version, String name, PayloadMessage.Payload result) {
+		return new PayloadMessage(version, name, NAMESPACE, writer -> {
+			writer.writeStartElement("ns2", name, NAMESPACE);
+			declareNamespaces(writer);
+			result.writeTo(writer);
+			writer.writeEndElement();
+		});
+	}
+
+	/**
+	 * Declares the service and model namespaces on a response or fault detail
+	 * element, in the order JAXB declares them: the service's first in text XML
+	 * but last in FastInfoset.
+	 *
+	 * @param writer The writer, positioned in the element's start tag.
+	 * @throws XMLStreamException If the declarations cannot be written.
+	 */
+	private static void declareNamespaces(XMLStreamWriter writer) throws XMLStreamException {
+		if (writer instanceof Utf8XmlWriter) {
+			writer.writeNamespace("ns2", NAMESPACE);
+			writer.writeNamespace("ns3", MEMBER_NAMESPACE);
+		} else {
+			writer.writeNamespace("ns3", MEMBER_NAMESPACE);
+			writer.writeNamespace("ns2", NAMESPACE);
+		}
+	}
+
+	/**
+	 * Creates the fault message for a checked exception of an operation, with
+	 * the exception's message as the fault string and in its detail element.
+	 *
+	 * @param version The SOAP version of the request.
+	 * @param e       The exception.
+	 * @return The message.
+	 */
+	private static Message fault(SOAPVersion version, Exception e) {
+		String detail = e.getClass().getSimpleName();
+		return fault(version, version.faultCodeServer, e.getMessage(), writer -> {
+			writer.writeStartElement("ns2", detail, NAMESPACE);
+			declareNamespaces(writer);
+			MemberXml.element(writer, "message", e.getMessage());
+			writer.writeEndElement();
+		});
+	}
+
+	/**
+	 * Creates the fault message for a request naming no operation of the
+	 * service.
+	 *
+	 * @param request The request message.
+	 * @return The message.
+	 */
+	private static Message unknownOperation(Message request) {
+		QName name = request.hasPayload()
+				? new QName(request.getPayloadNamespaceURI(), request.getPayloadLocalPart())
+				: null;
+		SOAPVersion version = request.getSOAPVersion();
+		return fault(version, version.faultCodeClient, "Cannot find dispatch method for " + name, null);
+	}
+
+	/**
+	 * Creates a fault message, written the way the runtime writes the faults of
+	 * the JAXB endpoint in the request's SOAP version.
+	 *
+	 * @param version The SOAP version of the request.
+	 * @param code    The fault code, in the envelope's namespace.
+	 * @param reason  The fault string.
+	 * @param detail  The writer of the content of the fault's detail, or null for
+	 *                no detail.
+	 * @return The message.
+	 */
+	private static Message fault(SOAPVersion version, QName code, String reason, PayloadMessage.Payload detail) {
+		String soapNamespace = version.nsUri;
+		boolean soap11 = version == SOAPVersion.SOAP_11;
+		return new PayloadMessage(version, "Fault", soapNamespace, writer -> {
+			writer.writeStartElement("S", "Fault", soapNamespace);
+			// The runtime declares the other SOAP version's namespace on every fault.
+			writer.writeNamespace("ns4", soap11 ? SOAPVersion.SOAP_12.nsUri : SOAPVersion.SOAP_11.nsUri);
+			if (!(writer instanceof Utf8XmlWriter)) {
+				// The runtime's fault also undeclares the default namespace, which only
+				// shows in FastInfoset.
+				writer.writeDefaultNamespace("");
+			}
+			if (soap11) {
+				MemberXml.element(writer, "faultcode", "S:" + code.getLocalPart());
+				MemberXml.element(writer, "faultstring", reason);
+			} else {
+				writer.writeStartElement("S", "Code", soapNamespace);
+				writer.writeStartElement("S", "Value", soapNamespace);
+				writer.writeCharacters("S:" + code.getLocalPart());
+				writer.writeEndElement();
+				writer.writeEndElement();
+				writer.writeStartElement("S", "Reason", soapNamespace);
+				writer.writeStartElement("S", "Text", soapNamespace);
+				writer.writeAttribute("xml", XMLConstants.XML_NS_URI, "lang", "en");
+				writer.writeCharacters(reason);
+				writer.writeEndElement();
+				writer.writeEndElement();
+			}
+			if (detail != null) {
+				if (soap11) {
+					writer.writeStartElement("", "detail", "");
+				} else {
+					writer.writeStartElement("S", "Detail", soapNamespace);
+				}
+				detail.writeTo(writer);
+				writer.writeEndElement();
+			}
+			writer.writeEndElement();
+		});
+	}
+
+	/**
+	 * Creates the writer of a text return value.
+	 *
+	 * @param value The value, or null for none.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload text(String value) {
+		return writer -> MemberXml.element(writer, "return", value);
+	}
+
+	/**
+	 * Creates the writer of a file return value, as JAXB writes one. In an MTOM
+	 * message the file becomes an attachment, copied from its stream after the
+	 * envelope. Otherwise it is inlined in base64: streamed a block at a time in
+	 * text XML, but read whole for FastInfoset, where JAXB writes it as a single
+	 * piece of binary content.
+	 *
+	 * @param file The file.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload file(DataHandler file) {
+		return writer -> {
+			writer.writeStartElement("", "return", "");
+			AttachmentMarshaller attachments = writer instanceof MtomStreamWriter mtom
+					? mtom.getAttachmentMarshaller()
+					: null;
+			String contentId = attachments != null && attachments.isXOPPackage()
+					? attachments.addMtomAttachment(file, "", "return")
+					: null;
+			if (contentId != null) {
+				writer.writeStartElement("xop", "Include", XOP_NAMESPACE);
+				writer.writeNamespace("xop", XOP_NAMESPACE);
+				writer.writeAttribute("href", contentId);
+				writer.writeEndElement();
+			} else {
+				try (InputStream in = file.getInputStream()) {
+					if (writer instanceof StAXDocumentSerializer fastInfoset) {
+						byte[] bytes = in.readAllBytes();
+						fastInfoset.writeOctets(bytes, 0, bytes.length);
+					} else {
+						Base64.Encoder encoder = Base64.getEncoder();
+						byte[] block;
+						do {
+							block = in.readNBytes(BASE64_BLOCK_SIZE);
+							if (writer instanceof Utf8XmlWriter utf8) {
+								utf8.writeRaw(encoder.encode(block));
+							} else {
+								writer.writeCharacters(encoder.encodeToString(block));
+							}
+						} while (block.length == BASE64_BLOCK_SIZE);
+					}
+				} catch (IOException e) {
+					throw new XMLStreamException(e);
+				}
+			}
+			writer.writeEndElement();
+		};
+	}
+
+	/**
+	 * Creates the writer of a member return value.
+	 *
+	 * @param member The member, or null for none.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload member(DatabaseMember member) {
+		return writer -> {
+			if (member != null) {
+				MemberXml.write(writer, "return", member);
+			}
+		};
+	}
+
+	/**
+	 * Creates the writer of a member list return value. With XML fragments
+	 * enabled, text XML is copied from each member's cached fragment.
+	 *
+	 * @param members The members.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload members(List<DatabaseMember> members) {
+		MemberStore store = DatabaseServerImpl.memberStore;
+		return writer -> {
+			if (Constants.XML_FRAGMENTS_ENABLED && writer instanceof Utf8XmlWriter utf8) {
+				for (DatabaseMember member : members) {
+					utf8.writeRaw(store.getFragment(member, MemberXml::encode));
+				}
+			} else {
+				for (DatabaseMember member : members) {
+					MemberXml.write(writer, "return", member);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Creates the writer of a page return value.
+	 *
+	 * @param page The page.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload page(MemberPage page) {
+		return writer -> {
+			writer.writeStartElement("", "return", "");
+			for (DatabaseMember member : page.getMembers()) {
+				MemberXml.write(writer, "MEMBER", member);
+			}
+			MemberXml.element(writer, "NEXTPAGETOKEN", page.getNextPageToken());
+			writer.writeEndElement();
+		};
+	}
+
+	/**
+	 * Creates the writer of a statistics return value.
+	 *
+	 * @param statistics The statistics.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload statistics(MemberStatistics statistics) {
+		return writer -> {
+			writer.writeStartElement("", "return", "");
+			MemberXml.element(writer, "TOTAL", Integer.toString(statistics.getTotal()));
+			groups(writer, "CATEGORY", statistics.getByCategory());
+			groups(writer, "SEX", statistics.getBySex());
+			for (CrossTabCount count : statistics.getByCategoryAndSex()) {
+				writer.writeStartElement("", "CATEGORYSEX", "");
+				MemberXml.element(writer, "CATEGORY", count.getCategory());
+				MemberXml.element(writer, "SEX", count.getSex());
+				MemberXml.element(writer, "COUNT", Integer.toString(count.getCount()));
+				writer.writeEndElement();
+			}
+			groups(writer, "BIRTHYEAR", statistics.getByBirthYear());
+			groups(writer, "AGE", statistics.getByAge());
+			writer.writeEndElement();
+		};
+	}
+
+	/**
+	 * Writes a list of group counts.
+	 *
+	 * @param writer The writer to write to.
+	 * @param name   The element name of each count.
+	 * @param counts The counts.
+	 * @throws XMLStreamException If the counts cannot be written.
+	 */
+	private static void groups(XMLStreamWriter writer, String name, List<GroupCount> counts)
+			throws XMLStreamException {
+		for (GroupCount count : counts) {
+			writer.writeStartElement("", name, "");
+			MemberXml.element(writer, "NAME", count.getName());
+			MemberXml.element(writer, "COUNT", Integer.toString(count.getCount()));
+			writer.writeEndElement();
+		}
+	}
+
+	/**
+	 * Creates the writer of a batch insert's results.
+	 *
+	 * @param results The outcome of each record.
+	 * @return The writer.
+	 */
+	private static PayloadMessage.Payload results(List<RecordResult> results) {
+		return writer -> {
+			for (RecordResult result : results) {
+				writer.writeStartElement("", "return", "");
+				if (result.getId() != null) {
+					writer.writeAttribute("ID", result.getId());
+				}
+				MemberXml.element(writer, "ADDED", Boolean.toString(result.isAdded()));
+				MemberXml.element(writer, "MESSAGE", result.getMessage());
+				writer.writeEndElement();
+			}
+		};
+	}
+
+	/**
+	 * Generates the WSDL and schemas of {@link DatabaseServer} exactly as the
+	 * JAXB endpoint publishes them, for the provider endpoint to publish as its
+	 * metadata, so clients see the same contract whichever endpoint is running.
+	 * The runtime's "Published by" comment is left out, as the runtime adds it
+	 * again when it serves the documents.
+	 *
+	 * @param features The features the provider endpoint is created with, which
+	 *                 add their policies to the WSDL.
+	 * @return The documents, the WSDL last.
+	 * @throws IllegalStateException If the documents cannot be written.
+	 */
+	static List<Source> metadata(WebServiceFeature... features) {
+		WSEndpoint<DatabaseServerImpl> endpoint = WSEndpoint.create(DatabaseServerImpl.class, false, null, null,
+				null, null, BindingID.SOAP11_HTTP.createBinding(features), null, null, (EntityResolver) null, true);
+		try {
+			Map<SDDocument, String> locations = new IdentityHashMap<>();
+			for (SDDocument document : endpoint.getServiceDefinition()) {
+				locations.put(document, document.getURL().toExternalForm());
+			}
+			PortAddressResolver ports = new PortAddressResolver() {
+				@Override
+				public String getAddressFor(QName serviceName, String portName) {
+					return null;
+				}
+			};
+			List<Source> sources = new ArrayList<>();
+			for (SDDocument document : endpoint.getServiceDefinition()) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				XMLStreamWriter writer = new XMLStreamWriterFilter(XMLStreamWriterFactory.create(bytes, "UTF-8")) {
+					@Override
+					public void writeComment(String data) throws XMLStreamException {
+						if (!data.startsWith(PUBLISHED_COMMENT)) {
+							super.writeComment(data);
+						}
+					}
+				};
+				document.writeTo(ports, (current, referenced) -> locations.get(referenced), writer);
+				writer.flush();
+				sources.add(new StreamSource(new ByteArrayInputStream(bytes.toByteArray()), locations.get(document)));
+			}
+			return sources;
+		} catch (XMLStreamException | IOException e) {
+			throw new IllegalStateException("Could not generate the WSDL", e);
+		} finally {
+			endpoint.dispose();
+		}
+	}
+}
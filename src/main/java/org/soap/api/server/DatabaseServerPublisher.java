@@ -3,10 +3,23 @@
  */
 package org.soap.api.server;
 
+import com.sun.xml.ws.api.fastinfoset.FastInfosetFeature;
 import jakarta.xml.ws.Endpoint;
+import jakarta.xml.ws.soap.MTOMFeature;
+import org.soap.api.metrics.Metrics;
+import org.soap.api.store.MemberStore;
+import org.soap.api.store.SnapshotFile;
+import org.soap.api.store.WriteAheadLog;
 import org.soap.api.utils.Constants;
 import org.soap.api.utils.CsvReadWrite;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 
 /**
  * This class is responsible for publishing the DatabaseServer as a web service
@@ -19,6 +32,11 @@ import org.soap.api.utils.CsvReadWrite;
  */
 public class DatabaseServerPublisher {
 
+	/**
+	 * Logger for the startup summary and failures.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(DatabaseServerPublisher.class.getName());
+
 	/**
 	 * The main method that initialises the database members, creates and publishes
 	 * the web service endpoint.
@@ -26,14 +44,88 @@ public class DatabaseServerPublisher {
 	 * @param args The command line arguments.
 	 */
 	public static void main(String[] args) {
-		// Initialise the database members by reading data from a CSV file.
-		DatabaseServerImpl.databaseMembers = CsvReadWrite.readDataFromCSV(Constants.FILE_PATH);
+		// Open the write-ahead log. Inserts the previous run made durable in the log
+		// are checkpointed into the CSV file first, so the CSV file is complete.
+		WriteAheadLog writeAheadLog;
+		try {
+			writeAheadLog = WriteAheadLog.open(Constants.WAL_PATH, Constants.FILE_PATH);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		// Initialise the database members from the snapshot, adding any lines the
+		// log has checkpointed into the CSV file since it was written. If there is
+		// no usable snapshot, read the CSV file and save a new one.
+		MemberStore memberStore = SnapshotFile.read(Constants.SNAPSHOT_PATH, Constants.FILE_PATH);
+		if (memberStore == null) {
+			memberStore = CsvReadWrite.readDataFromCSV(Constants.FILE_PATH);
+			try {
+				SnapshotFile.write(memberStore, Constants.SNAPSHOT_PATH, Constants.FILE_PATH);
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Could not write snapshot " + Constants.SNAPSHOT_PATH, e);
+			}
+		}
+		DatabaseServerImpl.memberStore = memberStore;
+
+		// Log inserts from now on, checkpoint the log periodically and once more
+		// on shutdown.
+		DatabaseServerImpl.writeAheadLog = writeAheadLog;
+		writeAheadLog.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(writeAheadLog::close));
+		LOGGER.info("Loaded " + memberStore.size() + " members using " + memberStore.sizeInBytes() / 1024 + " KiB ("
+				+ memberStore.sizeInBytes() / Math.max(1, memberStore.size()) + " bytes per member, "
+				+ memberStore.pooledBytesSaved() / 1024 + " KiB saved by sharing repeated names and job titles)");
+
+		// Publish the per-operation metrics, the query cache counters, the insert
+		// group commit and write-ahead log counters and, when it is used, the XML
+		// fragment cache counters over JMX.
+		try {
+			Metrics.register();
+			Metrics.register(DatabaseServerImpl.queryCache, "QueryCache", "members");
+			Metrics.register(DatabaseServerImpl.inserts, "GroupCommit", "inserts");
+			Metrics.register(writeAheadLog, "WriteAheadLog", "inserts");
+			if (Constants.XML_FRAGMENTS_ENABLED) {
+				Metrics.register(memberStore.getFragmentCache(), "FragmentCache", "members");
+			}
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "Could not register the management beans", e);
+		}
+
+		// Create the web service endpoint chosen at startup: by default the
+		// DatabaseServerImpl implementation with JAXB databinding, or a provider
+		// serving the same contract with hand-written StAX code. With FastInfoset
+		// enabled, a client that sends "Accept: application/fastinfoset" is
+		// answered in binary XML, which is much smaller for large member lists.
+		// MTOM lets a client that sends an MTOM request receive exportMembers'
+		// file as an attachment streamed straight from the store; replies to
+		// other requests are unchanged.
+		String endpointType = System.getProperty(Constants.ENDPOINT_PROPERTY, Constants.DEFAULT_ENDPOINT);
+		FastInfosetFeature fastInfoset = new FastInfosetFeature(Constants.FAST_INFOSET_ENABLED);
+		MTOMFeature mtom = new MTOMFeature(true);
+		Endpoint ep;
+		if (endpointType.equalsIgnoreCase(Constants.ENDPOINT_STAX)) {
+			ep = Endpoint.create(new DatabaseServerProvider(), fastInfoset, mtom);
+			ep.setMetadata(DatabaseServerProvider.metadata(fastInfoset, mtom));
+		} else if (endpointType.equalsIgnoreCase(Constants.ENDPOINT_JAXB)) {
+			ep = Endpoint.create(new DatabaseServerImpl(), fastInfoset, mtom);
+
+			// Optionally write list responses from each member's XML, encoded once
+			// and then cached with the member, instead of marshalling every member
+			// of every response.
+			if (Constants.XML_FRAGMENTS_ENABLED) {
+				ep.getBinding().setHandlerChain(List.of(new XmlFragmentHandler()));
+			}
+		} else {
+			throw new IllegalArgumentException(Constants.ENDPOINT_PROPERTY + " must be " + Constants.ENDPOINT_JAXB
+					+ " or " + Constants.ENDPOINT_STAX + " but was " + endpointType);
+		}
 
-		// Create a new web service endpoint using the DatabaseServerImpl
-		// implementation.
-		Endpoint ep = Endpoint.create(new DatabaseServerImpl());
+		// Run requests on the configured executor rather than on the HTTP server's
+		// own threads.
+		ExecutorService executor = RequestExecutors.create();
+		ep.setExecutor(executor);
 
 		// Publish the web service at the specified URL.
-		ep.publish("http://localhost:7777/190931/people");
+		ep.publish(Constants.ENDPOINT_ADDRESS);
 	}
 }
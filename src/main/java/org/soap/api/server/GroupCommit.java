@@ -0,0 +1,146 @@
+/**
+ * The GroupCommit file is responsible for combining concurrent writes into shared commits.
+ */
+package org.soap.api.server;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * The GroupCommit class lets many threads share the cost of making their
+ * writes durable. Each caller queues its request and then takes the commit
+ * lock. The first caller to get the lock commits every request queued so far
+ * in one call of the committer, so one file write and one fsync cover them
+ * all. Callers that were waiting meanwhile find their request already
+ * committed and return at once. While one commit is syncing, new requests
+ * queue up and go into the next commit together, so the more callers there
+ * are, the more requests each commit carries. No thread is added; committing
+ * is done by the callers themselves.
+ *
+ * @param <T> The type of request.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class GroupCommit<T> implements GroupCommitMBean {
+
+	private final Consumer<ArrayList<T>> committer; // Commits a group of requests.
+
+	private final ConcurrentLinkedQueue<Pending<T>> queue = new ConcurrentLinkedQueue<>(); // Requests waiting.
+
+	/**
+	 * Lock held while a group is committed. A ReentrantLock rather than a
+	 * monitor, so a virtual thread waiting for the commit does not pin its carrier
+	 * thread.
+	 */
+	private final ReentrantLock commitLock = new ReentrantLock();
+
+	private final LongAdder commits = new LongAdder(); // Number of groups committed.
+
+	private final LongAdder requests = new LongAdder(); // Number of requests committed.
+
+	/**
+	 * A queued request and whether it has been committed. The flag is only read
+	 * and written while holding the commit lock.
+	 *
+	 * @param <T> The type of request.
+	 */
+	private static final class Pending<T> {
+
+		final T request; // The request.
+
+		boolean committed; // Whether a commit has included the request.
+
+		/**
+		 * Constructs a queued request.
+		 *
+		 * @param request The request.
+		 */
+		Pending(T request) {
+			this.request = request;
+		}
+	}
+
+	/**
+	 * Constructs a group commit.
+	 *
+	 * @param committer Commits a group of requests in queue order. It must record
+	 *                  the outcome of each request in the request itself. If it
+	 *                  throws, the exception reaches the caller whose thread ran
+	 *                  the commit, and the other callers of the group return
+	 *                  with whatever outcome their requests were given.
+	 */
+	public GroupCommit(Consumer<ArrayList<T>> committer) {
+		this.committer = committer;
+	}
+
+	/**
+	 * Commits a request, together with any others queued at the same time, and
+	 * returns once it has been committed, by this thread or another.
+	 *
+	 * @param request The request to commit.
+	 */
+	public void submit(T request) {
+		Pending<T> pending = new Pending<>(request);
+		queue.add(pending);
+		commitLock.lock();
+		try {
+			if (pending.committed) {
+				return;
+			}
+			ArrayList<Pending<T>> group = new ArrayList<>();
+			ArrayList<T> groupRequests = new ArrayList<>();
+			for (Pending<T> next = queue.poll(); next != null; next = queue.poll()) {
+				group.add(next);
+				groupRequests.add(next.request);
+			}
+			try {
+				committer.accept(groupRequests);
+			} finally {
+				for (Pending<T> done : group) {
+					done.committed = true;
+				}
+				commits.increment();
+				requests.add(group.size());
+			}
+		} finally {
+			commitLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of commits made.
+	 *
+	 * @return The number of commits.
+	 */
+	@Override
+	public long getCommits() {
+		return commits.sum();
+	}
+
+	/**
+	 * Gets the number of requests committed.
+	 *
+	 * @return The number of requests.
+	 */
+	@Override
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	/**
+	 * Gets the mean number of requests carried by a commit.
+	 *
+	 * @return The mean group size, or zero if nothing has been committed.
+	 */
+	@Override
+	public double getMeanGroupSize() {
+		long count = commits.sum();
+		return count == 0 ? 0 : (double) requests.sum() / count;
+	}
+}
@@ -0,0 +1,37 @@
+/**
+ * The GroupCommitMBean file is responsible for defining the management interface of a group commit.
+ */
+package org.soap.api.server;
+
+/**
+ * The GroupCommitMBean interface is the JMX view of the {@link GroupCommit}
+ * counters, showing how well concurrent writes are being combined.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public interface GroupCommitMBean {
+
+	/**
+	 * Gets the number of commits made.
+	 *
+	 * @return The number of commits.
+	 */
+	long getCommits();
+
+	/**
+	 * Gets the number of requests committed.
+	 *
+	 * @return The number of requests.
+	 */
+	long getRequests();
+
+	/**
+	 * Gets the mean number of requests carried by a commit.
+	 *
+	 * @return The mean group size, or zero if nothing has been committed.
+	 */
+	double getMeanGroupSize();
+}
@@ -0,0 +1,74 @@
+/**
+ * The InsertBatch file is responsible for carrying one caller's new records through a group commit.
+ */
+package org.soap.api.server;
+
+import org.soap.api.models.DatabaseMember;
+
+/**
+ * The InsertBatch class carries the new records of one insert request, single
+ * or batch, through {@link GroupCommit}, and brings back the outcome of each.
+ * Records that failed validation are left out of the batch by the caller,
+ * which keeps their messages, and are skipped by the commit. A record whose
+ * outcome is still null after the commit was not committed, because the
+ * commit failed.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+final class InsertBatch {
+
+	/**
+	 * The outcome of a record that reached the commit.
+	 */
+	enum Outcome {
+
+		/**
+		 * The record was added.
+		 */
+		ADDED("Record added successfully"),
+
+		/**
+		 * The record's staff ID is already stored or appears earlier in the same
+		 * commit.
+		 */
+		DUPLICATE("Error: Staff ID already exists"),
+
+		/**
+		 * The record's date of birth could not be read.
+		 */
+		INVALID_DATE("Error: Date of birth format invalid"),
+
+		/**
+		 * The record could not be made durable, so it was not added.
+		 */
+		NOT_SAVED("Error: Record could not be saved");
+
+		final String message; // Message reported to the caller.
+
+		/**
+		 * Constructs an outcome.
+		 *
+		 * @param message The message reported to the caller.
+		 */
+		Outcome(String message) {
+			this.message = message;
+		}
+	}
+
+	final DatabaseMember[] members; // The validated records, null where validation failed.
+
+	final Outcome[] outcomes; // The outcome of each record, null until the commit sets it.
+
+	/**
+	 * Constructs a batch of records.
+	 *
+	 * @param members The validated records, null where validation failed.
+	 */
+	InsertBatch(DatabaseMember[] members) {
+		this.members = members;
+		this.outcomes = new Outcome[members.length];
+	}
+}
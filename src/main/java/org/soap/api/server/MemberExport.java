@@ -0,0 +1,362 @@
+/**
+ * The MemberExport file is responsible for streaming every stored member as a CSV or XML file.
+ */
+package org.soap.api.server;
+
+import jakarta.activation.DataSource;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.store.MemberStore;
+import org.soap.api.utils.Constants;
+import org.soap.api.utils.Converters;
+import org.soap.api.utils.CsvReadWrite;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The MemberExport class is the file returned by the exportMembers operation.
+ * It holds no members itself: each stream it opens encodes members from the
+ * store a chunk at a time as the stream is read, so the export takes the same
+ * memory whatever the number of members. Sent as an MTOM attachment, the file
+ * is copied from the stream straight to the HTTP response.
+ *
+ * <p>
+ * The export covers the members stored when it was created. Members are only
+ * ever appended to the store, so those rows do not change while the file is
+ * read, and members added later are left out.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class MemberExport implements DataSource {
+
+	/**
+	 * The formats an export can be written in.
+	 */
+	enum Format {
+
+		/**
+		 * The layout of the CSV file the service loads, header line included.
+		 */
+		CSV("text/csv; charset=UTF-8", "members.csv"),
+
+		/**
+		 * A members element holding a member element for each member. The fields
+		 * are named as in a createNewDatabaseRecord request, as the element names
+		 * of the service's responses hold spaces that XML parsers reject.
+		 */
+		XML("application/xml", "members.xml");
+
+		final String contentType; // MIME type of the file.
+
+		final String fileName; // Name of the file.
+
+		/**
+		 * Constructs a format.
+		 *
+		 * @param contentType The MIME type of the file.
+		 * @param fileName    The name of the file.
+		 */
+		Format(String contentType, String fileName) {
+			this.contentType = contentType;
+			this.fileName = fileName;
+		}
+
+		/**
+		 * Finds a format by its name, in any case.
+		 *
+		 * @param name The name, csv or xml.
+		 * @return The format, or null if the name is null or not a format.
+		 */
+		static Format named(String name) {
+			if (name != null) {
+				for (Format format : values()) {
+					if (format.name().equalsIgnoreCase(name.strip())) {
+						return format;
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Bytes encoded ahead of the reader before the stream hands them out. The
+	 * chunk can run over by one batch of members.
+	 */
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * Members formatted as CSV lines together.
+	 */
+	private static final int CSV_BATCH = 128;
+
+	/**
+	 * Declaration at the start of the XML file.
+	 */
+	private static final byte[] XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private final MemberStore store; // Store the members are read from.
+
+	private final int size; // Number of members exported.
+
+	private final Format format; // Format the members are written in.
+
+	/**
+	 * Constructs an export of the members stored now.
+	 *
+	 * @param store  The store to export.
+	 * @param format The format to write.
+	 */
+	MemberExport(MemberStore store, Format format) {
+		this.store = store;
+		this.size = store.size();
+		this.format = format;
+	}
+
+	/**
+	 * Gets the number of members exported.
+	 *
+	 * @return The number of members.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Opens a stream of the file, from the start.
+	 *
+	 * @return The stream.
+	 */
+	@Override
+	public InputStream getInputStream() {
+		return new ExportStream();
+	}
+
+	/**
+	 * Refuses to open the file for writing.
+	 *
+	 * @return Nothing.
+	 * @throws IOException Always, as an export is read only.
+	 */
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		throw new IOException("A member export is read only");
+	}
+
+	/**
+	 * Gets the MIME type of the file.
+	 *
+	 * @return The MIME type.
+	 */
+	@Override
+	public String getContentType() {
+		return format.contentType;
+	}
+
+	/**
+	 * Gets the name of the file.
+	 *
+	 * @return The name.
+	 */
+	@Override
+	public String getName() {
+		return format.fileName;
+	}
+
+	/**
+	 * The MemberExport.Chunk class is a byte buffer that the stream reads back
+	 * from.
+	 */
+	private static final class Chunk extends ByteArrayOutputStream {
+
+		/**
+		 * Constructs an empty chunk.
+		 */
+		Chunk() {
+			super(CHUNK_SIZE + 16 * 1024);
+		}
+
+		/**
+		 * Gets a byte of the chunk.
+		 *
+		 * @param position The position of the byte.
+		 * @return The byte, from 0 to 255.
+		 */
+		int byteAt(int position) {
+			return buf[position] & 0xFF;
+		}
+
+		/**
+		 * Copies bytes of the chunk to an array.
+		 *
+		 * @param position The position of the first byte.
+		 * @param b        The array.
+		 * @param off      The position in the array to copy to.
+		 * @param len      The number of bytes.
+		 */
+		void copyTo(int position, byte[] b, int off, int len) {
+			System.arraycopy(buf, position, b, off, len);
+		}
+	}
+
+	/**
+	 * The MemberExport.ExportStream class encodes the members into a chunk when
+	 * the previous chunk has been read.
+	 */
+	private final class ExportStream extends InputStream {
+
+		private final Chunk chunk = new Chunk(); // Bytes encoded and not yet read, from position.
+
+		private final Utf8XmlWriter xml; // Writer of XML into the chunk, or null for CSV.
+
+		private int position; // Position in the chunk of the next byte to read.
+
+		private int row = -1; // Next row to encode, or -1 before the header.
+
+		/**
+		 * Constructs a stream positioned at the start of the file.
+		 */
+		ExportStream() {
+			xml = format == Format.XML ? new Utf8XmlWriter(chunk, 8 * 1024) : null;
+		}
+
+		/**
+		 * Reads a byte.
+		 *
+		 * @return The byte, or -1 at the end of the file.
+		 * @throws IOException If a member cannot be encoded.
+		 */
+		@Override
+		public int read() throws IOException {
+			return fill() ? chunk.byteAt(position++) : -1;
+		}
+
+		/**
+		 * Reads bytes into an array.
+		 *
+		 * @param b   The array.
+		 * @param off The position in the array to read to.
+		 * @param len The largest number of bytes to read.
+		 * @return The number of bytes read, or -1 at the end of the file.
+		 * @throws IOException If a member cannot be encoded.
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			int count = Math.min(len, chunk.size() - position);
+			chunk.copyTo(position, b, off, count);
+			position += count;
+			return count;
+		}
+
+		/**
+		 * Gets the number of bytes that can be read without encoding more members.
+		 *
+		 * @return The number of bytes.
+		 */
+		@Override
+		public int available() {
+			return chunk.size() - position;
+		}
+
+		/**
+		 * Encodes the next chunk if the current one has been read.
+		 *
+		 * @return false at the end of the file.
+		 * @throws IOException If a member cannot be encoded.
+		 */
+		private boolean fill() throws IOException {
+			while (position == chunk.size()) {
+				if (row > size) {
+					return false;
+				}
+				chunk.reset();
+				position = 0;
+				try {
+					encode();
+				} catch (XMLStreamException e) {
+					throw new IOException(e);
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Encodes members until the chunk is full, starting with the header and
+		 * ending with the footer of the file. The row is past the end once the
+		 * footer is written.
+		 *
+		 * @throws XMLStreamException If a member cannot be encoded.
+		 */
+		private void encode() throws XMLStreamException {
+			if (row < 0) {
+				if (xml == null) {
+					chunk.writeBytes((Constants.CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+				} else {
+					chunk.writeBytes(XML_DECLARATION);
+					xml.writeStartElement("members");
+				}
+				row = 0;
+			}
+			while (row < size && chunk.size() < CHUNK_SIZE) {
+				if (xml == null) {
+					int end = Math.min(size, row + CSV_BATCH);
+					List<DatabaseMember> members = new ArrayList<>(end - row);
+					for (; row < end; row++) {
+						members.add(store.get(row));
+					}
+					chunk.writeBytes(CsvReadWrite.toCsvLines(members));
+				} else {
+					writeMember(store.get(row++));
+					xml.flush();
+				}
+			}
+			if (row == size) {
+				if (xml != null) {
+					xml.writeEndElement();
+					xml.flush();
+				}
+				row++;
+			}
+		}
+
+		/**
+		 * Writes the member element of a member.
+		 *
+		 * @param member The member.
+		 * @throws XMLStreamException If the element cannot be written.
+		 */
+		private void writeMember(DatabaseMember member) throws XMLStreamException {
+			xml.writeStartElement("member");
+			MemberXml.element(xml, "index", Integer.toString(member.getIndex()));
+			MemberXml.element(xml, "id", member.getId());
+			MemberXml.element(xml, "firstName", member.getFirstName());
+			MemberXml.element(xml, "lastName", member.getLastName());
+			MemberXml.element(xml, "sex", Converters.sexToString(member.getSex()));
+			MemberXml.element(xml, "email", member.getEmail());
+			MemberXml.element(xml, "phoneNumber", member.getPhoneNumber());
+			MemberXml.element(xml, "dateOfBirth", member.getDateOfBirth());
+			MemberXml.element(xml, "employmentType", member.getJobTitle());
+			MemberXml.element(xml, "category", Converters.categoryToString(member.getJobCategory()));
+			xml.writeEndElement();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * The MemberListMessage file is responsible for writing a list response from the members' cached XML fragments.
+ */
+package org.soap.api.server;
+
+import com.sun.xml.ws.api.message.FilterMessageImpl;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.streaming.XMLStreamWriterUtil;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.store.MemberStore;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The MemberListMessage class wraps the response message of a list operation
+ * and writes its body by copying each member's cached XML fragment, from
+ * {@link MemberStore#getFragment}, straight to the output stream instead of
+ * having JAXB marshal every member again. Everything else, including any
+ * other way of reading the message, is left to the wrapped message.
+ *
+ * <p>
+ * Fragments can only be copied when the writer exposes its UTF-8 output
+ * stream, as the text XML encoder's writer does. For any other writer, such as
+ * FastInfoset's, the wrapped message writes the body as before.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class MemberListMessage extends FilterMessageImpl {
+
+	/**
+	 * Namespace of the members' type, which JAXB declares on the response element
+	 * alongside the service's namespace.
+	 */
+	private static final String MEMBER_NAMESPACE = "http://databaseServer/";
+
+	private final List<DatabaseMember> members; // Members in the response, in order.
+
+	private final MemberStore store; // Store the members came from.
+
+	/**
+	 * Constructs a message writing the members of a response from their
+	 * fragments.
+	 *
+	 * @param response The response message JAXB would write.
+	 * @param members  The members the response holds.
+	 * @param store    The store the members came from.
+	 */
+	MemberListMessage(Message response, List<DatabaseMember> members, MemberStore store) {
+		super(response);
+		this.members = members;
+		this.store = store;
+	}
+
+	/**
+	 * Writes the whole SOAP envelope, the same way the wrapped message would.
+	 *
+	 * @param writer The writer to write to.
+	 * @throws XMLStreamException If the message cannot be written.
+	 */
+	@Override
+	public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+		String soapNamespace = getSOAPVersion().nsUri;
+		writer.writeStartDocument();
+		writer.writeStartElement("S", "Envelope", soapNamespace);
+		writer.writeNamespace("S", soapNamespace);
+		if (hasHeaders()) {
+			writer.writeStartElement("S", "Header", soapNamespace);
+			for (Header header : getHeaders().asList()) {
+				header.writeTo(writer);
+			}
+			writer.writeEndElement();
+		}
+		writer.writeStartElement("S", "Body", soapNamespace);
+		writePayloadTo(writer);
+		writer.writeEndElement();
+		writer.writeEndElement();
+		writer.writeEndDocument();
+	}
+
+	/**
+	 * Writes the response element and the members' fragments, or leaves it to the
+	 * wrapped message if the writer's output stream is not available.
+	 *
+	 * @param writer The writer to write to.
+	 * @throws XMLStreamException If the body cannot be written.
+	 */
+	@Override
+	public void writePayloadTo(XMLStreamWriter writer) throws XMLStreamException {
+		OutputStream out = XMLStreamWriterUtil.getOutputStream(writer);
+		if (out == null) {
+			super.writePayloadTo(writer);
+			return;
+		}
+		String name = "ns2:" + getPayloadLocalPart();
+		try {
+			out.write(("<" + name + " xmlns:ns2=\"" + getPayloadNamespaceURI() + "\" xmlns:ns3=\"" + MEMBER_NAMESPACE
+					+ "\">").getBytes(StandardCharsets.UTF_8));
+			for (DatabaseMember member : members) {
+				out.write(store.getFragment(member, MemberXml::encode));
+			}
+			out.write(("</" + name + ">").getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Copies the message.
+	 *
+	 * @return A copy that also writes from the fragments.
+	 */
+	@Override
+	public Message copy() {
+		return new MemberListMessage(super.copy(), members, store);
+	}
+}
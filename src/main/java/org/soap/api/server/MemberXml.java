@@ -0,0 +1,96 @@
+/**
+ * The MemberXml file is responsible for writing a DatabaseMember as the XML element of a response.
+ */
+package org.soap.api.server;
+
+import org.soap.api.models.DatabaseMember;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * The MemberXml class writes a DatabaseMember as the element that a response
+ * holds for it, the same way the JAXB runtime marshals it: the staff ID as the
+ * ID attribute, then the index and each field as an unqualified child element
+ * in declaration order, with null fields left out. The element declares no
+ * namespaces, so it can be written anywhere in a response. Written through a
+ * {@link Utf8XmlWriter}, it is byte for byte what JAXB writes for a text XML
+ * response.
+ *
+ * <p>
+ * It must be kept in step with the JAXB annotations on
+ * {@link DatabaseMember}.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class MemberXml {
+
+	/**
+	 * Size of the buffer a member is encoded in, enough for a typical member.
+	 */
+	private static final int ENCODE_BUFFER_SIZE = 512;
+
+	/**
+	 * Encodes a member as a UTF-8 "return" element.
+	 *
+	 * @param member The member to encode.
+	 * @return The element's bytes.
+	 */
+	public static byte[] encode(DatabaseMember member) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(ENCODE_BUFFER_SIZE);
+		try {
+			Utf8XmlWriter writer = new Utf8XmlWriter(bytes, ENCODE_BUFFER_SIZE);
+			write(writer, "return", member);
+			writer.flush();
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException("Could not encode member " + member.getId(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a member as an element.
+	 *
+	 * @param writer The writer to write to.
+	 * @param name   The element name, such as "return" or "MEMBER".
+	 * @param member The member to write.
+	 * @throws XMLStreamException If the element cannot be written.
+	 */
+	public static void write(XMLStreamWriter writer, String name, DatabaseMember member) throws XMLStreamException {
+		writer.writeStartElement("", name, "");
+		if (member.getId() != null) {
+			writer.writeAttribute("ID", member.getId());
+		}
+		element(writer, "index", Integer.toString(member.getIndex()));
+		element(writer, "FIRSTNAME", member.getFirstName());
+		element(writer, "LASTNAME", member.getLastName());
+		element(writer, "SEX", member.getSex() == null ? null : member.getSex().name());
+		element(writer, "EMAIL", member.getEmail());
+		element(writer, "PHONE NUMBER", member.getPhoneNumber());
+		element(writer, "DATE OF BIRTH", member.getDateOfBirth());
+		element(writer, "JOB TITLE", member.getJobTitle());
+		element(writer, "JOB CATEGORY", member.getJobCategory() == null ? null : member.getJobCategory().name());
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Writes an unqualified element holding text, unless the text is null.
+	 *
+	 * @param writer The writer to write to.
+	 * @param name   The element name.
+	 * @param value  The text, or null to write nothing.
+	 * @throws XMLStreamException If the element cannot be written.
+	 */
+	static void element(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			writer.writeStartElement("", name, "");
+			writer.writeCharacters(value);
+			writer.writeEndElement();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * The PageTokens file is responsible for encoding and checking the continuation tokens of the paged queries.
+ */
+package org.soap.api.server;
+
+import org.soap.api.exceptions.InvalidPageException;
+import org.soap.api.store.MemberStore;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.zip.CRC32C;
+
+/**
+ * The PageTokens class turns the position reached by a paged query into an
+ * opaque token for the client and back. A token records the query it belongs
+ * to, its normalised arguments and the position, followed by a checksum, so a
+ * token that is mistyped or passed to a different query is rejected instead of
+ * returning a wrong page. Tokens hold no server state, so they never expire
+ * and stay valid across restarts.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class PageTokens {
+
+	/**
+	 * Version of the token layout.
+	 */
+	private static final byte VERSION = 1;
+
+	/**
+	 * Length of a decoded token: version, operation, two arguments, position and
+	 * checksum.
+	 */
+	private static final int LENGTH = 1 + 1 + Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+
+	/**
+	 * Encodes the position of the next page of a query.
+	 *
+	 * @param operation The query.
+	 * @param first     The first normalised argument of the query.
+	 * @param second    The second normalised argument of the query.
+	 * @param position  The position returned with the current page.
+	 * @return The token.
+	 */
+	public static String encode(QueryCache.Operation operation, int first, int second, long position) {
+		ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+		buffer.put(VERSION).put((byte) operation.ordinal()).putInt(first).putInt(second).putLong(position);
+		buffer.putInt(checksum(buffer.array()));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+	}
+
+	/**
+	 * Decodes the token given with a query.
+	 *
+	 * @param token     The token, or null or empty for the first page.
+	 * @param operation The query.
+	 * @param first     The first normalised argument of the query.
+	 * @param second    The second normalised argument of the query.
+	 * @return The position to continue from, or {@link MemberStore#FIRST_PAGE}.
+	 * @throws InvalidPageException If the token is malformed or was issued for a
+	 *                              different query.
+	 */
+	public static long decode(String token, QueryCache.Operation operation, int first, int second)
+			throws InvalidPageException {
+		if (token == null || token.isEmpty()) {
+			return MemberStore.FIRST_PAGE;
+		}
+		byte[] bytes;
+		try {
+			bytes = Base64.getUrlDecoder().decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidPageException("Error: Page token invalid");
+		}
+		if (bytes.length != LENGTH) {
+			throw new InvalidPageException("Error: Page token invalid");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.get() != VERSION || buffer.getInt(LENGTH - Integer.BYTES) != checksum(bytes)) {
+			throw new InvalidPageException("Error: Page token invalid");
+		}
+		if (buffer.get() != operation.ordinal() || buffer.getInt() != first || buffer.getInt() != second) {
+			throw new InvalidPageException("Error: Page token belongs to a different query");
+		}
+		return buffer.getLong();
+	}
+
+	/**
+	 * Computes the checksum of a token's contents.
+	 *
+	 * @param bytes The token bytes; the trailing checksum field is not included.
+	 * @return The checksum.
+	 */
+	private static int checksum(byte[] bytes) {
+		CRC32C crc = new CRC32C();
+		crc.update(bytes, 0, LENGTH - Integer.BYTES);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,224 @@
+/**
+ * The PayloadMessage file is responsible for a SOAP message whose body is written by hand-written StAX code.
+ */
+package org.soap.api.server;
+
+import com.sun.xml.stream.buffer.MutableXMLStreamBuffer;
+import com.sun.xml.stream.buffer.XMLStreamBuffer;
+import com.sun.xml.stream.buffer.XMLStreamBufferSource;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.HeaderList;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.MessageHeaders;
+import com.sun.xml.ws.message.AbstractMessageImpl;
+import com.sun.xml.ws.streaming.XMLStreamWriterUtil;
+import org.jvnet.staxex.util.MtomStreamWriter;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Source;
+import java.io.OutputStream;
+
+/**
+ * The PayloadMessage class is a SOAP message without headers whose body
+ * element is written by a {@link Payload} each time the message is written,
+ * so a response is streamed to the client without being built in memory
+ * first.
+ *
+ * <p>
+ * When the writer exposes its UTF-8 output stream, as the text XML encoder's
+ * writer does, the payload is written through a {@link Utf8XmlWriter}, which
+ * escapes text exactly as JAXB does, so responses match the JAXB endpoint's
+ * byte for byte. Any other writer, such as FastInfoset's, is used directly.
+ * Reading the message in any other way, which only handlers and message
+ * logging do, writes the payload to a buffer first.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class PayloadMessage extends AbstractMessageImpl {
+
+	/**
+	 * The PayloadMessage.Payload interface writes the body element of a message.
+	 */
+	@FunctionalInterface
+	interface Payload {
+
+		/**
+		 * Writes the body element. It may be called more than once and must write
+		 * the same element each time.
+		 *
+		 * @param writer The writer to write to.
+		 * @throws XMLStreamException If the element cannot be written.
+		 */
+		void writeTo(XMLStreamWriter writer) throws XMLStreamException;
+	}
+
+	private final String localName; // Local name of the body element.
+
+	private final String namespaceURI; // Namespace of the body element.
+
+	private final Payload payload; // Writer of the body element.
+
+	private HeaderList headers; // Empty header list, created when first asked for.
+
+	/**
+	 * Constructs a message.
+	 *
+	 * @param soapVersion  The SOAP version of the message.
+	 * @param localName    The local name of the body element.
+	 * @param namespaceURI The namespace of the body element.
+	 * @param payload      The writer of the body element.
+	 */
+	PayloadMessage(SOAPVersion soapVersion, String localName, String namespaceURI, Payload payload) {
+		super(soapVersion);
+		this.localName = localName;
+		this.namespaceURI = namespaceURI;
+		this.payload = payload;
+	}
+
+	/**
+	 * Tells whether the message has headers, which it never has.
+	 *
+	 * @return False.
+	 */
+	@Override
+	public boolean hasHeaders() {
+		return false;
+	}
+
+	/**
+	 * Gets the message's headers.
+	 *
+	 * @return An empty header list.
+	 */
+	@Override
+	public MessageHeaders getHeaders() {
+		if (headers == null) {
+			headers = new HeaderList(soapVersion);
+		}
+		return headers;
+	}
+
+	/**
+	 * Gets the local name of the body element.
+	 *
+	 * @return The local name.
+	 */
+	@Override
+	public String getPayloadLocalPart() {
+		return localName;
+	}
+
+	/**
+	 * Gets the namespace of the body element.
+	 *
+	 * @return The namespace.
+	 */
+	@Override
+	public String getPayloadNamespaceURI() {
+		return namespaceURI;
+	}
+
+	/**
+	 * Tells whether the message has a body element, which it always has.
+	 *
+	 * @return True.
+	 */
+	@Override
+	public boolean hasPayload() {
+		return true;
+	}
+
+	/**
+	 * Gets the body element as a source.
+	 *
+	 * @return The source.
+	 */
+	@Override
+	public Source readPayloadAsSource() {
+		return new XMLStreamBufferSource(buffer());
+	}
+
+	/**
+	 * Gets a reader positioned at the body element.
+	 *
+	 * @return The reader.
+	 * @throws XMLStreamException If the body element cannot be written.
+	 */
+	@Override
+	public XMLStreamReader readPayload() throws XMLStreamException {
+		return buffer().readAsXMLStreamReader();
+	}
+
+	/**
+	 * Writes the body element, through a {@link Utf8XmlWriter} if the writer's
+	 * output stream is available. The runtime's MTOM writer also exposes its
+	 * stream, and then the Utf8XmlWriter carries its attachment marshaller.
+	 *
+	 * @param writer The writer to write to.
+	 * @throws XMLStreamException If the body element cannot be written.
+	 */
+	@Override
+	public void writePayloadTo(XMLStreamWriter writer) throws XMLStreamException {
+		OutputStream out = XMLStreamWriterUtil.getOutputStream(writer);
+		if (out == null) {
+			payload.writeTo(writer);
+			return;
+		}
+		Utf8XmlWriter utf8 = new Utf8XmlWriter(out,
+				writer instanceof MtomStreamWriter mtom ? mtom.getAttachmentMarshaller() : null);
+		payload.writeTo(utf8);
+		utf8.flush();
+	}
+
+	/**
+	 * Writes the body element as SAX events.
+	 *
+	 * @param contentHandler The handler to write to.
+	 * @param errorHandler   The handler of errors.
+	 * @param fragment       Whether to leave out the start and end of document.
+	 * @throws SAXException If the body element cannot be written.
+	 */
+	@Override
+	protected void writePayloadTo(ContentHandler contentHandler, ErrorHandler errorHandler, boolean fragment)
+			throws SAXException {
+		buffer().writeTo(contentHandler, errorHandler, fragment);
+	}
+
+	/**
+	 * Copies the message. The payload writes the same element each time, so the
+	 * copy shares it.
+	 *
+	 * @return The copy.
+	 */
+	@Override
+	public Message copy() {
+		return new PayloadMessage(soapVersion, localName, namespaceURI, payload).copyFrom(this);
+	}
+
+	/**
+	 * Writes the body element to a buffer.
+	 *
+	 * @return The buffer.
+	 * @throws IllegalStateException If the body element cannot be written.
+	 */
+	private XMLStreamBuffer buffer() {
+		MutableXMLStreamBuffer buffer = new MutableXMLStreamBuffer();
+		try {
+			XMLStreamWriter writer = buffer.createFromXMLStreamWriter();
+			payload.writeTo(writer);
+			writer.flush();
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException("Could not write the message body", e);
+		}
+		return buffer;
+	}
+}
@@ -0,0 +1,460 @@
+/**
+ * The QueryCache file is responsible for caching the results of the list queries between inserts.
+ */
+package org.soap.api.server;
+
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The QueryCache class keeps the results of recent category, sex and age range
+ * queries, keyed by the operation and its normalised arguments (an enum
+ * constant or a pair of epoch days), so that repeated queries do not rebuild
+ * the same list. The cache is bounded by the total number of members held in
+ * its results and evicts results that have not been used recently first.
+ *
+ * <p>
+ * A hit takes no lock: the results are held in a ConcurrentHashMap and a hit
+ * only stamps its entry with the current value of a clock that advances on
+ * every miss. When the cache is over its size, the thread that filled it
+ * samples a few entries, going round the map from where the last eviction
+ * stopped, and evicts the one used least recently. This approximates least
+ * recently used eviction without keeping the entries in order.
+ * </p>
+ *
+ * <p>
+ * When members are added, only the results whose predicate one of them
+ * matches are dropped, in one pass over the cache per commit. Each commit also
+ * advances a generation number, and a result computed while the generation
+ * changed is removed again right after it is stored. This way a result
+ * computed before an insert never stays in the cache after that insert has
+ * invalidated it.
+ * </p>
+ *
+ * <p>
+ * Cached lists are shared between callers and must not be modified.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class QueryCache implements QueryCacheMBean {
+
+	/**
+	 * The cacheable queries, each with the predicate the added members are tested
+	 * against to decide whether a cached result is out of date.
+	 */
+	public enum Operation {
+
+		/**
+		 * Members in an employment category; the first argument is its ordinal.
+		 */
+		CATEGORY {
+			@Override
+			boolean matches(int first, int second, Added added) {
+				return (added.categories & 1 << first) != 0;
+			}
+		},
+
+		/**
+		 * Members of a sex; the first argument is its ordinal.
+		 */
+		SEX {
+			@Override
+			boolean matches(int first, int second, Added added) {
+				return (added.sexes & 1 << first) != 0;
+			}
+		},
+
+		/**
+		 * Members born between two epoch days, with the same semantics as
+		 * {@link org.soap.api.store.MemberStore#getBornBetween}.
+		 */
+		AGE_RANGE {
+			@Override
+			boolean matches(int first, int second, Added added) {
+				return first <= second ? added.anyBornBetween(first, second)
+						: added.anyBornBetween(first, first) || added.anyBornBetween(second, second);
+			}
+		};
+
+		/**
+		 * Tests whether any of the added members would appear in the result of this
+		 * operation.
+		 *
+		 * @param first  The first argument of the cached query.
+		 * @param second The second argument of the cached query.
+		 * @param added  The added members.
+		 * @return true if a member matches.
+		 */
+		abstract boolean matches(int first, int second, Added added);
+	}
+
+	/**
+	 * The distinct categories, sexes and dates of birth of the members added by
+	 * one commit.
+	 */
+	static final class Added {
+
+		final int categories; // Bit set of the category ordinals.
+
+		final int sexes; // Bit set of the sex ordinals.
+
+		final int[] birthDays; // Distinct dates of birth as epoch days, in ascending order.
+
+		/**
+		 * Summarises added members.
+		 *
+		 * @param members   The members.
+		 * @param birthDays The date of birth of each member as an epoch day.
+		 */
+		Added(List<DatabaseMember> members, int[] birthDays) {
+			int categoryBits = 0;
+			int sexBits = 0;
+			for (DatabaseMember member : members) {
+				categoryBits |= 1 << member.getJobCategory().ordinal();
+				sexBits |= 1 << member.getSex().ordinal();
+			}
+			this.categories = categoryBits;
+			this.sexes = sexBits;
+			this.birthDays = Arrays.stream(birthDays, 0, members.size()).sorted().distinct().toArray();
+		}
+
+		/**
+		 * Checks whether any added member was born between two dates.
+		 *
+		 * @param startDay The first epoch day of the range.
+		 * @param endDay   The last epoch day of the range.
+		 * @return true if one was.
+		 */
+		boolean anyBornBetween(int startDay, int endDay) {
+			int position = Arrays.binarySearch(birthDays, startDay);
+			if (position >= 0) {
+				return true;
+			}
+			position = -position - 1;
+			return position < birthDays.length && birthDays[position] <= endDay;
+		}
+	}
+
+	/**
+	 * The key of a cached result.
+	 */
+	private static final class Key {
+
+		final Operation operation; // Query the result belongs to.
+
+		final int first; // First normalised argument.
+
+		final int second; // Second normalised argument, or 0.
+
+		/**
+		 * Constructs a key.
+		 *
+		 * @param operation The query.
+		 * @param first     The first normalised argument.
+		 * @param second    The second normalised argument, or 0.
+		 */
+		Key(Operation operation, int first, int second) {
+			this.operation = operation;
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key key && key.operation == operation && key.first == first
+					&& key.second == second;
+		}
+
+		@Override
+		public int hashCode() {
+			return (operation.ordinal() * 31 + first) * 31 + second;
+		}
+	}
+
+	/**
+	 * A cached result with the time it was last used.
+	 */
+	private static final class Entry {
+
+		final Key key; // Key the result is cached under.
+
+		final ArrayList<DatabaseMember> result; // The result.
+
+		final long weight; // Weight of the result.
+
+		volatile long lastUsed; // Clock value when the result was last returned.
+
+		/**
+		 * Constructs an entry.
+		 *
+		 * @param key      The key.
+		 * @param result   The result.
+		 * @param lastUsed The current clock value.
+		 */
+		Entry(Key key, ArrayList<DatabaseMember> result, long lastUsed) {
+			this.key = key;
+			this.result = result;
+			this.weight = weight(result);
+			this.lastUsed = lastUsed;
+		}
+	}
+
+	/**
+	 * Number of entries compared to choose each one to evict.
+	 */
+	private static final int EVICTION_SAMPLE = 8;
+
+	private final long maxMembers; // Largest total number of members held across all results.
+
+	private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong cachedMembers = new AtomicLong(); // Total number of members held across all results.
+
+	private final AtomicLong generation = new AtomicLong(); // Number of commits and clears seen so far.
+
+	private final AtomicLong clock = new AtomicLong(); // Number of misses so far, used to stamp entries.
+
+	/**
+	 * Lock serialising evictions, so that two threads do not evict for the same
+	 * overflow. Hits never take it.
+	 */
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private Iterator<Entry> sampler; // Position of the last eviction, guarded by evictionLock.
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder invalidations = new LongAdder();
+
+	/**
+	 * Constructs an empty cache.
+	 *
+	 * @param maxMembers The largest total number of members to hold across all
+	 *                   results; 0 disables the cache.
+	 */
+	public QueryCache(long maxMembers) {
+		this.maxMembers = maxMembers;
+	}
+
+	/**
+	 * Gets the cached result of a query, computing and caching it if it is not
+	 * cached.
+	 *
+	 * @param operation The query.
+	 * @param first     The first normalised argument.
+	 * @param second    The second normalised argument, or 0.
+	 * @param query     Computes the result on a miss.
+	 * @return The result, which must not be modified.
+	 */
+	public ArrayList<DatabaseMember> get(Operation operation, int first, int second,
+			Supplier<ArrayList<DatabaseMember>> query) {
+		if (maxMembers <= 0) {
+			return query.get();
+		}
+		Key key = new Key(operation, first, second);
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			long now = clock.get();
+			if (entry.lastUsed != now) {
+				entry.lastUsed = now;
+			}
+			hits.increment();
+			return entry.result;
+		}
+		misses.increment();
+		long startGeneration = generation.get();
+		ArrayList<DatabaseMember> result = query.get();
+		put(new Entry(key, result, clock.incrementAndGet()), startGeneration);
+		return result;
+	}
+
+	/**
+	 * Drops every cached result that one of the members added by a commit would
+	 * appear in. Must be called once per commit, after the members are visible in
+	 * the store.
+	 *
+	 * @param members   The added members.
+	 * @param birthDays The date of birth of each member as an epoch day.
+	 */
+	public void membersAdded(List<DatabaseMember> members, int[] birthDays) {
+		if (members.isEmpty()) {
+			return;
+		}
+		Added added = new Added(members, birthDays);
+		generation.incrementAndGet();
+		for (Entry entry : entries.values()) {
+			Key key = entry.key;
+			if (key.operation.matches(key.first, key.second, added) && remove(entry)) {
+				invalidations.increment();
+			}
+		}
+	}
+
+	/**
+	 * Drops every cached result.
+	 */
+	@Override
+	public void clear() {
+		generation.incrementAndGet();
+		for (Entry entry : entries.values()) {
+			remove(entry);
+		}
+	}
+
+	/**
+	 * Stores a computed result, then removes it again if an insert happened since
+	 * it was started, or else evicts results until the cache is within its size.
+	 *
+	 * @param entry           The result and its key.
+	 * @param startGeneration The generation when the query was started.
+	 */
+	private void put(Entry entry, long startGeneration) {
+		if (entry.weight > maxMembers) {
+			return;
+		}
+		Entry previous = entries.put(entry.key, entry);
+		if (previous != null) {
+			cachedMembers.addAndGet(-previous.weight);
+		}
+		cachedMembers.addAndGet(entry.weight);
+		if (generation.get() != startGeneration) {
+			remove(entry);
+		} else if (cachedMembers.get() > maxMembers) {
+			evict();
+		}
+	}
+
+	/**
+	 * Removes an entry if it is still cached.
+	 *
+	 * @param entry The entry.
+	 * @return true if this call removed it.
+	 */
+	private boolean remove(Entry entry) {
+		if (!entries.remove(entry.key, entry)) {
+			return false;
+		}
+		cachedMembers.addAndGet(-entry.weight);
+		return true;
+	}
+
+	/**
+	 * Evicts results until the cache is within its size. Each eviction compares
+	 * the next few entries after the previous eviction and removes the one used
+	 * least recently.
+	 */
+	private void evict() {
+		evictionLock.lock();
+		try {
+			while (cachedMembers.get() > maxMembers) {
+				Entry oldest = null;
+				for (int i = 0; i < EVICTION_SAMPLE; i++) {
+					if (sampler == null || !sampler.hasNext()) {
+						sampler = entries.values().iterator();
+						if (!sampler.hasNext()) {
+							return;
+						}
+					}
+					Entry candidate = sampler.next();
+					if (oldest == null || candidate.lastUsed < oldest.lastUsed) {
+						oldest = candidate;
+					}
+				}
+				if (remove(oldest)) {
+					evictions.increment();
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the weight of a result, counting an empty result as one member.
+	 *
+	 * @param result The result.
+	 * @return The weight.
+	 */
+	private static long weight(ArrayList<DatabaseMember> result) {
+		return Math.max(1, result.size());
+	}
+
+	/**
+	 * Gets the number of queries answered from the cache.
+	 *
+	 * @return The number of hits.
+	 */
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of queries that had to be computed.
+	 *
+	 * @return The number of misses.
+	 */
+	@Override
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of results evicted to stay within the size limit.
+	 *
+	 * @return The number of evictions.
+	 */
+	@Override
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Gets the number of results dropped because a matching member was added.
+	 *
+	 * @return The number of invalidations.
+	 */
+	@Override
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	/**
+	 * Gets the number of cached results.
+	 *
+	 * @return The number of results.
+	 */
+	@Override
+	public int getEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the total number of members held across all cached results.
+	 *
+	 * @return The number of members.
+	 */
+	@Override
+	public long getCachedMembers() {
+		return cachedMembers.get();
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * The QueryCacheMBean file is responsible for defining the management interface of the query result cache.
+ */
+package org.soap.api.server;
+
+/**
+ * The QueryCacheMBean interface is the JMX view of the {@link QueryCache}
+ * counters.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public interface QueryCacheMBean {
+
+	/**
+	 * Gets the number of queries answered from the cache.
+	 *
+	 * @return The number of hits.
+	 */
+	long getHits();
+
+	/**
+	 * Gets the number of queries that had to be computed.
+	 *
+	 * @return The number of misses.
+	 */
+	long getMisses();
+
+	/**
+	 * Gets the number of results evicted to stay within the size limit.
+	 *
+	 * @return The number of evictions.
+	 */
+	long getEvictions();
+
+	/**
+	 * Gets the number of results dropped because a matching member was added.
+	 *
+	 * @return The number of invalidations.
+	 */
+	long getInvalidations();
+
+	/**
+	 * Gets the number of cached results.
+	 *
+	 * @return The number of results.
+	 */
+	int getEntryCount();
+
+	/**
+	 * Gets the total number of members held across all cached results.
+	 *
+	 * @return The number of members.
+	 */
+	long getCachedMembers();
+
+	/**
+	 * Drops every cached result.
+	 */
+	void clear();
+}
@@ -0,0 +1,96 @@
+/**
+ * The RequestExecutors file is responsible for creating the executor that runs web service requests.
+ */
+package org.soap.api.server;
+
+import org.soap.api.utils.Constants;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RequestExecutors class creates the executor the published endpoint hands
+ * each request to, as configured by system properties at startup. By default
+ * every request runs on its own virtual thread, so a request blocked on the
+ * CSV file does not hold up the others. Alternatively a fixed pool of platform
+ * threads with a bounded queue can be used.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class RequestExecutors {
+
+	/**
+	 * Creates the executor chosen by {@link Constants#EXECUTOR_PROPERTY}.
+	 *
+	 * @return The executor.
+	 * @throws IllegalArgumentException If a property has an invalid value.
+	 */
+	public static ExecutorService create() {
+		String type = System.getProperty(Constants.EXECUTOR_PROPERTY, Constants.DEFAULT_EXECUTOR);
+		if (type.equalsIgnoreCase(Constants.EXECUTOR_VIRTUAL)) {
+			return virtualThreads();
+		}
+		if (type.equalsIgnoreCase(Constants.EXECUTOR_PLATFORM)) {
+			return platformThreads(positiveProperty(Constants.POOL_SIZE_PROPERTY, Constants.DEFAULT_POOL_SIZE),
+					positiveProperty(Constants.QUEUE_SIZE_PROPERTY, Constants.DEFAULT_QUEUE_SIZE));
+		}
+		throw new IllegalArgumentException(Constants.EXECUTOR_PROPERTY + " must be " + Constants.EXECUTOR_VIRTUAL
+				+ " or " + Constants.EXECUTOR_PLATFORM + " but was " + type);
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each request.
+	 *
+	 * @return The executor.
+	 */
+	public static ExecutorService virtualThreads() {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("soap-request-", 0).factory());
+	}
+
+	/**
+	 * Creates a fixed pool of platform threads. Requests wait in a bounded queue
+	 * when every thread is busy; once the queue is full the submitting HTTP server
+	 * thread runs the request itself, which slows down accepting new requests
+	 * instead of queueing without limit.
+	 *
+	 * @param threads   The number of threads.
+	 * @param queueSize The number of requests that may wait for a thread.
+	 * @return The executor.
+	 */
+	public static ExecutorService platformThreads(int threads, int queueSize) {
+		ThreadFactory factory = Thread.ofPlatform().name("soap-request-", 0).daemon(true).factory();
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Reads a positive integer system property.
+	 *
+	 * @param name         The property name.
+	 * @param defaultValue The value used when the property is not set.
+	 * @return The value.
+	 * @throws IllegalArgumentException If the property is not a positive integer.
+	 */
+	private static int positiveProperty(String name, int defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			int parsed = Integer.parseInt(value.trim());
+			if (parsed > 0) {
+				return parsed;
+			}
+		} catch (NumberFormatException e) {
+			// Reported below.
+		}
+		throw new IllegalArgumentException(name + " must be a positive integer but was " + value);
+	}
+}
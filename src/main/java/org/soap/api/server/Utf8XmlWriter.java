@@ -0,0 +1,666 @@
+/**
+ * The Utf8XmlWriter file is responsible for writing XML elements as UTF-8 bytes the way the JAXB runtime does.
+ */
+package org.soap.api.server;
+
+import jakarta.xml.bind.attachment.AttachmentMarshaller;
+import org.jvnet.staxex.util.MtomStreamWriter;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The Utf8XmlWriter class is a small XMLStreamWriter that writes elements,
+ * attributes and text straight to a UTF-8 output stream, producing the same
+ * bytes as the JAXB runtime's UTF-8 output: empty elements are closed with
+ * "/&gt;", and ampersands, angle brackets and carriage returns are escaped
+ * everywhere, double quotes, tabs and line feeds only in attribute values.
+ * The writer that the JAX-WS runtime itself uses escapes fewer characters, so
+ * responses written through this class can be compared byte for byte with the
+ * ones JAXB writes.
+ *
+ * <p>
+ * Prefixes are written as given and namespace declarations are written as
+ * attributes; the writer does not track namespace bindings. Documents,
+ * comments, processing instructions and entity references are not supported.
+ * Output is buffered, and {@link #flush()} writes it to the stream.
+ * </p>
+ *
+ * <p>
+ * When the writer stands in for the runtime's MTOM writer it carries that
+ * writer's attachment marshaller, so binary content can still be sent as an
+ * attachment, as JAXB sends it.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class Utf8XmlWriter implements XMLStreamWriter, MtomStreamWriter {
+
+	/**
+	 * Size of the output buffer used when none is given.
+	 */
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Most bytes written for one character, the longest escape.
+	 */
+	private static final int MAX_CHARACTER_BYTES = 6;
+
+	/**
+	 * Escapes of no characters, for names and markup.
+	 */
+	private static final byte[][] NO_ESCAPES = new byte[128][];
+
+	/**
+	 * Escapes of the ASCII characters in text, null for characters written as
+	 * they are.
+	 */
+	private static final byte[][] TEXT_ESCAPES = new byte[128][];
+
+	/**
+	 * Escapes of the ASCII characters in attribute values.
+	 */
+	private static final byte[][] ATTRIBUTE_ESCAPES = new byte[128][];
+
+	static {
+		TEXT_ESCAPES['&'] = "&amp;".getBytes(StandardCharsets.US_ASCII);
+		TEXT_ESCAPES['<'] = "&lt;".getBytes(StandardCharsets.US_ASCII);
+		TEXT_ESCAPES['>'] = "&gt;".getBytes(StandardCharsets.US_ASCII);
+		TEXT_ESCAPES['\r'] = "&#xD;".getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(TEXT_ESCAPES, 0, ATTRIBUTE_ESCAPES, 0, TEXT_ESCAPES.length);
+		ATTRIBUTE_ESCAPES['"'] = "&quot;".getBytes(StandardCharsets.US_ASCII);
+		ATTRIBUTE_ESCAPES['\t'] = "&#x9;".getBytes(StandardCharsets.US_ASCII);
+		ATTRIBUTE_ESCAPES['\n'] = "&#xA;".getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private final OutputStream out; // Stream the bytes are written to.
+
+	private final byte[] buffer; // Bytes not yet written to the stream.
+
+	private final AttachmentMarshaller attachments; // Marshaller of MTOM attachments, or null without MTOM.
+
+	private int length; // Number of bytes in the buffer.
+
+	private String[] names = new String[16]; // Qualified names of the open elements, outermost first.
+
+	private int depth; // Number of open elements.
+
+	private boolean startTagOpen; // Whether the last start tag still awaits its closing bracket.
+
+	/**
+	 * Constructs a writer with the default buffer size.
+	 *
+	 * @param out The stream to write to.
+	 */
+	Utf8XmlWriter(OutputStream out) {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructs a writer.
+	 *
+	 * @param out        The stream to write to.
+	 * @param bufferSize The size of the output buffer in bytes.
+	 */
+	Utf8XmlWriter(OutputStream out, int bufferSize) {
+		this(out, bufferSize, null);
+	}
+
+	/**
+	 * Constructs a writer with the default buffer size that writes an MTOM
+	 * message.
+	 *
+	 * @param out         The stream to write to.
+	 * @param attachments The marshaller of the message's attachments, or null if
+	 *                    the message is not MTOM.
+	 */
+	Utf8XmlWriter(OutputStream out, AttachmentMarshaller attachments) {
+		this(out, DEFAULT_BUFFER_SIZE, attachments);
+	}
+
+	/**
+	 * Constructs a writer.
+	 *
+	 * @param out         The stream to write to.
+	 * @param bufferSize  The size of the output buffer in bytes.
+	 * @param attachments The marshaller of MTOM attachments, or null.
+	 */
+	private Utf8XmlWriter(OutputStream out, int bufferSize, AttachmentMarshaller attachments) {
+		this.out = out;
+		this.buffer = new byte[Math.max(bufferSize, 64)];
+		this.attachments = attachments;
+	}
+
+	/**
+	 * Gets the marshaller of the MTOM attachments of the message being written.
+	 *
+	 * @return The marshaller, or null if the message is not MTOM.
+	 */
+	@Override
+	public AttachmentMarshaller getAttachmentMarshaller() {
+		return attachments;
+	}
+
+	/**
+	 * Writes the start tag of an unqualified element.
+	 *
+	 * @param localName The element name.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeStartElement(String localName) throws XMLStreamException {
+		startElement(localName);
+	}
+
+	/**
+	 * Not supported, since the writer does not track namespace bindings.
+	 *
+	 * @param namespaceURI The namespace.
+	 * @param localName    The element name.
+	 */
+	@Override
+	public void writeStartElement(String namespaceURI, String localName) {
+		throw new UnsupportedOperationException("Utf8XmlWriter needs the prefix of a qualified element");
+	}
+
+	/**
+	 * Writes the start tag of an element with the given prefix. The prefix must be
+	 * declared by this element or an enclosing one.
+	 *
+	 * @param prefix       The prefix, or an empty string for none.
+	 * @param localName    The element name.
+	 * @param namespaceURI The namespace, which is not written.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		startElement(prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName);
+	}
+
+	/**
+	 * Writes an empty unqualified element.
+	 *
+	 * @param localName The element name.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeEmptyElement(String localName) throws XMLStreamException {
+		startElement(localName);
+		writeEndElement();
+	}
+
+	/**
+	 * Not supported, since the writer does not track namespace bindings.
+	 *
+	 * @param namespaceURI The namespace.
+	 * @param localName    The element name.
+	 */
+	@Override
+	public void writeEmptyElement(String namespaceURI, String localName) {
+		throw new UnsupportedOperationException("Utf8XmlWriter needs the prefix of a qualified element");
+	}
+
+	/**
+	 * Writes an empty element with the given prefix.
+	 *
+	 * @param prefix       The prefix, or an empty string for none.
+	 * @param localName    The element name.
+	 * @param namespaceURI The namespace, which is not written.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		writeStartElement(prefix, localName, namespaceURI);
+		writeEndElement();
+	}
+
+	/**
+	 * Writes the end of the innermost open element, closing it with "/&gt;" if it
+	 * has no content.
+	 *
+	 * @throws XMLStreamException If no element is open or the stream cannot be
+	 *                            written.
+	 */
+	@Override
+	public void writeEndElement() throws XMLStreamException {
+		if (depth == 0) {
+			throw new XMLStreamException("No element is open");
+		}
+		String name = names[--depth];
+		if (startTagOpen) {
+			startTagOpen = false;
+			writeMarkup("/>");
+		} else {
+			writeMarkup("</");
+			writeMarkup(name);
+			writeByte('>');
+		}
+	}
+
+	/**
+	 * Writes the end of every open element.
+	 *
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeEndDocument() throws XMLStreamException {
+		while (depth > 0) {
+			writeEndElement();
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes and closes nothing else, as the stream belongs to
+	 * the caller.
+	 *
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void close() throws XMLStreamException {
+		flush();
+	}
+
+	/**
+	 * Writes the buffered bytes to the stream.
+	 *
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void flush() throws XMLStreamException {
+		try {
+			out.write(buffer, 0, length);
+			length = 0;
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Writes an unqualified attribute of the current start tag.
+	 *
+	 * @param localName The attribute name.
+	 * @param value     The value.
+	 * @throws XMLStreamException If no start tag is open or the stream cannot be
+	 *                            written.
+	 */
+	@Override
+	public void writeAttribute(String localName, String value) throws XMLStreamException {
+		attribute(localName, value);
+	}
+
+	/**
+	 * Writes an attribute with the given prefix in the current start tag.
+	 *
+	 * @param prefix       The prefix, or an empty string for none.
+	 * @param namespaceURI The namespace, which is not written.
+	 * @param localName    The attribute name.
+	 * @param value        The value.
+	 * @throws XMLStreamException If no start tag is open or the stream cannot be
+	 *                            written.
+	 */
+	@Override
+	public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+			throws XMLStreamException {
+		attribute(prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName, value);
+	}
+
+	/**
+	 * Not supported, since the writer does not track namespace bindings.
+	 *
+	 * @param namespaceURI The namespace.
+	 * @param localName    The attribute name.
+	 * @param value        The value.
+	 */
+	@Override
+	public void writeAttribute(String namespaceURI, String localName, String value) {
+		throw new UnsupportedOperationException("Utf8XmlWriter needs the prefix of a qualified attribute");
+	}
+
+	/**
+	 * Declares a namespace prefix in the current start tag.
+	 *
+	 * @param prefix       The prefix, or an empty string for the default
+	 *                     namespace.
+	 * @param namespaceURI The namespace.
+	 * @throws XMLStreamException If no start tag is open or the stream cannot be
+	 *                            written.
+	 */
+	@Override
+	public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+		attribute(prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix, namespaceURI);
+	}
+
+	/**
+	 * Declares the default namespace in the current start tag.
+	 *
+	 * @param namespaceURI The namespace.
+	 * @throws XMLStreamException If no start tag is open or the stream cannot be
+	 *                            written.
+	 */
+	@Override
+	public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+		attribute("xmlns", namespaceURI);
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param data The comment.
+	 */
+	@Override
+	public void writeComment(String data) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write comments");
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param target The target.
+	 */
+	@Override
+	public void writeProcessingInstruction(String target) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write processing instructions");
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param target The target.
+	 * @param data   The data.
+	 */
+	@Override
+	public void writeProcessingInstruction(String target, String data) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write processing instructions");
+	}
+
+	/**
+	 * Writes text as escaped text rather than as a CDATA section, as JAXB does.
+	 *
+	 * @param data The text.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeCData(String data) throws XMLStreamException {
+		writeCharacters(data);
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param dtd The DTD.
+	 */
+	@Override
+	public void writeDTD(String dtd) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write documents");
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param name The entity name.
+	 */
+	@Override
+	public void writeEntityRef(String name) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write entity references");
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void writeStartDocument() {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write documents");
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param version The XML version.
+	 */
+	@Override
+	public void writeStartDocument(String version) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write documents");
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param encoding The encoding.
+	 * @param version  The XML version.
+	 */
+	@Override
+	public void writeStartDocument(String encoding, String version) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not write documents");
+	}
+
+	/**
+	 * Writes text, escaping the characters JAXB escapes in text.
+	 *
+	 * @param text The text.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeCharacters(String text) throws XMLStreamException {
+		closeStartTag();
+		writeEscaped(text, TEXT_ESCAPES);
+	}
+
+	/**
+	 * Writes text, escaping the characters JAXB escapes in text.
+	 *
+	 * @param text   The array holding the text.
+	 * @param start  The index of the first character.
+	 * @param length The number of characters.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	@Override
+	public void writeCharacters(char[] text, int start, int length) throws XMLStreamException {
+		writeCharacters(new String(text, start, length));
+	}
+
+	/**
+	 * Writes bytes that already hold well-formed, escaped UTF-8 XML, such as a
+	 * cached element, as the next content of the current element.
+	 *
+	 * @param xml The bytes.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	void writeRaw(byte[] xml) throws XMLStreamException {
+		closeStartTag();
+		if (xml.length > buffer.length - length) {
+			flush();
+			if (xml.length > buffer.length) {
+				try {
+					out.write(xml);
+				} catch (IOException e) {
+					throw new XMLStreamException(e);
+				}
+				return;
+			}
+		}
+		System.arraycopy(xml, 0, buffer, length, xml.length);
+		length += xml.length;
+	}
+
+	/**
+	 * Returns null, as prefixes are not tracked.
+	 *
+	 * @param uri The namespace.
+	 * @return Null.
+	 */
+	@Override
+	public String getPrefix(String uri) {
+		return null;
+	}
+
+	/**
+	 * Does nothing, as prefixes are not tracked.
+	 *
+	 * @param prefix The prefix.
+	 * @param uri    The namespace.
+	 */
+	@Override
+	public void setPrefix(String prefix, String uri) {
+	}
+
+	/**
+	 * Does nothing, as prefixes are not tracked.
+	 *
+	 * @param uri The namespace.
+	 */
+	@Override
+	public void setDefaultNamespace(String uri) {
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @param context The namespace context.
+	 */
+	@Override
+	public void setNamespaceContext(NamespaceContext context) {
+		throw new UnsupportedOperationException("Utf8XmlWriter does not track namespace bindings");
+	}
+
+	/**
+	 * Returns null, as namespace bindings are not tracked.
+	 *
+	 * @return Null.
+	 */
+	@Override
+	public NamespaceContext getNamespaceContext() {
+		return null;
+	}
+
+	/**
+	 * Rejects every property, as none is supported.
+	 *
+	 * @param name The property name.
+	 * @return Never returns.
+	 */
+	@Override
+	public Object getProperty(String name) {
+		throw new IllegalArgumentException("Property not supported: " + name);
+	}
+
+	/**
+	 * Writes the start of a start tag, leaving it open for attributes.
+	 *
+	 * @param name The qualified element name.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	private void startElement(String name) throws XMLStreamException {
+		closeStartTag();
+		if (depth == names.length) {
+			names = Arrays.copyOf(names, depth * 2);
+		}
+		names[depth++] = name;
+		writeByte('<');
+		writeMarkup(name);
+		startTagOpen = true;
+	}
+
+	/**
+	 * Writes an attribute in the open start tag.
+	 *
+	 * @param name  The qualified attribute name.
+	 * @param value The value.
+	 * @throws XMLStreamException If no start tag is open or the stream cannot be
+	 *                            written.
+	 */
+	private void attribute(String name, String value) throws XMLStreamException {
+		if (!startTagOpen) {
+			throw new XMLStreamException("Attribute " + name + " written outside a start tag");
+		}
+		writeByte(' ');
+		writeMarkup(name);
+		writeMarkup("=\"");
+		writeEscaped(value, ATTRIBUTE_ESCAPES);
+		writeByte('"');
+	}
+
+	/**
+	 * Closes the open start tag, if there is one.
+	 *
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	private void closeStartTag() throws XMLStreamException {
+		if (startTagOpen) {
+			startTagOpen = false;
+			writeByte('>');
+		}
+	}
+
+	/**
+	 * Writes text as UTF-8, replacing the ASCII characters that have an escape.
+	 * An unpaired surrogate is written as a question mark.
+	 *
+	 * @param text    The text.
+	 * @param escapes The escapes to use.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	private void writeEscaped(String text, byte[][] escapes) throws XMLStreamException {
+		for (int i = 0; i < text.length(); i++) {
+			if (buffer.length - length < MAX_CHARACTER_BYTES) {
+				flush();
+			}
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				byte[] escape = escapes[c];
+				if (escape == null) {
+					buffer[length++] = (byte) c;
+				} else {
+					System.arraycopy(escape, 0, buffer, length, escape.length);
+					length += escape.length;
+				}
+			} else if (c < 0x800) {
+				buffer[length++] = (byte) (0xC0 | c >> 6);
+				buffer[length++] = (byte) (0x80 | c & 0x3F);
+			} else if (!Character.isSurrogate(c)) {
+				buffer[length++] = (byte) (0xE0 | c >> 12);
+				buffer[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+				buffer[length++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				buffer[length++] = (byte) (0xF0 | codePoint >> 18);
+				buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+				buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+				buffer[length++] = (byte) (0x80 | codePoint & 0x3F);
+			} else {
+				buffer[length++] = '?';
+			}
+		}
+	}
+
+	/**
+	 * Writes a name or markup as UTF-8, without escaping.
+	 *
+	 * @param markup The text to write.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	private void writeMarkup(String markup) throws XMLStreamException {
+		writeEscaped(markup, NO_ESCAPES);
+	}
+
+	/**
+	 * Writes one ASCII byte.
+	 *
+	 * @param b The byte.
+	 * @throws XMLStreamException If the stream cannot be written.
+	 */
+	private void writeByte(int b) throws XMLStreamException {
+		if (length == buffer.length) {
+			flush();
+		}
+		buffer[length++] = (byte) b;
+	}
+}
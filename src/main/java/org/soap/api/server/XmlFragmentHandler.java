@@ -0,0 +1,90 @@
+/**
+ * The XmlFragmentHandler file is responsible for switching list responses to writing from cached XML fragments.
+ */
+package org.soap.api.server;
+
+import com.sun.xml.ws.api.handler.MessageHandler;
+import com.sun.xml.ws.api.handler.MessageHandlerContext;
+import com.sun.xml.ws.api.message.Message;
+import jakarta.xml.ws.handler.MessageContext;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.store.MemberStore;
+
+import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The XmlFragmentHandler class is the endpoint handler installed when
+ * {@link org.soap.api.utils.Constants#XML_FRAGMENTS_ENABLED} is set. The list
+ * operations leave their result in the message context under
+ * {@link #MEMBERS}, and the handler replaces each such successful response
+ * with a {@link MemberListMessage}, which writes it from the members' cached
+ * XML fragments. The response JAXB built is never marshalled.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class XmlFragmentHandler implements MessageHandler<MessageHandlerContext> {
+
+	/**
+	 * Message context property holding the members of a list response.
+	 */
+	public static final String MEMBERS = "org.soap.api.members";
+
+	/**
+	 * Message context property holding the store the members came from.
+	 */
+	public static final String STORE = "org.soap.api.store";
+
+	/**
+	 * Gets the headers the handler understands.
+	 *
+	 * @return No headers.
+	 */
+	@Override
+	public Set<QName> getHeaders() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Replaces an outbound list response with one written from fragments.
+	 *
+	 * @param context The message context.
+	 * @return true, to continue processing.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean handleMessage(MessageHandlerContext context) {
+		Message message = context.getMessage();
+		if (Boolean.TRUE.equals(context.get(MessageContext.MESSAGE_OUTBOUND_PROPERTY))
+				&& context.get(MEMBERS) instanceof List<?> members && !members.isEmpty()
+				&& context.get(STORE) instanceof MemberStore store && message != null && !message.isFault()) {
+			context.setMessage(new MemberListMessage(message, (List<DatabaseMember>) members, store));
+		}
+		return true;
+	}
+
+	/**
+	 * Leaves faults unchanged.
+	 *
+	 * @param context The message context.
+	 * @return true, to continue processing.
+	 */
+	@Override
+	public boolean handleFault(MessageHandlerContext context) {
+		return true;
+	}
+
+	/**
+	 * Does nothing when the exchange ends.
+	 *
+	 * @param context The message context.
+	 */
+	@Override
+	public void close(MessageContext context) {
+	}
+}
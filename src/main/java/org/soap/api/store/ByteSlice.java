@@ -0,0 +1,79 @@
+/**
+ * The ByteSlice file is responsible for viewing a run of bytes as characters without copying them.
+ */
+package org.soap.api.store;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ByteSlice class is a reusable CharSequence over part of a byte array,
+ * reading each byte as one character. It lets the validators check fields read
+ * from a file without creating a String for each one. Bytes outside the ASCII
+ * range read as characters that none of the validators accept.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class ByteSlice implements CharSequence {
+
+	private byte[] bytes; // Array being viewed.
+
+	private int from; // Index of the first byte in the slice.
+
+	private int to; // Index after the last byte in the slice.
+
+	/**
+	 * Points the slice at a run of bytes.
+	 *
+	 * @param bytes The array to view.
+	 * @param from  The index of the first byte.
+	 * @param to    The index after the last byte.
+	 * @return This slice.
+	 */
+	ByteSlice set(byte[] bytes, int from, int to) {
+		this.bytes = bytes;
+		this.from = from;
+		this.to = to;
+		return this;
+	}
+
+	/**
+	 * Checks whether the slice holds the given ASCII text, ignoring letter case.
+	 *
+	 * @param text The text to compare against.
+	 * @return true if the slice holds the text, false otherwise.
+	 */
+	boolean equalsIgnoreCase(String text) {
+		if (text.length() != length()) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (Character.toLowerCase(charAt(i)) != Character.toLowerCase(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int length() {
+		return to - from;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (bytes[from + index] & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new ByteSlice().set(bytes, from + start, from + end);
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,504 @@
+/**
+ * The CsvLoader file is responsible for loading the people CSV file into a MemberStore in parallel.
+ */
+package org.soap.api.store;
+
+import org.soap.api.exceptions.InvalidDateException;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+import org.soap.api.utils.Converters;
+import org.soap.api.utils.JobTitleClassifier;
+import org.soap.api.utils.Validators;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The CsvLoader class loads the people CSV file into a MemberStore. The file is
+ * split at line boundaries into chunks of about {@link #CHUNK_SIZE} bytes. Each
+ * chunk is read with positional {@link FileChannel} reads straight into the
+ * byte array it is parsed from, so the file is neither mapped nor copied
+ * twice, and the chunks are parsed in parallel on a fork-join pool. The
+ * parsed chunks are merged into the store in file order so rows keep their
+ * original order.
+ *
+ * <p>
+ * Fields are validated straight from the chunk's bytes. A malformed row is
+ * skipped and reported with its line number rather than failing the load, as
+ * is a row repeating an earlier staff ID.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class CsvLoader {
+
+	/**
+	 * Target size of each chunk in bytes.
+	 */
+	private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Number of delimiters before the job title; the job title is the rest of the
+	 * line.
+	 */
+	private static final int DELIMITERS = 8;
+
+	/**
+	 * Number of delimiters in a line written by older versions of the writer,
+	 * which ended each line with a delimiter and so an empty tenth field.
+	 */
+	private static final int DELIMITERS_WITH_TRAILING = DELIMITERS + 1;
+
+	/**
+	 * Field numbers of the text fields, in the order MemberStore stores them:
+	 * first name, last name, email, phone number and job title.
+	 */
+	private static final int[] TEXT_FIELDS = { 2, 3, 5, 6, 8 };
+
+	/**
+	 * Loads a CSV file into a new MemberStore, using one parsing thread per
+	 * available processor.
+	 *
+	 * @param fileName The name of the CSV file to load.
+	 * @param problems A list to which a description of every skipped row is added.
+	 * @return The loaded store.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static MemberStore load(String fileName, List<String> problems) throws IOException {
+		return load(fileName, problems, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Loads a CSV file into a new MemberStore.
+	 *
+	 * @param fileName    The name of the CSV file to load.
+	 * @param problems    A list to which a description of every skipped row is
+	 *                    added.
+	 * @param parallelism The number of parsing threads.
+	 * @return The loaded store.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static MemberStore load(String fileName, List<String> problems, int parallelism) throws IOException {
+		MemberStore store = new MemberStore();
+		try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+			parse(store, channel, lineEnd(channel, 0), 2, problems, parallelism); // The header is line 1.
+		}
+		store.finishLoad();
+		return store;
+	}
+
+	/**
+	 * Adds the lines of a CSV file after a given position to a store, such as the
+	 * lines checkpointed into the file since the store was saved in a snapshot.
+	 * If the position falls inside a line, parsing starts at the next one, and
+	 * at the start of the file the header is skipped.
+	 *
+	 * @param store     The store, which no other thread may use yet.
+	 * @param fileName  The name of the CSV file.
+	 * @param position  The position in the file of the first byte not yet in the
+	 *                  store.
+	 * @param firstLine The line number of the line starting at the position.
+	 * @param problems  A list to which a description of every skipped row is
+	 *                  added.
+	 * @throws IOException If the file cannot be read.
+	 */
+	static void append(MemberStore store, String fileName, long position, int firstLine, List<String> problems)
+			throws IOException {
+		int firstRow = store.size();
+		try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+			long start = position;
+			int line = firstLine;
+			if (position == 0) {
+				start = lineEnd(channel, 0); // Skip the header.
+				line++;
+			} else {
+				ByteBuffer previous = ByteBuffer.allocate(1);
+				channel.read(previous, position - 1);
+				if (previous.get(0) != '\n') {
+					start = lineEnd(channel, position);
+				}
+			}
+			parse(store, channel, start, line, problems, Runtime.getRuntime().availableProcessors());
+		}
+		store.finishAppend(firstRow);
+	}
+
+	/**
+	 * Parses the lines of a file from a position to its end on a fork-join pool
+	 * and appends the rows to a store with {@link MemberStore#appendRow}.
+	 *
+	 * @param store       The store to append to.
+	 * @param channel     The open file.
+	 * @param position    The position of the first line to parse.
+	 * @param firstLine   The line number of that line.
+	 * @param problems    A list to which a description of every skipped row is
+	 *                    added.
+	 * @param parallelism The number of parsing threads.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static void parse(MemberStore store, FileChannel channel, long position, int firstLine,
+			List<String> problems, int parallelism) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			long[] bounds = chunkBounds(channel, position);
+
+			// Keep a bounded window of chunks in flight so that parsed chunks waiting to be
+			// merged do not hold the whole file in memory.
+			ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+			int next = 0;
+			int line = firstLine;
+			while (next < bounds.length - 1 || !inFlight.isEmpty()) {
+				while (next < bounds.length - 1 && inFlight.size() < parallelism * 2) {
+					long start = bounds[next];
+					long end = bounds[next + 1];
+					inFlight.add(pool.submit(() -> parse(channel, start, end)));
+					next++;
+				}
+				Chunk chunk = inFlight.poll().join();
+				chunk.mergeInto(store, line, problems);
+				line += chunk.lineCount;
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Splits the file from a line start to its end into chunks of about
+	 * {@link #CHUNK_SIZE} bytes that each end at a line break.
+	 *
+	 * @param channel  The open file.
+	 * @param position The position of the first line.
+	 * @return The chunk boundaries: chunk i covers bytes bounds[i] to bounds[i + 1].
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static long[] chunkBounds(FileChannel channel, long position) throws IOException {
+		long size = channel.size();
+		ArrayList<Long> bounds = new ArrayList<>();
+		bounds.add(position);
+		while (position < size) {
+			position = lineEnd(channel, Math.min(size, position + CHUNK_SIZE) - 1);
+			bounds.add(position);
+		}
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the end of the line containing a position.
+	 *
+	 * @param channel  The open file.
+	 * @param position The position to start searching from.
+	 * @return The position after the next line break at or after the given
+	 *         position, or the file size if there is none.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static long lineEnd(FileChannel channel, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		long size = channel.size();
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Reads and parses one chunk of the file. The chunk is read straight into the
+	 * array its rows are parsed from, so each byte of the file is copied once.
+	 *
+	 * @param channel The open file.
+	 * @param start   The position of the first byte of the chunk.
+	 * @param end     The position after the last byte of the chunk.
+	 * @return The parsed chunk.
+	 * @throws IOException If the chunk cannot be read.
+	 */
+	private static Chunk parse(FileChannel channel, long start, long end) throws IOException {
+		byte[] data = new byte[(int) (end - start)];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				throw new EOFException("The file ended while chunk " + start + " to " + end + " was read");
+			}
+		}
+		Chunk chunk = new Chunk(data);
+		int lineStart = 0;
+		while (lineStart < data.length) {
+			int lineEnd = lineStart;
+			while (lineEnd < data.length && data[lineEnd] != '\n') {
+				lineEnd++;
+			}
+			chunk.parseLine(lineStart, lineEnd > lineStart && data[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd);
+			chunk.lineCount++;
+			lineStart = lineEnd + 1;
+		}
+		return chunk;
+	}
+
+	/**
+	 * The Chunk class holds the rows parsed from one chunk of the file until they
+	 * are merged into the store. Text fields stay in the chunk's bytes and are
+	 * recorded as start and end positions.
+	 */
+	private static class Chunk {
+
+		private final byte[] data; // Bytes of the chunk.
+
+		private final ByteSlice slice = new ByteSlice(); // Reusable view used for validation.
+
+		private final int[] fieldEnds = new int[DELIMITERS + 1]; // Field boundaries of the current line.
+
+		private int lineStart; // Index of the first byte of the current line.
+
+		private int lineCount; // Number of lines in the chunk.
+
+		private int size; // Number of rows parsed.
+
+		private int[] lines = new int[1024]; // Line number within the chunk of each row.
+
+		private int[] indexes = new int[1024];
+
+		private long[] staffIds = new long[1024];
+
+		private short[] staffIdCases = new short[1024];
+
+		private int[] birthDays = new int[1024];
+
+		private byte[] sexes = new byte[1024];
+
+		private byte[] categories = new byte[1024];
+
+		private int[] text = new int[1024 * 10]; // Start and end of the five text fields of each row.
+
+		private final ArrayList<String> errors = new ArrayList<>(); // Problems found in the chunk.
+
+		private final ArrayList<Integer> errorLines = new ArrayList<>(); // Line within the chunk of each problem.
+
+		/**
+		 * Constructs a chunk over the given bytes.
+		 *
+		 * @param data The bytes of the chunk.
+		 */
+		Chunk(byte[] data) {
+			this.data = data;
+		}
+
+		/**
+		 * Parses one line, recording either a row or a problem.
+		 *
+		 * @param from The index of the first byte of the line.
+		 * @param to   The index after the last byte of the line, excluding the line
+		 *             break.
+		 */
+		void parseLine(int from, int to) {
+			if (from == to) {
+				return;
+			}
+			lineStart = from;
+			int fields = 0;
+			for (int i = from; i < to && fields < DELIMITERS; i++) {
+				if (data[i] == ',') {
+					fieldEnds[fields++] = i;
+				}
+			}
+			if (fields < DELIMITERS) {
+				error("expected 9 fields but found " + (fields + 1));
+				return;
+			}
+			int titleEnd = to;
+			if (to > fieldEnds[7] + 1 && data[to - 1] == ','
+					&& DELIMITERS + delimitersIn(fieldEnds[7] + 1, to) == DELIMITERS_WITH_TRAILING) {
+				titleEnd--; // The one delimiter after the job title ends an empty tenth field.
+			}
+			fieldEnds[8] = titleEnd;
+
+			int index = parseIndex(from, fieldEnds[0]);
+			if (index < 0) {
+				error("Index is not a number");
+				return;
+			}
+			CharSequence id = field(1);
+			if (!Validators.validateStaffId(id)) {
+				error("Staff ID invalid. Staff ID must be 15 characters long.");
+				return;
+			}
+			long staffId = Converters.staffIdToKey(id);
+			short staffIdCase = Converters.staffIdCaseMask(id);
+			Sex sex;
+			ByteSlice sexField = field(4);
+			if (sexField.equalsIgnoreCase("Male")) {
+				sex = Sex.MALE;
+			} else if (sexField.equalsIgnoreCase("Female")) {
+				sex = Sex.FEMALE;
+			} else {
+				error("Sex must be either Male or Female");
+				return;
+			}
+			if (!Validators.validateEmail(field(5))) {
+				error("Email format invalid");
+				return;
+			}
+			if (!Validators.validatePhoneNumber(field(6))) {
+				error("Phone number format invalid");
+				return;
+			}
+			int birthDay;
+			try {
+				birthDay = (int) Converters.stringToLocalDate(field(7)).toEpochDay();
+			} catch (InvalidDateException e) {
+				error("Date format invalid");
+				return;
+			}
+			EmploymentCategory category = JobTitleClassifier.classify(data, fieldEnds[7] + 1, titleEnd);
+
+			if (size == indexes.length) {
+				grow();
+			}
+			lines[size] = lineCount;
+			indexes[size] = index;
+			staffIds[size] = staffId;
+			staffIdCases[size] = staffIdCase;
+			birthDays[size] = birthDay;
+			sexes[size] = (byte) sex.ordinal();
+			categories[size] = (byte) category.ordinal();
+			for (int i = 0; i < TEXT_FIELDS.length; i++) {
+				text[size * 10 + i * 2] = fieldEnds[TEXT_FIELDS[i] - 1] + 1;
+				text[size * 10 + i * 2 + 1] = fieldEnds[TEXT_FIELDS[i]];
+			}
+			size++;
+		}
+
+		/**
+		 * Merges the parsed rows into a store, reporting problems with their line
+		 * number in the file.
+		 *
+		 * @param store     The store to merge into.
+		 * @param firstLine The line number in the file of the chunk's first line.
+		 * @param problems  The list to add problem descriptions to.
+		 */
+		void mergeInto(MemberStore store, int firstLine, List<String> problems) {
+			int error = 0;
+			for (int row = 0; row < size; row++) {
+				while (error < errors.size() && errorLines.get(error) < lines[row]) {
+					problems.add(describe(firstLine + errorLines.get(error), errors.get(error)));
+					error++;
+				}
+				if (!store.appendRow(indexes[row], staffIds[row], staffIdCases[row], birthDays[row], sexes[row],
+						categories[row], data, text, row * 10)) {
+					problems.add(describe(firstLine + lines[row],
+							"staff ID " + Converters.keyToStaffId(staffIds[row], staffIdCases[row])
+									+ " already exists"));
+				}
+			}
+			for (; error < errors.size(); error++) {
+				problems.add(describe(firstLine + errorLines.get(error), errors.get(error)));
+			}
+		}
+
+		/**
+		 * Points the reusable slice at a field of the current line.
+		 *
+		 * @param field The field number, from 0.
+		 * @return The slice.
+		 */
+		private ByteSlice field(int field) {
+			return slice.set(data, field == 0 ? lineStart : fieldEnds[field - 1] + 1, fieldEnds[field]);
+		}
+
+		/**
+		 * Counts the delimiters in a run of the current line.
+		 *
+		 * @param from The index of the first byte.
+		 * @param to   The index after the last byte.
+		 * @return The number of delimiters.
+		 */
+		private int delimitersIn(int from, int to) {
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if (data[i] == ',') {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Parses the Index field.
+		 *
+		 * @param from The index of the first byte.
+		 * @param to   The index after the last byte.
+		 * @return The index, or -1 if the field is not a non-negative number.
+		 */
+		private int parseIndex(int from, int to) {
+			if (from == to || to - from > 9) {
+				return -1;
+			}
+			int value = 0;
+			for (int i = from; i < to; i++) {
+				if (data[i] < '0' || data[i] > '9') {
+					return -1;
+				}
+				value = value * 10 + (data[i] - '0');
+			}
+			return value;
+		}
+
+		/**
+		 * Records a problem with the current line.
+		 *
+		 * @param message The description of the problem.
+		 */
+		private void error(String message) {
+			errorLines.add(lineCount);
+			errors.add(message);
+		}
+
+		/**
+		 * Grows the row arrays.
+		 */
+		private void grow() {
+			int capacity = indexes.length * 2;
+			lines = Arrays.copyOf(lines, capacity);
+			indexes = Arrays.copyOf(indexes, capacity);
+			staffIds = Arrays.copyOf(staffIds, capacity);
+			staffIdCases = Arrays.copyOf(staffIdCases, capacity);
+			birthDays = Arrays.copyOf(birthDays, capacity);
+			sexes = Arrays.copyOf(sexes, capacity);
+			categories = Arrays.copyOf(categories, capacity);
+			text = Arrays.copyOf(text, capacity * 10);
+		}
+
+		/**
+		 * Formats a problem for the report.
+		 *
+		 * @param line    The line number in the file.
+		 * @param message The description of the problem.
+		 * @return The formatted problem.
+		 */
+		private static String describe(int line, String message) {
+			return "Skipping line " + line + ": " + message;
+		}
+	}
+}
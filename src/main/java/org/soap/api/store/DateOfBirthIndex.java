@@ -0,0 +1,410 @@
+/**
+ * The DateOfBirthIndex file is responsible for keeping rows ordered by date of birth so ranges can be found quickly.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The DateOfBirthIndex class keeps every row sorted by date of birth. Each entry
+ * packs the epoch day into the high 32 bits of a long and the row position into
+ * the low 32 bits, so sorted long arrays order rows by date and then by
+ * insertion. A date range is answered by binary searches and contiguous slices
+ * of the arrays.
+ *
+ * <p>
+ * The index has a single writer and any number of lock-free readers. Entries
+ * live in two sorted runs: a large base run and a small delta run. A new entry
+ * later than everything in the base run is appended to it in place, beyond
+ * the size readers were given. Any other entry goes into a copy of the delta
+ * run. Once the delta run reaches about the square root of the base run, the
+ * two are merged into a new base run. Each change is published as a new
+ * {@link Runs}, so a reader always searches a consistent pair of runs.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class DateOfBirthIndex {
+
+	/**
+	 * Smallest delta run that is merged into the base run.
+	 */
+	private static final int MIN_MERGE_SIZE = 64;
+
+	private static final long[] NO_ENTRIES = new long[0];
+
+	private volatile Runs runs = new Runs(new long[16], 0, NO_ENTRIES); // Currently published runs.
+
+	/**
+	 * One published state of the index. The arrays are never changed within the
+	 * sizes recorded here.
+	 */
+	private static final class Runs {
+
+		final long[] base; // Packed (epoch day, row) pairs in ascending order, with spare capacity.
+
+		final int baseSize; // Number of entries of the base run in use.
+
+		final long[] delta; // Packed pairs in ascending order, exactly full.
+
+		/**
+		 * Constructs a published state.
+		 *
+		 * @param base     The base run.
+		 * @param baseSize The number of entries of the base run in use.
+		 * @param delta    The delta run.
+		 */
+		Runs(long[] base, int baseSize, long[] delta) {
+			this.base = base;
+			this.baseSize = baseSize;
+			this.delta = delta;
+		}
+	}
+
+	/**
+	 * Adds a row to the index, keeping the entries sorted. Only one thread may add
+	 * rows at a time.
+	 *
+	 * @param epochDay The row's date of birth as an epoch day.
+	 * @param row      The row position.
+	 */
+	public void add(int epochDay, int row) {
+		long entry = pack(epochDay, row);
+		Runs current = runs;
+		long[] base = current.base;
+		int baseSize = current.baseSize;
+		long[] delta = current.delta;
+		if (delta.length == 0 && (baseSize == 0 || base[baseSize - 1] < entry)) {
+			if (baseSize == base.length) {
+				base = Arrays.copyOf(base, baseSize * 2);
+			}
+			base[baseSize] = entry;
+			runs = new Runs(base, baseSize + 1, delta);
+			return;
+		}
+		int position = -Arrays.binarySearch(delta, entry) - 1;
+		long[] newDelta = new long[delta.length + 1];
+		System.arraycopy(delta, 0, newDelta, 0, position);
+		newDelta[position] = entry;
+		System.arraycopy(delta, position, newDelta, position + 1, delta.length - position);
+		if (newDelta.length >= Math.max(MIN_MERGE_SIZE, (int) Math.sqrt(baseSize))) {
+			long[] merged = merge(base, baseSize, newDelta);
+			runs = new Runs(merged, baseSize + newDelta.length, NO_ENTRIES);
+		} else {
+			runs = new Runs(base, baseSize, newDelta);
+		}
+	}
+
+	/**
+	 * Adds many rows to the index at once. A few rows are added one at a time; a
+	 * larger batch is sorted and merged into the base run in a single pass rather
+	 * than merging the delta run over and over. Only one thread may add rows at a
+	 * time.
+	 *
+	 * @param epochDays The date of birth of each new row as an epoch day.
+	 * @param rows      The new row positions.
+	 * @param count     The number of rows to add.
+	 */
+	public void addAll(int[] epochDays, int[] rows, int count) {
+		if (count < MIN_MERGE_SIZE) {
+			for (int i = 0; i < count; i++) {
+				add(epochDays[i], rows[i]);
+			}
+			return;
+		}
+		long[] batch = new long[count];
+		for (int i = 0; i < count; i++) {
+			batch[i] = pack(epochDays[i], rows[i]);
+		}
+		Arrays.sort(batch);
+		Runs current = runs;
+		long[] delta = current.delta.length == 0 ? batch
+				: Arrays.copyOf(merge(current.delta, current.delta.length, batch), current.delta.length + count);
+		runs = new Runs(merge(current.base, current.baseSize, delta), current.baseSize + delta.length, NO_ENTRIES);
+	}
+
+	/**
+	 * Replaces the contents of the index with the given rows. Sorting once is
+	 * used when loading many rows, rather than inserting them one at a time.
+	 *
+	 * @param epochDays The date of birth of each row, indexed by row position.
+	 * @param count     The number of rows.
+	 */
+	public void rebuild(int[] epochDays, int count) {
+		long[] entries = new long[Math.max(16, count)];
+		for (int row = 0; row < count; row++) {
+			entries[row] = pack(epochDays[row], row);
+		}
+		Arrays.parallelSort(entries, 0, count);
+		runs = new Runs(entries, count, NO_ENTRIES);
+	}
+
+	/**
+	 * Counts the entries with a date of birth between two epoch days, both
+	 * inclusive, with four binary searches. Rows added after the caller's limit
+	 * are counted too, so the result is an estimate for planning queries.
+	 *
+	 * @param fromDay The first epoch day of the range.
+	 * @param toDay   The last epoch day of the range.
+	 * @return The number of entries.
+	 */
+	public int countBetween(int fromDay, int toDay) {
+		if (fromDay > toDay) {
+			return 0;
+		}
+		return countBetween(runs, pack(fromDay, 0), pack(toDay + 1, 0));
+	}
+
+	/**
+	 * Counts the entries with a date of birth between two epoch days, both
+	 * inclusive, leaving out rows at or beyond the limit. While no rows beyond the
+	 * limit are indexed, which is all the time outside a write, this takes the
+	 * same four binary searches as {@link #countBetween(int, int)}; otherwise the
+	 * entries in the range are checked one by one.
+	 *
+	 * @param fromDay The first epoch day of the range.
+	 * @param toDay   The last epoch day of the range.
+	 * @param limit   The number of rows visible to the caller.
+	 * @return The number of entries.
+	 */
+	public int countBetween(int fromDay, int toDay, int limit) {
+		if (fromDay > toDay) {
+			return 0;
+		}
+		Runs current = runs;
+		long low = pack(fromDay, 0);
+		long high = pack(toDay + 1, 0);
+		if (current.baseSize + current.delta.length <= limit) {
+			return countBetween(current, low, high);
+		}
+		return countBelow(current.base, lowerBound(current.base, current.baseSize, low),
+				lowerBound(current.base, current.baseSize, high), limit)
+				+ countBelow(current.delta, lowerBound(current.delta, current.delta.length, low),
+						lowerBound(current.delta, current.delta.length, high), limit);
+	}
+
+	/**
+	 * Counts the entries of both runs between two packed keys.
+	 *
+	 * @param current The runs to search.
+	 * @param low     The first packed key of the range.
+	 * @param high    The packed key just past the range.
+	 * @return The number of entries.
+	 */
+	private static int countBetween(Runs current, long low, long high) {
+		return lowerBound(current.base, current.baseSize, high) - lowerBound(current.base, current.baseSize, low)
+				+ lowerBound(current.delta, current.delta.length, high)
+				- lowerBound(current.delta, current.delta.length, low);
+	}
+
+	/**
+	 * Counts the entries of a slice of a run whose row is below the limit.
+	 *
+	 * @param entries The run.
+	 * @param from    The first position of the slice.
+	 * @param to      The position just past the slice.
+	 * @param limit   The number of rows visible to the caller.
+	 * @return The number of entries.
+	 */
+	private static int countBelow(long[] entries, int from, int to, int limit) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (rowOf(entries[i]) < limit) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the rows with a date of birth between two epoch days, both inclusive.
+	 * Rows at or beyond the limit are left out, so a reader only sees rows that
+	 * were published to it.
+	 *
+	 * @param fromDay The first epoch day of the range.
+	 * @param toDay   The last epoch day of the range.
+	 * @param limit   The number of rows visible to the caller.
+	 * @return The matching row positions, ordered by date of birth and then by row.
+	 */
+	public int[] rowsBetween(int fromDay, int toDay, int limit) {
+		if (fromDay > toDay) {
+			return new int[0];
+		}
+		Runs current = runs;
+		long low = pack(fromDay, 0);
+		long high = pack(toDay + 1, 0);
+		long[] base = current.base;
+		long[] delta = current.delta;
+		int i = lowerBound(base, current.baseSize, low);
+		int baseEnd = lowerBound(base, current.baseSize, high);
+		int j = lowerBound(delta, delta.length, low);
+		int deltaEnd = lowerBound(delta, delta.length, high);
+		int[] rows = new int[baseEnd - i + deltaEnd - j];
+		int count = 0;
+		while (i < baseEnd || j < deltaEnd) {
+			long entry = j == deltaEnd || (i < baseEnd && base[i] < delta[j]) ? base[i++] : delta[j++];
+			int row = (int) entry;
+			if (row < limit) {
+				rows[count++] = row;
+			}
+		}
+		return count == rows.length ? rows : Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Finds up to a number of entries with a date of birth between two epoch days,
+	 * both inclusive, that come after a given entry in index order. Rows at or
+	 * beyond the limit are left out. The search starts with binary searches for
+	 * the position, so the cost depends on the number of entries returned rather
+	 * than on their position in the range.
+	 *
+	 * @param fromDay The first epoch day of the range.
+	 * @param toDay   The last epoch day of the range.
+	 * @param after   The entry to continue after, or {@link Long#MIN_VALUE} to
+	 *                start at the beginning of the range.
+	 * @param limit   The number of rows visible to the caller.
+	 * @param count   The largest number of entries to return.
+	 * @return The matching entries in index order; use {@link #rowOf} for their
+	 *         row positions.
+	 */
+	public long[] entriesBetween(int fromDay, int toDay, long after, int limit, int count) {
+		if (fromDay > toDay || count <= 0) {
+			return NO_ENTRIES;
+		}
+		Runs current = runs;
+		long low = after == Long.MIN_VALUE ? pack(fromDay, 0) : Math.max(pack(fromDay, 0), after + 1);
+		long high = pack(toDay + 1, 0);
+		long[] base = current.base;
+		long[] delta = current.delta;
+		int i = lowerBound(base, current.baseSize, low);
+		int baseEnd = lowerBound(base, current.baseSize, high);
+		int j = lowerBound(delta, delta.length, low);
+		int deltaEnd = lowerBound(delta, delta.length, high);
+		long[] entries = new long[Math.min(count, Math.max(0, baseEnd - i) + Math.max(0, deltaEnd - j))];
+		int found = 0;
+		while (found < entries.length && (i < baseEnd || j < deltaEnd)) {
+			long entry = j >= deltaEnd || (i < baseEnd && base[i] < delta[j]) ? base[i++] : delta[j++];
+			if (rowOf(entry) < limit) {
+				entries[found++] = entry;
+			}
+		}
+		return found == entries.length ? entries : Arrays.copyOf(entries, found);
+	}
+
+	/**
+	 * Gets the row position of an entry returned by {@link #entriesBetween}.
+	 *
+	 * @param entry The packed entry.
+	 * @return The row position.
+	 */
+	public static int rowOf(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * Gets the number of rows in the index.
+	 *
+	 * @return The number of rows.
+	 */
+	public int size() {
+		Runs current = runs;
+		return current.baseSize + current.delta.length;
+	}
+
+	/**
+	 * Gets the heap used by the entry arrays.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long sizeInBytes() {
+		Runs current = runs;
+		return (long) (current.base.length + current.delta.length) * Long.BYTES;
+	}
+
+	/**
+	 * Merges the base and delta runs into a new base run with room to append.
+	 *
+	 * @param base     The base run.
+	 * @param baseSize The number of entries of the base run in use.
+	 * @param delta    The delta run.
+	 * @return The merged run.
+	 */
+	private static long[] merge(long[] base, int baseSize, long[] delta) {
+		int size = baseSize + delta.length;
+		long[] merged = new long[Math.max(16, size + (size >> 1))];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < size; k++) {
+			merged[k] = j == delta.length || (i < baseSize && base[i] < delta[j]) ? base[i++] : delta[j++];
+		}
+		return merged;
+	}
+
+	/**
+	 * Finds the first entry of a run that is not less than the given key.
+	 *
+	 * @param entries The sorted run.
+	 * @param size    The number of entries in use.
+	 * @param key     The packed key to search for.
+	 * @return The position of the first entry greater than or equal to the key.
+	 */
+	private static int lowerBound(long[] entries, int size, long key) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (entries[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Packs an epoch day and a row position into a sortable long.
+	 *
+	 * @param epochDay The epoch day.
+	 * @param row      The row position.
+	 * @return The packed entry.
+	 */
+	private static long pack(int epochDay, int row) {
+		return ((long) epochDay << 32) | (row & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Writes the index to a snapshot as a single sorted run.
+	 *
+	 * @param out The snapshot to write to.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException {
+		Runs current = runs;
+		long[] entries = current.delta.length == 0 ? current.base
+				: merge(current.base, current.baseSize, current.delta);
+		int size = current.baseSize + current.delta.length;
+		out.writeInt(size);
+		out.writeLongs(entries, size);
+	}
+
+	/**
+	 * Reads an index written by {@link #writeTo}.
+	 *
+	 * @param in The snapshot to read from.
+	 * @return The index.
+	 * @throws IOException If the snapshot cannot be read.
+	 */
+	static DateOfBirthIndex readFrom(SnapshotInput in) throws IOException {
+		DateOfBirthIndex index = new DateOfBirthIndex();
+		int size = in.readInt();
+		long[] entries = new long[Math.max(16, size)];
+		in.readLongs(entries, size);
+		index.runs = new Runs(entries, size, NO_ENTRIES);
+		return index;
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * The EnumBitmapIndex file is responsible for recording which rows hold each value of an enumeration.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The EnumBitmapIndex class keeps one bitmap per value of an enumeration, with
+ * bit n set when row n holds that value. A filter on one value reads its
+ * bitmap directly, and filters on several columns intersect their bitmaps.
+ *
+ * <p>
+ * The index has a single writer and any number of lock-free readers. Bits are
+ * only ever set, never cleared, and when the bitmaps grow they are copied and
+ * published together, so a reader sees every bit of the rows published to it.
+ * Bits of rows the reader cannot see yet are masked off when it copies a
+ * bitmap out.
+ * </p>
+ *
+ * @param <E> The enumeration being indexed.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class EnumBitmapIndex<E extends Enum<E>> {
+
+	private volatile long[][] bitmaps; // Words of the bitmap of rows for each value, indexed by ordinal.
+
+	/**
+	 * Constructs an empty index for an enumeration.
+	 *
+	 * @param type The enumeration class.
+	 */
+	public EnumBitmapIndex(Class<E> type) {
+		this.bitmaps = new long[type.getEnumConstants().length][1];
+	}
+
+	/**
+	 * Records that a row holds a value. Only one thread may add rows at a time.
+	 *
+	 * @param value The value held by the row.
+	 * @param row   The row position.
+	 */
+	public void add(E value, int row) {
+		long[][] current = bitmaps;
+		int word = row >>> 6;
+		if (word >= current[0].length) {
+			current = grow(current, word + 1);
+		}
+		long[] bitmap = current[value.ordinal()];
+		bitmap[word] |= 1L << row;
+	}
+
+	/**
+	 * Gets a copy of the rows holding a value, limited to the rows visible to the
+	 * caller.
+	 *
+	 * @param value The value to look up.
+	 * @param limit The number of rows visible to the caller.
+	 * @return A new bitmap of the rows below the limit holding the value.
+	 */
+	public BitSet rows(E value, int limit) {
+		long[] bitmap = bitmaps[value.ordinal()];
+		int words = Math.min(bitmap.length, (limit + 63) >>> 6);
+		long[] copy = Arrays.copyOf(bitmap, words);
+		if (words > 0 && (limit & 63) != 0 && words == (limit + 63) >>> 6) {
+			copy[words - 1] &= (1L << limit) - 1;
+		}
+		return BitSet.valueOf(copy);
+	}
+
+	/**
+	 * Gets the number of rows holding a value, limited to the rows visible to the
+	 * caller.
+	 *
+	 * @param value The value to count.
+	 * @param limit The number of rows visible to the caller.
+	 * @return The number of rows.
+	 */
+	public int count(E value, int limit) {
+		long[] bitmap = bitmaps[value.ordinal()];
+		int words = Math.min(bitmap.length, limit >>> 6);
+		int count = 0;
+		for (int i = 0; i < words; i++) {
+			count += Long.bitCount(bitmap[i]);
+		}
+		if ((limit & 63) != 0 && words < bitmap.length) {
+			count += Long.bitCount(bitmap[words] & ((1L << limit) - 1));
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first row at or after a position that holds a value. Only the
+	 * words from that position up to the match are read, so paging through a
+	 * value costs time in proportion to the rows stepped over rather than to the
+	 * size of the index.
+	 *
+	 * @param value The value to look for.
+	 * @param from  The first row position to check.
+	 * @param limit The number of rows visible to the caller.
+	 * @return The row position, or -1 if no row from the position up to the limit
+	 *         holds the value.
+	 */
+	public int nextRow(E value, int from, int limit) {
+		long[] bitmap = bitmaps[value.ordinal()];
+		int end = Math.min(limit, bitmap.length << 6);
+		if (from < 0 || from >= end) {
+			return -1;
+		}
+		int word = from >>> 6;
+		long bits = bitmap[word] & (-1L << from);
+		while (true) {
+			if (bits != 0) {
+				int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+				return row < end ? row : -1;
+			}
+			if (++word << 6 >= end) {
+				return -1;
+			}
+			bits = bitmap[word];
+		}
+	}
+
+	/**
+	 * Gets the heap used by the bitmaps.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long sizeInBytes() {
+		long[][] current = bitmaps;
+		return (long) current.length * current[0].length * Long.BYTES;
+	}
+
+	/**
+	 * Copies every bitmap into larger arrays and publishes them together.
+	 *
+	 * @param current The current bitmaps.
+	 * @param words   The number of words needed.
+	 * @return The grown bitmaps.
+	 */
+	private long[][] grow(long[][] current, int words) {
+		int length = Math.max(words, current[0].length + (current[0].length >> 1));
+		long[][] grown = new long[current.length][];
+		for (int i = 0; i < current.length; i++) {
+			grown[i] = Arrays.copyOf(current[i], length);
+		}
+		bitmaps = grown;
+		return grown;
+	}
+
+	/**
+	 * Writes the index to a snapshot.
+	 *
+	 * @param out The snapshot to write to.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException {
+		for (long[] bitmap : bitmaps) {
+			int words = bitmap.length;
+			while (words > 0 && bitmap[words - 1] == 0) {
+				words--;
+			}
+			out.writeInt(words);
+			out.writeLongs(bitmap, words);
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #writeTo}.
+	 *
+	 * @param type The enumeration class.
+	 * @param in   The snapshot to read from.
+	 * @param <E>  The enumeration being indexed.
+	 * @return The index.
+	 * @throws IOException If the snapshot cannot be read.
+	 */
+	static <E extends Enum<E>> EnumBitmapIndex<E> readFrom(Class<E> type, SnapshotInput in) throws IOException {
+		EnumBitmapIndex<E> index = new EnumBitmapIndex<>(type);
+		long[][] bitmaps = new long[index.bitmaps.length][];
+		int length = 1;
+		for (int i = 0; i < bitmaps.length; i++) {
+			bitmaps[i] = new long[in.readInt()];
+			in.readLongs(bitmaps[i], bitmaps[i].length);
+			length = Math.max(length, bitmaps[i].length);
+		}
+		for (int i = 0; i < bitmaps.length; i++) {
+			bitmaps[i] = Arrays.copyOf(bitmaps[i], length);
+		}
+		index.bitmaps = bitmaps;
+		return index;
+	}
+}
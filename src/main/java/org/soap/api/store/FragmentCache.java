@@ -0,0 +1,188 @@
+/**
+ * The FragmentCache file is responsible for keeping an encoded form of each stored member for reuse.
+ */
+package org.soap.api.store;
+
+import org.soap.api.models.DatabaseMember;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The FragmentCache class keeps an encoded form of members of a
+ * {@link MemberStore}, such as the XML a response writes for each of them, by
+ * row. Rows are never rewritten once added, so a member's fragment is encoded
+ * the first time it is needed and reused for as long as the store lives.
+ *
+ * <p>
+ * Fragments are held in chunks of rows that are only allocated once a row in
+ * them is cached, so the cache costs almost nothing until it is used. The
+ * table of chunks is sized from the number of rows in the store and replaced
+ * by a larger copy once the store outgrows it. Chunks are allocated and the
+ * table replaced under the cache's lock, while looking up a chunk that exists
+ * takes no lock. Any thread may fill the cache; two threads encoding the same
+ * member at once simply produce the same bytes and one copy is kept. Once the fragments held reach
+ * the size limit, further fragments are encoded for each use and not kept.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class FragmentCache implements FragmentCacheMBean {
+
+	/**
+	 * Number of bits of a row used for its position within a chunk.
+	 */
+	private static final int CHUNK_BITS = 12;
+
+	/**
+	 * Number of rows in each chunk.
+	 */
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	private final long limit; // Largest total size of the fragments held, in bytes.
+
+	/**
+	 * Largest number of chunks, enough for every non-negative row.
+	 */
+	private static final int MAX_CHUNKS = (Integer.MAX_VALUE >>> CHUNK_BITS) + 1;
+
+	private volatile AtomicReferenceArray<AtomicReferenceArray<byte[]>> chunks; // Chunks by number, once used.
+
+	/**
+	 * Lock held while a chunk is allocated or the table grown. A ReentrantLock
+	 * rather than a monitor, so a virtual thread serving a request does not pin
+	 * its carrier thread while it waits.
+	 */
+	private final ReentrantLock growLock = new ReentrantLock();
+
+	private final AtomicLong sizeInBytes = new AtomicLong(); // Total size of the fragments held.
+
+	private final LongAdder fragments = new LongAdder(); // Number of fragments held.
+
+	private final LongAdder hits = new LongAdder(); // Fragments served from the cache.
+
+	private final LongAdder misses = new LongAdder(); // Fragments encoded.
+
+	/**
+	 * Constructs an empty cache.
+	 *
+	 * @param limit The largest total size of the fragments held, in bytes.
+	 */
+	FragmentCache(long limit) {
+		this.limit = limit;
+		this.chunks = new AtomicReferenceArray<>(0);
+	}
+
+	/**
+	 * Gets the fragment of a row, encoding and keeping it if it is not held yet.
+	 *
+	 * @param row     The row.
+	 * @param rows    The number of rows in the store.
+	 * @param member  The member stored in the row.
+	 * @param encoder The function encoding a member.
+	 * @return The fragment, which must not be modified.
+	 */
+	byte[] get(int row, int rows, DatabaseMember member, Function<DatabaseMember, byte[]> encoder) {
+		AtomicReferenceArray<byte[]> chunk = chunk(row >>> CHUNK_BITS, rows);
+		int slot = row & (CHUNK_SIZE - 1);
+		byte[] fragment = chunk.get(slot);
+		if (fragment != null) {
+			hits.increment();
+			return fragment;
+		}
+		misses.increment();
+		fragment = encoder.apply(member);
+		if (sizeInBytes.addAndGet(fragment.length) <= limit && chunk.compareAndSet(slot, null, fragment)) {
+			fragments.increment();
+		} else {
+			sizeInBytes.addAndGet(-fragment.length);
+		}
+		return fragment;
+	}
+
+	/**
+	 * Gets a chunk, allocating it and growing the chunk table if needed.
+	 *
+	 * @param number The chunk number.
+	 * @param rows   The number of rows in the store, which the table is grown to
+	 *               cover.
+	 * @return The chunk.
+	 */
+	private AtomicReferenceArray<byte[]> chunk(int number, int rows) {
+		AtomicReferenceArray<AtomicReferenceArray<byte[]>> table = chunks;
+		if (number < table.length()) {
+			AtomicReferenceArray<byte[]> chunk = table.get(number);
+			if (chunk != null) {
+				return chunk;
+			}
+		}
+		growLock.lock();
+		try {
+			table = chunks;
+			if (number >= table.length()) {
+				int needed = Math.max(number, (Math.max(rows, 1) - 1) >>> CHUNK_BITS) + 1;
+				int length = Math.min(MAX_CHUNKS, Math.max(needed, table.length() + (table.length() >> 1)));
+				AtomicReferenceArray<AtomicReferenceArray<byte[]>> grown = new AtomicReferenceArray<>(length);
+				for (int i = 0; i < table.length(); i++) {
+					grown.set(i, table.get(i));
+				}
+				table = grown;
+				chunks = grown;
+			}
+			AtomicReferenceArray<byte[]> chunk = table.get(number);
+			if (chunk == null) {
+				chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+				table.set(number, chunk);
+			}
+			return chunk;
+		} finally {
+			growLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of fragments served from the cache.
+	 *
+	 * @return The number of hits.
+	 */
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of fragments that had to be encoded.
+	 *
+	 * @return The number of misses.
+	 */
+	@Override
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of fragments held.
+	 *
+	 * @return The number of fragments.
+	 */
+	@Override
+	public long getFragments() {
+		return fragments.sum();
+	}
+
+	/**
+	 * Gets the total size of the fragments held.
+	 *
+	 * @return The size in bytes.
+	 */
+	@Override
+	public long getSizeInBytes() {
+		return sizeInBytes.get();
+	}
+}
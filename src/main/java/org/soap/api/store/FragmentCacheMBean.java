@@ -0,0 +1,44 @@
+/**
+ * The FragmentCacheMBean file is responsible for defining the management interface of the member fragment cache.
+ */
+package org.soap.api.store;
+
+/**
+ * The FragmentCacheMBean interface is the JMX view of the {@link FragmentCache}
+ * counters.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public interface FragmentCacheMBean {
+
+	/**
+	 * Gets the number of fragments served from the cache.
+	 *
+	 * @return The number of hits.
+	 */
+	long getHits();
+
+	/**
+	 * Gets the number of fragments that had to be encoded.
+	 *
+	 * @return The number of misses.
+	 */
+	long getMisses();
+
+	/**
+	 * Gets the number of fragments held.
+	 *
+	 * @return The number of fragments.
+	 */
+	long getFragments();
+
+	/**
+	 * Gets the total size of the fragments held.
+	 *
+	 * @return The size in bytes.
+	 */
+	long getSizeInBytes();
+}
@@ -0,0 +1,281 @@
+/**
+ * The MemberCounts file is responsible for counting the stored members by category, sex and date of birth.
+ */
+package org.soap.api.store;
+
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The MemberCounts class counts members by employment category and sex
+ * together, and by date of birth. The store's writer adds each new member with
+ * a few array increments. Every time rows are published the store publishes a
+ * snapshot that readers can use without taking a lock, and which answers every
+ * grouping of the statistics, so they all describe the same members.
+ *
+ * <p>
+ * Dates of birth are counted per day, in chunks of {@value #CHUNK_SIZE} days
+ * with a total per chunk, so counting a range of dates adds up at most two
+ * partial chunks and the chunk totals in between. A snapshot shares the
+ * chunks with the writer and copies only the table of chunks and the small
+ * arrays of totals. The writer copies a chunk the first time it changes it
+ * after a snapshot, so publishing never copies every count.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class MemberCounts {
+
+	private static final int SEXES = Sex.values().length;
+
+	private static final int CATEGORIES = EmploymentCategory.values().length;
+
+	/**
+	 * Number of bits of an epoch day that select the day within its chunk.
+	 */
+	private static final int CHUNK_SHIFT = 8;
+
+	/**
+	 * Number of days counted by one chunk.
+	 */
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private static final int[][] NO_CHUNKS = new int[0][];
+
+	private final int[] categorySex; // Counts indexed by category ordinal * SEXES + sex ordinal.
+
+	private int total; // Number of members counted.
+
+	private int firstDay; // Earliest date of birth counted, as an epoch day.
+
+	private int lastDay; // Latest date of birth counted, as an epoch day.
+
+	private int firstChunk; // Chunk number of days[0], the epoch day shifted right by CHUNK_SHIFT.
+
+	private int[][] days; // Counts by date of birth, one chunk per CHUNK_SIZE days, null where none.
+
+	private int[] chunkTotals; // Sum of each chunk of days.
+
+	private boolean[] owned; // Chunks the writer copied since the last snapshot; null in a snapshot.
+
+	/**
+	 * Constructs empty counts for the writer.
+	 */
+	MemberCounts() {
+		categorySex = new int[CATEGORIES * SEXES];
+		days = NO_CHUNKS;
+		chunkTotals = new int[0];
+		owned = new boolean[0];
+	}
+
+	/**
+	 * Constructs a snapshot of the writer's counts. The chunks themselves are
+	 * shared.
+	 *
+	 * @param writer The counts to take a snapshot of.
+	 */
+	private MemberCounts(MemberCounts writer) {
+		categorySex = writer.categorySex.clone();
+		total = writer.total;
+		firstDay = writer.firstDay;
+		lastDay = writer.lastDay;
+		firstChunk = writer.firstChunk;
+		days = writer.days.clone();
+		chunkTotals = writer.chunkTotals.clone();
+	}
+
+	/**
+	 * Counts a member. Only the store's writer may call this.
+	 *
+	 * @param category The employment category ordinal.
+	 * @param sex      The sex ordinal.
+	 * @param birthDay The date of birth as an epoch day.
+	 */
+	void add(int category, int sex, int birthDay) {
+		categorySex[category * SEXES + sex]++;
+		if (total == 0) {
+			firstDay = birthDay;
+			lastDay = birthDay;
+		} else {
+			firstDay = Math.min(firstDay, birthDay);
+			lastDay = Math.max(lastDay, birthDay);
+		}
+		total++;
+		int chunk = cover(birthDay >> CHUNK_SHIFT);
+		if (!owned[chunk]) {
+			days[chunk] = days[chunk] == null ? new int[CHUNK_SIZE] : days[chunk].clone();
+			owned[chunk] = true;
+		}
+		days[chunk][birthDay & (CHUNK_SIZE - 1)]++;
+		chunkTotals[chunk]++;
+	}
+
+	/**
+	 * Grows the table of chunks so it covers a chunk number.
+	 *
+	 * @param chunkNumber The epoch day shifted right by {@link #CHUNK_SHIFT}.
+	 * @return The position of the chunk in the table.
+	 */
+	private int cover(int chunkNumber) {
+		if (days.length == 0) {
+			firstChunk = chunkNumber;
+		}
+		int first = Math.min(firstChunk, chunkNumber);
+		int length = Math.max(firstChunk + days.length, chunkNumber + 1) - first;
+		if (first != firstChunk || length != days.length) {
+			int shift = firstChunk - first;
+			int[][] grownDays = new int[length][];
+			int[] grownTotals = new int[length];
+			boolean[] grownOwned = new boolean[length];
+			System.arraycopy(days, 0, grownDays, shift, days.length);
+			System.arraycopy(chunkTotals, 0, grownTotals, shift, chunkTotals.length);
+			System.arraycopy(owned, 0, grownOwned, shift, owned.length);
+			days = grownDays;
+			chunkTotals = grownTotals;
+			owned = grownOwned;
+			firstChunk = first;
+		}
+		return chunkNumber - firstChunk;
+	}
+
+	/**
+	 * Takes a snapshot of the counts for publishing to readers. Only the store's
+	 * writer may call this.
+	 *
+	 * @return A snapshot that the writer will not change.
+	 */
+	MemberCounts snapshot() {
+		MemberCounts snapshot = new MemberCounts(this);
+		Arrays.fill(owned, false);
+		return snapshot;
+	}
+
+	/**
+	 * Gets the number of members counted.
+	 *
+	 * @return The number of members.
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the number of members in an employment category and of a sex.
+	 *
+	 * @param category The employment category.
+	 * @param sex      The sex.
+	 * @return The number of members.
+	 */
+	public int getCount(EmploymentCategory category, Sex sex) {
+		return categorySex[category.ordinal() * SEXES + sex.ordinal()];
+	}
+
+	/**
+	 * Gets the number of members in an employment category.
+	 *
+	 * @param category The employment category.
+	 * @return The number of members.
+	 */
+	public int getCount(EmploymentCategory category) {
+		int count = 0;
+		for (int sex = 0; sex < SEXES; sex++) {
+			count += categorySex[category.ordinal() * SEXES + sex];
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of members of a sex.
+	 *
+	 * @param sex The sex.
+	 * @return The number of members.
+	 */
+	public int getCount(Sex sex) {
+		int count = 0;
+		for (int category = 0; category < CATEGORIES; category++) {
+			count += categorySex[category * SEXES + sex.ordinal()];
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the earliest birth year of any member.
+	 *
+	 * @return The year, or 0 if no member is counted.
+	 */
+	public int getFirstYear() {
+		return total == 0 ? 0 : LocalDate.ofEpochDay(firstDay).getYear();
+	}
+
+	/**
+	 * Gets the latest birth year of any member.
+	 *
+	 * @return The year, or -1 if no member is counted.
+	 */
+	public int getLastYear() {
+		return total == 0 ? -1 : LocalDate.ofEpochDay(lastDay).getYear();
+	}
+
+	/**
+	 * Gets the number of members born in a year.
+	 *
+	 * @param year The year.
+	 * @return The number of members.
+	 */
+	public int getBornIn(int year) {
+		return countBornBetween((int) LocalDate.of(year, 1, 1).toEpochDay(),
+				(int) LocalDate.of(year, 12, 31).toEpochDay());
+	}
+
+	/**
+	 * Gets the number of members born between two dates.
+	 *
+	 * @param fromDay The first epoch day of the range.
+	 * @param toDay   The last epoch day of the range.
+	 * @return The number of members.
+	 */
+	public int countBornBetween(int fromDay, int toDay) {
+		fromDay = Math.max(fromDay, firstDay);
+		toDay = Math.min(toDay, lastDay);
+		if (total == 0 || fromDay > toDay) {
+			return 0;
+		}
+		int fromChunk = (fromDay >> CHUNK_SHIFT) - firstChunk;
+		int toChunk = (toDay >> CHUNK_SHIFT) - firstChunk;
+		int fromIndex = fromDay & (CHUNK_SIZE - 1);
+		int toIndex = toDay & (CHUNK_SIZE - 1);
+		if (fromChunk == toChunk) {
+			return sum(days[fromChunk], fromIndex, toIndex);
+		}
+		int count = sum(days[fromChunk], fromIndex, CHUNK_SIZE - 1) + sum(days[toChunk], 0, toIndex);
+		for (int chunk = fromChunk + 1; chunk < toChunk; chunk++) {
+			count += chunkTotals[chunk];
+		}
+		return count;
+	}
+
+	/**
+	 * Adds up part of a chunk of counts.
+	 *
+	 * @param chunk The chunk, or null if it holds no members.
+	 * @param from  The first day within the chunk.
+	 * @param to    The last day within the chunk.
+	 * @return The sum.
+	 */
+	private static int sum(int[] chunk, int from, int to) {
+		if (chunk == null) {
+			return 0;
+		}
+		int count = 0;
+		for (int i = from; i <= to; i++) {
+			count += chunk[i];
+		}
+		return count;
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * The MemberQuery file is responsible for holding the filters of a multi-predicate member query.
+ */
+package org.soap.api.store;
+
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+
+/**
+ * The MemberQuery class holds the filters of a query answered by
+ * {@link MemberStore#find} and {@link MemberStore#count}: a sex, an employment
+ * category, a range of dates of birth and a staff ID prefix, each of which may
+ * be left out. A member matches when it passes every filter given.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class MemberQuery {
+
+	/**
+	 * Start of a date of birth range with no lower bound.
+	 */
+	public static final int EARLIEST = Integer.MIN_VALUE;
+
+	/**
+	 * End of a date of birth range with no upper bound. One less than the largest
+	 * int, so the day after it can still be searched for.
+	 */
+	public static final int LATEST = Integer.MAX_VALUE - 1;
+
+	private final Sex sex; // Sex to match, or null for any.
+
+	private final EmploymentCategory category; // Employment category to match, or null for any.
+
+	private final int fromDay; // First epoch day of the date of birth range.
+
+	private final int toDay; // Last epoch day of the date of birth range.
+
+	private final int prefixLength; // Number of hexadecimal digits in the staff ID prefix, 0 for none.
+
+	private final long prefixKey; // The staff ID prefix packed like Converters.staffIdToKey.
+
+	/**
+	 * Constructs a query.
+	 *
+	 * @param sex           The sex to match, or null for any.
+	 * @param category      The employment category to match, or null for any.
+	 * @param fromDay       The first epoch day of the date of birth range, or
+	 *                      {@link #EARLIEST}.
+	 * @param toDay         The last epoch day of the date of birth range, or
+	 *                      {@link #LATEST}.
+	 * @param staffIdPrefix The first characters of the staff IDs to match, in
+	 *                      either case, or null for any.
+	 * @throws IllegalArgumentException If the prefix is longer than a staff ID or
+	 *                                  not hexadecimal, or the range ends before
+	 *                                  it starts.
+	 */
+	public MemberQuery(Sex sex, EmploymentCategory category, int fromDay, int toDay, String staffIdPrefix) {
+		if (fromDay > toDay || toDay > LATEST) {
+			throw new IllegalArgumentException("Invalid date of birth range " + fromDay + " to " + toDay);
+		}
+		this.sex = sex;
+		this.category = category;
+		this.fromDay = fromDay;
+		this.toDay = toDay;
+		String prefix = staffIdPrefix == null ? "" : staffIdPrefix;
+		if (prefix.length() > 15) {
+			throw new IllegalArgumentException("Staff ID prefix longer than a staff ID: " + prefix);
+		}
+		long key = 0;
+		for (int i = 0; i < prefix.length(); i++) {
+			int digit = Character.digit(prefix.charAt(i), 16);
+			if (digit < 0) {
+				throw new IllegalArgumentException("Staff ID prefix is not hexadecimal: " + prefix);
+			}
+			key = (key << 4) | digit;
+		}
+		this.prefixLength = prefix.length();
+		this.prefixKey = key;
+	}
+
+	/**
+	 * Gets the sex to match.
+	 *
+	 * @return The sex, or null for any.
+	 */
+	public Sex getSex() {
+		return sex;
+	}
+
+	/**
+	 * Gets the employment category to match.
+	 *
+	 * @return The category, or null for any.
+	 */
+	public EmploymentCategory getCategory() {
+		return category;
+	}
+
+	/**
+	 * Gets the first day of the date of birth range.
+	 *
+	 * @return The epoch day, or {@link #EARLIEST}.
+	 */
+	public int getFromDay() {
+		return fromDay;
+	}
+
+	/**
+	 * Gets the last day of the date of birth range.
+	 *
+	 * @return The epoch day, or {@link #LATEST}.
+	 */
+	public int getToDay() {
+		return toDay;
+	}
+
+	/**
+	 * Checks whether the query limits the date of birth.
+	 *
+	 * @return true if either end of the range is set.
+	 */
+	public boolean hasDateRange() {
+		return fromDay != EARLIEST || toDay != LATEST;
+	}
+
+	/**
+	 * Gets the number of characters in the staff ID prefix.
+	 *
+	 * @return The prefix length, 0 if there is no prefix.
+	 */
+	public int getPrefixLength() {
+		return prefixLength;
+	}
+
+	/**
+	 * Checks a packed staff ID against the prefix.
+	 *
+	 * @param staffId The staff ID packed by the store.
+	 * @return true if the staff ID starts with the prefix or there is no prefix.
+	 */
+	boolean matchesStaffId(long staffId) {
+		return prefixLength == 0 || staffId >>> ((15 - prefixLength) << 2) == prefixKey;
+	}
+}
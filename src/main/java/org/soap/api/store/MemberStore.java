@@ -0,0 +1,1148 @@
+/**
+ * The MemberStore file is responsible for holding the members loaded into the database together with their indexes.
+ */
+package org.soap.api.store;
+
+import org.soap.api.exceptions.InvalidDateException;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+import org.soap.api.utils.Constants;
+import org.soap.api.utils.Converters;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The MemberStore class holds the members of the database in insertion order
+ * and keeps a primary-key index on staff ID, a sorted index on date of birth,
+ * bitmap indexes on employment category and sex, and counts by category, sex
+ * and date of birth in sync with them.
+ *
+ * <p>
+ * Members are stored column by column rather than as DatabaseMember objects:
+ * staff IDs packed into longs, dates of birth as epoch days, sex and category
+ * as enum ordinals and the remaining text in a shared {@link TextArena}. A
+ * DatabaseMember is only built when a row is returned to a caller. First
+ * names, last names and job titles repeat heavily, so each distinct value of
+ * those columns is stored once through a {@link TextPool} and shared by every
+ * row that has it.
+ * </p>
+ *
+ * <p>
+ * The store has one writer at a time and any number of readers, which take no
+ * locks. Rows are only ever appended. After each write the writer publishes
+ * the column arrays and the new row count through a volatile field. Each
+ * query reads that field once and ignores anything beyond the count it saw,
+ * so it works on a consistent snapshot even while rows are being added.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class MemberStore {
+
+	private static final Sex[] SEXES = Sex.values();
+
+	private static final EmploymentCategory[] CATEGORIES = EmploymentCategory.values();
+
+	/**
+	 * The columns as last published to readers.
+	 */
+	private volatile Columns published = new Columns(0, 16);
+
+	/**
+	 * The columns being written, which may be ahead of {@link #published}. Only
+	 * the writer uses it, together with {@link #size}.
+	 */
+	private Columns writing = published;
+
+	private int size; // Number of rows written, including any not yet published.
+
+	/**
+	 * Lock serialising writers. Readers never take it.
+	 */
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * Arena holding the text columns.
+	 */
+	private TextArena text = new TextArena();
+
+	private TextPool firstNamePool = new TextPool(); // Distinct first names in the arena.
+
+	private TextPool lastNamePool = new TextPool(); // Distinct last names in the arena.
+
+	private TextPool jobTitlePool = new TextPool(); // Distinct job titles in the arena.
+
+	/**
+	 * Encoded forms of members, filled as they are returned.
+	 */
+	private final FragmentCache fragments = new FragmentCache(
+			Long.getLong(Constants.XML_FRAGMENT_CACHE_PROPERTY, Constants.DEFAULT_XML_FRAGMENT_CACHE));
+
+	/**
+	 * Index from packed staff ID to row position.
+	 */
+	private StaffIdIndex staffIdIndex = new StaffIdIndex();
+
+	/**
+	 * Index of rows ordered by date of birth.
+	 */
+	private DateOfBirthIndex dateOfBirthIndex = new DateOfBirthIndex();
+
+	/**
+	 * Bitmap of rows for each employment category.
+	 */
+	private EnumBitmapIndex<EmploymentCategory> categoryIndex = new EnumBitmapIndex<>(EmploymentCategory.class);
+
+	/**
+	 * Bitmap of rows for each sex.
+	 */
+	private EnumBitmapIndex<Sex> sexIndex = new EnumBitmapIndex<>(Sex.class);
+
+	/**
+	 * Counts by category, sex and date of birth, kept up to date by the writer.
+	 */
+	private final MemberCounts counts = new MemberCounts();
+
+	/**
+	 * Snapshot of {@link #counts} published together with the columns.
+	 */
+	private volatile MemberCounts publishedCounts = counts.snapshot();
+
+	/**
+	 * Position given to the paged queries to start from the first matching
+	 * member.
+	 */
+	public static final long FIRST_PAGE = Long.MIN_VALUE;
+
+	/**
+	 * One page of a paged query: the members found and the position to continue
+	 * from for the next page.
+	 */
+	public static final class Page {
+
+		private final ArrayList<DatabaseMember> members; // Members on the page, in query order.
+
+		private final long next; // Position to continue from, or FIRST_PAGE if this is the last page.
+
+		/**
+		 * Constructs a page.
+		 *
+		 * @param members The members on the page.
+		 * @param next    The position to continue from, or {@link #FIRST_PAGE} if
+		 *                there are no more members.
+		 */
+		Page(ArrayList<DatabaseMember> members, long next) {
+			this.members = members;
+			this.next = next;
+		}
+
+		/**
+		 * Gets the members on the page.
+		 *
+		 * @return The members, in query order.
+		 */
+		public ArrayList<DatabaseMember> getMembers() {
+			return members;
+		}
+
+		/**
+		 * Checks whether more members follow this page.
+		 *
+		 * @return true if there is a next page.
+		 */
+		public boolean hasNext() {
+			return next != FIRST_PAGE;
+		}
+
+		/**
+		 * Gets the position to pass to the same query for the next page.
+		 *
+		 * @return The position, meaningful only if {@link #hasNext()} is true.
+		 */
+		public long getNext() {
+			return next;
+		}
+	}
+
+	/**
+	 * The column arrays together with the number of rows in use. Rows below the
+	 * size are never changed, so a reader holding a Columns sees a consistent,
+	 * immutable snapshot of the store.
+	 */
+	private static final class Columns {
+
+		final int size; // Number of rows in use.
+
+		final int[] indexes; // Index column from the CSV file.
+
+		final long[] staffIds; // Staff IDs packed by Converters.staffIdToKey.
+
+		final short[] staffIdCases; // Letter case of each staff ID, see Converters.staffIdCaseMask.
+
+		final int[] birthDays; // Dates of birth as epoch days.
+
+		final byte[] sexes; // Sex ordinals.
+
+		final byte[] categories; // Employment category ordinals.
+
+		final int[] firstNames; // Arena references to first names.
+
+		final int[] lastNames; // Arena references to last names.
+
+		final int[] emails; // Arena references to email addresses.
+
+		final int[] phoneNumbers; // Arena references to phone numbers.
+
+		final int[] jobTitles; // Arena references to job titles.
+
+		/**
+		 * Constructs empty columns.
+		 *
+		 * @param size     The number of rows in use.
+		 * @param capacity The number of rows the arrays can hold.
+		 */
+		Columns(int size, int capacity) {
+			this(size, new int[capacity], new long[capacity], new short[capacity], new int[capacity],
+					new byte[capacity], new byte[capacity], new int[capacity], new int[capacity], new int[capacity],
+					new int[capacity], new int[capacity]);
+		}
+
+		/**
+		 * Constructs columns over existing arrays.
+		 *
+		 * @param size         The number of rows in use.
+		 * @param indexes      The Index column.
+		 * @param staffIds     The packed staff IDs.
+		 * @param staffIdCases The staff ID case masks.
+		 * @param birthDays    The dates of birth as epoch days.
+		 * @param sexes        The sex ordinals.
+		 * @param categories   The employment category ordinals.
+		 * @param firstNames   The first name references.
+		 * @param lastNames    The last name references.
+		 * @param emails       The email address references.
+		 * @param phoneNumbers The phone number references.
+		 * @param jobTitles    The job title references.
+		 */
+		Columns(int size, int[] indexes, long[] staffIds, short[] staffIdCases, int[] birthDays, byte[] sexes,
+				byte[] categories, int[] firstNames, int[] lastNames, int[] emails, int[] phoneNumbers,
+				int[] jobTitles) {
+			this.size = size;
+			this.indexes = indexes;
+			this.staffIds = staffIds;
+			this.staffIdCases = staffIdCases;
+			this.birthDays = birthDays;
+			this.sexes = sexes;
+			this.categories = categories;
+			this.firstNames = firstNames;
+			this.lastNames = lastNames;
+			this.emails = emails;
+			this.phoneNumbers = phoneNumbers;
+			this.jobTitles = jobTitles;
+		}
+
+		/**
+		 * Gets columns with a different size over the same arrays, growing them first
+		 * if they cannot hold that many rows.
+		 *
+		 * @param newSize The number of rows in use.
+		 * @return The columns.
+		 */
+		Columns withSize(int newSize) {
+			int capacity = indexes.length;
+			if (newSize <= capacity) {
+				return new Columns(newSize, indexes, staffIds, staffIdCases, birthDays, sexes, categories,
+						firstNames, lastNames, emails, phoneNumbers, jobTitles);
+			}
+			int newCapacity = Math.max(newSize, capacity + (capacity >> 1));
+			return new Columns(newSize, Arrays.copyOf(indexes, newCapacity), Arrays.copyOf(staffIds, newCapacity),
+					Arrays.copyOf(staffIdCases, newCapacity), Arrays.copyOf(birthDays, newCapacity),
+					Arrays.copyOf(sexes, newCapacity), Arrays.copyOf(categories, newCapacity),
+					Arrays.copyOf(firstNames, newCapacity), Arrays.copyOf(lastNames, newCapacity),
+					Arrays.copyOf(emails, newCapacity), Arrays.copyOf(phoneNumbers, newCapacity),
+					Arrays.copyOf(jobTitles, newCapacity));
+		}
+	}
+
+	/**
+	 * Adds a member to the store and indexes it, unless a member with the same
+	 * staff ID is already stored. Writers are serialised; the new member becomes
+	 * visible to readers all at once when this returns.
+	 *
+	 * @param member The member to add.
+	 * @return true if the member was added, false if its staff ID already exists.
+	 * @throws InvalidDateException If the member's date of birth cannot be parsed.
+	 */
+	public boolean add(DatabaseMember member) throws InvalidDateException {
+		return addAll(List.of(member))[0];
+	}
+
+	/**
+	 * Adds members to the store and indexes them, skipping any whose staff ID is
+	 * already stored or appears earlier in the list. The write lock is taken once
+	 * for the whole list and the new members become visible to readers together
+	 * when this returns.
+	 *
+	 * @param members The members to add, in order.
+	 * @return Whether each member was added, in the same order.
+	 * @throws InvalidDateException If a member's date of birth cannot be parsed, in
+	 *                              which case nothing is added.
+	 */
+	public boolean[] addAll(List<DatabaseMember> members) throws InvalidDateException {
+		int[] birthDays = new int[members.size()];
+		for (int i = 0; i < birthDays.length; i++) {
+			birthDays[i] = (int) Converters.stringToLocalDate(members.get(i).getDateOfBirth()).toEpochDay();
+		}
+		return addAll(members, birthDays);
+	}
+
+	/**
+	 * Adds members whose dates of birth have already been read to the store and
+	 * indexes them, as {@link #addAll(List)} does. Nothing is left to validate, so
+	 * this cannot fail once the members have been made durable.
+	 *
+	 * @param members   The members to add, in order.
+	 * @param birthDays The date of birth of each member as an epoch day.
+	 * @return Whether each member was added, in the same order.
+	 */
+	public boolean[] addAll(List<DatabaseMember> members, int[] birthDays) {
+		boolean[] added = new boolean[members.size()];
+		int[] addedDays = new int[members.size()];
+		int[] addedRows = new int[members.size()];
+		int count = 0;
+		writeLock.lock();
+		try {
+			ensureCapacity(size + members.size());
+			for (int i = 0; i < added.length; i++) {
+				added[i] = addRow(members.get(i), birthDays[i]);
+				if (added[i]) {
+					addedDays[count] = birthDays[i];
+					addedRows[count++] = size - 1;
+				}
+			}
+			dateOfBirthIndex.addAll(addedDays, addedRows, count);
+			publish();
+			return added;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Appends a member to the columns, the staff ID index and the bitmap indexes,
+	 * leaving the date of birth index to the caller, without publishing it. The
+	 * write lock must be held.
+	 *
+	 * @param member   The member to add.
+	 * @param birthDay The member's date of birth as an epoch day.
+	 * @return true if the member was added, false if its staff ID already exists.
+	 */
+	private boolean addRow(DatabaseMember member, int birthDay) {
+		long staffId = Converters.staffIdToKey(member.getId());
+		int row = size;
+		if (!staffIdIndex.put(staffId, row)) {
+			return false;
+		}
+		ensureCapacity(row + 1);
+		Columns columns = writing;
+		columns.indexes[row] = member.getIndex();
+		columns.staffIds[row] = staffId;
+		columns.staffIdCases[row] = Converters.staffIdCaseMask(member.getId());
+		columns.birthDays[row] = birthDay;
+		columns.sexes[row] = (byte) member.getSex().ordinal();
+		columns.categories[row] = (byte) member.getJobCategory().ordinal();
+		columns.firstNames[row] = firstNamePool.add(text, member.getFirstName());
+		columns.lastNames[row] = lastNamePool.add(text, member.getLastName());
+		columns.emails[row] = text.add(member.getEmail());
+		columns.phoneNumbers[row] = text.add(member.getPhoneNumber());
+		columns.jobTitles[row] = jobTitlePool.add(text, member.getJobTitle());
+		categoryIndex.add(member.getJobCategory(), row);
+		sexIndex.add(member.getSex(), row);
+		counts.add(member.getJobCategory().ordinal(), member.getSex().ordinal(), birthDay);
+		size++;
+		return true;
+	}
+
+	/**
+	 * Appends a row parsed by {@link CsvLoader} to the columns, the staff ID index
+	 * and the bitmap indexes, without touching the date of birth index or
+	 * publishing the row. This is only used while loading a store that no other
+	 * thread can see yet; {@link #finishLoad()} must be called afterwards.
+	 *
+	 * @param index        The Index column.
+	 * @param staffId      The packed staff ID.
+	 * @param staffIdCase  The staff ID case mask.
+	 * @param birthDay     The date of birth as an epoch day.
+	 * @param sex          The sex ordinal.
+	 * @param category     The employment category ordinal.
+	 * @param data         The bytes holding the text fields.
+	 * @param text         The start and end of each text field within the data.
+	 * @param textOffset   The position in the text array of the row's first field.
+	 * @return true if the row was appended, false if its staff ID already exists.
+	 */
+	boolean appendRow(int index, long staffId, short staffIdCase, int birthDay, byte sex, byte category,
+			byte[] data, int[] text, int textOffset) {
+		int row = size;
+		if (!staffIdIndex.put(staffId, row)) {
+			return false;
+		}
+		ensureCapacity(row + 1);
+		Columns columns = writing;
+		columns.indexes[row] = index;
+		columns.staffIds[row] = staffId;
+		columns.staffIdCases[row] = staffIdCase;
+		columns.birthDays[row] = birthDay;
+		columns.sexes[row] = sex;
+		columns.categories[row] = category;
+		columns.firstNames[row] = firstNamePool.add(this.text, data, text[textOffset],
+				text[textOffset + 1] - text[textOffset]);
+		columns.lastNames[row] = lastNamePool.add(this.text, data, text[textOffset + 2],
+				text[textOffset + 3] - text[textOffset + 2]);
+		columns.emails[row] = this.text.add(data, text[textOffset + 4], text[textOffset + 5] - text[textOffset + 4]);
+		columns.phoneNumbers[row] = this.text.add(data, text[textOffset + 6],
+				text[textOffset + 7] - text[textOffset + 6]);
+		columns.jobTitles[row] = jobTitlePool.add(this.text, data, text[textOffset + 8],
+				text[textOffset + 9] - text[textOffset + 8]);
+		categoryIndex.add(CATEGORIES[category], row);
+		sexIndex.add(SEXES[sex], row);
+		counts.add(category, sex, birthDay);
+		size++;
+		return true;
+	}
+
+	/**
+	 * Sorts the date of birth index from scratch after rows have been appended in
+	 * bulk with {@link #appendRow}, and publishes them.
+	 */
+	void finishLoad() {
+		dateOfBirthIndex.rebuild(writing.birthDays, size);
+		publish();
+	}
+
+	/**
+	 * Adds the rows appended with {@link #appendRow} from a given row onwards to
+	 * the date of birth index and publishes them. Used for the lines added to the
+	 * CSV file since a snapshot was written, where merging the few new rows costs
+	 * much less than sorting the whole index again.
+	 *
+	 * @param firstRow The first row appended.
+	 */
+	void finishAppend(int firstRow) {
+		int count = size - firstRow;
+		int[] rows = new int[count];
+		for (int i = 0; i < count; i++) {
+			rows[i] = firstRow + i;
+		}
+		dateOfBirthIndex.addAll(Arrays.copyOfRange(writing.birthDays, firstRow, size), rows, count);
+		publish();
+	}
+
+	/**
+	 * Builds the DatabaseMember stored at a row.
+	 *
+	 * @param row The row position.
+	 * @return A new DatabaseMember holding the row's values.
+	 * @throws IndexOutOfBoundsException If the row is not stored.
+	 */
+	public DatabaseMember get(int row) {
+		Columns columns = published;
+		return get(columns, Objects.checkIndex(row, columns.size));
+	}
+
+	/**
+	 * Builds the DatabaseMember stored at a row of a snapshot of the columns.
+	 *
+	 * @param columns The columns to read.
+	 * @param row     The row position.
+	 * @return A new DatabaseMember holding the row's values.
+	 */
+	private DatabaseMember get(Columns columns, int row) {
+		return new DatabaseMember(columns.indexes[row],
+				Converters.keyToStaffId(columns.staffIds[row], columns.staffIdCases[row]),
+				text.get(columns.firstNames[row]), text.get(columns.lastNames[row]), SEXES[columns.sexes[row]],
+				text.get(columns.emails[row]), text.get(columns.phoneNumbers[row]),
+				LocalDate.ofEpochDay(columns.birthDays[row]).toString(), text.get(columns.jobTitles[row]),
+				CATEGORIES[columns.categories[row]]);
+	}
+
+	/**
+	 * Retrieves a member by their staff ID.
+	 *
+	 * @param staffId The staff ID to look up.
+	 * @return The member with exactly that staff ID, or null if there is none.
+	 */
+	public DatabaseMember getByStaffId(String staffId) {
+		Columns columns = published;
+		int row = rowOf(columns, staffId);
+		if (row == StaffIdIndex.NOT_FOUND || columns.staffIdCases[row] != Converters.staffIdCaseMask(staffId)) {
+			return null;
+		}
+		return get(columns, row);
+	}
+
+	/**
+	 * Checks whether a member with the given staff ID is stored. Staff IDs are
+	 * hexadecimal, so IDs differing only in letter case are the same key.
+	 *
+	 * @param staffId The staff ID to check.
+	 * @return true if the staff ID is well-formed and already stored, false
+	 *         otherwise.
+	 */
+	public boolean containsStaffId(String staffId) {
+		return rowOf(published, staffId) != StaffIdIndex.NOT_FOUND;
+	}
+
+	/**
+	 * Gets the encoded form of a stored member, such as the XML written for it in
+	 * responses. It is encoded once and then kept with the member's row, within
+	 * the fragment cache's size limit.
+	 *
+	 * @param member  A member returned by this store.
+	 * @param encoder The function encoding a member. It must always give the same
+	 *                bytes for the same member.
+	 * @return The encoded member, which must not be modified.
+	 */
+	public byte[] getFragment(DatabaseMember member, Function<DatabaseMember, byte[]> encoder) {
+		Columns columns = published;
+		int row = rowOf(columns, member.getId());
+		if (row == StaffIdIndex.NOT_FOUND) {
+			return encoder.apply(member);
+		}
+		return fragments.get(row, columns.size, member, encoder);
+	}
+
+	/**
+	 * Gets the cache of encoded members used by {@link #getFragment}.
+	 *
+	 * @return The cache.
+	 */
+	public FragmentCache getFragmentCache() {
+		return fragments;
+	}
+
+	/**
+	 * Looks up the row of a staff ID in the index. The index may already hold a
+	 * row that is not part of the given columns, so the row is checked against
+	 * them.
+	 *
+	 * @param columns The columns visible to the caller.
+	 * @param staffId The staff ID to look up.
+	 * @return The row position, or {@link StaffIdIndex#NOT_FOUND} if the staff ID
+	 *         is malformed or not stored.
+	 */
+	private int rowOf(Columns columns, String staffId) {
+		long key = Converters.staffIdToKey(staffId);
+		if (key < 0) {
+			return StaffIdIndex.NOT_FOUND;
+		}
+		int row = staffIdIndex.get(key);
+		if (row == StaffIdIndex.NOT_FOUND || row >= columns.size || columns.staffIds[row] != key) {
+			return StaffIdIndex.NOT_FOUND;
+		}
+		return row;
+	}
+
+	/**
+	 * Retrieves the members born between two dates. Both bounds are inclusive. If
+	 * the start is after the end, only members born on exactly one of the two
+	 * dates are returned.
+	 *
+	 * @param startDay The start of the range as an epoch day.
+	 * @param endDay   The end of the range as an epoch day.
+	 * @return The matching members, ordered by date of birth and then by
+	 *         insertion.
+	 */
+	public ArrayList<DatabaseMember> getBornBetween(int startDay, int endDay) {
+		Columns columns = published;
+		ArrayList<DatabaseMember> result = new ArrayList<>();
+		if (startDay <= endDay) {
+			addRows(result, columns, dateOfBirthIndex.rowsBetween(startDay, endDay, columns.size));
+		} else {
+			addRows(result, columns, dateOfBirthIndex.rowsBetween(endDay, endDay, columns.size));
+			addRows(result, columns, dateOfBirthIndex.rowsBetween(startDay, startDay, columns.size));
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieves the members in an employment category.
+	 *
+	 * @param category The employment category to match.
+	 * @return The matching members in insertion order.
+	 */
+	public ArrayList<DatabaseMember> getByCategory(EmploymentCategory category) {
+		Columns columns = published;
+		return membersAt(columns, categoryIndex.rows(category, columns.size));
+	}
+
+	/**
+	 * Retrieves the members of a sex.
+	 *
+	 * @param sex The sex to match.
+	 * @return The matching members in insertion order.
+	 */
+	public ArrayList<DatabaseMember> getBySex(Sex sex) {
+		Columns columns = published;
+		return membersAt(columns, sexIndex.rows(sex, columns.size));
+	}
+
+	/**
+	 * Retrieves the members matching both a sex and an employment category by
+	 * intersecting the two bitmaps.
+	 *
+	 * @param sex      The sex to match.
+	 * @param category The employment category to match.
+	 * @return The matching members in insertion order.
+	 */
+	public ArrayList<DatabaseMember> getBySexAndCategory(Sex sex, EmploymentCategory category) {
+		Columns columns = published;
+		BitSet rows = sexIndex.rows(sex, columns.size);
+		rows.and(categoryIndex.rows(category, columns.size));
+		return membersAt(columns, rows);
+	}
+
+	/**
+	 * Retrieves the members matching every filter of a query, in insertion order.
+	 * See {@link #count(MemberQuery)} for how the query is planned.
+	 *
+	 * @param query The filters.
+	 * @return The matching members in insertion order.
+	 */
+	public ArrayList<DatabaseMember> find(MemberQuery query) {
+		Columns columns = published;
+		int[] rows = new int[16];
+		int count = 0;
+		RowCursor cursor = plan(columns, query);
+		while (cursor.hasNext()) {
+			int row = cursor.next();
+			if (matches(columns, query, row)) {
+				if (count == rows.length) {
+					rows = Arrays.copyOf(rows, count * 2);
+				}
+				rows[count++] = row;
+			}
+		}
+		if (cursor instanceof ArrayCursor) {
+			// Rows from the date of birth index come in date order.
+			Arrays.sort(rows, 0, count);
+		}
+		ArrayList<DatabaseMember> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(get(columns, rows[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the members matching every filter of a query without building them.
+	 *
+	 * <p>
+	 * The query is planned by estimating how many rows each filter lets through:
+	 * the population count of the sex and category bitmaps, the number of dates
+	 * of birth in the range found by binary search, and one in sixteen rows per
+	 * character of a staff ID prefix. The filter with the fewest rows supplies the
+	 * candidates. If that is a bitmap, it is intersected with the other bitmap,
+	 * if any, one word at a time; if it is the date range, the candidates come
+	 * from the date of birth index. The remaining filters are checked against the
+	 * columns of each candidate. The staff ID prefix has no index, so a query
+	 * with only a prefix reads the staff ID column. A query with only sex and
+	 * category filters is counted from the bitmaps alone, and one with only a
+	 * date range by binary searches of the date of birth index.
+	 * </p>
+	 *
+	 * @param query The filters.
+	 * @return The number of matching members.
+	 */
+	public int count(MemberQuery query) {
+		Columns columns = published;
+		if (!query.hasDateRange() && query.getPrefixLength() == 0) {
+			if (query.getSex() == null && query.getCategory() == null) {
+				return columns.size;
+			}
+			if (query.getSex() == null) {
+				return categoryIndex.count(query.getCategory(), columns.size);
+			}
+			if (query.getCategory() == null) {
+				return sexIndex.count(query.getSex(), columns.size);
+			}
+			BitSet rows = sexIndex.rows(query.getSex(), columns.size);
+			rows.and(categoryIndex.rows(query.getCategory(), columns.size));
+			return rows.cardinality();
+		}
+		if (query.getPrefixLength() == 0 && query.getSex() == null && query.getCategory() == null) {
+			return dateOfBirthIndex.countBetween(query.getFromDay(), query.getToDay(), columns.size);
+		}
+		int count = 0;
+		for (RowCursor cursor = plan(columns, query); cursor.hasNext();) {
+			if (matches(columns, query, cursor.next())) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Chooses the candidate rows of a query from its most selective filter.
+	 *
+	 * @param columns The columns the query reads.
+	 * @param query   The filters.
+	 * @return A cursor over the candidate rows.
+	 */
+	private RowCursor plan(Columns columns, MemberQuery query) {
+		int size = columns.size;
+		long sexRows = query.getSex() == null ? Long.MAX_VALUE : sexIndex.count(query.getSex(), size);
+		long categoryRows = query.getCategory() == null ? Long.MAX_VALUE
+				: categoryIndex.count(query.getCategory(), size);
+		long dateRows = query.hasDateRange() ? dateOfBirthIndex.countBetween(query.getFromDay(), query.getToDay())
+				: Long.MAX_VALUE;
+		long bitmapRows = Math.min(sexRows, categoryRows);
+		if (dateRows < bitmapRows) {
+			return new ArrayCursor(dateOfBirthIndex.rowsBetween(query.getFromDay(), query.getToDay(), size));
+		}
+		if (bitmapRows != Long.MAX_VALUE) {
+			BitSet rows;
+			if (sexRows <= categoryRows) {
+				rows = sexIndex.rows(query.getSex(), size);
+				if (query.getCategory() != null) {
+					rows.and(categoryIndex.rows(query.getCategory(), size));
+				}
+			} else {
+				rows = categoryIndex.rows(query.getCategory(), size);
+				if (query.getSex() != null) {
+					rows.and(sexIndex.rows(query.getSex(), size));
+				}
+			}
+			return new BitmapCursor(rows);
+		}
+		return new RangeCursor(size);
+	}
+
+	/**
+	 * Checks a candidate row against every filter of a query. Filters already
+	 * applied by the plan pass again at the cost of a comparison.
+	 *
+	 * @param columns The columns to read.
+	 * @param query   The filters.
+	 * @param row     The row position.
+	 * @return true if the row matches.
+	 */
+	private static boolean matches(Columns columns, MemberQuery query, int row) {
+		if (query.getSex() != null && columns.sexes[row] != query.getSex().ordinal()) {
+			return false;
+		}
+		if (query.getCategory() != null && columns.categories[row] != query.getCategory().ordinal()) {
+			return false;
+		}
+		int birthDay = columns.birthDays[row];
+		return birthDay >= query.getFromDay() && birthDay <= query.getToDay()
+				&& query.matchesStaffId(columns.staffIds[row]);
+	}
+
+	/**
+	 * Iterates over the candidate rows chosen by a query plan.
+	 */
+	private interface RowCursor {
+
+		/**
+		 * Checks whether there is another candidate.
+		 *
+		 * @return true if {@link #next()} has a row to return.
+		 */
+		boolean hasNext();
+
+		/**
+		 * Gets the next candidate.
+		 *
+		 * @return The row position.
+		 */
+		int next();
+	}
+
+	/**
+	 * Candidates given by an array of rows, such as a date of birth range.
+	 */
+	private static final class ArrayCursor implements RowCursor {
+
+		private final int[] rows; // Candidate rows.
+
+		private int next; // Position in rows of the next candidate.
+
+		/**
+		 * Constructs a cursor over an array of rows.
+		 *
+		 * @param rows The candidate rows.
+		 */
+		ArrayCursor(int[] rows) {
+			this.rows = rows;
+		}
+
+		/**
+		 * Checks whether there is another candidate.
+		 *
+		 * @return true if there is another row.
+		 */
+		@Override
+		public boolean hasNext() {
+			return next < rows.length;
+		}
+
+		/**
+		 * Gets the next candidate.
+		 *
+		 * @return The row position.
+		 */
+		@Override
+		public int next() {
+			return rows[next++];
+		}
+	}
+
+	/**
+	 * Candidates given by the bits set in a bitmap, in row order.
+	 */
+	private static final class BitmapCursor implements RowCursor {
+
+		private final BitSet rows; // Candidate rows.
+
+		private int next; // Next candidate row, or -1 when there are no more.
+
+		/**
+		 * Constructs a cursor over a bitmap.
+		 *
+		 * @param rows The candidate rows.
+		 */
+		BitmapCursor(BitSet rows) {
+			this.rows = rows;
+			this.next = rows.nextSetBit(0);
+		}
+
+		/**
+		 * Checks whether there is another candidate.
+		 *
+		 * @return true if there is another row.
+		 */
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		/**
+		 * Gets the next candidate.
+		 *
+		 * @return The row position.
+		 */
+		@Override
+		public int next() {
+			int row = next;
+			next = rows.nextSetBit(row + 1);
+			return row;
+		}
+	}
+
+	/**
+	 * Every row, for a query no index can narrow down.
+	 */
+	private static final class RangeCursor implements RowCursor {
+
+		private final int size; // Number of rows.
+
+		private int next; // Next candidate row.
+
+		/**
+		 * Constructs a cursor over every row.
+		 *
+		 * @param size The number of rows.
+		 */
+		RangeCursor(int size) {
+			this.size = size;
+		}
+
+		/**
+		 * Checks whether there is another candidate.
+		 *
+		 * @return true if there is another row.
+		 */
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		/**
+		 * Gets the next candidate.
+		 *
+		 * @return The row position.
+		 */
+		@Override
+		public int next() {
+			return next++;
+		}
+	}
+
+	/**
+	 * Retrieves one page of the members born between two dates, with the same
+	 * matches and order as {@link #getBornBetween}. Finding a page costs two binary
+	 * searches plus the members on it, wherever it is in the range. Members
+	 * added between pages appear in later pages only if they sort after the
+	 * position reached.
+	 *
+	 * @param startDay The start of the range as an epoch day.
+	 * @param endDay   The end of the range as an epoch day.
+	 * @param position {@link #FIRST_PAGE}, or the position returned with the
+	 *                 previous page.
+	 * @param pageSize The largest number of members on the page.
+	 * @return The page.
+	 */
+	public Page getBornBetween(int startDay, int endDay, long position, int pageSize) {
+		Columns columns = published;
+		long[] entries;
+		if (startDay <= endDay) {
+			entries = dateOfBirthIndex.entriesBetween(startDay, endDay, position, columns.size, pageSize + 1);
+		} else {
+			// The entries for the end day all sort before those for the start day.
+			entries = dateOfBirthIndex.entriesBetween(endDay, endDay, position, columns.size, pageSize + 1);
+			if (entries.length <= pageSize) {
+				long[] rest = dateOfBirthIndex.entriesBetween(startDay, startDay, position, columns.size,
+						pageSize + 1 - entries.length);
+				long[] both = Arrays.copyOf(entries, entries.length + rest.length);
+				System.arraycopy(rest, 0, both, entries.length, rest.length);
+				entries = both;
+			}
+		}
+		int found = Math.min(entries.length, pageSize);
+		ArrayList<DatabaseMember> members = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			members.add(get(columns, DateOfBirthIndex.rowOf(entries[i])));
+		}
+		return new Page(members, entries.length > pageSize ? entries[found - 1] : FIRST_PAGE);
+	}
+
+	/**
+	 * Retrieves one page of the members in an employment category, in insertion
+	 * order.
+	 *
+	 * @param category The employment category to match.
+	 * @param position {@link #FIRST_PAGE}, or the position returned with the
+	 *                 previous page.
+	 * @param pageSize The largest number of members on the page.
+	 * @return The page.
+	 */
+	public Page getByCategory(EmploymentCategory category, long position, int pageSize) {
+		return pageOf(categoryIndex, category, position, pageSize);
+	}
+
+	/**
+	 * Retrieves one page of the members of a sex, in insertion order.
+	 *
+	 * @param sex      The sex to match.
+	 * @param position {@link #FIRST_PAGE}, or the position returned with the
+	 *                 previous page.
+	 * @param pageSize The largest number of members on the page.
+	 * @return The page.
+	 */
+	public Page getBySex(Sex sex, long position, int pageSize) {
+		return pageOf(sexIndex, sex, position, pageSize);
+	}
+
+	/**
+	 * Retrieves one page of the rows holding a value in a bitmap index. The
+	 * position is the last row of the previous page, so members added between
+	 * pages appear on later pages. Only the bitmap words from the position to the
+	 * end of the page are read.
+	 *
+	 * @param index    The bitmap index.
+	 * @param value    The value to match.
+	 * @param position {@link #FIRST_PAGE}, or the position returned with the
+	 *                 previous page.
+	 * @param pageSize The largest number of members on the page.
+	 * @param <E>      The enumeration indexed.
+	 * @return The page.
+	 */
+	private <E extends Enum<E>> Page pageOf(EnumBitmapIndex<E> index, E value, long position, int pageSize) {
+		Columns columns = published;
+		ArrayList<DatabaseMember> members = new ArrayList<>(Math.min(pageSize, columns.size));
+		int from = position == FIRST_PAGE ? 0 : (int) Math.min(Integer.MAX_VALUE, Math.max(0, position + 1));
+		int row = index.nextRow(value, from, columns.size);
+		int last = -1;
+		while (row >= 0 && members.size() < pageSize) {
+			members.add(get(columns, row));
+			last = row;
+			row = index.nextRow(value, row + 1, columns.size);
+		}
+		return new Page(members, row >= 0 ? last : FIRST_PAGE);
+	}
+
+	/**
+	 * Builds the members at the rows set in a bitmap.
+	 *
+	 * @param columns The columns to read.
+	 * @param rows    The bitmap of row positions.
+	 * @return The members in row order.
+	 */
+	private ArrayList<DatabaseMember> membersAt(Columns columns, BitSet rows) {
+		ArrayList<DatabaseMember> result = new ArrayList<>(rows.cardinality());
+		for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+			result.add(get(columns, row));
+		}
+		return result;
+	}
+
+	/**
+	 * Builds the members at the given rows and adds them to a list.
+	 *
+	 * @param result  The list to add to.
+	 * @param columns The columns to read.
+	 * @param rows    The row positions to add.
+	 */
+	private void addRows(ArrayList<DatabaseMember> result, Columns columns, int[] rows) {
+		result.ensureCapacity(result.size() + rows.length);
+		for (int row : rows) {
+			result.add(get(columns, row));
+		}
+	}
+
+	/**
+	 * Gets the counts of members by employment category, sex and date of birth.
+	 * They are kept up to date on every insert, so this costs nothing more than
+	 * reading a field.
+	 *
+	 * @return Counts that are never changed after being returned.
+	 */
+	public MemberCounts getCounts() {
+		return publishedCounts;
+	}
+
+
+	/**
+	 * Gets the number of stored members.
+	 *
+	 * @return The number of members.
+	 */
+	public int size() {
+		return published.size;
+	}
+
+	/**
+	 * Estimates the heap used by the store: the columns, the text arena and the
+	 * indexes.
+	 *
+	 * @return The estimated size in bytes.
+	 */
+	public long sizeInBytes() {
+		long columns = (long) published.indexes.length * (4 + 8 + 2 + 4 + 1 + 1 + 5 * 4);
+		return columns + text.allocatedBytes() + firstNamePool.sizeInBytes() + lastNamePool.sizeInBytes()
+				+ jobTitlePool.sizeInBytes() + staffIdIndex.sizeInBytes() + dateOfBirthIndex.sizeInBytes()
+				+ categoryIndex.sizeInBytes() + sexIndex.sizeInBytes();
+	}
+
+	/**
+	 * Gets the number of text arena bytes saved by storing each distinct first
+	 * name, last name and job title once.
+	 *
+	 * @return The saving in bytes.
+	 */
+	public long pooledBytesSaved() {
+		return firstNamePool.getSavedBytes() + lastNamePool.getSavedBytes() + jobTitlePool.getSavedBytes();
+	}
+
+	/**
+	 * Writes the columns and indexes to a snapshot. No rows may be added while
+	 * this runs.
+	 *
+	 * @param out The snapshot to write to.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException {
+		Columns columns = published;
+		int size = columns.size;
+		out.writeInt(size);
+		out.writeInts(columns.indexes, size);
+		out.writeLongs(columns.staffIds, size);
+		out.writeShorts(columns.staffIdCases, size);
+		out.writeInts(columns.birthDays, size);
+		out.writeBytes(columns.sexes, size);
+		out.writeBytes(columns.categories, size);
+		out.writeInts(columns.firstNames, size);
+		out.writeInts(columns.lastNames, size);
+		out.writeInts(columns.emails, size);
+		out.writeInts(columns.phoneNumbers, size);
+		out.writeInts(columns.jobTitles, size);
+		text.writeTo(out);
+		firstNamePool.writeTo(out);
+		lastNamePool.writeTo(out);
+		jobTitlePool.writeTo(out);
+		staffIdIndex.writeTo(out);
+		dateOfBirthIndex.writeTo(out);
+		categoryIndex.writeTo(out);
+		sexIndex.writeTo(out);
+	}
+
+	/**
+	 * Reads a store written by {@link #writeTo}.
+	 *
+	 * @param in The snapshot to read from.
+	 * @return The store.
+	 * @throws IOException If the snapshot cannot be read.
+	 */
+	static MemberStore readFrom(SnapshotInput in) throws IOException {
+		MemberStore store = new MemberStore();
+		int size = in.readInt();
+		Columns columns = new Columns(size, Math.max(16, size));
+		in.readInts(columns.indexes, size);
+		in.readLongs(columns.staffIds, size);
+		in.readShorts(columns.staffIdCases, size);
+		in.readInts(columns.birthDays, size);
+		in.readBytes(columns.sexes, size);
+		in.readBytes(columns.categories, size);
+		in.readInts(columns.firstNames, size);
+		in.readInts(columns.lastNames, size);
+		in.readInts(columns.emails, size);
+		in.readInts(columns.phoneNumbers, size);
+		in.readInts(columns.jobTitles, size);
+		store.text = TextArena.readFrom(in);
+		store.firstNamePool = TextPool.readFrom(in);
+		store.lastNamePool = TextPool.readFrom(in);
+		store.jobTitlePool = TextPool.readFrom(in);
+		store.staffIdIndex = StaffIdIndex.readFrom(in);
+		store.dateOfBirthIndex = DateOfBirthIndex.readFrom(in);
+		store.categoryIndex = EnumBitmapIndex.readFrom(EmploymentCategory.class, in);
+		store.sexIndex = EnumBitmapIndex.readFrom(Sex.class, in);
+		for (int row = 0; row < size; row++) {
+			store.counts.add(columns.categories[row], columns.sexes[row], columns.birthDays[row]);
+		}
+		store.writing = columns;
+		store.size = size;
+		store.publish();
+		return store;
+	}
+
+	/**
+	 * Makes the rows written so far visible to readers.
+	 */
+	private void publish() {
+		published = writing.withSize(size);
+		publishedCounts = counts.snapshot();
+	}
+
+	/**
+	 * Grows the columns being written so they can hold at least the given number
+	 * of rows. Readers keep using the arrays they already hold.
+	 *
+	 * @param capacity The number of rows needed.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > writing.indexes.length) {
+			writing = writing.withSize(capacity);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/**
+ * The SnapshotFile file is responsible for saving a loaded member store to disk and loading it back on startup.
+ */
+package org.soap.api.store;
+
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+import org.soap.api.utils.JobTitleClassifier;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * The SnapshotFile class writes a {@link MemberStore} to a binary snapshot
+ * holding its columns, text arena and indexes exactly as they are in memory, so
+ * the next start can map the snapshot instead of parsing, validating and
+ * indexing the CSV file again.
+ *
+ * <p>
+ * A snapshot records how many bytes of the CSV file it covers, together with a
+ * CRC32C of those bytes and the file's modification time, a fingerprint of the
+ * enumerations whose ordinals it stores and of the job title keywords that
+ * decided the stored categories, and a CRC32C of its own contents. The CSV
+ * file only ever grows by write-ahead log checkpoints appending lines, so a
+ * snapshot stays usable after a checkpoint: the lines after the bytes it
+ * covers are parsed and added to the store read from it, and the snapshot is
+ * then rewritten to cover them. A CSV file changed within the covered bytes,
+ * a new build or a damaged snapshot falls back to loading the CSV file.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class SnapshotFile {
+
+	/**
+	 * Marks the start of a snapshot file ("MEMBERS1" in little-endian ASCII).
+	 */
+	private static final long MAGIC = 0x31535245424D454DL;
+
+	/**
+	 * Version of the snapshot layout. Increase it whenever the layout of any store
+	 * component changes.
+	 */
+	private static final int VERSION = 3;
+
+	/**
+	 * Size of the buffer the covered bytes of the CSV file are read through.
+	 */
+	private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Logger for snapshots that cannot be used or rewritten.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(SnapshotFile.class.getName());
+
+	/**
+	 * Reads a snapshot if it is still valid for the CSV file. If lines have been
+	 * appended to the CSV file since the snapshot was written, they are added to
+	 * the store and a new snapshot covering them is written.
+	 *
+	 * @param snapshotFile The path of the snapshot.
+	 * @param csvFile      The path of the CSV file the snapshot was built from.
+	 * @return The store, or null if the snapshot is missing, out of date or
+	 *         corrupt.
+	 */
+	public static MemberStore read(String snapshotFile, String csvFile) {
+		MemberStore store;
+		boolean current;
+		try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.READ)) {
+			BasicFileAttributes csv = Files.readAttributes(Paths.get(csvFile), BasicFileAttributes.class);
+			SnapshotInput in = new SnapshotInput(channel);
+			if (!in.verify() || in.readLong() != MAGIC || in.readInt() != VERSION || in.readInt() != fingerprint()) {
+				return null;
+			}
+			long covered = in.readLong();
+			long modified = in.readLong();
+			int checksum = in.readInt();
+			int lines = in.readInt();
+			if (csv.size() < covered) {
+				return null;
+			}
+			current = csv.size() == covered && csv.lastModifiedTime().toMillis() == modified;
+			if (!current && (int) scan(csvFile, covered) != checksum) {
+				return null;
+			}
+			store = MemberStore.readFrom(in);
+			if (!current) {
+				ArrayList<String> problems = new ArrayList<>();
+				CsvLoader.append(store, csvFile, covered, lines + 1, problems);
+				for (String problem : problems) {
+					LOGGER.warning(problem);
+				}
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warning("Ignoring snapshot " + snapshotFile + ": " + e);
+			return null;
+		}
+		if (!current) {
+			try {
+				write(store, snapshotFile, csvFile);
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Could not rewrite snapshot " + snapshotFile, e);
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Writes a snapshot of a store covering the whole CSV file as it is now, which
+	 * must hold exactly the store's rows. The snapshot is written to a temporary
+	 * file and then moved into place, so a failed write never leaves a partial
+	 * snapshot behind.
+	 *
+	 * @param store        The store to write.
+	 * @param snapshotFile The path of the snapshot.
+	 * @param csvFile      The path of the CSV file the store was loaded from.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	public static void write(MemberStore store, String snapshotFile, String csvFile) throws IOException {
+		BasicFileAttributes csv = Files.readAttributes(Paths.get(csvFile), BasicFileAttributes.class);
+		long scanned = scan(csvFile, csv.size());
+		Path target = Paths.get(snapshotFile);
+		Path temporary = Paths.get(snapshotFile + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			SnapshotOutput out = new SnapshotOutput(channel);
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(fingerprint());
+			out.writeLong(csv.size());
+			out.writeLong(csv.lastModifiedTime().toMillis());
+			out.writeInt((int) scanned);
+			out.writeInt((int) (scanned >>> 32));
+			store.writeTo(out);
+			out.finish();
+			channel.force(true);
+		} catch (IOException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the start of the CSV file, computing a CRC32C of its bytes and
+	 * counting its lines. A last line without a line break counts as a line.
+	 *
+	 * @param csvFile The path of the CSV file.
+	 * @param length  The number of bytes to read.
+	 * @return The CRC32C in the low 32 bits and the number of lines in the high 32
+	 *         bits.
+	 * @throws IOException If the file cannot be read or is shorter than the
+	 *                     length.
+	 */
+	private static long scan(String csvFile, long length) throws IOException {
+		CRC32C crc = new CRC32C();
+		long lines = 0;
+		byte last = '\n';
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(Paths.get(csvFile), StandardOpenOption.READ)) {
+			for (long position = 0; position < length;) {
+				buffer.clear().limit((int) Math.min(SCAN_BUFFER_SIZE, length - position));
+				int read = channel.read(buffer, position);
+				if (read < 0) {
+					throw new EOFException(csvFile + " is shorter than " + length + " bytes");
+				}
+				byte[] bytes = buffer.array();
+				crc.update(bytes, 0, read);
+				for (int i = 0; i < read; i++) {
+					if (bytes[i] == '\n') {
+						lines++;
+					}
+				}
+				if (read > 0) {
+					last = bytes[read - 1];
+				}
+				position += read;
+			}
+		}
+		if (last != '\n') {
+			lines++;
+		}
+		return lines << 32 | crc.getValue();
+	}
+
+	/**
+	 * Computes a fingerprint of the enumerations stored by ordinal and of the job
+	 * title keywords, so a snapshot is not read back with a different set or order
+	 * of values, or with categories the current keywords would not give.
+	 *
+	 * @return The fingerprint.
+	 */
+	private static int fingerprint() {
+		return (Arrays.toString(Sex.values()) + Arrays.toString(EmploymentCategory.values())).hashCode() * 31
+				+ JobTitleClassifier.fingerprint();
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * The SnapshotInput file is responsible for reading primitive data back from a memory-mapped snapshot file.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * The SnapshotInput class reads what {@link SnapshotOutput} wrote. The file is
+ * memory-mapped, in one mapping when it is under 2 GiB and in consecutive
+ * mappings otherwise, and arrays are copied out of the mapping in bulk.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class SnapshotInput {
+
+	/**
+	 * Largest region mapped at once, kept a multiple of eight bytes.
+	 */
+	private static final long MAX_WINDOW = Integer.MAX_VALUE & ~7L;
+
+	private final FileChannel channel; // File being read.
+
+	private final long end; // Position of the trailing checksum.
+
+	private MappedByteBuffer window; // Currently mapped region.
+
+	private long windowStart; // File position of the start of the mapped region.
+
+	/**
+	 * Constructs an input over a snapshot file.
+	 *
+	 * @param channel The channel to read from.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	SnapshotInput(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.end = channel.size() - Long.BYTES;
+		map(0);
+	}
+
+	/**
+	 * Checks the trailing checksum against the contents of the file. This must
+	 * be called before anything is read.
+	 *
+	 * @return true if the file is intact, false if it is truncated or corrupt.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	boolean verify() throws IOException {
+		if (end < 0) {
+			return false;
+		}
+		CRC32C checksum = new CRC32C();
+		for (long start = 0; start < end; start += MAX_WINDOW) {
+			int length = (int) Math.min(MAX_WINDOW, end - start);
+			checksum.update(start == 0 ? window.slice(0, length)
+					: channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+		}
+		MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, end, Long.BYTES);
+		return trailer.order(ByteOrder.LITTLE_ENDIAN).getLong(0) == checksum.getValue();
+	}
+
+	/**
+	 * Reads an int.
+	 *
+	 * @return The value read.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	int readInt() throws IOException {
+		ensure(Integer.BYTES);
+		return window.getInt();
+	}
+
+	/**
+	 * Reads a long.
+	 *
+	 * @return The value read.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	long readLong() throws IOException {
+		ensure(Long.BYTES);
+		return window.getLong();
+	}
+
+	/**
+	 * Reads into the start of a byte array.
+	 *
+	 * @param values The array to fill.
+	 * @param count  The number of elements to read.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	void readBytes(byte[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(1);
+			int n = Math.min(count - done, window.remaining());
+			window.get(values, done, n);
+			done += n;
+		}
+	}
+
+	/**
+	 * Reads into the start of a short array.
+	 *
+	 * @param values The array to fill.
+	 * @param count  The number of elements to read.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	void readShorts(short[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(Short.BYTES);
+			int n = Math.min(count - done, window.remaining() / Short.BYTES);
+			window.asShortBuffer().get(values, done, n);
+			window.position(window.position() + n * Short.BYTES);
+			done += n;
+		}
+	}
+
+	/**
+	 * Reads into the start of an int array.
+	 *
+	 * @param values The array to fill.
+	 * @param count  The number of elements to read.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	void readInts(int[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(Integer.BYTES);
+			int n = Math.min(count - done, window.remaining() / Integer.BYTES);
+			window.asIntBuffer().get(values, done, n);
+			window.position(window.position() + n * Integer.BYTES);
+			done += n;
+		}
+	}
+
+	/**
+	 * Reads into the start of a long array.
+	 *
+	 * @param values The array to fill.
+	 * @param count  The number of elements to read.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	void readLongs(long[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(Long.BYTES);
+			int n = Math.min(count - done, window.remaining() / Long.BYTES);
+			window.asLongBuffer().get(values, done, n);
+			window.position(window.position() + n * Long.BYTES);
+			done += n;
+		}
+	}
+
+	/**
+	 * Makes sure at least the given number of bytes can be read from the current
+	 * mapping, mapping the next region of the file if not.
+	 *
+	 * @param bytes The number of bytes needed.
+	 * @throws IOException If the file is too short or cannot be mapped.
+	 */
+	private void ensure(int bytes) throws IOException {
+		if (window.remaining() < bytes) {
+			map(windowStart + window.position());
+			if (window.remaining() < bytes) {
+				throw new IOException("Snapshot ends unexpectedly");
+			}
+		}
+	}
+
+	/**
+	 * Maps the region of the file starting at a position.
+	 *
+	 * @param start The file position to map from.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	private void map(long start) throws IOException {
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, Math.min(MAX_WINDOW, end - start)));
+		window.order(ByteOrder.LITTLE_ENDIAN);
+		windowStart = start;
+	}
+}
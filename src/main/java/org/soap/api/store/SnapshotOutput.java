@@ -0,0 +1,170 @@
+/**
+ * The SnapshotOutput file is responsible for writing primitive data to a snapshot file with a running checksum.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * The SnapshotOutput class writes ints, longs and arrays of primitives to a
+ * file in little-endian order through a direct buffer, keeping a CRC32C of
+ * everything written. Arrays are copied into the buffer in bulk rather than one
+ * element at a time.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class SnapshotOutput {
+
+	private final FileChannel channel; // File being written.
+
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+	private final CRC32C checksum = new CRC32C(); // Checksum of the bytes written so far.
+
+	/**
+	 * Constructs an output writing to the current position of a channel.
+	 *
+	 * @param channel The channel to write to.
+	 */
+	SnapshotOutput(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Writes an int.
+	 *
+	 * @param value The value to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	void writeInt(int value) throws IOException {
+		ensure(Integer.BYTES);
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Writes a long.
+	 *
+	 * @param value The value to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	void writeLong(long value) throws IOException {
+		ensure(Long.BYTES);
+		buffer.putLong(value);
+	}
+
+	/**
+	 * Writes the first elements of a byte array.
+	 *
+	 * @param values The array to write from.
+	 * @param count  The number of elements to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	void writeBytes(byte[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(1);
+			int n = Math.min(count - done, buffer.remaining());
+			buffer.put(values, done, n);
+			done += n;
+		}
+	}
+
+	/**
+	 * Writes the first elements of a short array.
+	 *
+	 * @param values The array to write from.
+	 * @param count  The number of elements to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	void writeShorts(short[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(Short.BYTES);
+			int n = Math.min(count - done, buffer.remaining() / Short.BYTES);
+			buffer.asShortBuffer().put(values, done, n);
+			buffer.position(buffer.position() + n * Short.BYTES);
+			done += n;
+		}
+	}
+
+	/**
+	 * Writes the first elements of an int array.
+	 *
+	 * @param values The array to write from.
+	 * @param count  The number of elements to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	void writeInts(int[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(Integer.BYTES);
+			int n = Math.min(count - done, buffer.remaining() / Integer.BYTES);
+			buffer.asIntBuffer().put(values, done, n);
+			buffer.position(buffer.position() + n * Integer.BYTES);
+			done += n;
+		}
+	}
+
+	/**
+	 * Writes the first elements of a long array.
+	 *
+	 * @param values The array to write from.
+	 * @param count  The number of elements to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	void writeLongs(long[] values, int count) throws IOException {
+		for (int done = 0; done < count;) {
+			ensure(Long.BYTES);
+			int n = Math.min(count - done, buffer.remaining() / Long.BYTES);
+			buffer.asLongBuffer().put(values, done, n);
+			buffer.position(buffer.position() + n * Long.BYTES);
+			done += n;
+		}
+	}
+
+	/**
+	 * Flushes the buffer and appends the checksum of everything written, which is
+	 * not itself included in the checksum.
+	 *
+	 * @throws IOException If the file cannot be written.
+	 */
+	void finish() throws IOException {
+		flush();
+		buffer.putLong(checksum.getValue());
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Makes room in the buffer for at least the given number of bytes.
+	 *
+	 * @param bytes The number of bytes needed.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the file and adds them to the checksum.
+	 *
+	 * @throws IOException If the file cannot be written.
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		checksum.update(buffer.duplicate());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
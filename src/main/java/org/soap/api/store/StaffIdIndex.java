@@ -0,0 +1,227 @@
+/**
+ * The StaffIdIndex file is responsible for mapping packed staff IDs to the row they are stored in.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The StaffIdIndex class is a primary-key index mapping staff IDs to row
+ * positions. Staff IDs are 15 hexadecimal characters, so each one packs into 60
+ * bits of a long (see {@link org.soap.api.utils.Converters#staffIdToKey}). The
+ * index is an open-addressing hash table over primitive arrays, so lookups do
+ * not hash Strings or box keys.
+ *
+ * <p>
+ * The index has a single writer and any number of lock-free readers. A slot's
+ * row is written before its key, and a resize builds a complete new table
+ * before publishing it, so a reader only ever sees whole tables. A reader can
+ * still see a key whose row has not been published yet, so callers check the
+ * returned row against their own view of the data (see {@link MemberStore}).
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class StaffIdIndex {
+
+	/**
+	 * Marker for an unused slot. Packed staff IDs are never negative.
+	 */
+	private static final long EMPTY = -1L;
+
+	/**
+	 * Row returned by {@link #get(long)} when the key is not present.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private volatile Table table; // Current table, replaced as a whole when it grows.
+
+	private int size; // Number of keys stored.
+
+	/**
+	 * The arrays of one generation of the hash table.
+	 */
+	private static final class Table {
+
+		final long[] keys; // Packed staff IDs, or EMPTY for unused slots.
+
+		final int[] rows; // Row position of the member with the key in the same slot.
+
+		/**
+		 * Constructs an empty table.
+		 *
+		 * @param capacity The number of slots, a power of two.
+		 */
+		Table(int capacity) {
+			this.keys = new long[capacity];
+			this.rows = new int[capacity];
+			Arrays.fill(this.keys, EMPTY);
+		}
+	}
+
+	/**
+	 * Constructs an empty StaffIdIndex.
+	 */
+	public StaffIdIndex() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty StaffIdIndex sized to hold the expected number of keys
+	 * without resizing.
+	 *
+	 * @param expectedSize The number of keys the index is expected to hold.
+	 */
+	public StaffIdIndex(int expectedSize) {
+		int capacity = INITIAL_CAPACITY;
+		while ((long) capacity * 3 < (long) expectedSize * 4) {
+			capacity <<= 1;
+		}
+		this.table = new Table(capacity);
+	}
+
+	/**
+	 * Adds a key to the index unless it is already present. Only one thread may
+	 * add keys at a time.
+	 *
+	 * @param key The packed staff ID.
+	 * @param row The row position of the member with that staff ID.
+	 * @return true if the key was added, false if it was already present.
+	 */
+	public boolean put(long key, int row) {
+		Table current = table;
+		if ((size + 1) * 4 > current.keys.length * 3) {
+			current = resize(current);
+		}
+		long[] keys = current.keys;
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		current.rows[slot] = row;
+		keys[slot] = key;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Gets the row stored for a key. This may be called while a key is being
+	 * added; see the class description for what a reader can observe.
+	 *
+	 * @param key The packed staff ID.
+	 * @return The row position, or {@link #NOT_FOUND} if the key is not present.
+	 */
+	public int get(long key) {
+		Table current = table;
+		long[] keys = current.keys;
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		long found;
+		while ((found = keys[slot]) != EMPTY) {
+			if (found == key) {
+				return current.rows[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Gets the number of keys stored in the index.
+	 *
+	 * @return The number of keys.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the heap used by the table arrays.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long sizeInBytes() {
+		return (long) table.keys.length * (Long.BYTES + Integer.BYTES);
+	}
+
+	/**
+	 * Doubles the table, re-inserting every key into a new table before
+	 * publishing it.
+	 *
+	 * @param old The current table.
+	 * @return The new table.
+	 */
+	private Table resize(Table old) {
+		long[] oldKeys = old.keys;
+		int[] oldRows = old.rows;
+		Table grown = new Table(oldKeys.length * 2);
+		long[] keys = grown.keys;
+		int[] rows = grown.rows;
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				rows[slot] = oldRows[i];
+			}
+		}
+		table = grown;
+		return grown;
+	}
+
+	/**
+	 * Spreads the bits of a key so that IDs sharing a prefix do not cluster.
+	 *
+	 * @param key The packed staff ID.
+	 * @return The mixed hash code.
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Writes the index to a snapshot.
+	 *
+	 * @param out The snapshot to write to.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException {
+		Table current = table;
+		out.writeInt(current.keys.length);
+		out.writeInt(size);
+		out.writeLongs(current.keys, current.keys.length);
+		out.writeInts(current.rows, current.rows.length);
+	}
+
+	/**
+	 * Reads an index written by {@link #writeTo}.
+	 *
+	 * @param in The snapshot to read from.
+	 * @return The index.
+	 * @throws IOException If the snapshot cannot be read.
+	 */
+	static StaffIdIndex readFrom(SnapshotInput in) throws IOException {
+		int capacity = in.readInt();
+		StaffIdIndex index = new StaffIdIndex(0);
+		index.size = in.readInt();
+		Table table = new Table(capacity);
+		in.readLongs(table.keys, capacity);
+		in.readInts(table.rows, capacity);
+		index.table = table;
+		return index;
+	}
+}
@@ -0,0 +1,223 @@
+/**
+ * The TextArena file is responsible for storing the text fields of every member in shared byte pages.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The TextArena class stores strings as UTF-8 bytes in shared fixed-size pages
+ * instead of as String objects. Each value is written once as a varint length
+ * followed by its bytes and is referred to by an int reference: the page
+ * number in the high bits and the offset within the page in the low bits. The
+ * arena is append-only, so a reference stays valid for the life of the arena.
+ * It has a single writer; readers need no lock because bytes are never
+ * changed once written and the page table is replaced rather than modified
+ * when it grows.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class TextArena {
+
+	/**
+	 * Number of bits of a reference used for the offset within a page.
+	 */
+	private static final int PAGE_BITS = 20;
+
+	/**
+	 * Size of each page in bytes.
+	 */
+	public static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	private volatile byte[][] pages = new byte[4][]; // Pages in use; only the last one is being written to.
+
+	private int pageCount; // Number of pages allocated.
+
+	private int position = PAGE_SIZE; // Write position within the last page.
+
+	/**
+	 * Appends a string to the arena.
+	 *
+	 * @param value The string to store.
+	 * @return The reference to the stored value.
+	 * @throws IllegalArgumentException If the encoded value does not fit in one
+	 *                                  page, or the arena is full.
+	 */
+	public int add(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return add(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Appends UTF-8 bytes to the arena.
+	 *
+	 * @param bytes  The array holding the bytes.
+	 * @param offset The offset of the first byte.
+	 * @param length The number of bytes.
+	 * @return The reference to the stored value.
+	 * @throws IllegalArgumentException If the encoded value does not fit in one
+	 *                                  page, or the arena is full.
+	 */
+	public int add(byte[] bytes, int offset, int length) {
+		int needed = varintSize(length) + length;
+		if (needed > PAGE_SIZE) {
+			throw new IllegalArgumentException("Text value of " + length + " bytes is too long to store");
+		}
+		if (position + needed > PAGE_SIZE) {
+			newPage();
+		}
+		byte[] page = pages[pageCount - 1];
+		int reference = ((pageCount - 1) << PAGE_BITS) | position;
+		int remaining = length;
+		while (remaining >= 0x80) {
+			page[position++] = (byte) (remaining | 0x80);
+			remaining >>>= 7;
+		}
+		page[position++] = (byte) remaining;
+		System.arraycopy(bytes, offset, page, position, length);
+		position += length;
+		return reference;
+	}
+
+	/**
+	 * Reads a stored value back as a string.
+	 *
+	 * @param reference The reference returned when the value was added.
+	 * @return The stored string.
+	 */
+	public String get(int reference) {
+		byte[] page = pages[reference >>> PAGE_BITS];
+		int offset = reference & (PAGE_SIZE - 1);
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = page[offset++];
+			length |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return new String(page, offset, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Checks whether a stored value equals some UTF-8 bytes.
+	 *
+	 * @param reference The reference returned when the value was added.
+	 * @param bytes     The array holding the bytes.
+	 * @param offset    The offset of the first byte.
+	 * @param length    The number of bytes.
+	 * @return true if the stored value has exactly these bytes.
+	 */
+	boolean matches(int reference, byte[] bytes, int offset, int length) {
+		byte[] page = pages[reference >>> PAGE_BITS];
+		int start = reference & (PAGE_SIZE - 1);
+		int stored = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = page[start++];
+			stored |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return stored == length && Arrays.equals(page, start, start + length, bytes, offset, offset + length);
+	}
+
+	/**
+	 * Gets the number of bytes the arena has allocated.
+	 *
+	 * @return The allocated size in bytes.
+	 */
+	public long allocatedBytes() {
+		return (long) pageCount * PAGE_SIZE;
+	}
+
+	/**
+	 * Gets the number of bytes written to the arena.
+	 *
+	 * @return The used size in bytes.
+	 */
+	public long usedBytes() {
+		return pageCount == 0 ? 0 : (long) (pageCount - 1) * PAGE_SIZE + position;
+	}
+
+	/**
+	 * Starts a new page.
+	 *
+	 * @throws IllegalArgumentException If every reference has been used.
+	 */
+	private void newPage() {
+		if (pageCount == 1 << (31 - PAGE_BITS)) {
+			throw new IllegalArgumentException("Text arena is full");
+		}
+		byte[][] current = pages;
+		if (pageCount == current.length) {
+			current = Arrays.copyOf(current, pageCount * 2);
+		}
+		current[pageCount++] = new byte[PAGE_SIZE];
+		pages = current;
+		position = 0;
+	}
+
+	/**
+	 * Gets the number of arena bytes a value of a given length takes.
+	 *
+	 * @param length The length of the value in bytes.
+	 * @return The number of bytes, including the length prefix.
+	 */
+	static int storedSize(int length) {
+		return varintSize(length) + length;
+	}
+
+	/**
+	 * Gets the number of bytes needed to write a length as a varint.
+	 *
+	 * @param length The length to write.
+	 * @return The number of bytes.
+	 */
+	private static int varintSize(int length) {
+		int size = 1;
+		while (length >= 0x80) {
+			length >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Writes the arena to a snapshot.
+	 *
+	 * @param out The snapshot to write to.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException {
+		out.writeInt(pageCount);
+		out.writeInt(position);
+		for (int page = 0; page < pageCount; page++) {
+			out.writeBytes(pages[page], page == pageCount - 1 ? position : PAGE_SIZE);
+		}
+	}
+
+	/**
+	 * Reads an arena written by {@link #writeTo}.
+	 *
+	 * @param in The snapshot to read from.
+	 * @return The arena.
+	 * @throws IOException If the snapshot cannot be read.
+	 */
+	static TextArena readFrom(SnapshotInput in) throws IOException {
+		TextArena arena = new TextArena();
+		arena.pageCount = in.readInt();
+		arena.position = in.readInt();
+		arena.pages = new byte[Math.max(4, arena.pageCount)][];
+		for (int page = 0; page < arena.pageCount; page++) {
+			arena.pages[page] = new byte[PAGE_SIZE];
+			in.readBytes(arena.pages[page], page == arena.pageCount - 1 ? arena.position : PAGE_SIZE);
+		}
+		return arena;
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ * The TextPool file is responsible for storing each distinct value of a repetitive text column only once.
+ */
+package org.soap.api.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The TextPool class deduplicates the values of one text column, such as first
+ * names or job titles, as they are added to a {@link TextArena}. The first
+ * occurrence of a value is written to the arena as usual and its reference
+ * remembered; later occurrences reuse that reference instead of writing the
+ * bytes again, so every row with the same value shares one copy.
+ *
+ * <p>
+ * The pool is an open-addressing hash table of arena references keyed by the
+ * value's bytes. It remembers at most {@link #LIMIT} distinct values, so a
+ * column that turns out to be mostly unique costs a bounded table and its
+ * further values are simply appended. Like the arena, it has a single writer.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class TextPool {
+
+	/**
+	 * Maximum number of distinct values remembered.
+	 */
+	public static final int LIMIT = 1 << 16;
+
+	private int[] references; // Arena reference plus one of each pooled value, 0 for an empty slot.
+
+	private int[] hashes; // Hash of the value in each slot.
+
+	private int count; // Number of pooled values.
+
+	private long hits; // Number of values found already pooled.
+
+	private long savedBytes; // Arena bytes not written because the value was already pooled.
+
+	/**
+	 * Constructs an empty pool.
+	 */
+	TextPool() {
+		references = new int[256];
+		hashes = new int[256];
+	}
+
+	/**
+	 * Adds a string, reusing the stored copy if the value is already pooled.
+	 *
+	 * @param arena The arena the column is stored in.
+	 * @param value The string to store.
+	 * @return The reference to the stored value.
+	 */
+	int add(TextArena arena, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return add(arena, bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Adds UTF-8 bytes, reusing the stored copy if the value is already pooled.
+	 *
+	 * @param arena  The arena the column is stored in.
+	 * @param bytes  The array holding the bytes.
+	 * @param offset The offset of the first byte.
+	 * @param length The number of bytes.
+	 * @return The reference to the stored value.
+	 */
+	int add(TextArena arena, byte[] bytes, int offset, int length) {
+		int hash = hash(bytes, offset, length);
+		int mask = references.length - 1;
+		int slot = hash & mask;
+		while (references[slot] != 0) {
+			if (hashes[slot] == hash && arena.matches(references[slot] - 1, bytes, offset, length)) {
+				hits++;
+				savedBytes += TextArena.storedSize(length);
+				return references[slot] - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		int reference = arena.add(bytes, offset, length);
+		if (count < LIMIT) {
+			references[slot] = reference + 1;
+			hashes[slot] = hash;
+			if (++count * 2 > references.length) {
+				grow();
+			}
+		}
+		return reference;
+	}
+
+	/**
+	 * Doubles the table, placing every pooled value again.
+	 */
+	private void grow() {
+		int[] oldReferences = references;
+		int[] oldHashes = hashes;
+		references = new int[oldReferences.length * 2];
+		hashes = new int[oldReferences.length * 2];
+		int mask = references.length - 1;
+		for (int i = 0; i < oldReferences.length; i++) {
+			if (oldReferences[i] != 0) {
+				int slot = oldHashes[i] & mask;
+				while (references[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				references[slot] = oldReferences[i];
+				hashes[slot] = oldHashes[i];
+			}
+		}
+	}
+
+	/**
+	 * Hashes a value's bytes.
+	 *
+	 * @param bytes  The array holding the bytes.
+	 * @param offset The offset of the first byte.
+	 * @param length The number of bytes.
+	 * @return The hash, spread so the low bits can index the table.
+	 */
+	private static int hash(byte[] bytes, int offset, int length) {
+		int hash = length;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		return hash * 0x9E3779B9 ^ hash >>> 16;
+	}
+
+	/**
+	 * Gets the number of distinct values pooled.
+	 *
+	 * @return The number of values.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the number of values that reused a pooled copy.
+	 *
+	 * @return The number of values.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of arena bytes saved by reusing pooled copies.
+	 *
+	 * @return The saving in bytes.
+	 */
+	public long getSavedBytes() {
+		return savedBytes;
+	}
+
+	/**
+	 * Gets the heap used by the pool's table.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long sizeInBytes() {
+		return (long) references.length * 8;
+	}
+
+	/**
+	 * Writes the pool to a snapshot.
+	 *
+	 * @param out The snapshot to write to.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException {
+		out.writeInt(references.length);
+		out.writeInt(count);
+		out.writeLong(hits);
+		out.writeLong(savedBytes);
+		out.writeInts(references, references.length);
+		out.writeInts(hashes, hashes.length);
+	}
+
+	/**
+	 * Reads a pool written by {@link #writeTo}.
+	 *
+	 * @param in The snapshot to read from.
+	 * @return The pool.
+	 * @throws IOException If the snapshot cannot be read.
+	 */
+	static TextPool readFrom(SnapshotInput in) throws IOException {
+		TextPool pool = new TextPool();
+		int capacity = in.readInt();
+		pool.count = in.readInt();
+		pool.hits = in.readLong();
+		pool.savedBytes = in.readLong();
+		pool.references = new int[capacity];
+		pool.hashes = new int[capacity];
+		in.readInts(pool.references, capacity);
+		in.readInts(pool.hashes, capacity);
+		return pool;
+	}
+}
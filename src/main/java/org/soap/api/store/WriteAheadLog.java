@@ -0,0 +1,639 @@
+/**
+ * The WriteAheadLog file is responsible for making inserts durable before they are checkpointed into the CSV file.
+ */
+package org.soap.api.store;
+
+import org.soap.api.utils.Constants;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * The WriteAheadLog class is an append-only log of new CSV lines that makes
+ * inserts durable without writing to the CSV file itself. Each record holds the
+ * lines of one insert request with its length and a CRC32C, so a record torn
+ * by a crash is recognised and cut off at the next start.
+ *
+ * <p>
+ * When the log is synced is set by {@link Constants#WAL_SYNC_PROPERTY}: after
+ * every insert request, once per group commit, or in the background every few
+ * milliseconds. From time to time, and at startup and shutdown, the log is
+ * checkpointed: its lines are appended to the CSV file, the CSV file is synced,
+ * and the log is replaced by an empty one.
+ * </p>
+ *
+ * <p>
+ * The log header records the length of the CSV file the log continues from. A
+ * checkpoint first cuts the CSV file back to that length, so a checkpoint cut
+ * short by a crash, whether it left a partial line or a complete copy of the
+ * lines, is simply done again from the start at the next checkpoint. The empty
+ * log is written to a temporary file and moved into place, and the directory
+ * is synced after the move, so at every moment either the old log or the new
+ * one is on disk.
+ * </p>
+ *
+ * <p>
+ * A failed append, sync or checkpoint is logged and counted, and the counts
+ * and the last failure are shown over JMX, so a disk problem is visible while
+ * the service keeps running.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class WriteAheadLog implements WriteAheadLogMBean {
+
+	/**
+	 * Marks the start of a log file ("MEMBWAL1" in little-endian ASCII).
+	 */
+	private static final long MAGIC = 0x314C4157424D454DL;
+
+	/**
+	 * Version of the log layout.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Size of the header: magic, version, CSV length and a CRC32C of the three.
+	 */
+	private static final int HEADER_SIZE = 24;
+
+	/**
+	 * Size of the length and CRC32C in front of each record.
+	 */
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	/**
+	 * Logger for failures and recovery.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(WriteAheadLog.class.getName());
+
+	private final Path logFile; // Path of the log.
+
+	private final Path csvFile; // Path of the CSV file the log is checkpointed into.
+
+	private final String syncPolicy; // One of the Constants.WAL_SYNC_ values.
+
+	/**
+	 * Lock guarding the channel and the fields below it. A ReentrantLock rather
+	 * than a monitor, so a virtual thread waiting for a sync does not pin its
+	 * carrier thread.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private FileChannel channel; // Open log, positioned after the last record.
+
+	private long csvBase; // Length of the CSV file the log continues from.
+
+	private boolean unsynced; // Whether records have been written since the last sync.
+
+	private volatile long size; // Length of the log.
+
+	private ScheduledExecutorService background; // Runs interval syncs and checkpoints.
+
+	private final LongAdder records = new LongAdder(); // Records appended.
+
+	private final LongAdder syncs = new LongAdder(); // Syncs of the log.
+
+	private final LongAdder checkpoints = new LongAdder(); // Checkpoints into the CSV file.
+
+	private final LongAdder failedAppends = new LongAdder(); // Appends that could not be written or synced.
+
+	private final LongAdder failedSyncs = new LongAdder(); // Background syncs that failed.
+
+	private final LongAdder failedCheckpoints = new LongAdder(); // Checkpoints that failed.
+
+	private volatile String lastFailure; // Description of the last failure, or null.
+
+	/**
+	 * Constructs a log that is not yet open.
+	 *
+	 * @param logFile    The path of the log.
+	 * @param csvFile    The path of the CSV file.
+	 * @param syncPolicy The sync policy.
+	 */
+	private WriteAheadLog(Path logFile, Path csvFile, String syncPolicy) {
+		this.logFile = logFile;
+		this.csvFile = csvFile;
+		this.syncPolicy = syncPolicy;
+	}
+
+	/**
+	 * Opens the log for a CSV file with the sync policy chosen by
+	 * {@link Constants#WAL_SYNC_PROPERTY}, creating it if it does not exist. Any
+	 * records left by the previous run are checkpointed into the CSV file first,
+	 * after cutting off a record torn by a crash, so the CSV file is complete
+	 * when this returns and can be loaded as usual.
+	 *
+	 * @param logFile The path of the log.
+	 * @param csvFile The path of the CSV file.
+	 * @return The open log.
+	 * @throws IOException              If the log or the CSV file cannot be read
+	 *                                  or written.
+	 * @throws IllegalArgumentException If the sync policy is not valid.
+	 */
+	public static WriteAheadLog open(String logFile, String csvFile) throws IOException {
+		String policy = System.getProperty(Constants.WAL_SYNC_PROPERTY, Constants.DEFAULT_WAL_SYNC)
+				.toLowerCase(Locale.ROOT);
+		if (!policy.equals(Constants.WAL_SYNC_WRITE) && !policy.equals(Constants.WAL_SYNC_GROUP)
+				&& !policy.equals(Constants.WAL_SYNC_INTERVAL)) {
+			throw new IllegalArgumentException(Constants.WAL_SYNC_PROPERTY + " must be " + Constants.WAL_SYNC_WRITE
+					+ ", " + Constants.WAL_SYNC_GROUP + " or " + Constants.WAL_SYNC_INTERVAL + " but was " + policy);
+		}
+		WriteAheadLog log = new WriteAheadLog(Paths.get(logFile), Paths.get(csvFile), policy);
+		log.lock.lock();
+		try {
+			log.recover();
+		} finally {
+			log.lock.unlock();
+		}
+		return log;
+	}
+
+	/**
+	 * Starts the background thread that syncs the log under the interval policy
+	 * and checkpoints it every {@link Constants#WAL_CHECKPOINT_INTERVAL_PROPERTY}
+	 * milliseconds.
+	 */
+	public void start() {
+		background = Executors
+				.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("wal-").daemon(true).factory());
+		if (syncPolicy.equals(Constants.WAL_SYNC_INTERVAL)) {
+			long interval = Long.getLong(Constants.WAL_SYNC_INTERVAL_PROPERTY, Constants.DEFAULT_WAL_SYNC_INTERVAL);
+			background.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+		}
+		long interval = Long.getLong(Constants.WAL_CHECKPOINT_INTERVAL_PROPERTY,
+				Constants.DEFAULT_WAL_CHECKPOINT_INTERVAL);
+		background.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background thread, checkpoints the log and closes it. Called on
+	 * shutdown so that nothing written under the interval policy is lost.
+	 */
+	public void close() {
+		if (background != null) {
+			background.shutdownNow();
+		}
+		lock.lock();
+		try {
+			if (channel != null) {
+				checkpointLocked();
+				channel.close();
+				channel = null;
+			}
+		} catch (IOException e) {
+			failed(failedCheckpoints, "Checkpoint on shutdown", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends records to the log and syncs them as the policy requires. Each
+	 * payload becomes one record. Under the write policy each record is written
+	 * and synced on its own; under the group policy they are written together and
+	 * synced once; under the interval policy they are written together and synced
+	 * later in the background.
+	 *
+	 * @param payloads The CSV lines of each insert request, encoded as UTF-8.
+	 * @return true if the records were written, false if the log could not be
+	 *         written to, in which case none of them were.
+	 */
+	public boolean append(List<byte[]> payloads) {
+		if (payloads.isEmpty()) {
+			return true;
+		}
+		ByteBuffer[] buffers = new ByteBuffer[payloads.size()];
+		CRC32C crc = new CRC32C();
+		for (int i = 0; i < buffers.length; i++) {
+			byte[] payload = payloads.get(i);
+			crc.reset();
+			crc.update(payload);
+			ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+			buffers[i] = buffer;
+		}
+		lock.lock();
+		long start = size;
+		try {
+			if (channel == null) {
+				throw new IOException("Write-ahead log " + logFile + " is closed");
+			}
+			if (syncPolicy.equals(Constants.WAL_SYNC_WRITE)) {
+				for (ByteBuffer buffer : buffers) {
+					writeFully(channel, buffer);
+					force();
+				}
+			} else {
+				writeFully(channel, buffers);
+				if (syncPolicy.equals(Constants.WAL_SYNC_GROUP)) {
+					force();
+				} else {
+					unsynced = true;
+				}
+			}
+			size = channel.position();
+			records.add(buffers.length);
+			return true;
+		} catch (IOException e) {
+			failed(failedAppends, "Append of " + buffers.length + " records", e);
+			try {
+				if (channel != null) {
+					channel.truncate(start);
+					channel.position(start);
+				}
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Syncs records written since the last sync, if there are any.
+	 */
+	public void sync() {
+		lock.lock();
+		try {
+			if (unsynced && channel != null) {
+				force();
+			}
+		} catch (IOException e) {
+			failed(failedSyncs, "Sync", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checkpoints the log into the CSV file, unless it is empty. Inserts wait
+	 * while the checkpoint runs. If the checkpoint fails the log is left as it is,
+	 * the failure is logged and counted, and the next checkpoint tries again.
+	 */
+	@Override
+	public void checkpoint() {
+		lock.lock();
+		try {
+			if (channel != null) {
+				checkpointLocked();
+			}
+		} catch (IOException e) {
+			failed(failedCheckpoints, "Checkpoint", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the sync policy in use.
+	 *
+	 * @return The policy name.
+	 */
+	@Override
+	public String getSyncPolicy() {
+		return syncPolicy;
+	}
+
+	/**
+	 * Gets the number of records appended to the log.
+	 *
+	 * @return The number of records.
+	 */
+	@Override
+	public long getRecords() {
+		return records.sum();
+	}
+
+	/**
+	 * Gets the number of times the log has been synced to disk.
+	 *
+	 * @return The number of syncs.
+	 */
+	@Override
+	public long getSyncs() {
+		return syncs.sum();
+	}
+
+	/**
+	 * Gets the number of checkpoints into the CSV file.
+	 *
+	 * @return The number of checkpoints.
+	 */
+	@Override
+	public long getCheckpoints() {
+		return checkpoints.sum();
+	}
+
+	/**
+	 * Gets the size of the log, which is the data not yet checkpointed plus a
+	 * small header.
+	 *
+	 * @return The size in bytes.
+	 */
+	@Override
+	public long getSizeInBytes() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of appends that could not be written or synced. The inserts
+	 * they carried were reported as not saved.
+	 *
+	 * @return The number of failed appends.
+	 */
+	@Override
+	public long getFailedAppends() {
+		return failedAppends.sum();
+	}
+
+	/**
+	 * Gets the number of background syncs that failed under the interval policy.
+	 *
+	 * @return The number of failed syncs.
+	 */
+	@Override
+	public long getFailedSyncs() {
+		return failedSyncs.sum();
+	}
+
+	/**
+	 * Gets the number of checkpoints that failed, leaving the log to grow until
+	 * one succeeds.
+	 *
+	 * @return The number of failed checkpoints.
+	 */
+	@Override
+	public long getFailedCheckpoints() {
+		return failedCheckpoints.sum();
+	}
+
+	/**
+	 * Gets a description of the last failure of the log.
+	 *
+	 * @return The description, or null if nothing has failed.
+	 */
+	@Override
+	public String getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Records a failure: logs it, counts it and keeps its description for JMX.
+	 *
+	 * @param counter The counter of failures of this kind.
+	 * @param action  What failed.
+	 * @param e       The exception.
+	 */
+	private void failed(LongAdder counter, String action, IOException e) {
+		counter.increment();
+		lastFailure = action + " of write-ahead log " + logFile + " failed: " + e;
+		LOGGER.log(Level.SEVERE, lastFailure, e);
+	}
+
+	/**
+	 * Opens the log left by the previous run, cuts off a torn record at its end
+	 * and checkpoints the rest. A missing log, or one without a valid header, is
+	 * replaced by an empty log continuing from the current CSV file. The lock
+	 * must be held.
+	 *
+	 * @throws IOException If the log or the CSV file cannot be read or written.
+	 */
+	private void recover() throws IOException {
+		channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		long base = readHeader();
+		if (base < 0) {
+			if (channel.size() > 0) {
+				LOGGER.warning("Ignoring write-ahead log " + logFile + " without a valid header");
+			}
+			reset(Files.exists(csvFile) ? Files.size(csvFile) : 0);
+			return;
+		}
+		csvBase = base;
+		long end = scan();
+		if (end < channel.size()) {
+			LOGGER.warning("Truncating torn record at byte " + end + " of write-ahead log " + logFile);
+			channel.truncate(end);
+			channel.force(true);
+		}
+		channel.position(end);
+		size = end;
+		checkpointLocked();
+	}
+
+	/**
+	 * Reads the log header.
+	 *
+	 * @return The length of the CSV file the log continues from, or -1 if the
+	 *         header is missing or not valid.
+	 * @throws IOException If the log cannot be read.
+	 */
+	private long readHeader() throws IOException {
+		if (channel.size() < HEADER_SIZE) {
+			return -1;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header, 0);
+		CRC32C crc = new CRC32C();
+		crc.update(header.array(), 0, HEADER_SIZE - 4);
+		if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION
+				|| header.getInt(HEADER_SIZE - 4) != (int) crc.getValue()) {
+			return -1;
+		}
+		return header.getLong(12);
+	}
+
+	/**
+	 * Finds the end of the last complete record, stopping at the first record
+	 * whose length runs past the end of the log or whose checksum does not match.
+	 *
+	 * @return The position just after the last complete record.
+	 * @throws IOException If the log cannot be read.
+	 */
+	private long scan() throws IOException {
+		long length = channel.size();
+		long position = HEADER_SIZE;
+		ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		CRC32C crc = new CRC32C();
+		while (length - position >= RECORD_HEADER_SIZE) {
+			recordHeader.clear();
+			readFully(channel, recordHeader, position);
+			int payloadLength = recordHeader.getInt(0);
+			if (payloadLength <= 0 || payloadLength > length - position - RECORD_HEADER_SIZE) {
+				break;
+			}
+			ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+			readFully(channel, payload, position + RECORD_HEADER_SIZE);
+			crc.reset();
+			crc.update(payload.array());
+			if (recordHeader.getInt(4) != (int) crc.getValue()) {
+				break;
+			}
+			position += RECORD_HEADER_SIZE + payloadLength;
+		}
+		return position;
+	}
+
+	/**
+	 * Appends every record of the log to the CSV file, syncs it and replaces the
+	 * log by an empty one continuing from the new end of the CSV file. The lock
+	 * must be held.
+	 *
+	 * @throws IOException If the log or the CSV file cannot be read or written.
+	 */
+	private void checkpointLocked() throws IOException {
+		long end = size;
+		if (end <= HEADER_SIZE) {
+			return;
+		}
+		long newBase;
+		try (FileChannel csv = FileChannel.open(csvFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			long position = Math.min(csvBase, csv.size());
+			csv.truncate(position);
+			if (position > 0) {
+				ByteBuffer last = ByteBuffer.allocate(1);
+				readFully(csv, last, position - 1);
+				if (last.get(0) != '\n') {
+					writeFully(csv.position(position), ByteBuffer.wrap(new byte[] { '\n' }));
+					position++;
+				}
+			}
+			csv.position(position);
+			ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			for (long record = HEADER_SIZE; record < end;) {
+				recordHeader.clear();
+				readFully(channel, recordHeader, record);
+				int payloadLength = recordHeader.getInt(0);
+				long from = record + RECORD_HEADER_SIZE;
+				long copied = 0;
+				while (copied < payloadLength) {
+					copied += channel.transferTo(from + copied, payloadLength - copied, csv);
+				}
+				record = from + payloadLength;
+			}
+			csv.force(true);
+			newBase = csv.size();
+		}
+		reset(newBase);
+		checkpoints.increment();
+	}
+
+	/**
+	 * Replaces the log by an empty one continuing from the given length of the
+	 * CSV file. The new log is written to a temporary file, synced and moved into
+	 * place, and the directory is synced so the move itself survives a crash. The
+	 * lock must be held.
+	 *
+	 * @param base The length of the CSV file.
+	 * @throws IOException If the log cannot be written.
+	 */
+	private void reset(long base) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC).putInt(VERSION).putLong(base);
+		CRC32C crc = new CRC32C();
+		crc.update(header.array(), 0, HEADER_SIZE - 4);
+		header.putInt((int) crc.getValue()).flip();
+		Path temporary = Paths.get(logFile + ".tmp");
+		try (FileChannel newLog = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeFully(newLog, header);
+			newLog.force(true);
+		}
+		Files.move(temporary, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(logFile);
+		channel.close();
+		channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		channel.position(HEADER_SIZE);
+		csvBase = base;
+		size = HEADER_SIZE;
+		unsynced = false;
+	}
+
+	/**
+	 * Syncs the directory holding a file, making a file created or renamed in it
+	 * durable. Some platforms, such as Windows, cannot open a directory; there
+	 * the rename is left to the file system.
+	 *
+	 * @param file The file.
+	 * @throws IOException If the directory cannot be synced.
+	 */
+	private static void syncDirectory(Path file) throws IOException {
+		FileChannel directory;
+		try {
+			directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ);
+		} catch (IOException e) {
+			return;
+		}
+		try (directory) {
+			directory.force(true);
+		}
+	}
+
+	/**
+	 * Syncs the log to disk. The lock must be held.
+	 *
+	 * @throws IOException If the log cannot be synced.
+	 */
+	private void force() throws IOException {
+		channel.force(false);
+		unsynced = false;
+		syncs.increment();
+	}
+
+	/**
+	 * Writes buffers to a channel at its position, looping until every byte is
+	 * written.
+	 *
+	 * @param channel The channel.
+	 * @param buffers The buffers to write.
+	 * @throws IOException If the channel cannot be written.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer... buffers) throws IOException {
+		ByteBuffer last = buffers[buffers.length - 1];
+		while (last.hasRemaining()) {
+			channel.write(buffers);
+		}
+	}
+
+	/**
+	 * Fills a buffer from a channel at a given position.
+	 *
+	 * @param channel  The channel.
+	 * @param buffer   The buffer to fill.
+	 * @param position The position to read from.
+	 * @throws IOException If the channel cannot be read or ends too soon.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * The WriteAheadLogMBean file is responsible for defining the management interface of the write-ahead log.
+ */
+package org.soap.api.store;
+
+/**
+ * The WriteAheadLogMBean interface is the JMX view of the {@link WriteAheadLog}
+ * counters, showing how many syncs inserts cost and how far the log has grown
+ * since the last checkpoint.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public interface WriteAheadLogMBean {
+
+	/**
+	 * Gets the sync policy in use.
+	 *
+	 * @return The policy name.
+	 */
+	String getSyncPolicy();
+
+	/**
+	 * Gets the number of records appended to the log.
+	 *
+	 * @return The number of records.
+	 */
+	long getRecords();
+
+	/**
+	 * Gets the number of times the log has been synced to disk.
+	 *
+	 * @return The number of syncs.
+	 */
+	long getSyncs();
+
+	/**
+	 * Gets the number of checkpoints into the CSV file.
+	 *
+	 * @return The number of checkpoints.
+	 */
+	long getCheckpoints();
+
+	/**
+	 * Gets the size of the log, which is the data not yet checkpointed plus a
+	 * small header.
+	 *
+	 * @return The size in bytes.
+	 */
+	long getSizeInBytes();
+
+	/**
+	 * Gets the number of appends that could not be written or synced.
+	 *
+	 * @return The number of failed appends.
+	 */
+	long getFailedAppends();
+
+	/**
+	 * Gets the number of background syncs that failed.
+	 *
+	 * @return The number of failed syncs.
+	 */
+	long getFailedSyncs();
+
+	/**
+	 * Gets the number of checkpoints that failed.
+	 *
+	 * @return The number of failed checkpoints.
+	 */
+	long getFailedCheckpoints();
+
+	/**
+	 * Gets a description of the last failure of the log.
+	 *
+	 * @return The description, or null if nothing has failed.
+	 */
+	String getLastFailure();
+
+	/**
+	 * Checkpoints the log into the CSV file now.
+	 */
+	void checkpoint();
+}
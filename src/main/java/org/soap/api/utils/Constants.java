@@ -40,13 +40,227 @@ public class Constants {
 	 */
 	public static final String DATE_FORMAT = "yyyy-MM-dd";
 
+	/**
+	 * System property overriding {@link #FILE_PATH}.
+	 */
+	public static final String FILE_PATH_PROPERTY = "soap.csv";
+
 	/**
 	 * File path to the CSV file containing data.
 	 */
-	public static final String FILE_PATH = "/Users/zachealy/git/CSF205_Demonstrations/CW1/people-100.csv";
+	public static final String FILE_PATH = System.getProperty(FILE_PATH_PROPERTY,
+			"/Users/zachealy/git/CSF205_Demonstrations/CW1/people-100.csv");
+
+	/**
+	 * File path to the binary snapshot of the data loaded from the CSV file.
+	 */
+	public static final String SNAPSHOT_PATH = FILE_PATH + ".snapshot";
+
+	/**
+	 * File path to the write-ahead log of records not yet checkpointed into the
+	 * CSV file.
+	 */
+	public static final String WAL_PATH = FILE_PATH + ".wal";
 
 	/**
 	 * Delimiter used in the CSV file for separating values.
 	 */
 	public static final String DELIMITER = ",";
+
+	/**
+	 * Header line of the CSV file, naming its columns.
+	 */
+	public static final String CSV_HEADER = "Index,User Id,First Name,Last Name,Sex,Email,Phone,Date of birth,Job Title";
+
+	/**
+	 * System property overriding {@link #ENDPOINT_ADDRESS}.
+	 */
+	public static final String ENDPOINT_ADDRESS_PROPERTY = "soap.address";
+
+	/**
+	 * Address the web service is published at.
+	 */
+	public static final String ENDPOINT_ADDRESS = System.getProperty(ENDPOINT_ADDRESS_PROPERTY,
+			"http://localhost:7777/190931/people");
+
+	/**
+	 * System property that stops the endpoint from answering in FastInfoset when
+	 * set to false.
+	 */
+	public static final String FAST_INFOSET_PROPERTY = "soap.fastinfoset";
+
+	/**
+	 * Whether the endpoint answers in FastInfoset, a binary encoding of the XML
+	 * infoset, to clients that accept it. Clients that do not ask for it are
+	 * always answered in text XML.
+	 */
+	public static final boolean FAST_INFOSET_ENABLED = !"false"
+			.equalsIgnoreCase(System.getProperty(FAST_INFOSET_PROPERTY));
+
+	/**
+	 * System property choosing the executor that runs web service requests:
+	 * {@value #EXECUTOR_VIRTUAL} or {@value #EXECUTOR_PLATFORM}.
+	 */
+	public static final String EXECUTOR_PROPERTY = "soap.executor";
+
+	/**
+	 * Executor running each request on its own virtual thread.
+	 */
+	public static final String EXECUTOR_VIRTUAL = "virtual";
+
+	/**
+	 * Executor running requests on a bounded pool of platform threads.
+	 */
+	public static final String EXECUTOR_PLATFORM = "platform";
+
+	/**
+	 * Executor used when {@link #EXECUTOR_PROPERTY} is not set.
+	 */
+	public static final String DEFAULT_EXECUTOR = EXECUTOR_VIRTUAL;
+
+	/**
+	 * System property setting the number of threads in the platform thread pool.
+	 */
+	public static final String POOL_SIZE_PROPERTY = "soap.pool.size";
+
+	/**
+	 * Number of threads in the platform thread pool when
+	 * {@link #POOL_SIZE_PROPERTY} is not set.
+	 */
+	public static final int DEFAULT_POOL_SIZE = 200;
+
+	/**
+	 * System property setting how many requests may wait for a platform thread.
+	 * When the queue is full the HTTP server thread runs the request itself, which
+	 * stops it accepting new requests until it is done.
+	 */
+	public static final String QUEUE_SIZE_PROPERTY = "soap.pool.queue";
+
+	/**
+	 * Number of requests that may wait for a platform thread when
+	 * {@link #QUEUE_SIZE_PROPERTY} is not set.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	/**
+	 * System property setting the largest total number of members the query
+	 * result cache may hold; 0 disables the cache.
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "soap.cache.members";
+
+	/**
+	 * Largest total number of members held by the query result cache when
+	 * {@link #CACHE_SIZE_PROPERTY} is not set.
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 1_000_000;
+
+	/**
+	 * Largest number of members a paged query returns on one page.
+	 */
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	/**
+	 * System property that turns off recording of the per-operation metrics when
+	 * set to false.
+	 */
+	public static final String METRICS_PROPERTY = "soap.metrics";
+
+	/**
+	 * System property choosing when the write-ahead log is synced to disk:
+	 * {@value #WAL_SYNC_WRITE}, {@value #WAL_SYNC_GROUP} or
+	 * {@value #WAL_SYNC_INTERVAL}.
+	 */
+	public static final String WAL_SYNC_PROPERTY = "soap.wal.sync";
+
+	/**
+	 * Sync after every insert request, so each request pays for its own sync.
+	 */
+	public static final String WAL_SYNC_WRITE = "write";
+
+	/**
+	 * Sync once per group commit, shared by the inserts committed together.
+	 */
+	public static final String WAL_SYNC_GROUP = "group";
+
+	/**
+	 * Sync in the background every {@link #WAL_SYNC_INTERVAL_PROPERTY}
+	 * milliseconds. Inserts return before they are synced and up to one interval
+	 * of them can be lost in a crash.
+	 */
+	public static final String WAL_SYNC_INTERVAL = "interval";
+
+	/**
+	 * Sync policy used when {@link #WAL_SYNC_PROPERTY} is not set.
+	 */
+	public static final String DEFAULT_WAL_SYNC = WAL_SYNC_GROUP;
+
+	/**
+	 * System property setting the milliseconds between background syncs of the
+	 * write-ahead log under the {@value #WAL_SYNC_INTERVAL} policy.
+	 */
+	public static final String WAL_SYNC_INTERVAL_PROPERTY = "soap.wal.sync.interval";
+
+	/**
+	 * Milliseconds between background syncs when
+	 * {@link #WAL_SYNC_INTERVAL_PROPERTY} is not set.
+	 */
+	public static final int DEFAULT_WAL_SYNC_INTERVAL = 10;
+
+	/**
+	 * System property setting the milliseconds between checkpoints of the
+	 * write-ahead log into the CSV file.
+	 */
+	public static final String WAL_CHECKPOINT_INTERVAL_PROPERTY = "soap.wal.checkpoint.interval";
+
+	/**
+	 * Milliseconds between checkpoints when
+	 * {@link #WAL_CHECKPOINT_INTERVAL_PROPERTY} is not set.
+	 */
+	public static final int DEFAULT_WAL_CHECKPOINT_INTERVAL = 60_000;
+
+	/**
+	 * System property that writes list responses from cached XML fragments of each
+	 * member when set to true.
+	 */
+	public static final String XML_FRAGMENTS_PROPERTY = "soap.xml.fragments";
+
+	/**
+	 * Whether list responses in text XML are written from cached XML fragments
+	 * instead of being marshalled by JAXB. Off unless
+	 * {@link #XML_FRAGMENTS_PROPERTY} is set to true.
+	 */
+	public static final boolean XML_FRAGMENTS_ENABLED = Boolean.getBoolean(XML_FRAGMENTS_PROPERTY);
+
+	/**
+	 * System property setting the largest total size in bytes of the cached XML
+	 * fragments.
+	 */
+	public static final String XML_FRAGMENT_CACHE_PROPERTY = "soap.xml.fragments.cache";
+
+	/**
+	 * Largest total size in bytes of the cached XML fragments when
+	 * {@link #XML_FRAGMENT_CACHE_PROPERTY} is not set.
+	 */
+	public static final long DEFAULT_XML_FRAGMENT_CACHE = 256L * 1024 * 1024;
+
+	/**
+	 * System property choosing how the web service reads requests and writes
+	 * responses: {@value #ENDPOINT_JAXB} or {@value #ENDPOINT_STAX}.
+	 */
+	public static final String ENDPOINT_PROPERTY = "soap.endpoint";
+
+	/**
+	 * Endpoint built from the DatabaseServer interface, with JAXB databinding.
+	 */
+	public static final String ENDPOINT_JAXB = "jaxb";
+
+	/**
+	 * Endpoint serving the same contract with hand-written StAX code.
+	 */
+	public static final String ENDPOINT_STAX = "stax";
+
+	/**
+	 * Endpoint used when {@link #ENDPOINT_PROPERTY} is not set.
+	 */
+	public static final String DEFAULT_ENDPOINT = ENDPOINT_JAXB;
 }
@@ -10,8 +10,10 @@ import org.soap.api.exceptions.InvalidSexException;
 import org.soap.api.models.EmploymentCategory;
 import org.soap.api.models.Sex;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.Month;
+import java.time.Year;
 
 /**
  * This utility class provides methods for converting data types and performing
@@ -61,6 +63,65 @@ public class Converters {
 		}
 	}
 
+	/**
+	 * Packs a staff ID into a long. Staff IDs are 15 hexadecimal characters, which
+	 * fit into the low 60 bits, so letter case does not affect the result.
+	 *
+	 * @param staffId The staff ID to convert.
+	 * @return The packed staff ID, or -1 if the string is not 15 hexadecimal
+	 *         characters.
+	 */
+	public static long staffIdToKey(CharSequence staffId) {
+		if (staffId == null || staffId.length() != 15) {
+			return -1;
+		}
+		long key = 0;
+		for (int i = 0; i < 15; i++) {
+			int digit = Character.digit(staffId.charAt(i), 16);
+			if (digit < 0) {
+				return -1;
+			}
+			key = (key << 4) | digit;
+		}
+		return key;
+	}
+
+	/**
+	 * Records the letter case of a staff ID, which {@link #staffIdToKey} discards.
+	 * Bit i is set when character i is an upper case letter.
+	 *
+	 * @param staffId The staff ID, already known to be 15 hexadecimal characters.
+	 * @return The case mask.
+	 */
+	public static short staffIdCaseMask(CharSequence staffId) {
+		int mask = 0;
+		for (int i = 0; i < 15; i++) {
+			char c = staffId.charAt(i);
+			if (c >= 'A' && c <= 'F') {
+				mask |= 1 << i;
+			}
+		}
+		return (short) mask;
+	}
+
+	/**
+	 * Converts a packed staff ID back into its string form.
+	 *
+	 * @param key      The packed staff ID from {@link #staffIdToKey}.
+	 * @param caseMask The case mask from {@link #staffIdCaseMask}.
+	 * @return The staff ID as originally written.
+	 */
+	public static String keyToStaffId(long key, short caseMask) {
+		byte[] chars = new byte[15];
+		for (int i = 14; i >= 0; i--) {
+			int digit = (int) (key & 0xF);
+			char c = Character.forDigit(digit, 16);
+			chars[i] = (byte) ((caseMask & (1 << i)) != 0 ? Character.toUpperCase(c) : c);
+			key >>>= 4;
+		}
+		return new String(chars, StandardCharsets.ISO_8859_1);
+	}
+
 	/**
 	 * Converts a string to a LocalDate object.
 	 *
@@ -70,16 +131,62 @@ public class Converters {
 	 * @throws InvalidDateException If the provided date of birth is not in a valid
 	 *                              format.
 	 */
-	public static LocalDate stringToLocalDate(String dateOfBirth) throws InvalidDateException {
-		if (Validators.validateRegEx(dateOfBirth, Constants.DOB_REGEX_PATTERN)) {
-			DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern(Constants.DATE_FORMAT);
-			LocalDate returnDate = LocalDate.parse(dateOfBirth, dateFormat);
-			return returnDate;
+	public static LocalDate stringToLocalDate(CharSequence dateOfBirth) throws InvalidDateException {
+		if (Validators.validateDate(dateOfBirth)) {
+			int year = digits(dateOfBirth, 0, 4);
+			int month = digits(dateOfBirth, 5, 7);
+			int day = digits(dateOfBirth, 8, 10);
+			if (year == 0) {
+				throw new InvalidDateException("Error: Date of birth format invalid");
+			}
+			// Days past the end of the month resolve to its last day, as DATE_FORMAT does.
+			return LocalDate.of(year, month, Math.min(day, Month.of(month).length(Year.isLeap(year))));
 		} else {
 			throw new InvalidDateException("Error: Date of birth format invalid");
 		}
 	}
 
+	/**
+	 * Reads a run of decimal digits from a string that has already been
+	 * validated.
+	 *
+	 * @param string The string to read from.
+	 * @param from   The index of the first digit.
+	 * @param to     The index after the last digit.
+	 * @return The value of the digits.
+	 */
+	private static int digits(CharSequence string, int from, int to) {
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			value = value * 10 + (string.charAt(i) - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Converts an EmploymentCategory enumeration value to the name accepted by
+	 * {@link #stringToCategory}.
+	 *
+	 * @param category The EmploymentCategory enumeration value to convert.
+	 * @return The corresponding name of the employment category.
+	 */
+	public static String categoryToString(EmploymentCategory category) {
+		return switch (category) {
+		case HEALTHCARE -> "Healthcare";
+		case ENGINEERING_TECHNOLOGY -> "Engineering & Technology";
+		case SCIENCE_RESEARCH -> "Science & Research";
+		case MANAGEMENT_CONSULTING -> "Management & Consulting";
+		case MEDIA_JOURNALISM -> "Media & Journalism";
+		case LEGAL -> "Legal";
+		case PSYCHOLOGY_COUNSELING -> "Psychology & Counseling";
+		case FINANCE -> "Finance";
+		case HISTORY_ARCHEOLOGY -> "History & Archaeology";
+		case DESIGN_ART -> "Design & Art";
+		case EDUCATION -> "Education";
+		case OTHER -> "Other";
+		};
+	}
+
 	/**
 	 * Converts a string to an EmploymentCategory enumeration value.
 	 *
@@ -135,44 +242,13 @@ public class Converters {
 
 	/**
 	 * Determines the EmploymentCategory based on the provided occupation string.
+	 * See {@link JobTitleClassifier} for the keywords of each category.
 	 *
 	 * @param occupation The occupation string used to determine the employment
 	 *                   category.
 	 * @return The corresponding EmploymentCategory based on the occupation.
 	 */
 	public static EmploymentCategory determineCategory(String occupation) {
-		occupation = occupation.toLowerCase();
-
-		if (occupation.contains("nurse") || occupation.contains("pharmacist") || occupation.contains("phytotherapist")
-				|| occupation.contains("surgeon") || occupation.contains("clinical")) {
-			return EmploymentCategory.HEALTHCARE;
-		} else if (occupation.contains("engineer") || occupation.contains("technician")
-				|| occupation.contains("developer")) {
-			return EmploymentCategory.ENGINEERING_TECHNOLOGY;
-		} else if (occupation.contains("scientist") || occupation.contains("researcher")
-				|| occupation.contains("hydrogeologist") || occupation.contains("Biochemist")) {
-			return EmploymentCategory.SCIENCE_RESEARCH;
-		} else if (occupation.contains("manager") || occupation.contains("consultant")
-				|| occupation.contains("officer")) {
-			return EmploymentCategory.MANAGEMENT_CONSULTING;
-		} else if (occupation.contains("journalist") || occupation.contains("editor")) {
-			return EmploymentCategory.MEDIA_JOURNALISM;
-		} else if (occupation.contains("lawyer") || occupation.contains("barrister")
-				|| occupation.contains("attorney")) {
-			return EmploymentCategory.LEGAL;
-		} else if (occupation.contains("psychologist") || occupation.contains("counsellor")) {
-			return EmploymentCategory.PSYCHOLOGY_COUNSELING;
-		} else if (occupation.contains("banker") || occupation.contains("financial")
-				|| occupation.contains("accountant")) {
-			return EmploymentCategory.FINANCE;
-		} else if (occupation.contains("archaeologist") || occupation.contains("historian")) {
-			return EmploymentCategory.HISTORY_ARCHEOLOGY;
-		} else if (occupation.contains("designer") || occupation.contains("artist")) {
-			return EmploymentCategory.DESIGN_ART;
-		} else if (occupation.contains("teacher") || occupation.contains("lecturer")) {
-			return EmploymentCategory.EDUCATION;
-		} else {
-			return EmploymentCategory.OTHER;
-		}
+		return JobTitleClassifier.classify(occupation);
 	}
 }
@@ -4,16 +4,21 @@
 package org.soap.api.utils;
 
 
-import org.soap.api.exceptions.*;
 import org.soap.api.models.DatabaseMember;
-import org.soap.api.server.DatabaseServerImpl;
+import org.soap.api.store.CsvLoader;
+import org.soap.api.store.MemberStore;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This utility class provides methods for reading data from a CSV file and
@@ -27,59 +32,165 @@ import java.util.Scanner;
 public class CsvReadWrite {
 
 	/**
-	 * Appends the provided DatabaseMember data to the specified CSV file.
+	 * Channel kept open for appending to {@link #appendFileName}, so that each new
+	 * record costs one write rather than opening the file again.
+	 */
+	private static FileChannel appendChannel;
+
+	/**
+	 * Name of the file {@link #appendChannel} is open on.
+	 */
+	private static String appendFileName;
+
+	/**
+	 * Lock guarding {@link #appendChannel}. A ReentrantLock rather than a monitor,
+	 * so a virtual thread writing to the file does not pin its carrier thread.
+	 */
+	private static final ReentrantLock APPEND_LOCK = new ReentrantLock();
+
+	/**
+	 * Logger for failed writes to the CSV file and records skipped when reading
+	 * it.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(CsvReadWrite.class.getName());
+
+	/**
+	 * Appends the provided DatabaseMember data to the specified CSV file and
+	 * forces it to disk.
 	 *
 	 * @param fileName       The name of the CSV file to write data to.
 	 * @param dataBaseMember The DatabaseMember object containing data to write to
 	 *                       the CSV file.
+	 * @return true if the record was written, false if the file could not be
+	 *         written to.
 	 */
-	public static void writeDataToCSV(String fileName, DatabaseMember dataBaseMember) {
-		try (FileWriter fileWriter = new FileWriter(fileName, true)) {
-
-			fileWriter.append(String.valueOf(dataBaseMember.getIndex())).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getId()).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getFirstName()).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getLastName()).append(Constants.DELIMITER);
-			fileWriter.append(Converters.sexToString(dataBaseMember.getSex())).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getEmail()).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getPhoneNumber()).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getDateOfBirth()).append(Constants.DELIMITER);
-			fileWriter.append(dataBaseMember.getJobTitle()).append(Constants.DELIMITER);
-			fileWriter.append("\n");
+	public static boolean writeDataToCSV(String fileName, DatabaseMember dataBaseMember) {
+		return writeDataToCSV(fileName, List.of(dataBaseMember));
+	}
 
+	/**
+	 * Appends the provided DatabaseMembers to the specified CSV file as one
+	 * buffered write on a channel that stays open between calls, then forces the
+	 * file to disk once, so a batch of records costs one write and one fsync
+	 * however many records it holds.
+	 *
+	 * @param fileName        The name of the CSV file to write data to.
+	 * @param dataBaseMembers The DatabaseMembers to write, in order.
+	 * @return true if every record was written and synced, false if the file
+	 *         could not be written to.
+	 */
+	public static boolean writeDataToCSV(String fileName, List<DatabaseMember> dataBaseMembers) {
+		ByteBuffer buffer = ByteBuffer.wrap(toCsvLines(dataBaseMembers));
+		APPEND_LOCK.lock();
+		try {
+			FileChannel channel = openAppendChannel(fileName);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+			return true;
 		} catch (IOException e) {
-			e.printStackTrace();
+			LOGGER.log(Level.SEVERE, "Could not append " + dataBaseMembers.size() + " records to " + fileName, e);
+			closeAppendChannel();
+			return false;
+		} finally {
+			APPEND_LOCK.unlock();
 		}
-		DatabaseServerImpl.databaseMembers = CsvReadWrite.readDataFromCSV(Constants.FILE_PATH);
 	}
 
 	/**
-	 * Reads data from the specified CSV file and returns it as a list of
-	 * DatabaseMember objects.
+	 * Formats DatabaseMembers as CSV lines, each ending with a line break, in the
+	 * layout of the CSV file.
 	 *
-	 * @param fileName The name of the CSV file to read data from.
-	 * @return An ArrayList of DatabaseMember objects containing data read from the
-	 *         CSV file.
-	 * @throws RuntimeException if there are errors in reading and parsing the data
-	 *                          from the CSV file.
+	 * @param dataBaseMembers The DatabaseMembers to format, in order.
+	 * @return The lines encoded as UTF-8.
+	 */
+	public static byte[] toCsvLines(List<DatabaseMember> dataBaseMembers) {
+		StringBuilder lines = new StringBuilder(dataBaseMembers.size() * 160);
+		for (DatabaseMember dataBaseMember : dataBaseMembers) {
+			lines.append(dataBaseMember.getIndex()).append(Constants.DELIMITER).append(dataBaseMember.getId())
+					.append(Constants.DELIMITER).append(dataBaseMember.getFirstName()).append(Constants.DELIMITER)
+					.append(dataBaseMember.getLastName()).append(Constants.DELIMITER)
+					.append(Converters.sexToString(dataBaseMember.getSex())).append(Constants.DELIMITER)
+					.append(dataBaseMember.getEmail()).append(Constants.DELIMITER)
+					.append(dataBaseMember.getPhoneNumber()).append(Constants.DELIMITER)
+					.append(dataBaseMember.getDateOfBirth()).append(Constants.DELIMITER)
+					.append(dataBaseMember.getJobTitle()).append('\n');
+		}
+		return lines.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gets the append channel for a file, opening it on first use. If the file
+	 * does not end with a line break one is written first, so the next record
+	 * starts on its own line.
+	 *
+	 * @param fileName The name of the CSV file to append to.
+	 * @return The open channel.
+	 * @throws IOException If the file cannot be opened.
 	 */
-	public static ArrayList<DatabaseMember> readDataFromCSV(String fileName) {
-		ArrayList<DatabaseMember> databaseMembers = new ArrayList<>();
-		File file = new File(fileName);
-		try (Scanner fileReader = new Scanner(file)) {
+	private static FileChannel openAppendChannel(String fileName) throws IOException {
+		if (appendChannel != null && appendChannel.isOpen() && fileName.equals(appendFileName)) {
+			return appendChannel;
+		}
+		closeAppendChannel();
+		FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long size = channel.size();
+		channel.position(size);
+		if (size > 0) {
+			ByteBuffer last = ByteBuffer.allocate(1);
+			channel.read(last, size - 1);
+			if (last.get(0) != '\n') {
+				channel.write(ByteBuffer.wrap(new byte[] { '\n' }));
+			}
+		}
+		appendChannel = channel;
+		appendFileName = fileName;
+		return channel;
+	}
 
-			fileReader.useDelimiter(",");
-			fileReader.nextLine();
-			while (fileReader.hasNext()) {
-				DatabaseMember dataBaseMember = new DatabaseMember(fileReader.nextInt(), fileReader.next(),
-						fileReader.next(), fileReader.next(), fileReader.next(), fileReader.next(), fileReader.next(),
-						fileReader.next(), fileReader.nextLine().replaceFirst(",", ""));
-				databaseMembers.add(dataBaseMember);
+	/**
+	 * Closes the append channel, if one is open.
+	 */
+	public static void closeAppendChannel() {
+		APPEND_LOCK.lock();
+		try {
+			if (appendChannel != null) {
+				try {
+					appendChannel.close();
+				} catch (IOException e) {
+					LOGGER.log(Level.WARNING, "Could not close " + appendFileName, e);
+				}
+				appendChannel = null;
+				appendFileName = null;
 			}
-		} catch (InvalidStaffIdException | FileNotFoundException | InvalidSexException | InvalidEmailException
-				 | InvalidDateException | InvalidPhoneNumberException e) {
+		} finally {
+			APPEND_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * Reads data from the specified CSV file and returns it as a MemberStore of
+	 * indexed members. The file is read in chunks and parsed in parallel by
+	 * {@link CsvLoader}. Malformed records and records repeating an earlier staff
+	 * ID are skipped and reported with their line number.
+	 *
+	 * @param fileName The name of the CSV file to read data from.
+	 * @return A MemberStore containing the members read from the CSV file.
+	 * @throws RuntimeException if the CSV file cannot be read.
+	 */
+	public static MemberStore readDataFromCSV(String fileName) {
+		ArrayList<String> problems = new ArrayList<>();
+		MemberStore databaseMembers;
+		try {
+			databaseMembers = CsvLoader.load(fileName, problems);
+		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+		for (String problem : problems) {
+			LOGGER.warning(problem);
+		}
 		return databaseMembers;
 	}
 }
@@ -0,0 +1,223 @@
+/**
+ * The JobTitleClassifier file is responsible for classifying job titles into employment categories.
+ */
+package org.soap.api.utils;
+
+import org.soap.api.models.EmploymentCategory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JobTitleClassifier class decides the employment category of a job title
+ * from the keywords it contains. The keyword table below is compiled once into
+ * an Aho-Corasick automaton, which finds every keyword in a title in a single
+ * pass over its characters, however many keywords there are.
+ *
+ * <p>
+ * Keywords are matched anywhere in the title, ignoring ASCII case. When a title
+ * contains keywords of several categories, the category listed first in the
+ * table wins, so "Engineer, clinical" is a healthcare title. A title with no
+ * keyword is {@link EmploymentCategory#OTHER}.
+ * </p>
+ *
+ * <p>
+ * Results for job titles given as strings are remembered, since a large
+ * dataset repeats a few thousand titles millions of times. At most
+ * {@link #MEMO_LIMIT} titles are remembered, so titles sent by clients cannot
+ * grow the memo without bound.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class JobTitleClassifier {
+
+	/**
+	 * The categories in order of precedence. Row i of {@link #KEYWORDS} holds the
+	 * keywords of category i.
+	 */
+	private static final EmploymentCategory[] CATEGORIES = { EmploymentCategory.HEALTHCARE,
+			EmploymentCategory.ENGINEERING_TECHNOLOGY, EmploymentCategory.SCIENCE_RESEARCH,
+			EmploymentCategory.MANAGEMENT_CONSULTING, EmploymentCategory.MEDIA_JOURNALISM, EmploymentCategory.LEGAL,
+			EmploymentCategory.PSYCHOLOGY_COUNSELING, EmploymentCategory.FINANCE,
+			EmploymentCategory.HISTORY_ARCHEOLOGY, EmploymentCategory.DESIGN_ART, EmploymentCategory.EDUCATION };
+
+	/**
+	 * The lower case keywords of each category in {@link #CATEGORIES}. Keywords
+	 * may only contain the letters a to z.
+	 */
+	private static final String[][] KEYWORDS = {
+			{ "nurse", "pharmacist", "phytotherapist", "surgeon", "clinical" },
+			{ "engineer", "technician", "developer" },
+			{ "scientist", "researcher", "hydrogeologist", "biochemist" },
+			{ "manager", "consultant", "officer" },
+			{ "journalist", "editor" },
+			{ "lawyer", "barrister", "attorney" },
+			{ "psychologist", "counsellor" },
+			{ "banker", "financial", "accountant" },
+			{ "archaeologist", "historian" },
+			{ "designer", "artist" },
+			{ "teacher", "lecturer" } };
+
+	/**
+	 * Maximum number of job titles remembered.
+	 */
+	private static final int MEMO_LIMIT = 1 << 16;
+
+	/**
+	 * Number of letters in the automaton's alphabet.
+	 */
+	private static final int LETTERS = 26;
+
+	/**
+	 * Rank of a state at which no keyword ends.
+	 */
+	private static final int NO_MATCH = Integer.MAX_VALUE;
+
+	private static final int[] next; // Next state for each state and letter, indexed by state * LETTERS + letter.
+
+	private static final int[] ranks; // Best rank among the keywords ending at each state, or NO_MATCH.
+
+	/**
+	 * Categories of the job titles classified so far.
+	 */
+	private static final ConcurrentHashMap<String, EmploymentCategory> memo = new ConcurrentHashMap<>();
+
+	static {
+		// Build the trie of keywords, recording at each keyword's last state the rank
+		// of its category. State 0 is the root; no edge of the trie leads back to it,
+		// so 0 also marks a missing edge while the trie is built.
+		int[] trie = new int[LETTERS * 64];
+		int[] rank = new int[64];
+		Arrays.fill(rank, NO_MATCH);
+		int states = 1;
+		for (int category = 0; category < KEYWORDS.length; category++) {
+			for (String keyword : KEYWORDS[category]) {
+				int state = 0;
+				for (int i = 0; i < keyword.length(); i++) {
+					int letter = keyword.charAt(i) - 'a';
+					if (letter < 0 || letter >= LETTERS) {
+						throw new IllegalStateException("Keyword is not lower case letters: " + keyword);
+					}
+					if (trie[state * LETTERS + letter] == 0) {
+						if (states == rank.length) {
+							trie = Arrays.copyOf(trie, trie.length * 2);
+							rank = Arrays.copyOf(rank, rank.length * 2);
+							Arrays.fill(rank, states, rank.length, NO_MATCH);
+						}
+						trie[state * LETTERS + letter] = states++;
+					}
+					state = trie[state * LETTERS + letter];
+				}
+				rank[state] = Math.min(rank[state], category);
+			}
+		}
+
+		// Turn the trie into the automaton breadth first, so each state's failure
+		// state, the longest proper suffix of it that is also in the trie, is complete
+		// before it is used. A missing edge follows the failure state's edge, and a
+		// state matches everything its failure state matches.
+		int[] failure = new int[states];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (int letter = 0; letter < LETTERS; letter++) {
+			if (trie[letter] != 0) {
+				queue.add(trie[letter]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			rank[state] = Math.min(rank[state], rank[failure[state]]);
+			for (int letter = 0; letter < LETTERS; letter++) {
+				int child = trie[state * LETTERS + letter];
+				int fallback = trie[failure[state] * LETTERS + letter];
+				if (child == 0) {
+					trie[state * LETTERS + letter] = fallback;
+				} else {
+					failure[child] = fallback;
+					queue.add(child);
+				}
+			}
+		}
+		next = Arrays.copyOf(trie, states * LETTERS);
+		ranks = Arrays.copyOf(rank, states);
+	}
+
+	/**
+	 * Classifies a job title, remembering the result.
+	 *
+	 * @param title The job title.
+	 * @return The employment category.
+	 */
+	public static EmploymentCategory classify(String title) {
+		EmploymentCategory category = memo.get(title);
+		if (category == null) {
+			category = scan(title);
+			if (memo.size() < MEMO_LIMIT) {
+				memo.putIfAbsent(title, category);
+			}
+		}
+		return category;
+	}
+
+	/**
+	 * Classifies a job title held as UTF-8 bytes, without decoding it or
+	 * remembering the result.
+	 *
+	 * @param data The bytes.
+	 * @param from The index of the title's first byte.
+	 * @param to   The index after the title's last byte.
+	 * @return The employment category.
+	 */
+	public static EmploymentCategory classify(byte[] data, int from, int to) {
+		int state = 0;
+		int best = NO_MATCH;
+		for (int i = from; i < to; i++) {
+			state = step(state, data[i]);
+			best = Math.min(best, ranks[state]);
+		}
+		return best == NO_MATCH ? EmploymentCategory.OTHER : CATEGORIES[best];
+	}
+
+	/**
+	 * Runs the automaton over a job title.
+	 *
+	 * @param title The job title.
+	 * @return The employment category.
+	 */
+	private static EmploymentCategory scan(CharSequence title) {
+		int state = 0;
+		int best = NO_MATCH;
+		for (int i = 0; i < title.length(); i++) {
+			state = step(state, title.charAt(i));
+			best = Math.min(best, ranks[state]);
+		}
+		return best == NO_MATCH ? EmploymentCategory.OTHER : CATEGORIES[best];
+	}
+
+	/**
+	 * Moves the automaton on by one character. Any character other than a letter
+	 * returns it to the start, since no keyword contains one.
+	 *
+	 * @param state     The current state.
+	 * @param character The character, or a byte of UTF-8.
+	 * @return The next state.
+	 */
+	private static int step(int state, int character) {
+		int letter = (character | 0x20) - 'a';
+		return letter >= 0 && letter < LETTERS ? next[state * LETTERS + letter] : 0;
+	}
+
+	/**
+	 * Computes a fingerprint of the keyword table, so stored categories are not
+	 * reused after the table changes.
+	 *
+	 * @return The fingerprint.
+	 */
+	public static int fingerprint() {
+		return (Arrays.toString(CATEGORIES) + Arrays.deepToString(KEYWORDS)).hashCode();
+	}
+}
@@ -1,12 +1,19 @@
 package org.soap.api.utils;
 
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
  * This utility class provides methods for data validation using regular
  * expressions and other checks.
  *
+ * <p>
+ * The fixed formats used by DatabaseMember (staff ID, email, phone number and
+ * date of birth) are checked by hand-written single-pass methods that accept
+ * exactly what the matching pattern in {@link Constants} accepts, without
+ * compiling a pattern or allocating a matcher.
+ * </p>
+ *
  * @author Zac Healy
  *
  * @version 1.0
@@ -15,20 +22,20 @@ import java.util.regex.Pattern;
 public class Validators {
 
 	/**
-	 * Validates a string against a regular expression pattern.
+	 * Patterns compiled by {@link #validateRegEx}, keyed by their source.
+	 */
+	private static final ConcurrentHashMap<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+	/**
+	 * Validates a string against a regular expression pattern. Each pattern is
+	 * compiled once and reused.
 	 *
 	 * @param string The string to validate.
 	 * @param regEx  The regular expression pattern to use for validation.
 	 * @return true if the string matches the regular expression, false otherwise.
 	 */
 	public static boolean validateRegEx(String string, String regEx) {
-		Pattern pattern = Pattern.compile(regEx);
-		Matcher matcher = pattern.matcher(string);
-		if (matcher.find()) {
-			return true;
-		} else {
-			return false;
-		}
+		return PATTERNS.computeIfAbsent(regEx, Pattern::compile).matcher(string).find();
 	}
 
 	/**
@@ -44,4 +51,154 @@ public class Validators {
 			return false;
 		}
 	}
+
+	/**
+	 * Validates a staff ID: 15 hexadecimal characters, as required by
+	 * {@link #validateIdLength} and {@link Constants#ID_REGEX_PATTERN}.
+	 *
+	 * @param id The staff ID to validate.
+	 * @return true if the staff ID is valid, false otherwise.
+	 */
+	public static boolean validateStaffId(CharSequence id) {
+		if (id == null || id.length() != 15) {
+			return false;
+		}
+		for (int i = 0; i < 15; i++) {
+			if (!isHexDigit(id.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Validates the start of a staff ID: 1 to 15 hexadecimal characters, as
+	 * accepted by {@link #validateStaffId} for a whole staff ID.
+	 *
+	 * @param prefix The staff ID prefix to validate.
+	 * @return true if the prefix is valid, false otherwise.
+	 */
+	public static boolean validateStaffIdPrefix(CharSequence prefix) {
+		if (prefix == null || prefix.length() == 0 || prefix.length() > 15) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (!isHexDigit(prefix.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Validates a date in "yyyy-MM-dd" format, as matched by
+	 * {@link Constants#DOB_REGEX_PATTERN}: a four-digit year, a month from 01 to
+	 * 12 and a day from 01 to 31.
+	 *
+	 * @param date The date string to validate.
+	 * @return true if the date is in a valid format, false otherwise.
+	 */
+	public static boolean validateDate(CharSequence date) {
+		if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+			return false;
+		}
+		for (int i = 0; i < 10; i++) {
+			if (i != 4 && i != 7 && !isDigit(date.charAt(i))) {
+				return false;
+			}
+		}
+		int month = (date.charAt(5) - '0') * 10 + (date.charAt(6) - '0');
+		int day = (date.charAt(8) - '0') * 10 + (date.charAt(9) - '0');
+		return month >= 1 && month <= 12 && day >= 1 && day <= 31;
+	}
+
+	/**
+	 * Validates a phone number: one or more digits, '-', '+', '(', ')', 'x', 'X'
+	 * or '.', as matched by {@link Constants#PHONE_NUMBER_REGEX_PATTERN}.
+	 *
+	 * @param phoneNumber The phone number to validate.
+	 * @return true if the phone number is valid, false otherwise.
+	 */
+	public static boolean validatePhoneNumber(CharSequence phoneNumber) {
+		if (phoneNumber == null || phoneNumber.length() == 0) {
+			return false;
+		}
+		for (int i = 0; i < phoneNumber.length(); i++) {
+			char c = phoneNumber.charAt(i);
+			if (!isDigit(c) && c != '-' && c != '+' && c != '(' && c != ')' && c != 'x' && c != 'X' && c != '.') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Validates an email address as matched by
+	 * {@link Constants#EMAIL_REGEX_PATTERN}: a local part of word characters, '-'
+	 * and '.', an '@', then at least two dot-separated labels of word characters
+	 * and '-', the last of which is 2 to 4 characters long.
+	 *
+	 * @param email The email address to validate.
+	 * @return true if the email address is valid, false otherwise.
+	 */
+	public static boolean validateEmail(CharSequence email) {
+		if (email == null) {
+			return false;
+		}
+		int length = email.length();
+		int i = 0;
+		while (i < length && (isWordChar(email.charAt(i)) || email.charAt(i) == '.')) {
+			i++;
+		}
+		if (i == 0 || i == length || email.charAt(i) != '@') {
+			return false;
+		}
+		int labels = 0;
+		int labelLength = 0;
+		for (i++; i < length; i++) {
+			char c = email.charAt(i);
+			if (c == '.') {
+				if (labelLength == 0) {
+					return false;
+				}
+				labels++;
+				labelLength = 0;
+			} else if (isWordChar(c)) {
+				labelLength++;
+			} else {
+				return false;
+			}
+		}
+		return labels > 0 && labelLength >= 2 && labelLength <= 4;
+	}
+
+	/**
+	 * Checks whether a character is an ASCII digit.
+	 *
+	 * @param c The character to check.
+	 * @return true if the character is 0-9, false otherwise.
+	 */
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Checks whether a character is a hexadecimal digit.
+	 *
+	 * @param c The character to check.
+	 * @return true if the character is 0-9, a-f or A-F, false otherwise.
+	 */
+	private static boolean isHexDigit(char c) {
+		return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+
+	/**
+	 * Checks whether a character is a regular expression word character or '-'.
+	 *
+	 * @param c The character to check.
+	 * @return true if the character is a-z, A-Z, 0-9, '_' or '-', false otherwise.
+	 */
+	private static boolean isWordChar(char c) {
+		return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '-';
+	}
 }
@@ -0,0 +1,239 @@
+/**
+ * The DatabaseServerProviderTest file is responsible for checking that the provider endpoint replies exactly as the JAXB endpoint does.
+ */
+package org.soap.api.server;
+
+import com.sun.xml.ws.api.fastinfoset.FastInfosetFeature;
+import jakarta.xml.ws.Endpoint;
+import jakarta.xml.ws.soap.MTOMFeature;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.soap.api.utils.TestMembers;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.soap.api.server.TestEndpoints.KNOWN_ID;
+import static org.soap.api.server.TestEndpoints.KNOWN_YEAR;
+import static org.soap.api.server.TestEndpoints.element;
+import static org.soap.api.server.TestEndpoints.filter;
+import static org.soap.api.server.TestEndpoints.nested;
+import static org.soap.api.server.TestEndpoints.record;
+
+/**
+ * The DatabaseServerProviderTest class publishes the JAXB endpoint and the
+ * {@link DatabaseServerProvider} side by side in this JVM, created with the
+ * same features as {@link DatabaseServerPublisher} creates them, and sends
+ * both the same sequence of requests: every operation, with valid and invalid
+ * arguments, once asking for text XML, once for FastInfoset and once as an
+ * MTOM message. Every reply must match the JAXB endpoint's byte for byte,
+ * status code and content type included, apart from the random UUIDs of MTOM
+ * messages.
+ *
+ * <p>
+ * Each endpoint has its own copy of the sample data, published with
+ * {@link TestEndpoints}, so both see the same members at every step, inserts
+ * included.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class DatabaseServerProviderTest {
+
+	/**
+	 * Staff ID held by no member of the sample data and never inserted.
+	 */
+	private static final String UNKNOWN_ID = TestMembers.staffId(100);
+
+	/**
+	 * Directory holding each endpoint's copy of the sample data.
+	 */
+	@TempDir
+	static Path directory;
+
+	private static TestEndpoints.Side jaxb; // The JAXB endpoint, whose replies are expected.
+
+	private static TestEndpoints.Side stax; // The provider endpoint.
+
+	/**
+	 * Publishes both endpoints, each on its own copy of the sample data.
+	 *
+	 * @throws IOException If the sample data cannot be copied or a port found.
+	 */
+	@BeforeAll
+	static void publish() throws IOException {
+		FastInfosetFeature fastInfoset = new FastInfosetFeature(true);
+		MTOMFeature mtom = new MTOMFeature(true);
+		jaxb = TestEndpoints.publish(directory, "jaxb",
+				Endpoint.create(new DatabaseServerImpl(), fastInfoset, mtom));
+		Endpoint provider = Endpoint.create(new DatabaseServerProvider(), fastInfoset, mtom);
+		provider.setMetadata(DatabaseServerProvider.metadata(fastInfoset, mtom));
+		stax = TestEndpoints.publish(directory, "stax", provider);
+	}
+
+	/**
+	 * Stops both endpoints and closes their logs.
+	 */
+	@AfterAll
+	static void stop() {
+		TestEndpoints.stop(jaxb, stax);
+	}
+
+	/**
+	 * Sends every request to both endpoints in every encoding and checks the
+	 * replies are identical. The first reply to each request must also have the
+	 * expected status, so the faults are known to be exercised; an insert sent
+	 * again in the other encodings is then a duplicate.
+	 *
+	 * @throws Exception If an endpoint cannot be reached.
+	 */
+	@Test
+	void repliesAsTheJaxbEndpointDoes() throws Exception {
+		List<String> differences = new ArrayList<>();
+		List<Object[]> requests = requests();
+		for (int i = 0; i < requests.size(); i++) {
+			Object[] request = requests.get(i);
+			for (TestEndpoints.Encoding encoding : TestEndpoints.Encoding.values()) {
+				String name = String.format("%02d %s (%s)", i, request[0], encoding.name().toLowerCase(Locale.ROOT));
+				HttpResponse<byte[]> expected = TestEndpoints.post(jaxb, (String) request[1], encoding);
+				HttpResponse<byte[]> actual = TestEndpoints.post(stax, (String) request[1], encoding);
+				String difference = TestEndpoints.compare(expected, actual);
+				if (encoding == TestEndpoints.Encoding.XML && !request[2].equals(expected.statusCode())) {
+					differences.add(name + ": JAXB status " + expected.statusCode() + ", expected " + request[2]);
+				}
+				if (difference != null) {
+					differences.add(name + ": " + difference);
+				}
+			}
+		}
+		assertEquals(List.of(), differences);
+		assertEquals(jaxb.store().size(), stax.store().size());
+	}
+
+	/**
+	 * Checks that the provider endpoint publishes the same WSDL and schemas. The
+	 * runtime declares operations in the order reflection lists the service's
+	 * methods, which can change between JVMs, so lines are compared in any
+	 * order.
+	 *
+	 * @throws Exception If an endpoint cannot be reached.
+	 */
+	@Test
+	void publishesTheSameMetadata() throws Exception {
+		for (String query : new String[] { "wsdl", "xsd=1", "xsd=2" }) {
+			HttpResponse<byte[]> expected = TestEndpoints.get(jaxb, query);
+			HttpResponse<byte[]> actual = TestEndpoints.get(stax, query);
+			assertEquals(200, expected.statusCode(), query);
+			assertEquals(200, actual.statusCode(), query);
+			String expectedBody = new String(expected.body(), StandardCharsets.UTF_8).replace(jaxb.address(),
+					stax.address());
+			assertEquals(sortedLines(expectedBody), sortedLines(new String(actual.body(), StandardCharsets.UTF_8)),
+					query);
+		}
+	}
+
+	/**
+	 * Builds the requests, in the order they are sent. Inserts come after the
+	 * queries, and the duplicate and invalid ones after a valid one, so later
+	 * requests see the inserted members.
+	 *
+	 * @return The operation name, SOAP envelope and expected status of each
+	 *         request.
+	 */
+	private static List<Object[]> requests() {
+		List<Object[]> requests = new ArrayList<>();
+		add(requests, 200, "getDatabaseByStaffId", element("staffId", KNOWN_ID));
+		add(requests, 500, "getDatabaseByStaffId", element("staffId", "zzz"));
+		add(requests, 500, "getDatabaseByStaffId", element("staffId", UNKNOWN_ID));
+		add(requests, 500, "getDatabaseByStaffId", "");
+		add(requests, 200, "getDatabaseByStaffId", "text" + nested("staffId", "<x>z</x>" + KNOWN_ID + "<!--c-->"));
+		add(requests, 500, "getDatabaseByStaffId", nested("staffId", KNOWN_ID + "<x>z</x>"));
+		add(requests, 200, "getDatabaseWithinAgeRange",
+				element("startDate", KNOWN_YEAR + "-01-01") + element("endDate", KNOWN_YEAR + "-12-31"));
+		add(requests, 500, "getDatabaseWithinAgeRange",
+				element("startDate", KNOWN_YEAR + "-13-01") + element("endDate", KNOWN_YEAR + "-03-31"));
+		add(requests, 500, "getDatabaseWithinAgeRange",
+				element("startDate", "2200-01-01") + element("endDate", "2201-01-01"));
+		add(requests, 200, "getRecordByEmploymentCategory", element("category", "Legal"));
+		add(requests, 500, "getRecordByEmploymentCategory", element("category", "Nope"));
+		add(requests, 500, "getRecordByEmploymentCategory", "");
+		add(requests, 200, "getDatabaseRecordBySex", element("sex", "Female"));
+		add(requests, 500, "getDatabaseRecordBySex", element("sex", "x"));
+		add(requests, 200, "getDatabaseWithinAgeRangePage", element("startDate", "1900-01-01")
+				+ element("endDate", "2020-12-31") + element("pageSize", "5") + element("pageToken", ""));
+		add(requests, 500, "getDatabaseWithinAgeRangePage", element("startDate", "1900-01-01")
+				+ element("endDate", "2020-12-31") + element("pageSize", "5") + element("pageToken", "garbage"));
+		add(requests, 200, "getRecordByEmploymentCategoryPage",
+				element("category", "Healthcare") + element("pageSize", "3") + element("pageToken", ""));
+		add(requests, 500, "getRecordByEmploymentCategoryPage",
+				element("category", "Legal") + element("pageSize", "0"));
+		add(requests, 500, "getRecordByEmploymentCategoryPage",
+				element("category", "Legal") + element("pageSize", "abc"));
+		add(requests, 200, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", "2"));
+		add(requests, 200, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", " 1 2 "));
+		add(requests, 200, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", "4294967298"));
+		add(requests, 500, "getDatabaseRecordBySexPage", element("sex", "Male"));
+		add(requests, 200, "findMembers", filter("Female", "Legal", "", "", ""));
+		add(requests, 200, "findMembers", filter("", "", "", "", KNOWN_ID.substring(0, 4)));
+		add(requests, 500, "findMembers", filter("Q", "", "", "", ""));
+		add(requests, 200, "findMembers", filter("", "", KNOWN_YEAR + "-01-01", KNOWN_YEAR + "-12-31", ""));
+		add(requests, 500, "findMembers", filter("", "", "", "", ""));
+		add(requests, 200, "countMembers", filter("Male", "", "", "", ""));
+		add(requests, 500, "countMembers", filter("", "Nope", "", "", ""));
+		add(requests, 200, "getDatabaseStatistics", "");
+		add(requests, 200, "exportMembers", element("format", "csv"));
+		add(requests, 200, "exportMembers", element("format", " XML "));
+		add(requests, 500, "exportMembers", element("format", "pdf"));
+		add(requests, 500, "exportMembers", "");
+		add(requests, 200, "createNewDatabaseRecord", record(0, 5, null));
+		add(requests, 500, "createNewDatabaseRecord", record(0, 5, null));
+		add(requests, 500, "createNewDatabaseRecord", record(1, 5, "bad"));
+		add(requests, 200, "createNewDatabaseRecord", record(2, 6, "x")); // The phone number rules allow "x".
+		add(requests, 500, "createNewDatabaseRecord", record(3, 4, "Q"));
+		add(requests, 200, "createNewDatabaseRecord", record(4, 7, "1990-02-30")); // Only the format is checked.
+		add(requests, 200, "createNewDatabaseRecords", nested("records", record(5, 5, null))
+				+ nested("records", record(5, 5, null)) + nested("records", record(6, 5, "no")));
+		add(requests, 200, "createNewDatabaseRecords", element("records", record(7, 5, null)));
+		add(requests, 200, "createNewDatabaseRecords", "");
+		add(requests, 200, "getDatabaseByStaffId", element("staffId", TestMembers.staffId(0)));
+		add(requests, 200, "getDatabaseStatistics", "");
+		add(requests, 200, "exportMembers", element("format", "xml"));
+		add(requests, 500, "unknownOperation", "");
+		return requests;
+	}
+
+	/**
+	 * Adds a request to the list.
+	 *
+	 * @param requests  The requests.
+	 * @param status    The HTTP status the JAXB endpoint first answers with.
+	 * @param operation The operation to call.
+	 * @param arguments The argument elements, already escaped.
+	 */
+	private static void add(List<Object[]> requests, int status, String operation, String arguments) {
+		requests.add(new Object[] { operation, TestEndpoints.envelope(operation, arguments), status });
+	}
+
+	/**
+	 * Splits a document into its lines, sorted.
+	 *
+	 * @param document The document.
+	 * @return The sorted lines.
+	 */
+	private static List<String> sortedLines(String document) {
+		List<String> lines = new ArrayList<>(document.lines().toList());
+		lines.sort(null);
+		return lines;
+	}
+}
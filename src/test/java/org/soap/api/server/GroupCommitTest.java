@@ -0,0 +1,219 @@
+/**
+ * The GroupCommitTest file is responsible for checking the outcomes of requests committed by concurrent callers.
+ */
+package org.soap.api.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The GroupCommitTest class checks {@link GroupCommit} with many threads
+ * submitting at once: every request is committed exactly once, its outcome is
+ * set before its caller returns, requests are committed in the order they
+ * were queued, and a failing commit reaches only the caller that ran it.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class GroupCommitTest {
+
+	/**
+	 * Number of threads submitting at once.
+	 */
+	private static final int THREADS = 16;
+
+	/**
+	 * Number of requests each thread submits.
+	 */
+	private static final int REQUESTS_PER_THREAD = 500;
+
+	/**
+	 * A request that records its outcome, as an insert batch does.
+	 */
+	private static final class Request {
+
+		final int key; // Key that must be unique among accepted requests.
+
+		volatile Boolean accepted; // Outcome, or null while not committed.
+
+		int commits; // Number of commits that included the request.
+
+		/**
+		 * Constructs a request.
+		 *
+		 * @param key The key of the request.
+		 */
+		Request(int key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Checks that concurrent submissions are each committed once with the right
+	 * outcome, and that the first request with a key wins.
+	 *
+	 * @throws Exception If a submitting thread fails.
+	 */
+	@Test
+	void givesEveryRequestItsOutcome() throws Exception {
+		Set<Integer> keys = new HashSet<>();
+		List<Request> committedOrder = new ArrayList<>();
+		GroupCommit<Request> groupCommit = new GroupCommit<>(group -> {
+			for (Request request : group) {
+				request.commits++;
+				request.accepted = keys.add(request.key);
+				committedOrder.add(request);
+			}
+		});
+		List<List<Request>> submitted = submitConcurrently(groupCommit, thread -> {
+			List<Request> requests = new ArrayList<>();
+			for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+				// Every key is used by two threads, so half of the requests are duplicates.
+				requests.add(new Request((thread / 2) * REQUESTS_PER_THREAD + i));
+			}
+			return requests;
+		});
+
+		int accepted = 0;
+		for (List<Request> requests : submitted) {
+			for (Request request : requests) {
+				assertEquals(1, request.commits);
+				if (request.accepted) {
+					accepted++;
+				}
+			}
+		}
+		assertEquals(THREADS / 2 * REQUESTS_PER_THREAD, accepted);
+		assertEquals(THREADS * REQUESTS_PER_THREAD, committedOrder.size());
+		Set<Integer> winners = new HashSet<>();
+		for (Request request : committedOrder) {
+			assertEquals(winners.add(request.key), request.accepted, "the first request with a key wins");
+		}
+		assertEquals(THREADS * REQUESTS_PER_THREAD, groupCommit.getRequests());
+		assertTrue(groupCommit.getCommits() <= groupCommit.getRequests());
+	}
+
+	/**
+	 * Checks that each thread's requests are committed in the order it submitted
+	 * them.
+	 *
+	 * @throws Exception If a submitting thread fails.
+	 */
+	@Test
+	void commitsEachCallersRequestsInOrder() throws Exception {
+		List<Request> committedOrder = new ArrayList<>();
+		GroupCommit<Request> groupCommit = new GroupCommit<>(group -> {
+			for (Request request : group) {
+				request.accepted = true;
+				committedOrder.add(request);
+			}
+		});
+		List<List<Request>> submitted = submitConcurrently(groupCommit, thread -> {
+			List<Request> requests = new ArrayList<>();
+			for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+				requests.add(new Request(thread * REQUESTS_PER_THREAD + i));
+			}
+			return requests;
+		});
+		for (List<Request> requests : submitted) {
+			int last = -1;
+			for (Request request : requests) {
+				int position = committedOrder.indexOf(request);
+				assertTrue(position > last);
+				last = position;
+			}
+		}
+	}
+
+	/**
+	 * Checks that an exception thrown by the committer reaches the caller that
+	 * ran the commit, and that later requests are still committed.
+	 */
+	@Test
+	void reportsAFailedCommitToItsCaller() {
+		RuntimeException failure = new IllegalStateException("disk full");
+		GroupCommit<Request> groupCommit = new GroupCommit<>(group -> {
+			for (Request request : group) {
+				if (request.key < 0) {
+					throw failure;
+				}
+				request.accepted = true;
+			}
+		});
+		Request failing = new Request(-1);
+		assertSame(failure, assertThrows(IllegalStateException.class, () -> groupCommit.submit(failing)));
+		assertEquals(null, failing.accepted);
+		Request next = new Request(1);
+		groupCommit.submit(next);
+		assertTrue(next.accepted);
+		assertEquals(2, groupCommit.getCommits());
+	}
+
+	/**
+	 * Creates the requests one thread submits.
+	 */
+	private interface RequestSource {
+
+		/**
+		 * Creates the requests of a thread.
+		 *
+		 * @param thread The number of the thread.
+		 * @return The requests, in the order to submit them.
+		 */
+		List<Request> requests(int thread);
+	}
+
+	/**
+	 * Submits requests from {@link #THREADS} threads started together, and
+	 * checks each has an outcome as soon as its submit returns.
+	 *
+	 * @param groupCommit The group commit to submit to.
+	 * @param source      The requests of each thread.
+	 * @return The requests of each thread.
+	 * @throws Exception If a submitting thread fails.
+	 */
+	private static List<List<Request>> submitConcurrently(GroupCommit<Request> groupCommit, RequestSource source)
+			throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<List<Request>>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				List<Request> requests = source.requests(thread);
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (Request request : requests) {
+						groupCommit.submit(request);
+						assertNotNull(request.accepted, "outcome set before submit returns");
+					}
+					return requests;
+				}));
+			}
+			start.countDown();
+			List<List<Request>> submitted = new ArrayList<>();
+			for (Future<List<Request>> future : futures) {
+				submitted.add(future.get(60, TimeUnit.SECONDS));
+			}
+			return submitted;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
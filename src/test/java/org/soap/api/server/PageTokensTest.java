@@ -0,0 +1,94 @@
+/**
+ * The PageTokensTest file is responsible for checking that page tokens round trip and that altered tokens are rejected.
+ */
+package org.soap.api.server;
+
+import org.junit.jupiter.api.Test;
+import org.soap.api.exceptions.InvalidPageException;
+import org.soap.api.store.MemberStore;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The PageTokensTest class checks {@link PageTokens}: a token decodes to the
+ * position it was issued for, and a token that was altered, truncated or
+ * issued for another query is rejected.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class PageTokensTest {
+
+	/**
+	 * Checks that a token gives back its position.
+	 *
+	 * @throws InvalidPageException If the token is rejected.
+	 */
+	@Test
+	void decodesTheEncodedPosition() throws InvalidPageException {
+		for (long position : new long[] { 0, 1, 4096, Long.MAX_VALUE, -7 }) {
+			String token = PageTokens.encode(QueryCache.Operation.AGE_RANGE, -3650, 7300, position);
+			assertEquals(position, PageTokens.decode(token, QueryCache.Operation.AGE_RANGE, -3650, 7300));
+		}
+	}
+
+	/**
+	 * Checks that a missing token starts at the first page.
+	 *
+	 * @throws InvalidPageException If the token is rejected.
+	 */
+	@Test
+	void startsAtTheFirstPageWithoutAToken() throws InvalidPageException {
+		assertEquals(MemberStore.FIRST_PAGE, PageTokens.decode(null, QueryCache.Operation.SEX, 0, 0));
+		assertEquals(MemberStore.FIRST_PAGE, PageTokens.decode("", QueryCache.Operation.SEX, 0, 0));
+	}
+
+	/**
+	 * Checks that changing any bit of a token is detected.
+	 */
+	@Test
+	void rejectsEveryAlteredBit() {
+		String token = PageTokens.encode(QueryCache.Operation.CATEGORY, 3, 0, 123_456_789L);
+		byte[] bytes = Base64.getUrlDecoder().decode(token);
+		for (int i = 0; i < bytes.length; i++) {
+			for (int bit = 0; bit < 8; bit++) {
+				byte[] altered = bytes.clone();
+				altered[i] ^= (byte) (1 << bit);
+				String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(altered);
+				assertThrows(InvalidPageException.class,
+						() -> PageTokens.decode(tampered, QueryCache.Operation.CATEGORY, 3, 0),
+						"byte " + i + " bit " + bit);
+			}
+		}
+	}
+
+	/**
+	 * Checks that tokens which are not base64 or have the wrong length are
+	 * rejected.
+	 */
+	@Test
+	void rejectsMalformedTokens() {
+		String token = PageTokens.encode(QueryCache.Operation.SEX, 1, 0, 10);
+		for (String malformed : new String[] { "garbage!", "abc", token.substring(1), token + "AA", "====" }) {
+			assertThrows(InvalidPageException.class,
+					() -> PageTokens.decode(malformed, QueryCache.Operation.SEX, 1, 0), malformed);
+		}
+	}
+
+	/**
+	 * Checks that a valid token is rejected by a different query or by the same
+	 * query with different arguments.
+	 */
+	@Test
+	void rejectsTokensOfOtherQueries() {
+		String token = PageTokens.encode(QueryCache.Operation.SEX, 1, 0, 10);
+		assertThrows(InvalidPageException.class, () -> PageTokens.decode(token, QueryCache.Operation.CATEGORY, 1, 0));
+		assertThrows(InvalidPageException.class, () -> PageTokens.decode(token, QueryCache.Operation.SEX, 0, 0));
+		assertThrows(InvalidPageException.class, () -> PageTokens.decode(token, QueryCache.Operation.SEX, 1, 1));
+	}
+}
@@ -0,0 +1,344 @@
+/**
+ * The TestEndpoints file is responsible for publishing endpoints in the tests and comparing their replies.
+ */
+package org.soap.api.server;
+
+import jakarta.xml.ws.Endpoint;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.store.MemberStore;
+import org.soap.api.store.WriteAheadLog;
+import org.soap.api.utils.CsvReadWrite;
+import org.soap.api.utils.TestMembers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * The TestEndpoints class publishes endpoints of the service side by side in
+ * the test JVM and sends them raw SOAP requests, for the tests that check one
+ * endpoint replies byte for byte as another does.
+ *
+ * <p>
+ * The endpoints share the static state of {@link DatabaseServerImpl}, so each
+ * has its own copy of the sample data, store and write-ahead log, swapped in
+ * before each of its requests together with an emptied query cache.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+final class TestEndpoints {
+
+	/**
+	 * Namespace of the service's operations.
+	 */
+	static final String NAMESPACE = "http://server.api.soap.org/";
+
+	/**
+	 * Staff ID of the first member of the sample data.
+	 */
+	static final String KNOWN_ID = "88F7B33d2bcf9f5";
+
+	/**
+	 * Year of birth of the first member of the sample data.
+	 */
+	static final String KNOWN_YEAR = "1945";
+
+	/**
+	 * Path the endpoints are published on.
+	 */
+	private static final String PATH = "/190931/people";
+
+	/**
+	 * MIME boundary of MTOM requests.
+	 */
+	private static final String BOUNDARY = "uuid:conformance";
+
+	/**
+	 * The random UUIDs in MTOM replies.
+	 */
+	private static final Pattern UUID = Pattern
+			.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+	private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(10)).build(); // Client sending the requests.
+
+	/**
+	 * The ways a request is sent.
+	 */
+	enum Encoding {
+
+		/**
+		 * Text XML, asking for a text XML reply.
+		 */
+		XML,
+
+		/**
+		 * Text XML, asking for a FastInfoset reply.
+		 */
+		FASTINFOSET,
+
+		/**
+		 * An MTOM message, which is answered with one.
+		 */
+		MTOM
+	}
+
+	/**
+	 * A published endpoint with the store and write-ahead log it serves.
+	 *
+	 * @param endpoint The published endpoint.
+	 * @param address  The address it is published at.
+	 * @param store    The members it serves.
+	 * @param log      The log its inserts are written to.
+	 */
+	record Side(Endpoint endpoint, String address, MemberStore store, WriteAheadLog log) {
+	}
+
+	/**
+	 * Prevents instantiation, as the class only has static methods.
+	 */
+	private TestEndpoints() {
+	}
+
+	/**
+	 * Publishes an endpoint on a free local port over a fresh copy of the sample
+	 * data.
+	 *
+	 * @param directory The directory to copy the sample data into.
+	 * @param name      The name of the endpoint's directory.
+	 * @param endpoint  The endpoint.
+	 * @return The published endpoint.
+	 * @throws IOException If the sample data cannot be copied or a port found.
+	 */
+	static Side publish(Path directory, String name, Endpoint endpoint) throws IOException {
+		Path csv = Files.createDirectory(directory.resolve(name)).resolve("people-100.csv");
+		Files.copy(Paths.get("data", "people-100.csv"), csv);
+		WriteAheadLog log = WriteAheadLog.open(csv + ".wal", csv.toString());
+		MemberStore store = CsvReadWrite.readDataFromCSV(csv.toString());
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		String address = "http://localhost:" + port + PATH;
+		endpoint.publish(address);
+		return new Side(endpoint, address, store, log);
+	}
+
+	/**
+	 * Stops endpoints, closes their logs and gives the service an empty store.
+	 *
+	 * @param sides The endpoints, any of which may be null.
+	 */
+	static void stop(Side... sides) {
+		for (Side side : sides) {
+			if (side != null) {
+				side.endpoint().stop();
+				side.log().close();
+			}
+		}
+		DatabaseServerImpl.memberStore = new MemberStore();
+		DatabaseServerImpl.writeAheadLog = null;
+		DatabaseServerImpl.queryCache.clear();
+	}
+
+	/**
+	 * Sends a request to an endpoint, first making its store, log and an empty
+	 * query cache the ones the service uses.
+	 *
+	 * @param side     The endpoint.
+	 * @param envelope The request's SOAP envelope.
+	 * @param encoding How to send the request.
+	 * @return The reply.
+	 * @throws Exception If the endpoint cannot be reached.
+	 */
+	static HttpResponse<byte[]> post(Side side, String envelope, Encoding encoding) throws Exception {
+		DatabaseServerImpl.memberStore = side.store();
+		DatabaseServerImpl.writeAheadLog = side.log();
+		DatabaseServerImpl.queryCache.clear();
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(side.address()))
+				.timeout(Duration.ofSeconds(60)).header("SOAPAction", "\"\"");
+		if (encoding == Encoding.MTOM) {
+			request.header("Content-Type", "multipart/related; type=\"application/xop+xml\"; boundary=\""
+					+ BOUNDARY + "\"; start=\"<root>\"; start-info=\"text/xml\"")
+					.POST(HttpRequest.BodyPublishers.ofString("--" + BOUNDARY + "\r\nContent-Id: <root>\r\n"
+							+ "Content-Type: application/xop+xml; charset=utf-8; type=\"text/xml\"\r\n\r\n"
+							+ envelope + "\r\n--" + BOUNDARY + "--\r\n", StandardCharsets.UTF_8));
+		} else {
+			request.header("Content-Type", "text/xml; charset=utf-8")
+					.header("Accept",
+							encoding == Encoding.FASTINFOSET ? "application/fastinfoset, text/xml" : "text/xml")
+					.POST(HttpRequest.BodyPublishers.ofString(envelope, StandardCharsets.UTF_8));
+		}
+		return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	/**
+	 * Fetches a metadata document from an endpoint.
+	 *
+	 * @param side  The endpoint.
+	 * @param query The query naming the document, such as wsdl.
+	 * @return The reply.
+	 * @throws Exception If the endpoint cannot be reached.
+	 */
+	static HttpResponse<byte[]> get(Side side, String query) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(side.address() + "?" + query))
+				.timeout(Duration.ofSeconds(60)).GET().build();
+		return CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	/**
+	 * Compares two replies, apart from the random UUIDs of MTOM messages.
+	 *
+	 * @param expected The reply expected.
+	 * @param actual   The reply to check.
+	 * @return Where the replies first differ, or null if they are identical.
+	 */
+	static String compare(HttpResponse<byte[]> expected, HttpResponse<byte[]> actual) {
+		byte[] expectedBody = expected.body();
+		byte[] actualBody = actual.body();
+		String expectedType = withoutUuids(expected.headers().firstValue("Content-Type").orElse(""));
+		String actualType = withoutUuids(actual.headers().firstValue("Content-Type").orElse(""));
+		if (expectedType.startsWith("multipart/")) {
+			expectedBody = withoutUuids(expectedBody);
+			actualBody = withoutUuids(actualBody);
+		}
+		if (expected.statusCode() != actual.statusCode()) {
+			return "status " + actual.statusCode() + ", expected " + expected.statusCode();
+		}
+		if (!expectedType.equals(actualType)) {
+			return "content type " + actualType + ", expected " + expectedType;
+		}
+		int mismatch = Arrays.mismatch(expectedBody, actualBody);
+		if (mismatch < 0) {
+			return null;
+		}
+		return "byte " + mismatch + " of " + actualBody.length + ", expected " + expectedBody.length
+				+ " bytes\n  expected: " + excerpt(expectedBody, mismatch) + "\n  actual:   "
+				+ excerpt(actualBody, mismatch);
+	}
+
+	/**
+	 * Builds the SOAP envelope of a request.
+	 *
+	 * @param operation The operation to call.
+	 * @param arguments The argument elements, already escaped.
+	 * @return The envelope.
+	 */
+	static String envelope(String operation, String arguments) {
+		return "<S:Envelope xmlns:S=\"http://schemas.xmlsoap.org/soap/envelope/\"><S:Body><ns2:" + operation
+				+ " xmlns:ns2=\"" + NAMESPACE + "\">" + arguments + "</ns2:" + operation + "></S:Body></S:Envelope>";
+	}
+
+	/**
+	 * Builds the arguments of a findMembers or countMembers request. Empty
+	 * values leave a filter out.
+	 *
+	 * @param sex       The sex.
+	 * @param category  The employment category.
+	 * @param startDate The earliest date of birth.
+	 * @param endDate   The latest date of birth.
+	 * @param prefix    The staff ID prefix.
+	 * @return The argument elements.
+	 */
+	static String filter(String sex, String category, String startDate, String endDate, String prefix) {
+		return element("sex", sex) + element("category", category) + element("startDate", startDate)
+				+ element("endDate", endDate) + element("staffIdPrefix", prefix);
+	}
+
+	/**
+	 * Builds the fields of a new record whose text needs escaping, with one field
+	 * replaced if asked. The field to make invalid is chosen by its position
+	 * in the request: 4 for sex, 5 for email, 6 for phone number and 7 for date
+	 * of birth.
+	 *
+	 * @param number  The number of the new record, from 0.
+	 * @param field   The position of the field to replace.
+	 * @param invalid The value to replace it with, or null to keep every field.
+	 * @return The argument elements.
+	 */
+	static String record(int number, int field, String invalid) {
+		DatabaseMember member = TestMembers.member(number);
+		String[] values = { member.getId(), "Ann & <Co>", "Lee \"q\"\tx", number % 2 == 0 ? "Male" : "Female",
+				member.getEmail(), member.getPhoneNumber(), member.getDateOfBirth(), "Lawyer \uD83D\uDE00" };
+		if (invalid != null) {
+			values[field - 1] = invalid;
+		}
+		return element("id", values[0]) + element("firstName", values[1]) + element("lastName", values[2])
+				+ element("sex", values[3]) + element("email", values[4]) + element("phoneNumber", values[5])
+				+ element("dateOfBirth", values[6]) + element("employmentType", values[7]);
+	}
+
+	/**
+	 * Builds an XML element with escaped text content.
+	 *
+	 * @param name  The element name.
+	 * @param value The text content.
+	 * @return The element.
+	 */
+	static String element(String name, String value) {
+		return "<" + name + ">" + value.replace("&", "&amp;").replace("<", "&lt;") + "</" + name + ">";
+	}
+
+	/**
+	 * Builds an XML element around content that is already XML.
+	 *
+	 * @param name    The element name.
+	 * @param content The content.
+	 * @return The element.
+	 */
+	static String nested(String name, String content) {
+		return "<" + name + ">" + content + "</" + name + ">";
+	}
+
+	/**
+	 * Replaces the UUIDs in text with a fixed string.
+	 *
+	 * @param text The text.
+	 * @return The text without UUIDs.
+	 */
+	private static String withoutUuids(String text) {
+		return UUID.matcher(text).replaceAll("uuid");
+	}
+
+	/**
+	 * Replaces the UUIDs in a reply with a fixed string. The reply is read as
+	 * ISO-8859-1, so any binary content is kept as it is.
+	 *
+	 * @param body The reply.
+	 * @return The reply without UUIDs.
+	 */
+	private static byte[] withoutUuids(byte[] body) {
+		return withoutUuids(new String(body, StandardCharsets.ISO_8859_1)).getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Gets the bytes around a position of a reply, as text with control
+	 * characters shown in hexadecimal.
+	 *
+	 * @param body     The reply.
+	 * @param position The position.
+	 * @return The excerpt.
+	 */
+	private static String excerpt(byte[] body, int position) {
+		StringBuilder excerpt = new StringBuilder();
+		for (int i = Math.max(0, position - 40); i < Math.min(body.length, position + 40); i++) {
+			int b = body[i] & 0xFF;
+			excerpt.append(b >= 0x20 && b < 0x7F ? String.valueOf((char) b) : String.format("\\x%02x", b));
+		}
+		return excerpt.toString();
+	}
+}
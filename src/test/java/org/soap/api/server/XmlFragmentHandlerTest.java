@@ -0,0 +1,204 @@
+/**
+ * The XmlFragmentHandlerTest file is responsible for checking that list responses written from XML fragments match the JAXB endpoint's.
+ */
+package org.soap.api.server;
+
+import com.sun.xml.ws.api.fastinfoset.FastInfosetFeature;
+import jakarta.xml.ws.Endpoint;
+import jakarta.xml.ws.soap.MTOMFeature;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.soap.api.store.FragmentCache;
+import org.soap.api.utils.Constants;
+import org.soap.api.utils.TestMembers;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.soap.api.server.TestEndpoints.KNOWN_ID;
+import static org.soap.api.server.TestEndpoints.KNOWN_YEAR;
+import static org.soap.api.server.TestEndpoints.element;
+import static org.soap.api.server.TestEndpoints.filter;
+import static org.soap.api.server.TestEndpoints.nested;
+import static org.soap.api.server.TestEndpoints.record;
+
+/**
+ * The XmlFragmentHandlerTest class publishes two JAXB endpoints side by side in
+ * this JVM, one with the {@link XmlFragmentHandler} installed as
+ * {@link DatabaseServerPublisher} installs it and one without, and sends both
+ * the same requests in text XML, FastInfoset and MTOM. Every reply written
+ * from cached fragments must match the plain endpoint's byte for byte.
+ *
+ * <p>
+ * Members whose fields need escaping are inserted first, so the list replies
+ * hold them. Every request is sent twice, and the second text XML reply to a
+ * list request must be written from fragments already in the
+ * {@link FragmentCache}, without encoding any member again.
+ * </p>
+ *
+ * <p>
+ * The list operations only hand their result to the handler when
+ * {@link Constants#XML_FRAGMENTS_ENABLED} is set, which is read once, so the
+ * build runs this class in a JVM of its own started with
+ * -Dsoap.xml.fragments=true.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class XmlFragmentHandlerTest {
+
+	/**
+	 * Employment categories accepted by getRecordByEmploymentCategory.
+	 */
+	private static final String[] CATEGORIES = { "Healthcare", "Engineering & Technology", "Science & Research",
+			"Management & Consulting", "Media & Journalism", "Legal", "Psychology & Counseling", "Finance",
+			"History & Archaeology", "Design & Art", "Education" };
+
+	/**
+	 * A request to send.
+	 *
+	 * @param operation The operation to call.
+	 * @param envelope  The SOAP envelope.
+	 * @param list      Whether a successful reply is written from fragments.
+	 */
+	private record Request(String operation, String envelope, boolean list) {
+	}
+
+	/**
+	 * Directory holding each endpoint's copy of the sample data.
+	 */
+	@TempDir
+	static Path directory;
+
+	private static TestEndpoints.Side jaxb; // The plain JAXB endpoint, whose replies are expected.
+
+	private static TestEndpoints.Side fragments; // The endpoint writing list replies from fragments.
+
+	/**
+	 * Publishes both endpoints, each on its own copy of the sample data.
+	 *
+	 * @throws IOException If the sample data cannot be copied or a port found.
+	 */
+	@BeforeAll
+	static void publish() throws IOException {
+		assertTrue(Constants.XML_FRAGMENTS_ENABLED, "run with -D" + Constants.XML_FRAGMENTS_PROPERTY + "=true");
+		FastInfosetFeature fastInfoset = new FastInfosetFeature(true);
+		MTOMFeature mtom = new MTOMFeature(true);
+		jaxb = TestEndpoints.publish(directory, "jaxb",
+				Endpoint.create(new DatabaseServerImpl(), fastInfoset, mtom));
+		Endpoint endpoint = Endpoint.create(new DatabaseServerImpl(), fastInfoset, mtom);
+		endpoint.getBinding().setHandlerChain(List.of(new XmlFragmentHandler()));
+		fragments = TestEndpoints.publish(directory, "fragments", endpoint);
+	}
+
+	/**
+	 * Stops both endpoints and closes their logs.
+	 */
+	@AfterAll
+	static void stop() {
+		TestEndpoints.stop(jaxb, fragments);
+	}
+
+	/**
+	 * Sends every request twice to both endpoints in every encoding and checks
+	 * the replies are identical, and that the second text XML reply to a list
+	 * request is written from cached fragments.
+	 *
+	 * @throws Exception If an endpoint cannot be reached.
+	 */
+	@Test
+	void repliesAsThePlainEndpointDoes() throws Exception {
+		List<String> differences = new ArrayList<>();
+		FragmentCache cache = fragments.store().getFragmentCache();
+		int listReplies = 0;
+		List<Request> requests = requests();
+		for (int i = 0; i < requests.size(); i++) {
+			Request request = requests.get(i);
+			for (TestEndpoints.Encoding encoding : TestEndpoints.Encoding.values()) {
+				for (int attempt = 1; attempt <= 2; attempt++) {
+					String name = String.format("%02d %s (%s, attempt %d)", i, request.operation(),
+							encoding.name().toLowerCase(Locale.ROOT), attempt);
+					long hits = cache.getHits();
+					long misses = cache.getMisses();
+					HttpResponse<byte[]> expected = TestEndpoints.post(jaxb, request.envelope(), encoding);
+					HttpResponse<byte[]> actual = TestEndpoints.post(fragments, request.envelope(), encoding);
+					String difference = TestEndpoints.compare(expected, actual);
+					if (difference != null) {
+						differences.add(name + ": " + difference);
+					}
+					if (request.list() && encoding == TestEndpoints.Encoding.XML && attempt == 2
+							&& expected.statusCode() == 200) {
+						listReplies++;
+						if (cache.getHits() == hits || cache.getMisses() != misses) {
+							differences.add(name + ": " + (cache.getHits() - hits) + " fragment hits and "
+									+ (cache.getMisses() - misses) + " misses, expected only hits");
+						}
+					}
+				}
+			}
+		}
+		assertEquals(List.of(), differences);
+		assertTrue(listReplies > 0, "no list request succeeded");
+		assertTrue(cache.getHits() > 0);
+		assertEquals(0, jaxb.store().getFragmentCache().getFragments(), "the plain endpoint encodes no fragments");
+		assertEquals(jaxb.store().size(), fragments.store().size());
+	}
+
+	/**
+	 * Builds the requests, in the order they are sent. Inserts come first, so the
+	 * list replies hold members whose fields need escaping.
+	 *
+	 * @return The requests.
+	 */
+	private static List<Request> requests() {
+		List<Request> requests = new ArrayList<>();
+		add(requests, false, "createNewDatabaseRecord", record(0, 5, null));
+		add(requests, false, "createNewDatabaseRecords",
+				nested("records", record(1, 5, null)) + nested("records", record(2, 5, null)));
+		add(requests, true, "getDatabaseWithinAgeRange",
+				element("startDate", KNOWN_YEAR + "-01-01") + element("endDate", KNOWN_YEAR + "-12-31"));
+		add(requests, true, "getDatabaseWithinAgeRange",
+				element("startDate", "1900-01-01") + element("endDate", "2020-12-31"));
+		add(requests, true, "getDatabaseWithinAgeRange",
+				element("startDate", "2200-01-01") + element("endDate", "2201-01-01"));
+		for (String category : CATEGORIES) {
+			add(requests, true, "getRecordByEmploymentCategory", element("category", category));
+		}
+		add(requests, true, "getRecordByEmploymentCategory", element("category", "Nope"));
+		add(requests, true, "getDatabaseRecordBySex", element("sex", "Female"));
+		add(requests, true, "getDatabaseRecordBySex", element("sex", "Male"));
+		add(requests, true, "findMembers", filter("Female", "Legal", "", "", ""));
+		add(requests, true, "findMembers", filter("", "", "", "", KNOWN_ID.substring(0, 4)));
+		add(requests, true, "findMembers", filter("", "", "", "", TestMembers.staffId(0).substring(0, 6)));
+		add(requests, true, "findMembers", filter("", "", KNOWN_YEAR + "-01-01", KNOWN_YEAR + "-12-31", ""));
+		add(requests, true, "findMembers", filter("Q", "", "", "", ""));
+		add(requests, false, "getDatabaseRecordBySexPage", element("sex", "Male") + element("pageSize", "5"));
+		add(requests, false, "getRecordByEmploymentCategoryPage",
+				element("category", "Legal") + element("pageSize", "3") + element("pageToken", ""));
+		add(requests, false, "getDatabaseByStaffId", element("staffId", TestMembers.staffId(1)));
+		return requests;
+	}
+
+	/**
+	 * Adds a request to the list.
+	 *
+	 * @param requests  The requests.
+	 * @param list      Whether a successful reply is written from fragments.
+	 * @param operation The operation to call.
+	 * @param arguments The argument elements, already escaped.
+	 */
+	private static void add(List<Request> requests, boolean list, String operation, String arguments) {
+		requests.add(new Request(operation, TestEndpoints.envelope(operation, arguments), list));
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * The MemberStoreTest file is responsible for checking the member store's queries and its readers during writes.
+ */
+package org.soap.api.store;
+
+import org.junit.jupiter.api.Test;
+import org.soap.api.exceptions.InvalidDateException;
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.EmploymentCategory;
+import org.soap.api.models.Sex;
+import org.soap.api.utils.TestMembers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The MemberStoreTest class checks {@link MemberStore}: that readers running
+ * while a writer adds members only ever see complete, consistent snapshots,
+ * that duplicate staff IDs are skipped, and that counts agree with the
+ * members found for the same filters.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class MemberStoreTest {
+
+	/**
+	 * Checks that readers running alongside a writer always see rows, indexes and
+	 * counts that agree with each other.
+	 *
+	 * @throws Exception If a reader or the writer fails.
+	 */
+	@Test
+	void readersSeeConsistentSnapshotsDuringWrites() throws Exception {
+		MemberStore store = new MemberStore();
+		int total = 20_000;
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<Integer>> readers = new ArrayList<>();
+			for (int reader = 0; reader < 4; reader++) {
+				long seed = reader;
+				readers.add(executor.submit(() -> read(store, writing, new Random(seed))));
+			}
+			Future<?> writer = executor.submit(() -> {
+				Random random = new Random(42);
+				try {
+					for (int next = 0; next < total;) {
+						List<DatabaseMember> batch = new ArrayList<>();
+						for (int i = 0, size = 1 + random.nextInt(64); i < size && next < total; i++) {
+							batch.add(TestMembers.member(next++));
+						}
+						boolean[] added = store.addAll(batch);
+						for (boolean memberAdded : added) {
+							assertTrue(memberAdded);
+						}
+					}
+				} finally {
+					writing.set(false);
+				}
+				return null;
+			});
+			writer.get(120, TimeUnit.SECONDS);
+			for (Future<Integer> reader : readers) {
+				assertTrue(reader.get(120, TimeUnit.SECONDS) > 0);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(total, store.size());
+		assertEquals(total, store.getCounts().getTotal());
+		for (Sex sex : Sex.values()) {
+			assertEquals(store.getBySex(sex).size(), store.count(new MemberQuery(sex, null, MemberQuery.EARLIEST,
+					MemberQuery.LATEST, null)));
+		}
+	}
+
+	/**
+	 * Reads the store over and over until the writer has finished, checking each
+	 * snapshot.
+	 *
+	 * @param store   The store.
+	 * @param writing Whether the writer is still adding members.
+	 * @param random  Chooses the rows and ranges to read.
+	 * @return The number of snapshots checked.
+	 */
+	private static int read(MemberStore store, AtomicBoolean writing, Random random) {
+		int checked = 0;
+		int lastTotal = 0;
+		while (writing.get() || checked == 0) {
+			int size = store.size();
+			if (size > 0) {
+				int row = random.nextInt(size);
+				DatabaseMember member = store.get(row);
+				assertNotNull(member);
+				assertEquals(TestMembers.staffId(row), member.getId());
+				assertEquals(member.getId(), store.getByStaffId(TestMembers.staffId(row)).getId());
+			}
+
+			MemberCounts counts = store.getCounts();
+			int total = counts.getTotal();
+			assertTrue(total >= lastTotal, "counts never go back");
+			lastTotal = total;
+			int byCategory = 0;
+			for (EmploymentCategory category : EmploymentCategory.values()) {
+				byCategory += counts.getCount(category);
+			}
+			int bySex = 0;
+			for (Sex sex : Sex.values()) {
+				bySex += counts.getCount(sex);
+			}
+			int byYear = 0;
+			for (int year = counts.getFirstYear(); year <= counts.getLastYear(); year++) {
+				byYear += counts.getBornIn(year);
+			}
+			assertEquals(total, byCategory);
+			assertEquals(total, bySex);
+			assertEquals(total, byYear);
+			assertEquals(total, counts.countBornBetween(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+			Sex sex = Sex.values()[random.nextInt(Sex.values().length)];
+			int fromDay = (int) LocalDate.of(1940, 1, 1).toEpochDay() + random.nextInt(25_000);
+			int toDay = fromDay + random.nextInt(2_000);
+			for (DatabaseMember found : store.find(new MemberQuery(sex, null, fromDay, toDay, null))) {
+				assertEquals(sex, found.getSex());
+				long day = LocalDate.parse(found.getDateOfBirth()).toEpochDay();
+				assertTrue(day >= fromDay && day <= toDay);
+			}
+
+			Set<String> seen = new HashSet<>();
+			long position = MemberStore.FIRST_PAGE;
+			do {
+				MemberStore.Page page = store.getBySex(sex, position, 500);
+				for (DatabaseMember found : page.getMembers()) {
+					assertEquals(sex, found.getSex());
+					assertTrue(seen.add(found.getId()), "no member is paged twice");
+				}
+				position = page.hasNext() ? page.getNext() : MemberStore.FIRST_PAGE;
+			} while (position != MemberStore.FIRST_PAGE);
+			checked++;
+		}
+		return checked;
+	}
+
+	/**
+	 * Checks that a member whose staff ID is already stored, in any letter case,
+	 * is skipped.
+	 *
+	 * @throws Exception If a member cannot be built or added.
+	 */
+	@Test
+	void skipsDuplicateStaffIds() throws Exception {
+		MemberStore store = new MemberStore();
+		assertTrue(store.add(TestMembers.member(1)));
+		assertFalse(store.add(TestMembers.member(1)));
+		DatabaseMember upperCase = TestMembers.member(1);
+		upperCase.setId(upperCase.getId().toUpperCase());
+		assertFalse(store.add(upperCase));
+		DatabaseMember first = TestMembers.member(2);
+		assertArrayEquals(new boolean[] { true, false }, store.addAll(List.of(first, TestMembers.member(2))));
+		assertEquals(2, store.size());
+		assertNull(store.getByStaffId(TestMembers.staffId(3)));
+	}
+
+	/**
+	 * Checks that counting gives the number of members found, for every
+	 * combination of filters, including a date range alone.
+	 *
+	 * @throws InvalidDateException If a date of birth cannot be parsed.
+	 */
+	@Test
+	void countsWhatFindReturns() throws InvalidDateException {
+		MemberStore store = new MemberStore();
+		List<DatabaseMember> members = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) {
+			members.add(TestMembers.member(i));
+		}
+		store.addAll(members);
+		Random random = new Random(7);
+		for (int i = 0; i < 500; i++) {
+			Sex sex = random.nextBoolean() ? null : Sex.values()[random.nextInt(Sex.values().length)];
+			EmploymentCategory category = random.nextBoolean() ? null
+					: EmploymentCategory.values()[random.nextInt(EmploymentCategory.values().length)];
+			int fromDay = MemberQuery.EARLIEST;
+			int toDay = MemberQuery.LATEST;
+			if (random.nextBoolean()) {
+				fromDay = (int) LocalDate.of(1940, 1, 1).toEpochDay() + random.nextInt(25_000);
+				toDay = fromDay + random.nextInt(3_000);
+			}
+			String prefix = random.nextInt(4) == 0 ? TestMembers.staffId(random.nextInt(5_000)).substring(0, 13) : null;
+			MemberQuery query = new MemberQuery(sex, category, fromDay, toDay, prefix);
+			assertEquals(store.find(query).size(), store.count(query));
+		}
+	}
+}
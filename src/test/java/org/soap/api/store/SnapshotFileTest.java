@@ -0,0 +1,191 @@
+/**
+ * The SnapshotFileTest file is responsible for checking that snapshots round trip and that stale or corrupt ones are ignored.
+ */
+package org.soap.api.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.soap.api.utils.TestMembers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The SnapshotFileTest class checks {@link SnapshotFile}: a snapshot gives
+ * back the store it was written from, lines appended to the CSV file since are
+ * added, and a snapshot that is missing, corrupt or no longer matches the CSV
+ * file is not used.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class SnapshotFileTest {
+
+	/**
+	 * Number of members in the CSV file written by these tests.
+	 */
+	private static final int MEMBERS = 2_000;
+
+	/**
+	 * Directory holding the files of each test.
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * Checks that a snapshot gives back every member and count of the store it
+	 * was written from.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void readsBackTheStoreItWasWrittenFrom() throws IOException {
+		Path csv = writeCsv(MEMBERS);
+		MemberStore loaded = load(csv);
+		Path snapshot = directory.resolve("members.snapshot");
+		SnapshotFile.write(loaded, snapshot.toString(), csv.toString());
+
+		MemberStore read = SnapshotFile.read(snapshot.toString(), csv.toString());
+		assertNotNull(read);
+		assertSameMembers(loaded, read);
+		assertEquals(loaded.getCounts().getTotal(), read.getCounts().getTotal());
+		assertEquals(loaded.getCounts().getFirstYear(), read.getCounts().getFirstYear());
+		assertEquals(loaded.getCounts().getLastYear(), read.getCounts().getLastYear());
+	}
+
+	/**
+	 * Checks that lines appended to the CSV file after the snapshot was written
+	 * are added to the store read from it.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void addsLinesAppendedSinceTheSnapshot() throws IOException {
+		Path csv = writeCsv(MEMBERS);
+		Path snapshot = directory.resolve("members.snapshot");
+		SnapshotFile.write(load(csv), snapshot.toString(), csv.toString());
+		Files.writeString(csv, TestMembers.line(MEMBERS) + TestMembers.line(MEMBERS + 1), StandardOpenOption.APPEND);
+
+		MemberStore read = SnapshotFile.read(snapshot.toString(), csv.toString());
+		assertNotNull(read);
+		assertSameMembers(load(csv), read);
+		assertNotNull(read.getByStaffId(TestMembers.staffId(MEMBERS + 1)));
+
+		MemberStore reread = SnapshotFile.read(snapshot.toString(), csv.toString());
+		assertNotNull(reread, "the snapshot is rewritten to cover the appended lines");
+		assertSameMembers(read, reread);
+	}
+
+	/**
+	 * Checks that a snapshot is not used once a byte of the CSV file it covers has
+	 * changed, or the CSV file has become shorter.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void ignoresASnapshotOfChangedCsvContent() throws IOException {
+		Path csv = writeCsv(MEMBERS);
+		Path snapshot = directory.resolve("members.snapshot");
+		SnapshotFile.write(load(csv), snapshot.toString(), csv.toString());
+
+		String content = Files.readString(csv);
+		int position = content.indexOf("First7,");
+		Files.writeString(csv, content.substring(0, position) + "Furst7," + content.substring(position + 7));
+		assertNull(SnapshotFile.read(snapshot.toString(), csv.toString()));
+
+		Files.writeString(csv, content.substring(0, content.length() - 10));
+		assertNull(SnapshotFile.read(snapshot.toString(), csv.toString()));
+	}
+
+	/**
+	 * Checks that a snapshot with any damaged byte, or a truncated one, is not
+	 * used.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void ignoresACorruptSnapshot() throws IOException {
+		Path csv = writeCsv(MEMBERS);
+		Path snapshot = directory.resolve("members.snapshot");
+		SnapshotFile.write(load(csv), snapshot.toString(), csv.toString());
+		byte[] bytes = Files.readAllBytes(snapshot);
+
+		for (int position : new int[] { 0, 12, 40, bytes.length / 2, bytes.length - 1 }) {
+			byte[] damaged = bytes.clone();
+			damaged[position] ^= 0x10;
+			Files.write(snapshot, damaged);
+			assertNull(SnapshotFile.read(snapshot.toString(), csv.toString()), "byte " + position);
+		}
+		Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 1));
+		assertNull(SnapshotFile.read(snapshot.toString(), csv.toString()));
+
+		Files.write(snapshot, bytes);
+		assertNotNull(SnapshotFile.read(snapshot.toString(), csv.toString()));
+	}
+
+	/**
+	 * Checks that a missing snapshot gives no store.
+	 *
+	 * @throws IOException If the CSV file cannot be written.
+	 */
+	@Test
+	void ignoresAMissingSnapshot() throws IOException {
+		Path csv = writeCsv(10);
+		assertNull(SnapshotFile.read(directory.resolve("missing.snapshot").toString(), csv.toString()));
+	}
+
+	/**
+	 * Asserts that two stores hold the same members in the same rows.
+	 *
+	 * @param expected The expected store.
+	 * @param actual   The store to check.
+	 */
+	private static void assertSameMembers(MemberStore expected, MemberStore actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int row = 0; row < expected.size(); row++) {
+			assertEquals(expected.get(row).toString(), actual.get(row).toString());
+			assertTrue(actual.containsStaffId(expected.get(row).getId()));
+		}
+	}
+
+	/**
+	 * Loads a CSV file, which must have no problems.
+	 *
+	 * @param csv The path of the CSV file.
+	 * @return The store.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static MemberStore load(Path csv) throws IOException {
+		List<String> problems = new ArrayList<>();
+		MemberStore store = CsvLoader.load(csv.toString(), problems);
+		assertEquals(List.of(), problems);
+		return store;
+	}
+
+	/**
+	 * Writes a CSV file of generated members.
+	 *
+	 * @param members The number of members.
+	 * @return The path of the CSV file.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private Path writeCsv(int members) throws IOException {
+		StringBuilder csv = new StringBuilder(TestMembers.HEADER);
+		for (int i = 0; i < members; i++) {
+			csv.append(TestMembers.line(i));
+		}
+		return Files.writeString(directory.resolve("members.csv"), csv);
+	}
+}
@@ -0,0 +1,219 @@
+/**
+ * The WriteAheadLogTest file is responsible for checking that the write-ahead log checkpoints and recovers after a crash.
+ */
+package org.soap.api.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.soap.api.utils.TestMembers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The WriteAheadLogTest class checks {@link WriteAheadLog}: appended lines
+ * reach the CSV file at a checkpoint, and a log left by a crash, whether its
+ * last record is torn or a checkpoint was cut short, is recovered into a CSV
+ * file holding every complete record exactly once.
+ *
+ * <p>
+ * A crash is simulated by copying the log and the CSV file while the log is
+ * open, then opening the copies.
+ * </p>
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class WriteAheadLogTest {
+
+	/**
+	 * Lines appended by these tests, one record each.
+	 */
+	private static final String[] LINES = { TestMembers.line(0), TestMembers.line(1), TestMembers.line(2) };
+
+	/**
+	 * Directory holding the files of each test.
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * Checks that appended lines are written to the CSV file by a checkpoint,
+	 * which empties the log.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void checkpointAppendsTheLinesToTheCsvFile() throws IOException {
+		Path csv = writeCsv(directory);
+		WriteAheadLog log = WriteAheadLog.open(directory.resolve("wal").toString(), csv.toString());
+		long emptySize = log.getSizeInBytes();
+		try {
+			assertTrue(log.append(payloads(LINES[0], LINES[1])));
+			assertTrue(log.append(payloads(LINES[2])));
+			assertEquals(3, log.getRecords());
+			assertTrue(log.getSizeInBytes() > emptySize);
+			assertEquals(TestMembers.HEADER, Files.readString(csv),
+					"nothing reaches the CSV file before a checkpoint");
+
+			log.checkpoint();
+			assertEquals(TestMembers.HEADER + LINES[0] + LINES[1] + LINES[2], Files.readString(csv));
+			assertEquals(1, log.getCheckpoints());
+			assertEquals(emptySize, log.getSizeInBytes());
+
+			log.checkpoint();
+			assertEquals(1, log.getCheckpoints(), "an empty log is not checkpointed");
+		} finally {
+			log.close();
+		}
+		assertEquals(0, log.getFailedAppends() + log.getFailedCheckpoints());
+		assertEquals(TestMembers.HEADER + LINES[0] + LINES[1] + LINES[2], Files.readString(csv));
+	}
+
+	/**
+	 * Checks that the complete records of a log left by a crash are recovered and
+	 * a torn last record is dropped, wherever it was cut.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void dropsATornLastRecordOnRecovery() throws IOException {
+		Path csv = writeCsv(directory);
+		Path logFile = directory.resolve("wal");
+		WriteAheadLog log = WriteAheadLog.open(logFile.toString(), csv.toString());
+		try {
+			for (String line : LINES) {
+				assertTrue(log.append(payloads(line)));
+			}
+			int lastRecord = LINES[2].getBytes(StandardCharsets.UTF_8).length + 8;
+			for (int cut = 1; cut < lastRecord; cut++) {
+				Path crashed = Files.createDirectory(directory.resolve("crash" + cut));
+				Path crashedCsv = Files.copy(csv, crashed.resolve("members.csv"));
+				Path crashedLog = Files.copy(logFile, crashed.resolve("wal"));
+				try (FileChannel channel = FileChannel.open(crashedLog, StandardOpenOption.WRITE)) {
+					channel.truncate(channel.size() - cut);
+				}
+				WriteAheadLog recovered = WriteAheadLog.open(crashedLog.toString(), crashedCsv.toString());
+				recovered.close();
+				assertEquals(TestMembers.HEADER + LINES[0] + LINES[1], Files.readString(crashedCsv),
+						"cut " + cut);
+			}
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * Checks that recovery stops at a record whose checksum does not match.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void stopsAtACorruptRecordOnRecovery() throws IOException {
+		Path csv = writeCsv(directory);
+		Path logFile = directory.resolve("wal");
+		WriteAheadLog log = WriteAheadLog.open(logFile.toString(), csv.toString());
+		try {
+			for (String line : LINES) {
+				assertTrue(log.append(payloads(line)));
+			}
+			Path crashed = Files.createDirectory(directory.resolve("crash"));
+			Path crashedCsv = Files.copy(csv, crashed.resolve("members.csv"));
+			Path crashedLog = Files.copy(logFile, crashed.resolve("wal"));
+			byte[] bytes = Files.readAllBytes(crashedLog);
+			int lastRecord = LINES[2].getBytes(StandardCharsets.UTF_8).length + 8;
+			bytes[bytes.length - lastRecord - 2] ^= 1; // Inside the payload of the second record.
+			Files.write(crashedLog, bytes);
+			WriteAheadLog.open(crashedLog.toString(), crashedCsv.toString()).close();
+			assertEquals(TestMembers.HEADER + LINES[0], Files.readString(crashedCsv));
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * Checks that a checkpoint cut short by a crash, having written part or all of
+	 * the records to the CSV file, is done again without duplicating lines.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void redoesACheckpointCutShortByACrash() throws IOException {
+		Path csv = writeCsv(directory);
+		Path logFile = directory.resolve("wal");
+		WriteAheadLog log = WriteAheadLog.open(logFile.toString(), csv.toString());
+		try {
+			assertTrue(log.append(payloads(LINES[0], LINES[1], LINES[2])));
+			String all = LINES[0] + LINES[1] + LINES[2];
+			for (int written : new int[] { 1, LINES[0].length(), all.length() - 1, all.length() }) {
+				Path crashed = Files.createDirectory(directory.resolve("crash" + written));
+				Path crashedCsv = Files.copy(csv, crashed.resolve("members.csv"));
+				Path crashedLog = Files.copy(logFile, crashed.resolve("wal"));
+				Files.writeString(crashedCsv, all.substring(0, written), StandardOpenOption.APPEND);
+				WriteAheadLog.open(crashedLog.toString(), crashedCsv.toString()).close();
+				assertEquals(TestMembers.HEADER + all, Files.readString(crashedCsv), "written " + written);
+			}
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * Checks that a recovered log continues from the recovered CSV file, so later
+	 * appends follow the recovered lines.
+	 *
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	@Test
+	void appendsAfterRecovery() throws IOException {
+		Path csv = writeCsv(directory);
+		Path logFile = directory.resolve("wal");
+		WriteAheadLog log = WriteAheadLog.open(logFile.toString(), csv.toString());
+		assertTrue(log.append(payloads(LINES[0])));
+		Path crashed = Files.createDirectory(directory.resolve("crash"));
+		Path crashedCsv = Files.copy(csv, crashed.resolve("members.csv"));
+		Path crashedLog = Files.copy(logFile, crashed.resolve("wal"));
+		log.close();
+
+		WriteAheadLog recovered = WriteAheadLog.open(crashedLog.toString(), crashedCsv.toString());
+		assertEquals(1, recovered.getCheckpoints());
+		assertTrue(recovered.append(payloads(LINES[1])));
+		recovered.close();
+		assertEquals(TestMembers.HEADER + LINES[0] + LINES[1], Files.readString(crashedCsv));
+	}
+
+	/**
+	 * Writes a CSV file holding only the header line.
+	 *
+	 * @param directory The directory to write it in.
+	 * @return The path of the CSV file.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private static Path writeCsv(Path directory) throws IOException {
+		return Files.writeString(directory.resolve("members.csv"), TestMembers.HEADER);
+	}
+
+	/**
+	 * Encodes lines as the payloads of one record each.
+	 *
+	 * @param lines The CSV lines, each ending with a line break.
+	 * @return The payloads.
+	 */
+	private static List<byte[]> payloads(String... lines) {
+		byte[][] payloads = new byte[lines.length][];
+		for (int i = 0; i < lines.length; i++) {
+			payloads[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+		}
+		return List.of(payloads);
+	}
+}
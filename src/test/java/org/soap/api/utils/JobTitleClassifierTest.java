@@ -0,0 +1,162 @@
+/**
+ * The JobTitleClassifierTest file is responsible for checking the job title classifier against the original if-chain.
+ */
+package org.soap.api.utils;
+
+import org.junit.jupiter.api.Test;
+import org.soap.api.models.EmploymentCategory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The JobTitleClassifierTest class checks that {@link JobTitleClassifier}
+ * gives the category the original chain of contains checks gave, for the
+ * job titles of the sample data and for generated titles that mix keywords of
+ * several categories, filler words and letter cases.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+class JobTitleClassifierTest {
+
+	/**
+	 * Keywords of the original chain.
+	 */
+	private static final String[] KEYWORDS = { "nurse", "pharmacist", "phytotherapist", "surgeon", "clinical",
+			"engineer", "technician", "developer", "scientist", "researcher", "hydrogeologist", "biochemist",
+			"manager", "consultant", "officer", "journalist", "editor", "lawyer", "barrister", "attorney",
+			"psychologist", "counsellor", "banker", "financial", "accountant", "archaeologist", "historian",
+			"designer", "artist", "teacher", "lecturer" };
+
+	/**
+	 * Words that match no keyword, or only part of one.
+	 */
+	private static final String[] FILLER = { "chief", "senior", "of", "the", "assistant", "nurs", "engine",
+			"edit", "art", "bank", "teach", "psych", "", " ", ",", "-", "é", "ß" };
+
+	/**
+	 * Checks the job titles of the sample data.
+	 *
+	 * @throws IOException If the sample data cannot be read.
+	 */
+	@Test
+	void classifiesSampleTitlesLikeTheOriginalChain() throws IOException {
+		List<String> lines = Files.readAllLines(Paths.get("data", "people-100.csv"), StandardCharsets.UTF_8);
+		List<String> titles = new ArrayList<>();
+		for (String line : lines.subList(1, lines.size())) {
+			String[] fields = line.split(",", 9);
+			if (fields.length == 9) {
+				titles.add(fields[8]);
+			}
+		}
+		for (String title : titles) {
+			assertClassifiedLikeChain(title);
+		}
+	}
+
+	/**
+	 * Checks every keyword on its own and in upper and title case.
+	 */
+	@Test
+	void classifiesKeywordsInAnyCase() {
+		for (String keyword : KEYWORDS) {
+			assertClassifiedLikeChain(keyword);
+			assertClassifiedLikeChain(keyword.toUpperCase());
+			assertClassifiedLikeChain(Character.toUpperCase(keyword.charAt(0)) + keyword.substring(1));
+		}
+		assertClassifiedLikeChain("");
+		assertEquals(EmploymentCategory.SCIENCE_RESEARCH, JobTitleClassifier.classify("Biochemist"));
+	}
+
+	/**
+	 * Checks generated titles joining several keywords and filler words, so
+	 * titles matching more than one category are covered.
+	 */
+	@Test
+	void classifiesMixedTitlesLikeTheOriginalChain() {
+		Random random = new Random(20231011);
+		for (int i = 0; i < 20_000; i++) {
+			StringBuilder title = new StringBuilder();
+			int words = 1 + random.nextInt(4);
+			for (int word = 0; word < words; word++) {
+				String[] source = random.nextInt(3) == 0 ? FILLER : KEYWORDS;
+				String next = source[random.nextInt(source.length)];
+				if (random.nextBoolean()) {
+					next = next.toUpperCase();
+				}
+				title.append(next);
+				if (random.nextBoolean()) {
+					title.append(' ');
+				}
+			}
+			assertClassifiedLikeChain(title.toString());
+		}
+	}
+
+	/**
+	 * Asserts that both forms of the classifier agree with the original chain.
+	 *
+	 * @param title The job title.
+	 */
+	private static void assertClassifiedLikeChain(String title) {
+		EmploymentCategory expected = originalCategory(title);
+		assertEquals(expected, JobTitleClassifier.classify(title), title);
+		byte[] bytes = ("x," + title + ",y").getBytes(StandardCharsets.UTF_8);
+		assertEquals(expected, JobTitleClassifier.classify(bytes, 2, bytes.length - 2), title);
+	}
+
+	/**
+	 * The original classification of a job title, as it was before
+	 * {@link JobTitleClassifier} replaced it, except that "biochemist" is checked
+	 * in lower case. The original checked "Biochemist" against the lowercased
+	 * title, so it never matched; the classifier fixed that on purpose.
+	 *
+	 * @param occupation The job title.
+	 * @return The employment category.
+	 */
+	private static EmploymentCategory originalCategory(String occupation) {
+		occupation = occupation.toLowerCase();
+
+		if (occupation.contains("nurse") || occupation.contains("pharmacist") || occupation.contains("phytotherapist")
+				|| occupation.contains("surgeon") || occupation.contains("clinical")) {
+			return EmploymentCategory.HEALTHCARE;
+		} else if (occupation.contains("engineer") || occupation.contains("technician")
+				|| occupation.contains("developer")) {
+			return EmploymentCategory.ENGINEERING_TECHNOLOGY;
+		} else if (occupation.contains("scientist") || occupation.contains("researcher")
+				|| occupation.contains("hydrogeologist") || occupation.contains("biochemist")) {
+			return EmploymentCategory.SCIENCE_RESEARCH;
+		} else if (occupation.contains("manager") || occupation.contains("consultant")
+				|| occupation.contains("officer")) {
+			return EmploymentCategory.MANAGEMENT_CONSULTING;
+		} else if (occupation.contains("journalist") || occupation.contains("editor")) {
+			return EmploymentCategory.MEDIA_JOURNALISM;
+		} else if (occupation.contains("lawyer") || occupation.contains("barrister")
+				|| occupation.contains("attorney")) {
+			return EmploymentCategory.LEGAL;
+		} else if (occupation.contains("psychologist") || occupation.contains("counsellor")) {
+			return EmploymentCategory.PSYCHOLOGY_COUNSELING;
+		} else if (occupation.contains("banker") || occupation.contains("financial")
+				|| occupation.contains("accountant")) {
+			return EmploymentCategory.FINANCE;
+		} else if (occupation.contains("archaeologist") || occupation.contains("historian")) {
+			return EmploymentCategory.HISTORY_ARCHEOLOGY;
+		} else if (occupation.contains("designer") || occupation.contains("artist")) {
+			return EmploymentCategory.DESIGN_ART;
+		} else if (occupation.contains("teacher") || occupation.contains("lecturer")) {
+			return EmploymentCategory.EDUCATION;
+		} else {
+			return EmploymentCategory.OTHER;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * The TestMembers file is responsible for generating the members and CSV lines the tests work with.
+ */
+package org.soap.api.utils;
+
+import org.soap.api.models.DatabaseMember;
+import org.soap.api.models.Sex;
+
+import java.time.LocalDate;
+
+/**
+ * The TestMembers class generates members for the tests. Every member is
+ * derived from its number alone, so the same number always gives the same
+ * member, whether it is built as a {@link DatabaseMember} or written as a CSV
+ * line, and no two numbers share a staff ID.
+ *
+ * @author Zac Healy
+ *
+ * @version 1.0
+ * @since 2023-10-11
+ */
+public class TestMembers {
+
+	/**
+	 * Header line of a CSV file, with its line break.
+	 */
+	public static final String HEADER = "Index,User Id,First Name,Last Name,Sex,Email,Phone,Date of birth,Job Title\n";
+
+	/**
+	 * Job titles given to the members, covering several categories.
+	 */
+	private static final String[] JOB_TITLES = { "Nurse", "Civil engineer", "Primary school teacher", "Barrister",
+			"Textile designer", "Clerk", "Research scientist", "Bank manager" };
+
+	/**
+	 * Gets the staff ID of a member: 15 lower case hexadecimal digits.
+	 *
+	 * @param number The number of the member, from 0.
+	 * @return The staff ID.
+	 */
+	public static String staffId(int number) {
+		return String.format("%015x", number * 104_729L);
+	}
+
+	/**
+	 * Gets the date of birth of a member, between 1940 and 2008.
+	 *
+	 * @param number The number of the member, from 0.
+	 * @return The date of birth.
+	 */
+	public static LocalDate dateOfBirth(int number) {
+		return LocalDate.of(1940, 1, 1).plusDays(number * 53L % 25_000);
+	}
+
+	/**
+	 * Builds a member.
+	 *
+	 * @param number The number of the member, from 0.
+	 * @return The member, with index number + 1.
+	 */
+	public static DatabaseMember member(int number) {
+		String jobTitle = JOB_TITLES[number % JOB_TITLES.length];
+		return new DatabaseMember(number + 1, staffId(number), "First" + number, "Last" + number,
+				number % 2 == 0 ? Sex.MALE : Sex.FEMALE, "member" + number + "@example.com", "555-" + number,
+				dateOfBirth(number).toString(), jobTitle, JobTitleClassifier.classify(jobTitle));
+	}
+
+	/**
+	 * Writes a member as a CSV line.
+	 *
+	 * @param number The number of the member, from 0.
+	 * @return The line, ending with a line break.
+	 */
+	public static String line(int number) {
+		DatabaseMember member = member(number);
+		return member.getIndex() + "," + member.getId() + "," + member.getFirstName() + "," + member.getLastName()
+				+ "," + (number % 2 == 0 ? "Male" : "Female") + "," + member.getEmail() + ","
+				+ member.getPhoneNumber() + "," + member.getDateOfBirth() + "," + member.getJobTitle() + "\n";
+	}
+}